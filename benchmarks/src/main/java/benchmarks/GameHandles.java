@@ -0,0 +1,117 @@
+package benchmarks;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Define a classe GameHandles, que dá aos benchmarks acesso às classes do jogo.
+ * As classes do jogo ficam no pacote padrão, que não pode ser importado por código em pacotes, e o JMH exige que os
+ * benchmarks estejam em um pacote. Por isso cada método usado é obtido uma única vez como MethodHandle; como os
+ * campos são estáticos e finais, o JIT trata os handles como constantes e os inlina como chamadas diretas.
+ * Os objetos do jogo circulam como Object, e os handles são chamados com invokeExact.
+ */
+final class GameHandles {
+
+    /** Busca usada para encontrar os construtores e métodos públicos do jogo.*/
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    /** new GameStatus(int size, int winLength), do tipo (int, int) Object.*/
+    static final MethodHandle NEW_GAME_STATUS = constructor("GameStatus", int.class, int.class);
+
+    /** GameStatus.makeMove(int position, char playerId), do tipo (Object, int, char) void.*/
+    static final MethodHandle MAKE_MOVE = method("GameStatus", "makeMove", void.class, int.class, char.class);
+
+    /** GameStatus.checkWinner(char playerId), do tipo (Object, char) boolean.*/
+    static final MethodHandle CHECK_WINNER = method("GameStatus", "checkWinner", boolean.class, char.class);
+
+    /** GameStatus.checkDraw(), do tipo (Object) boolean.*/
+    static final MethodHandle CHECK_DRAW = method("GameStatus", "checkDraw", boolean.class);
+
+    /** GameStatus.reset(), do tipo (Object) void.*/
+    static final MethodHandle RESET = method("GameStatus", "reset", void.class);
+
+    /** new ProtocolReader(InputStream), do tipo (InputStream) Object.*/
+    static final MethodHandle NEW_READER = constructor("ProtocolReader", InputStream.class);
+
+    /** ProtocolReader.next(), do tipo (Object) int.*/
+    static final MethodHandle NEXT = method("ProtocolReader", "next", int.class);
+
+    /** ProtocolReader.getPosition(), do tipo (Object) int.*/
+    static final MethodHandle GET_POSITION = method("ProtocolReader", "getPosition", int.class);
+
+    /** new ProtocolWriter(OutputStream), do tipo (OutputStream) Object.*/
+    static final MethodHandle NEW_WRITER = constructor("ProtocolWriter", OutputStream.class);
+
+    /** ProtocolWriter.negotiateBinary(), do tipo (Object) void.*/
+    static final MethodHandle NEGOTIATE_BINARY = method("ProtocolWriter", "negotiateBinary", void.class);
+
+    /** ProtocolWriter.writeMove(int position), do tipo (Object, int) void.*/
+    static final MethodHandle WRITE_MOVE = method("ProtocolWriter", "writeMove", void.class, int.class);
+
+    /** ProtocolWriter.flush(), do tipo (Object) void.*/
+    static final MethodHandle FLUSH = method("ProtocolWriter", "flush", void.class);
+
+    /** Valor de ProtocolReader.EOF.*/
+    static final int EOF = constant("ProtocolReader", "EOF");
+
+    /** Valor de ProtocolReader.NEGOTIATION.*/
+    static final int NEGOTIATION = constant("ProtocolReader", "NEGOTIATION");
+
+    /** Valor de BinaryProtocol.MOVE.*/
+    static final int MOVE = constant("BinaryProtocol", "MOVE");
+
+    /**
+     * Construtor privado, pois a classe só possui membros estáticos.
+     */
+    private GameHandles() {
+    }
+
+    /**
+     * Obtém o construtor público de uma classe do jogo, devolvendo o objeto criado como Object.
+     * @param className Nome da classe no pacote padrão.
+     * @param parameters Tipos dos parâmetros do construtor.
+     * @return O handle do construtor.
+     */
+    private static MethodHandle constructor(String className, Class<?>... parameters) {
+        try {
+            MethodHandle handle = LOOKUP.findConstructor(Class.forName(className), MethodType.methodType(void.class, parameters));
+            return handle.asType(handle.type().changeReturnType(Object.class));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Obtém um método público de instância de uma classe do jogo, recebendo a instância como Object.
+     * @param className Nome da classe no pacote padrão.
+     * @param name Nome do método.
+     * @param returnType Tipo de retorno do método.
+     * @param parameters Tipos dos parâmetros do método.
+     * @return O handle do método.
+     */
+    private static MethodHandle method(String className, String name, Class<?> returnType, Class<?>... parameters) {
+        try {
+            MethodHandle handle = LOOKUP.findVirtual(Class.forName(className), name, MethodType.methodType(returnType, parameters));
+            return handle.asType(handle.type().changeParameterType(0, Object.class));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Lê uma constante numérica pública de uma classe do jogo.
+     * @param className Nome da classe no pacote padrão.
+     * @param name Nome da constante.
+     * @return O valor da constante.
+     */
+    private static int constant(String className, String name) {
+        try {
+            return ((Number) Class.forName(className).getField(name).get(null)).intValue();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package benchmarks;
+
+import static benchmarks.GameHandles.CHECK_DRAW;
+import static benchmarks.GameHandles.CHECK_WINNER;
+import static benchmarks.GameHandles.MAKE_MOVE;
+import static benchmarks.GameHandles.NEW_GAME_STATUS;
+import static benchmarks.GameHandles.RESET;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede o GameStatus jogando partidas inteiras: a cada jogada são chamados makeMove, checkWinner e checkDraw,
+ * como na sala do servidor. As partidas são geradas com semente fixa, para que os resultados sejam reproduzíveis:
+ * "random" joga posições ao acaso até a vitória ou o empate; "adversarial" evita as jogadas vencedoras enquanto
+ * puder, o que gera partidas longas, cheias de sequências quase completas, que terminam em empate ou perto dele.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStatusBenchmark {
+
+    /** Número de partidas geradas, usadas em rodízio para não favorecer uma única sequência.*/
+    private static final int GAMES = 64;
+
+    /** Semente fixa das partidas geradas.*/
+    private static final long SEED = 42;
+
+    /** Tabuleiro no formato "tamanho:sequência", como "3:3" (clássico) ou "15:5" (gomoku).*/
+    @Param({"3:3", "15:5"})
+    public String board;
+
+    /** Tipo de partida: "random" ou "adversarial".*/
+    @Param({"random", "adversarial"})
+    public String positions;
+
+    /** Jogadas de cada partida gerada, alternando entre o xis e o círculo.*/
+    private int[][] games;
+
+    /** Estado do jogo reutilizado entre as partidas.*/
+    private Object gameStatus;
+
+    /** Índice da próxima partida a ser jogada.*/
+    private int nextGame;
+
+    /**
+     * Gera as partidas e cria o estado do jogo.
+     * @throws Throwable Erro que pode ocorrer ao criar o estado do jogo.
+     */
+    @Setup
+    public void setup() throws Throwable {
+        String[] dimensions = board.split(":");
+        int size = Integer.parseInt(dimensions[0]);
+        int winLength = Integer.parseInt(dimensions[1]);
+        gameStatus = (Object) NEW_GAME_STATUS.invokeExact(size, winLength);
+
+        Random random = new Random(SEED);
+        games = new int[GAMES][];
+        for (int i = 0; i < GAMES; i++) {
+            games[i] = generateGame(size, winLength, positions.equals("adversarial"), random);
+        }
+    }
+
+    /**
+     * Joga uma partida inteira no GameStatus, verificando a vitória e o empate depois de cada jogada.
+     * @return Verdadeiro se a partida terminou, para que o JIT não descarte o trabalho.
+     * @throws Throwable Erro que pode ocorrer nas chamadas ao jogo.
+     */
+    @Benchmark
+    public boolean playGame() throws Throwable {
+        int[] moves = games[nextGame];
+        nextGame = (nextGame + 1) % GAMES;
+
+        RESET.invokeExact(gameStatus);
+        char player = 'X';
+        for (int position : moves) {
+            MAKE_MOVE.invokeExact(gameStatus, position, player);
+            if ((boolean) CHECK_WINNER.invokeExact(gameStatus, player) || (boolean) CHECK_DRAW.invokeExact(gameStatus)) {
+                return true;
+            }
+            player = player == 'X' ? 'O' : 'X';
+        }
+        return false;
+    }
+
+    /**
+     * Gera uma partida com um tabuleiro simples, independente do GameStatus medido.
+     * @param size Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     * @param adversarial Se verdadeiro, evita as jogadas vencedoras enquanto houver alternativa.
+     * @param random Gerador de números aleatórios com semente fixa.
+     * @return As jogadas da partida, até a vitória ou o preenchimento do tabuleiro.
+     */
+    private static int[] generateGame(int size, int winLength, boolean adversarial, Random random) {
+        char[] cells = new char[size * size];
+        int[] moves = new int[cells.length];
+        int[] order = new int[cells.length];
+        char player = 'X';
+        for (int count = 0; count < cells.length; count++) {
+            // Embaralha as posições e escolhe a primeira livre; na partida adversária, a primeira que não vence.
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            int chosen = -1;
+            for (int position : order) {
+                if (cells[position] != '\0') {
+                    continue;
+                }
+                if (chosen < 0) {
+                    chosen = position;
+                }
+                if (!adversarial || !wins(cells, size, winLength, position, player)) {
+                    chosen = position;
+                    break;
+                }
+            }
+            cells[chosen] = player;
+            moves[count] = chosen;
+            if (wins(cells, size, winLength, chosen, player)) {
+                return Arrays.copyOf(moves, count + 1);
+            }
+            player = player == 'X' ? 'O' : 'X';
+        }
+        return moves;
+    }
+
+    /**
+     * Verifica se jogar em uma posição completa uma sequência para o jogador.
+     * @param cells O tabuleiro.
+     * @param size Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     * @param position A posição da jogada.
+     * @param player O símbolo do jogador.
+     * @return Verdadeiro se a jogada vence a partida.
+     */
+    private static boolean wins(char[] cells, int size, int winLength, int position, char player) {
+        int row = position / size;
+        int column = position % size;
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        for (int[] direction : directions) {
+            int count = 1;
+            for (int sign = -1; sign <= 1; sign += 2) {
+                int r = row + sign * direction[0];
+                int c = column + sign * direction[1];
+                while (r >= 0 && r < size && c >= 0 && c < size && cells[r * size + c] == player) {
+                    count++;
+                    r += sign * direction[0];
+                    c += sign * direction[1];
+                }
+            }
+            if (count >= winLength) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,134 @@
+package benchmarks;
+
+import static benchmarks.GameHandles.EOF;
+import static benchmarks.GameHandles.FLUSH;
+import static benchmarks.GameHandles.GET_POSITION;
+import static benchmarks.GameHandles.MOVE;
+import static benchmarks.GameHandles.NEGOTIATE_BINARY;
+import static benchmarks.GameHandles.NEGOTIATION;
+import static benchmarks.GameHandles.NEW_READER;
+import static benchmarks.GameHandles.NEW_WRITER;
+import static benchmarks.GameHandles.NEXT;
+import static benchmarks.GameHandles.WRITE_MOVE;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede a ida e volta de uma jogada por um socket local: o cliente escreve a jogada com o ProtocolWriter, e uma
+ * thread do outro lado a lê com o ProtocolReader e a devolve, como o servidor faz ao repassá-la ao oponente.
+ * O resultado inclui as duas passagens pela pilha TCP do sistema e as duas trocas de thread, mas não a rede.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoopbackRoundTripBenchmark {
+
+    /** Protocolo da conexão: "text" ou "binary".*/
+    @Param({"text", "binary"})
+    public String protocol;
+
+    /** Socket que aceita a conexão do lado que devolve as jogadas.*/
+    private ServerSocket serverSocket;
+
+    /** Socket do lado que envia as jogadas.*/
+    private Socket socket;
+
+    /** Leitor das jogadas devolvidas.*/
+    private Object reader;
+
+    /** Escritor das jogadas enviadas.*/
+    private Object writer;
+
+    /**
+     * Abre a conexão local, inicia a thread que devolve as jogadas e negocia o protocolo escolhido.
+     * @throws Throwable Erro que pode ocorrer na conexão ou nas chamadas ao jogo.
+     */
+    @Setup
+    public void setup() throws Throwable {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Thread echo = new Thread(this::echo, "loopback-echo");
+        echo.setDaemon(true);
+        echo.start();
+
+        // Desativa o algoritmo de Nagle, como os clientes e o servidor do jogo.
+        socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        socket.setTcpNoDelay(true);
+        reader = (Object) NEW_READER.invokeExact(socket.getInputStream());
+        writer = (Object) NEW_WRITER.invokeExact(socket.getOutputStream());
+        if (protocol.equals("binary")) {
+            NEGOTIATE_BINARY.invokeExact(writer);
+            FLUSH.invokeExact(writer);
+            if ((int) NEXT.invokeExact(reader) != NEGOTIATION) {
+                throw new IllegalStateException("A negociação do protocolo binário falhou");
+            }
+        }
+    }
+
+    /**
+     * Envia uma jogada e aguarda a sua devolução.
+     * @return A posição devolvida, para que o JIT não descarte o trabalho.
+     * @throws Throwable Erro que pode ocorrer na conexão ou nas chamadas ao jogo.
+     */
+    @Benchmark
+    public int roundTrip() throws Throwable {
+        WRITE_MOVE.invokeExact(writer, 4);
+        FLUSH.invokeExact(writer);
+        if ((int) NEXT.invokeExact(reader) != MOVE) {
+            throw new IllegalStateException("A jogada não foi devolvida");
+        }
+        return (int) GET_POSITION.invokeExact(reader);
+    }
+
+    /**
+     * Fecha a conexão local, o que também encerra a thread que devolve as jogadas.
+     * @throws IOException Exceção de E/S que pode ocorrer ao fechar os sockets.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        socket.close();
+        serverSocket.close();
+    }
+
+    /**
+     * Aceita a conexão e devolve cada jogada recebida, confirmando a negociação do protocolo binário.
+     */
+    private void echo() {
+        try (Socket peer = serverSocket.accept()) {
+            peer.setTcpNoDelay(true);
+            Object peerReader = (Object) NEW_READER.invokeExact((InputStream) peer.getInputStream());
+            Object peerWriter = (Object) NEW_WRITER.invokeExact((OutputStream) peer.getOutputStream());
+            int type;
+            while ((type = (int) NEXT.invokeExact(peerReader)) != EOF) {
+                if (type == NEGOTIATION) {
+                    NEGOTIATE_BINARY.invokeExact(peerWriter);
+                } else if (type == MOVE) {
+                    WRITE_MOVE.invokeExact(peerWriter, (int) GET_POSITION.invokeExact(peerReader));
+                }
+                FLUSH.invokeExact(peerWriter);
+            }
+        } catch (Throwable ex) {
+            // O fechamento dos sockets no fim do benchmark encerra a thread.
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package benchmarks;
+
+import static benchmarks.GameHandles.EOF;
+import static benchmarks.GameHandles.GET_POSITION;
+import static benchmarks.GameHandles.MOVE;
+import static benchmarks.GameHandles.NEW_READER;
+import static benchmarks.GameHandles.NEW_WRITER;
+import static benchmarks.GameHandles.NEXT;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede a interpretação das mensagens recebidas: a classificação por prefixo das linhas de texto (END, WON, DRAW,
+ * CHAT ou jogada), feita nos bytes pelo TextProtocol, o mesmo do servidor NIO, comparada com a decodificação dos
+ * quadros do protocolo binário. Os dois usam o ProtocolReader, que é o leitor dos clientes, do servidor com interface
+ * gráfica e do servidor com uma thread por conexão.
+ * O fluxo tem uma mistura fixa de mensagens, gerada com semente fixa: 90% de jogadas, 8% de chat e 2% de resultados.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolParsingBenchmark {
+
+    /** Número de mensagens do fluxo lido em cada chamada.*/
+    private static final int MESSAGES = 1024;
+
+    /** Protocolo das mensagens: "text" ou "binary".*/
+    @Param({"text", "binary"})
+    public String protocol;
+
+    /** Bytes do fluxo de mensagens.*/
+    private byte[] stream;
+
+    /**
+     * Gera o fluxo de mensagens com o ProtocolWriter do jogo, no protocolo escolhido.
+     * @throws Throwable Erro que pode ocorrer nas chamadas ao jogo.
+     */
+    @Setup
+    public void setup() throws Throwable {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Object writer = (Object) NEW_WRITER.invokeExact((java.io.OutputStream) output);
+        if (protocol.equals("binary")) {
+            GameHandles.NEGOTIATE_BINARY.invokeExact(writer);
+        }
+
+        MethodHandle writeChat = writerMethod("writeChat", String.class);
+        MethodHandle writeWinner = writerMethod("writeWinner", char.class);
+        MethodHandle writeDraw = writerMethod("writeDraw");
+        Random random = new Random(42);
+        for (int i = 0; i < MESSAGES; i++) {
+            int kind = random.nextInt(100);
+            if (kind < 90) {
+                GameHandles.WRITE_MOVE.invokeExact(writer, random.nextInt(9));
+            } else if (kind < 98) {
+                writeChat.invokeExact(writer, "mensagem de chat " + i);
+            } else if (kind < 99) {
+                writeWinner.invokeExact(writer, 'X');
+            } else {
+                writeDraw.invokeExact(writer);
+            }
+        }
+        GameHandles.FLUSH.invokeExact(writer);
+        stream = output.toByteArray();
+    }
+
+    /**
+     * Lê e classifica todas as mensagens do fluxo.
+     * @return A soma das posições das jogadas, para que o JIT não descarte o trabalho.
+     * @throws Throwable Erro que pode ocorrer nas chamadas ao jogo.
+     */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int parseMessages() throws Throwable {
+        Object reader = (Object) NEW_READER.invokeExact((InputStream) new ByteArrayInputStream(stream));
+        int sum = 0;
+        int type;
+        while ((type = (int) NEXT.invokeExact(reader)) != EOF) {
+            if (type == MOVE) {
+                sum += (int) GET_POSITION.invokeExact(reader);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Obtém um método do ProtocolWriter usado apenas para gerar o fluxo.
+     * @param name Nome do método.
+     * @param parameters Tipos dos parâmetros do método.
+     * @return O handle do método, que recebe o escritor como Object.
+     * @throws ReflectiveOperationException Se o método não existir.
+     */
+    private static MethodHandle writerMethod(String name, Class<?>... parameters) throws ReflectiveOperationException {
+        MethodHandle handle = MethodHandles.publicLookup()
+                .findVirtual(Class.forName("ProtocolWriter"), name, MethodType.methodType(void.class, parameters));
+        return handle.asType(handle.type().changeParameterType(0, Object.class));
+    }
+}
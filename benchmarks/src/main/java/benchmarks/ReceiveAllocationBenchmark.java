@@ -0,0 +1,191 @@
+package benchmarks;
+
+import static benchmarks.GameHandles.GET_POSITION;
+import static benchmarks.GameHandles.MOVE;
+import static benchmarks.GameHandles.NEW_READER;
+import static benchmarks.GameHandles.NEW_WRITER;
+import static benchmarks.GameHandles.NEXT;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede a alocação de memória no recebimento das mensagens pelo ProtocolReader, que decodifica as linhas de texto e os
+ * quadros binários direto nos bytes com o TextProtocol, o mesmo usado pelo servidor NIO.
+ * Deve ser executado com o perfilador de coleta de lixo do JMH ("-prof gc"): o resultado gc.alloc.rate.norm mostra os
+ * bytes alocados por mensagem, que deve ficar perto de zero sem chat, e gc.alloc.rate, a taxa de alocação.
+ * O leitor é criado uma única vez sobre um fluxo que repete as mesmas mensagens sem fim, para que apenas o
+ * recebimento seja medido. A mistura "control" tem 90% de jogadas, 8% de respostas aos batimentos e 2% de resultados;
+ * a mistura "chat" troca as respostas aos batimentos por mensagens de chat, cujo texto é a única alocação esperada.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReceiveAllocationBenchmark {
+
+    /** Número de mensagens lidas em cada chamada, que é também o número de mensagens do trecho repetido.*/
+    private static final int MESSAGES = 1024;
+
+    /** Protocolo das mensagens: "text" ou "binary".*/
+    @Param({"text", "binary"})
+    public String protocol;
+
+    /** Mistura de mensagens: "control" (jogadas e mensagens de controle) ou "chat" (com mensagens de chat).*/
+    @Param({"control", "chat"})
+    public String mix;
+
+    /** Leitor do jogo, criado uma única vez.*/
+    private Object reader;
+
+    /**
+     * Gera as mensagens com o ProtocolWriter do jogo e cria o leitor sobre o fluxo que as repete.
+     * No protocolo binário a linha de negociação é lida aqui, antes das medições.
+     * @throws Throwable Erro que pode ocorrer nas chamadas ao jogo.
+     */
+    @Setup
+    public void setup() throws Throwable {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Object writer = (Object) NEW_WRITER.invokeExact((OutputStream) output);
+        boolean binary = protocol.equals("binary");
+        if (binary) {
+            GameHandles.NEGOTIATE_BINARY.invokeExact(writer);
+            GameHandles.FLUSH.invokeExact(writer);
+        }
+        int prefixLength = output.size();
+
+        MethodHandle writeChat = writerMethod("writeChat", String.class);
+        MethodHandle writePong = writerMethod("writePong");
+        MethodHandle writeWinner = writerMethod("writeWinner", char.class);
+        MethodHandle writeDraw = writerMethod("writeDraw");
+        Random random = new Random(42);
+        for (int i = 0; i < MESSAGES; i++) {
+            int kind = random.nextInt(100);
+            if (kind < 90) {
+                GameHandles.WRITE_MOVE.invokeExact(writer, random.nextInt(9));
+            } else if (kind < 98) {
+                if (mix.equals("chat")) {
+                    writeChat.invokeExact(writer, "mensagem de chat " + i);
+                } else {
+                    writePong.invokeExact(writer);
+                }
+            } else if (kind < 99) {
+                writeWinner.invokeExact(writer, 'X');
+            } else {
+                writeDraw.invokeExact(writer);
+            }
+        }
+        GameHandles.FLUSH.invokeExact(writer);
+
+        reader = (Object) NEW_READER.invokeExact((InputStream) new RepeatingInputStream(output.toByteArray(), prefixLength));
+        if (binary) {
+            int negotiation = (int) NEXT.invokeExact(reader);
+            if (negotiation != GameHandles.NEGOTIATION) {
+                throw new IllegalStateException("Negociação não recebida: " + negotiation);
+            }
+        }
+    }
+
+    /**
+     * Recebe e classifica o trecho de mensagens.
+     * @return A soma das posições das jogadas, para que o JIT não descarte o trabalho.
+     * @throws Throwable Erro que pode ocorrer nas chamadas ao jogo.
+     */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int receive() throws Throwable {
+        int sum = 0;
+        for (int i = 0; i < MESSAGES; i++) {
+            if ((int) NEXT.invokeExact(reader) == MOVE) {
+                sum += (int) GET_POSITION.invokeExact(reader);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Obtém um método do ProtocolWriter usado apenas para gerar as mensagens.
+     * @param name Nome do método.
+     * @param parameters Tipos dos parâmetros do método.
+     * @return O handle do método, que recebe o escritor como Object.
+     * @throws ReflectiveOperationException Se o método não existir.
+     */
+    private static MethodHandle writerMethod(String name, Class<?>... parameters) throws ReflectiveOperationException {
+        MethodHandle handle = MethodHandles.publicLookup()
+                .findVirtual(Class.forName("ProtocolWriter"), name, MethodType.methodType(void.class, parameters));
+        return handle.asType(handle.type().changeParameterType(0, Object.class));
+    }
+
+    /**
+     * Define a classe RepeatingInputStream, um fluxo que entrega um prefixo uma única vez e depois repete o restante
+     * dos bytes sem fim, sem alocar memória na leitura.
+     */
+    private static final class RepeatingInputStream extends InputStream {
+
+        /** Bytes do fluxo: o prefixo seguido do trecho repetido.*/
+        private final byte[] bytes;
+
+        /** Início do trecho repetido.*/
+        private final int loopStart;
+
+        /** Posição do próximo byte a ser lido.*/
+        private int position;
+
+        /**
+         * Cria o fluxo.
+         * @param bytes Bytes do fluxo: o prefixo seguido do trecho repetido.
+         * @param loopStart Início do trecho repetido, ou seja, o tamanho do prefixo.
+         */
+        RepeatingInputStream(byte[] bytes, int loopStart) {
+            this.bytes = bytes;
+            this.loopStart = loopStart;
+        }
+
+        @Override
+        public int read() {
+            if (position == bytes.length) {
+                position = loopStart;
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position == bytes.length) {
+                position = loopStart;
+            }
+            int count = Math.min(length, bytes.length - position);
+            System.arraycopy(bytes, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return bytes.length - position;
+        }
+    }
+}
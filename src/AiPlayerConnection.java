@@ -0,0 +1,182 @@
+/**
+ * Define a classe AiPlayerConnection, que representa um jogador automático do servidor, sem socket.
+ * Ocupa na sala o lugar do segundo jogador: recebe as mensagens que seriam enviadas ao socket e mantém a sua própria
+ * cópia do tabuleiro, e as jogadas são escolhidas pelo MinimaxSolver, que joga de forma perfeita no tabuleiro 3x3.
+ * A jogada não é feita dentro de sendMove, pois a sala ainda está tratando a jogada do oponente; ela é feita em flush(),
+ * chamado pela sala depois de tratar as mensagens recebidas, da mesma forma que a escrita das outras conexões.
+ * No tabuleiro 3x3 a jogada é uma leitura da tabela e é feita na hora; nos demais, a busca roda nas threads de busca
+ * do MinimaxSolver e a jogada é entregue à sala por elas, para que a thread que atende o oponente (e as demais
+ * conexões do seu seletor) não espere pela busca.
+ * Os métodos são chamados pela thread que lê as mensagens do oponente, pelas threads de busca e pelas da drenagem e
+ * dos temporizadores da sala, então o estado fica protegido pelo bloqueio da conexão. A sala nunca é chamada com esse
+ * bloqueio, pois ela chama a conexão com o seu próprio bloqueio.
+ */
+public class AiPlayerConnection implements PlayerConnection {
+
+    /** Sala em que o jogador automático está participando.*/
+    private volatile GameRoom room;
+
+    /** Estado do jogo visto pelo jogador automático.*/
+    private GameStatus gameStatus;
+
+    /** Solucionador que escolhe as jogadas pela tabela, no tabuleiro clássico, ou nulo se as jogadas são buscadas.*/
+    private MinimaxSolver solver;
+
+    /** Símbolo com que o jogador automático joga.*/
+    private char playerId;
+
+    /** Símbolo com que o oponente joga.*/
+    private char opponentId;
+
+    /** Indica se é a vez do jogador automático.*/
+    private boolean myTurn;
+
+    /** Indica se a última jogada da partida foi do jogador automático, para saber quem começa a próxima.*/
+    private boolean lastMoveMine;
+
+    /** Indica se a sala foi encerrada.*/
+    private boolean closed;
+
+    /** Número da partida atual, que muda a cada nova partida, para descartar a jogada buscada para uma anterior.*/
+    private int game;
+
+    /**
+     * Recebe a linha de início da partida, com o símbolo do jogador automático e as dimensões do tabuleiro.
+     * @param message A linha de início ("START O 3 3 REFEREE BINARY").
+     */
+    @Override
+    public synchronized void send(String message) {
+        var start = new StartMessage(message);
+        playerId = start.getPlayerId();
+        opponentId = start.getOpponentId();
+        gameStatus = new GameStatus(start.getBoardSize(), start.getWinLength());
+        solver = MinimaxSolver.isClassic(start.getBoardSize(), start.getWinLength())
+                ? MinimaxSolver.forBoard(start.getBoardSize(), start.getWinLength()) : null;
+        game++;
+
+        // O xis começa a primeira partida.
+        myTurn = playerId == GameFrame.CROSS;
+    }
+
+    /**
+     * Registra a jogada do oponente no tabuleiro; a resposta é feita em flush().
+     * @param position A posição da jogada.
+     */
+    @Override
+    public synchronized void sendMove(int position) {
+        gameStatus.makeMove(position, opponentId);
+        lastMoveMine = false;
+        myTurn = true;
+    }
+
+    /**
+     * Prepara a próxima partida, que começa com quem não fez a última jogada.
+     * @param playerId Símbolo do vencedor (X ou O).
+     */
+    @Override
+    public synchronized void sendWinner(char playerId) {
+        startNextGame();
+    }
+
+    /**
+     * Prepara a próxima partida, que começa com quem não fez a última jogada.
+     */
+    @Override
+    public synchronized void sendDraw() {
+        startNextGame();
+    }
+
+    /**
+     * Ignora as mensagens de chat do oponente.
+     * @param message O texto da mensagem.
+     */
+    @Override
+    public void sendChat(String message) {
+    }
+
+    /**
+     * Registra a saída do oponente, depois da qual o jogador automático não joga mais.
+     */
+    @Override
+    public synchronized void sendEnd() {
+        closed = true;
+    }
+
+    /**
+     * Faz a jogada do jogador automático, se for a sua vez, e escreve a jogada e o resultado para o oponente.
+     * Fora do tabuleiro clássico, apenas pede a busca da jogada, que é feita quando a busca termina.
+     */
+    @Override
+    public void flush() {
+        int position;
+        synchronized (this) {
+            if (!myTurn || closed || room == null) {
+                return;
+            }
+            // Marca a jogada como feita antes de entregá-la à sala, que chama flush() novamente ao escrever.
+            myTurn = false;
+            if (solver == null) {
+                int searchedGame = game;
+                MinimaxSolver.searchMove(gameStatus.copy(), playerId, move -> playSearchedMove(searchedGame, move));
+                return;
+            }
+            position = solver.chooseMove(gameStatus, playerId);
+            gameStatus.makeMove(position, playerId);
+            lastMoveMine = true;
+        }
+        play(position);
+    }
+
+    /**
+     * Faz a jogada encontrada pela busca, chamado pela thread de busca. A jogada é descartada se a sala foi encerrada
+     * ou a partida para a qual ela foi buscada já terminou.
+     * @param searchedGame Número da partida para a qual a jogada foi buscada.
+     * @param position A posição escolhida.
+     */
+    private void playSearchedMove(int searchedGame, int position) {
+        synchronized (this) {
+            if (searchedGame != game || closed || room == null) {
+                return;
+            }
+            gameStatus.makeMove(position, playerId);
+            lastMoveMine = true;
+        }
+        play(position);
+    }
+
+    /**
+     * Entrega a jogada à sala e escreve a jogada e o resultado para o oponente, fora do bloqueio da conexão.
+     * @param position A posição da jogada.
+     */
+    private void play(int position) {
+        GameRoom currentRoom = room;
+        if (currentRoom != null) {
+            currentRoom.handleMove(this, position);
+            currentRoom.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+    }
+
+    @Override
+    public GameRoom getRoom() {
+        return room;
+    }
+
+    @Override
+    public void setRoom(GameRoom room) {
+        this.room = room;
+    }
+
+    /**
+     * Limpa o tabuleiro para a próxima partida e decide se o jogador automático começa.
+     */
+    private void startNextGame() {
+        game++;
+        gameStatus.reset();
+        myTurn = !lastMoveMine;
+    }
+}
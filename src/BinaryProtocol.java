@@ -0,0 +1,204 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Define a classe BinaryProtocol, que descreve o protocolo binário compacto do jogo.
+ * Cada mensagem é um quadro formado por um byte de código seguido da carga da mensagem. Mensagens de tamanho fixo
+ * não têm prefixo de tamanho (uma jogada ocupa 2 bytes); o chat leva o tamanho em 2 bytes seguido do texto em UTF-8.
+ * O protocolo é negociado no início da conexão: o servidor anuncia "BINARY" na linha de início, o cliente responde
+ * com a linha "BINARY" e o servidor confirma com a mesma linha, a última em texto nos dois sentidos.
+ */
+public final class BinaryProtocol {
+
+    /** Linha de texto usada para negociar o protocolo binário.*/
+    public static final String NEGOTIATION_LINE = "BINARY";
+
+    /** Código da jogada em tabuleiros de até 256 posições: 1 byte com a posição.*/
+    public static final byte MOVE = 1;
+
+    /** Código da jogada em tabuleiros maiores: 2 bytes com a posição.*/
+    public static final byte MOVE_WIDE = 2;
+
+    /** Código da vitória: 1 byte com o símbolo do vencedor (0 indica quem enviou a mensagem).*/
+    public static final byte WON = 3;
+
+    /** Código do empate, sem carga.*/
+    public static final byte DRAW = 4;
+
+    /** Código do chat: 2 bytes com o tamanho seguido do texto em UTF-8.*/
+    public static final byte CHAT = 5;
+
+    /** Código do término da partida, sem carga.*/
+    public static final byte END = 6;
+
+    /** Código do batimento enviado pelo servidor para verificar se o jogador ainda responde, sem carga.*/
+    public static final byte PING = 7;
+
+    /** Código da resposta do jogador ao batimento, sem carga.*/
+    public static final byte PONG = 8;
+
+    /** Tamanho máximo, em bytes, do texto de uma mensagem de chat.*/
+    public static final int MAX_CHAT_BYTES = 8192;
+
+    /** Tamanho do cabeçalho do chat: código e tamanho do texto.*/
+    private static final int CHAT_HEADER_LENGTH = 3;
+
+    /** Quadro do empate, compartilhado por todas as conexões (nunca é alterado).*/
+    private static final byte[] DRAW_FRAME = {DRAW};
+
+    /** Quadro do término da partida, compartilhado por todas as conexões (nunca é alterado).*/
+    private static final byte[] END_FRAME = {END};
+
+    /** Quadro do batimento, compartilhado por todas as conexões (nunca é alterado).*/
+    private static final byte[] PING_FRAME = {PING};
+
+    /** Quadro da resposta ao batimento, compartilhado por todas as conexões (nunca é alterado).*/
+    private static final byte[] PONG_FRAME = {PONG};
+
+    /** Quadros das jogadas nas posições de 0 a 255, compartilhados por todas as conexões (nunca são alterados).*/
+    private static final byte[][] MOVE_FRAMES = new byte[256][];
+
+    static {
+        for (int position = 0; position < MOVE_FRAMES.length; position++) {
+            MOVE_FRAMES[position] = new byte[]{MOVE, (byte) position};
+        }
+    }
+
+    /**
+     * Construtor privado, pois a classe só possui membros estáticos.
+     */
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Codifica uma jogada, usando 2 bytes em tabuleiros de até 256 posições e 3 bytes nos maiores.
+     * Os quadros das primeiras 256 posições são compartilhados, então a jogada não aloca memória.
+     * @param position A posição da jogada.
+     * @return O quadro da jogada, que não deve ser alterado.
+     */
+    public static byte[] encodeMove(int position) {
+        if (position < MOVE_FRAMES.length) {
+            return MOVE_FRAMES[position];
+        }
+        return new byte[]{MOVE_WIDE, (byte) (position >>> 8), (byte) position};
+    }
+
+    /**
+     * Codifica a vitória de um jogador.
+     * @param playerId Símbolo do vencedor, ou '\0' para indicar quem enviou a mensagem.
+     * @return O quadro da vitória.
+     */
+    public static byte[] encodeWinner(char playerId) {
+        return new byte[]{WON, (byte) playerId};
+    }
+
+    /**
+     * Retorna o quadro do empate.
+     * @return O quadro do empate, que não deve ser alterado.
+     */
+    public static byte[] encodeDraw() {
+        return DRAW_FRAME;
+    }
+
+    /**
+     * Retorna o quadro do término da partida.
+     * @return O quadro do término, que não deve ser alterado.
+     */
+    public static byte[] encodeEnd() {
+        return END_FRAME;
+    }
+
+    /**
+     * Retorna o quadro do batimento.
+     * @return O quadro do batimento, que não deve ser alterado.
+     */
+    public static byte[] encodePing() {
+        return PING_FRAME;
+    }
+
+    /**
+     * Retorna o quadro da resposta ao batimento.
+     * @return O quadro da resposta, que não deve ser alterado.
+     */
+    public static byte[] encodePong() {
+        return PONG_FRAME;
+    }
+
+    /**
+     * Codifica uma mensagem de chat em UTF-8, truncando textos maiores que o tamanho máximo.
+     * @param text O texto da mensagem.
+     * @return O quadro do chat.
+     */
+    public static byte[] encodeChat(String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(utf8.length, MAX_CHAT_BYTES);
+        byte[] frame = new byte[CHAT_HEADER_LENGTH + length];
+        frame[0] = CHAT;
+        frame[1] = (byte) (length >>> 8);
+        frame[2] = (byte) length;
+        System.arraycopy(utf8, 0, frame, CHAT_HEADER_LENGTH, length);
+        return frame;
+    }
+
+    /**
+     * Calcula o tamanho do quadro que começa na posição atual do buffer, sem consumir bytes.
+     * @param buffer Buffer com os bytes recebidos.
+     * @return O tamanho do quadro em bytes, ou -1 se ainda não há bytes suficientes para conhecê-lo.
+     * @throws IllegalArgumentException Se o código for desconhecido ou o chat exceder o tamanho máximo.
+     */
+    public static int frameLength(ByteBuffer buffer) {
+        int start = buffer.position();
+        switch (buffer.get(start)) {
+            case MOVE, WON:
+                return 2;
+            case MOVE_WIDE:
+                return 3;
+            case DRAW, END, PING, PONG:
+                return 1;
+            case CHAT:
+                // O tamanho do chat só é conhecido depois de receber o cabeçalho completo.
+                if (buffer.remaining() < CHAT_HEADER_LENGTH) {
+                    return -1;
+                }
+                int length = ((buffer.get(start + 1) & 0xFF) << 8) | (buffer.get(start + 2) & 0xFF);
+                if (length > MAX_CHAT_BYTES) {
+                    throw new IllegalArgumentException("Mensagem de chat grande demais: " + length + " bytes");
+                }
+                return CHAT_HEADER_LENGTH + length;
+            default:
+                throw new IllegalArgumentException("Código de mensagem desconhecido: " + buffer.get(start));
+        }
+    }
+
+    /**
+     * Lê a posição de um quadro de jogada completo, consumindo o quadro do buffer.
+     * @param buffer Buffer posicionado no início de um quadro MOVE ou MOVE_WIDE.
+     * @return A posição da jogada.
+     */
+    public static int decodeMove(ByteBuffer buffer) {
+        byte opcode = buffer.get();
+        if (opcode == MOVE) {
+            return buffer.get() & 0xFF;
+        }
+        return buffer.getShort() & 0xFFFF;
+    }
+
+    /**
+     * Lê o texto de um quadro de chat completo, consumindo o quadro do buffer.
+     * @param buffer Buffer posicionado no início de um quadro CHAT.
+     * @return O texto da mensagem.
+     */
+    public static String decodeChat(ByteBuffer buffer) {
+        buffer.get();
+        int length = buffer.getShort() & 0xFFFF;
+        // Decodifica direto do vetor do buffer quando ele existe; buffers diretos passam por uma cópia.
+        if (buffer.hasArray()) {
+            String text = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return text;
+        }
+        byte[] utf8 = new byte[length];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
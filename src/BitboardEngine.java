@@ -0,0 +1,115 @@
+/**
+ * Define a classe BitboardEngine, que armazena o tabuleiro 3x3 clássico em duas máscaras de 9 bits.
+ * Cada jogador tem uma máscara em que o bit de índice i indica se ele ocupa a posição i. Assim a verificação
+ * de vitória e de empate se resume a poucas operações de bits, sem percorrer o tabuleiro.
+ */
+public class BitboardEngine implements BoardEngine {
+
+    /** Número de posições do tabuleiro.*/
+    private static final int CELLS = 9;
+
+    /** Máscara com todas as nove posições do tabuleiro ocupadas.*/
+    private static final int FULL_BOARD = 0b111_111_111;
+
+    /** Máscaras das oito sequências vencedoras: três linhas, três colunas e duas diagonais.*/
+    private static final int[] WIN_MASKS = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000, // Linhas
+            0b001_001_001, 0b010_010_010, 0b100_100_100, // Colunas
+            0b100_010_001, 0b001_010_100                 // Diagonais
+    };
+
+    /** Posições ocupadas pelo jogador "X".*/
+    private int crossBoard;
+
+    /** Posições ocupadas pelo jogador "O".*/
+    private int circleBoard;
+
+    /**
+     * Realiza uma jogada atualizando a máscara do jogador.
+     * @param position A posição onde a jogada será realizada.
+     * @param playerId Símbolo do jogador (X ou O).
+     */
+    @Override
+    public void makeMove(int position, char playerId) {
+        int bit = bitOf(position);
+        // Marca a posição na máscara do jogador e a remove da máscara do oponente, caso estivesse ocupada.
+        if (playerId == GameFrame.CROSS) {
+            crossBoard |= bit;
+            circleBoard &= ~bit;
+        } else {
+            circleBoard |= bit;
+            crossBoard &= ~bit;
+        }
+    }
+
+    @Override
+    public void undoMove(int position) {
+        int bit = ~bitOf(position);
+        crossBoard &= bit;
+        circleBoard &= bit;
+    }
+
+    @Override
+    public boolean isValidMove(int position) {
+        return position >= 0 && position < CELLS && ((crossBoard | circleBoard) & (1 << position)) == 0;
+    }
+
+    @Override
+    public char getPosition(int position) {
+        int bit = bitOf(position);
+        if ((crossBoard & bit) != 0) {
+            return GameFrame.CROSS;
+        }
+        return (circleBoard & bit) != 0 ? GameFrame.CIRCLE : '\0';
+    }
+
+    /**
+     * Retorna o bit de uma posição. O deslocamento usa apenas os cinco bits mais baixos da posição, então sem a
+     * verificação a posição 32 ocuparia a posição 0; a posição fora do tabuleiro é recusada, como no GridBoardEngine.
+     * @param position A posição.
+     * @return A máscara com apenas o bit da posição.
+     * @throws IndexOutOfBoundsException Se a posição estiver fora do tabuleiro.
+     */
+    private static int bitOf(int position) {
+        // Uma única comparação sem sinal recusa tanto as posições negativas quanto as maiores que o tabuleiro.
+        if (Integer.compareUnsigned(position, CELLS) >= 0) {
+            throw new IndexOutOfBoundsException("Posição fora do tabuleiro: " + position);
+        }
+        return 1 << position;
+    }
+
+    @Override
+    public void reset() {
+        crossBoard = 0;
+        circleBoard = 0;
+    }
+
+    /**
+     * Verifica se o jogador venceu o jogo, comparando sua máscara com as sequências vencedoras
+     * (linhas, colunas e diagonais do tabuleiro).
+     * @param playerId Símbolo do jogador a ser verificado (X ou O).
+     * @return Verdadeiro se o jogador venceu, falso caso contrário.
+     */
+    @Override
+    public boolean checkWinner(char playerId) {
+        // Obtém as posições ocupadas pelo jogador.
+        int board = playerId == GameFrame.CROSS ? crossBoard : circleBoard;
+
+        // Verifica se alguma sequência vencedora está inteiramente contida nas posições do jogador.
+        for (int mask : WIN_MASKS) {
+            if ((board & mask) == mask) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Verifica se todas as posições do tabuleiro estão ocupadas por um dos jogadores.
+     * @return Verdadeiro se o tabuleiro está cheio, falso caso contrário.
+     */
+    @Override
+    public boolean checkDraw() {
+        return (crossBoard | circleBoard) == FULL_BOARD;
+    }
+}
@@ -0,0 +1,255 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Define a classe BlockingGameServer, que representa o servidor sem interface gráfica com uma thread por conexão.
+ * O código de cada sala é escrito no estilo bloqueante e roda em threads virtuais ou de plataforma,
+ * permitindo comparar o consumo de memória por conexão entre os dois tipos de thread.
+ * A tarefa que lê um jogador sobrevive à queda da conexão: ela aguarda a reconexão do jogador e passa a ler
+ * a nova conexão, até que ele saia ou a sala seja encerrada.
+ * O servidor pode aceitar conexões em várias portas; cada porta tem a sua tarefa de aceitação no mesmo executor.
+ */
+public class BlockingGameServer {
+
+    /** Intervalo, em segundos, entre as estatísticas de memória exibidas no console.*/
+    private static final int STATS_INTERVAL_SECONDS = 10;
+
+    /** Configuração do servidor, com as portas, o endereço e as opções dos sockets.*/
+    private final ServerConfig config;
+
+    /** Indica se as conexões são atendidas por threads virtuais (verdadeiro) ou de plataforma (falso).*/
+    private final boolean virtualThreads;
+
+    /** Saguão do servidor, onde os jogadores aguardam um oponente.*/
+    private final GameLobby lobby;
+
+    /** Número de conexões abertas no servidor.*/
+    private final AtomicInteger openConnections = new AtomicInteger();
+
+    /**
+     * Cria o servidor bloqueante.
+     * @param config Configuração do servidor, com as portas, o endereço e as opções dos sockets.
+     * @param virtualThreads Verdadeiro para usar threads virtuais, falso para threads de plataforma.
+     * @param lobby Saguão do servidor, onde os jogadores aguardam um oponente.
+     */
+    public BlockingGameServer(ServerConfig config, boolean virtualThreads, GameLobby lobby) {
+        this.config = config;
+        this.virtualThreads = virtualThreads;
+        this.lobby = lobby;
+    }
+
+    /**
+     * Aceita conexões indefinidamente em todas as portas, atendendo cada uma em uma nova thread do tipo escolhido.
+     * @throws IOException Exceção de E/S que pode ocorrer ao abrir os sockets de boas-vindas.
+     */
+    public void start() throws IOException {
+        // Abre todos os sockets de boas-vindas antes de aceitar, para que uma porta em uso impeça o início do servidor.
+        List<ServerSocket> welcomeSockets = new ArrayList<>();
+        try (ExecutorService executor = virtualThreads
+                    ? Executors.newVirtualThreadPerTaskExecutor()
+                    : Executors.newCachedThreadPool()) {
+            for (int port : config.getPorts()) {
+                welcomeSockets.add(config.openListener(port));
+            }
+            // Exibe periodicamente o consumo de memória por conexão, para comparar os tipos de thread.
+            startStatsReporter();
+
+            // Cada sala formada pelo saguão ganha uma thread dona, que roda o escopo da sala. O jogador repassado a outro
+            // nó do agrupamento deixa de ser contado aqui e passa a ser contado entre as ligações com outros nós.
+            lobby.start(room -> executor.execute(() -> runRoom(room, executor)),
+                    player -> openConnections.decrementAndGet());
+            for (int port : config.getPorts()) {
+                System.out.println("Servidor com threads " + (virtualThreads ? "virtuais" : "de plataforma")
+                        + " aguardando conexões em " + config.describeListener(port));
+            }
+
+            // As portas adicionais são aceitas por tarefas do executor; a principal, pela thread atual.
+            for (ServerSocket welcomeSocket : welcomeSockets.subList(1, welcomeSockets.size())) {
+                executor.execute(() -> {
+                    try {
+                        acceptConnections(welcomeSocket, executor);
+                    } catch (IOException ex) {
+                        System.out.println(ex.getMessage());
+                    }
+                });
+            }
+            acceptConnections(welcomeSockets.get(0), executor);
+        } finally {
+            for (ServerSocket welcomeSocket : welcomeSockets) {
+                welcomeSocket.close();
+            }
+        }
+    }
+
+    /**
+     * Aceita conexões indefinidamente em um socket de boas-vindas e atende cada uma em sua própria thread.
+     * @param welcomeSocket O socket de boas-vindas, já associado à sua porta.
+     * @param executor Executor que atende as conexões.
+     * @throws IOException Exceção de E/S que pode ocorrer ao aceitar uma conexão.
+     */
+    private void acceptConnections(ServerSocket welcomeSocket, ExecutorService executor) throws IOException {
+        while (true) {
+            Socket socket = welcomeSocket.accept();
+            ServerMetrics.recordAccepted();
+            executor.execute(() -> servePlayer(socket, executor));
+        }
+    }
+
+    /**
+     * Atende um jogador recém conectado: aguarda a nota que ele pode informar e o coloca no saguão.
+     * Nenhuma thread é mantida para o jogador enquanto ele aguarda a formação do par.
+     * @param socket Socket do jogador.
+     * @param executor Executor que roda as tarefas dos espectadores.
+     */
+    private void servePlayer(Socket socket, ExecutorService executor) {
+        SocketPlayerConnection player;
+        try {
+            // Ajusta as opções da conexão, que por padrão desativam o algoritmo de Nagle: as mensagens de cada
+            // jogada já são agrupadas em uma única escrita, então segurar o segmento só atrasaria a jogada.
+            config.configureConnection(socket);
+            player = new SocketPlayerConnection(socket);
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+            return;
+        }
+        if (!player.readGreeting(GameLobby.GREETING_MILLIS)) {
+            player.close();
+            return;
+        }
+        if (player.getWatchRequest() != null) {
+            serveSpectator(socket, player.getWatchRequest(), executor);
+            return;
+        }
+        // A nova conexão de quem retoma a partida é lida pela tarefa que lia a conexão que caiu, ou repassada ao nó
+        // do agrupamento em que fica a sala do jogador.
+        if (player.getResumeRequest() != null) {
+            if (!GameRoom.resume(player.getResumeRequest(), player)
+                    && !lobby.forwardResume(player.getResumeRequest(), player)) {
+                player.sendEnd();
+                player.flush();
+                player.close();
+            }
+            return;
+        }
+        openConnections.incrementAndGet();
+        lobby.join(player, true);
+    }
+
+    /**
+     * Atende um cliente que pediu para assistir a uma sala, até que ele saia ou a sala seja encerrada.
+     * @param socket Socket do espectador.
+     * @param request O número da sala, ou vazio para a sala com mais espectadores.
+     * @param executor Executor que roda a tarefa de escrita do espectador.
+     */
+    private void serveSpectator(Socket socket, String request, ExecutorService executor) {
+        try {
+            var spectator = new SocketSpectatorConnection(socket);
+            GameRoom room = GameRoom.findRoom(request);
+            if (room == null || !room.addSpectator(spectator)) {
+                socket.getOutputStream().write("END\n".getBytes(StandardCharsets.ISO_8859_1));
+                socket.close();
+                return;
+            }
+            spectator.serve(executor);
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Roda uma sala formada pelo saguão: abre o escopo da sala, inicia a leitura dos jogadores
+     * e aguarda até que a sala seja encerrada.
+     * @param room A sala formada.
+     * @param executor Executor que roda as tarefas da sala.
+     */
+    private void runRoom(GameRoom room, ExecutorService executor) {
+        // Abre o escopo da sala: quando qualquer um dos jogadores sair, as duas conexões e as tarefas são encerradas juntas.
+        try (RoomScope scope = new RoomScope(executor)) {
+            // As conexões fechadas no encerramento são as atuais, que podem ter sido trocadas por reconexões.
+            scope.onShutdown(() -> room.forEachPlayer(PlayerConnection::close));
+            room.start();
+            // Apenas os jogadores conectados por socket têm mensagens a ler; o jogador automático joga ao receber as jogadas.
+            for (char symbol : new char[] {GameFrame.CROSS, GameFrame.CIRCLE}) {
+                PlayerConnection connection = room.getConnection(symbol);
+                if (connection instanceof SocketPlayerConnection socketPlayer) {
+                    scope.fork(() -> serveSeat(room, symbol, socketPlayer));
+                }
+            }
+            scope.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            room.forEachPlayer(connection -> {
+                if (connection instanceof SocketPlayerConnection) {
+                    openConnections.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * Lê as mensagens de um jogador até que ele saia ou a sala seja encerrada, passando a ler a nova conexão
+     * cada vez que ele se reconecta depois de uma queda.
+     * @param room A sala do jogador.
+     * @param symbol Símbolo do jogador.
+     * @param connection Conexão inicial do jogador.
+     */
+    private static void serveSeat(GameRoom room, char symbol, SocketPlayerConnection connection) {
+        try {
+            PlayerConnection current = connection;
+            while (current instanceof SocketPlayerConnection socketPlayer && !socketPlayer.readMessages()) {
+                current = room.awaitResume(symbol, socketPlayer);
+            }
+        } catch (InterruptedException ex) {
+            // O escopo da sala foi encerrado enquanto o jogador estava desconectado.
+        }
+    }
+
+    /**
+     * Inicia uma thread que exibe periodicamente o número de conexões e o consumo de memória por conexão.
+     * As pilhas das threads de plataforma ficam fora do heap, por isso o número dessas threads também é exibido.
+     */
+    private void startStatsReporter() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "server-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            // Calcula a memória em uso no heap e a divide pelo número de conexões abertas.
+            Runtime runtime = Runtime.getRuntime();
+            long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+            int connections = openConnections.get();
+            System.out.println("Conexões: " + connections
+                    + " | Salas: " + GameRoom.getActiveRooms()
+                    + " | Na fila: " + lobby.getQueueDepth()
+                    + " | Espera média: " + String.format("%.1f ms", lobby.getAverageWaitMillis())
+                    + " | Espectadores: " + SpectatorFeed.getActiveSpectators()
+                    + " | Saltos: " + SpectatorConnection.getSkips()
+                    + " | Desconectados por atraso: " + SpectatorConnection.getDrops()
+                    + " | Retomadas: " + GameRoom.getResumedSessions()
+                    + " | Sessões expiradas: " + GameRoom.getExpiredSessions()
+                    + " | Batimentos: " + GameRoom.getPingsSent()
+                    + " | Conexões mortas: " + GameRoom.getReapedConnections()
+                    + " | Abandonos: " + GameRoom.getForfeitedRooms()
+                    + " | Chat descartado: " + GameRoom.getDroppedChats()
+                    + " | Repassados: " + ClusterNode.getForwardedPlayers()
+                    + " | Ligações: " + ClusterNode.getActiveLinks()
+                    + " | Prazos: " + GameRoom.getPendingTimers()
+                    + " | Threads de plataforma: " + ManagementFactory.getThreadMXBean().getThreadCount()
+                    + " | Mensagens por escrita: " + String.format("%.2f", OutboundStats.getMessagesPerWrite())
+                    + " | Heap usado: " + usedMemory / 1024 + " KiB"
+                    + (connections > 0 ? " | Por conexão: " + usedMemory / connections / 1024 + " KiB" : ""));
+        }, STATS_INTERVAL_SECONDS, STATS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+}
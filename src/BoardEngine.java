@@ -0,0 +1,53 @@
+/**
+ * Define a interface BoardEngine, que representa a forma como o tabuleiro é armazenado e verificado.
+ * A classe GameStatus delega a uma implementação desta interface, escolhida de acordo com o tamanho do tabuleiro
+ * e o número de símbolos em sequência necessários para vencer.
+ */
+public interface BoardEngine {
+
+    /**
+     * Realiza uma jogada no tabuleiro.
+     * @param position A posição onde a jogada será realizada.
+     * @param playerId Símbolo do jogador (X ou O).
+     */
+    void makeMove(int position, char playerId);
+
+    /**
+     * Desfaz a última jogada, deixando a posição vazia. Usado pela busca do jogador automático (MinimaxSolver),
+     * que experimenta cada jogada no próprio tabuleiro e a desfaz em seguida.
+     * @param position A posição da última jogada realizada.
+     */
+    void undoMove(int position);
+
+    /**
+     * Verifica se uma jogada é válida, ou seja, se a posição está dentro do tabuleiro e ainda não foi ocupada.
+     * @param position A posição da jogada.
+     * @return Verdadeiro se a jogada é válida, falso caso contrário.
+     */
+    boolean isValidMove(int position);
+
+    /**
+     * Retorna o símbolo que ocupa uma posição do tabuleiro.
+     * @param position A posição do tabuleiro.
+     * @return O símbolo do jogador na posição (X ou O), ou '\0' se a posição estiver vazia.
+     */
+    char getPosition(int position);
+
+    /**
+     * Reinicia o tabuleiro, deixando todas as posições vazias.
+     */
+    void reset();
+
+    /**
+     * Verifica se o jogador venceu o jogo.
+     * @param playerId Símbolo do jogador a ser verificado (X ou O).
+     * @return Verdadeiro se o jogador venceu, falso caso contrário.
+     */
+    boolean checkWinner(char playerId);
+
+    /**
+     * Verifica se todas as posições do tabuleiro estão ocupadas.
+     * @return Verdadeiro se o tabuleiro está cheio, falso caso contrário.
+     */
+    boolean checkDraw();
+}
@@ -0,0 +1,219 @@
+import javax.swing.JComponent;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Define a classe BoardPanel, o componente que desenha o tabuleiro a partir do estado do jogo (GameStatus), sem um
+ * botão por casa. As jogadas do jogador aparecem em azul e as do oponente em vermelho, como nos botões de antes.
+ * Cada símbolo é desenhado uma única vez por cor e tamanho de casa em uma imagem compartilhada por todos os tabuleiros,
+ * então uma jogada apenas copia a imagem pronta para a sua casa, e só a casa alterada é redesenhada; o custo de uma
+ * jogada não depende do tamanho do tabuleiro e as revanches não criam objetos novos.
+ * Deve ser usado apenas na thread de eventos do Swing (EDT).
+ */
+public class BoardPanel extends JComponent {
+
+    /** Cor das jogadas do jogador atual.*/
+    private static final Color OWN_COLOR = Color.BLUE;
+
+    /** Cor das jogadas do oponente.*/
+    private static final Color OPPONENT_COLOR = Color.RED;
+
+    /** Cor das linhas que separam as casas.*/
+    private static final Color GRID_COLOR = Color.GRAY;
+
+    /** Espessura, em pixels, das linhas que separam as casas.*/
+    private static final int GRID_WIDTH = 2;
+
+    /** Traço das linhas que separam as casas.*/
+    private static final BasicStroke GRID_STROKE = new BasicStroke(GRID_WIDTH);
+
+    /** Imagens dos símbolos já desenhados no tamanho de casa atual, por símbolo e cor, compartilhadas pelos tabuleiros.*/
+    private static final BufferedImage[] glyphs = new BufferedImage[4];
+
+    /** Tamanho de casa das imagens guardadas; as imagens de outro tamanho são descartadas quando ele muda.*/
+    private static int glyphCellSize;
+
+    /** Estado do jogo desenhado pelo componente, que continua sendo atualizado pela interface.*/
+    private final GameStatus gameStatus;
+
+    /** Símbolo do jogador atual, cujas jogadas são desenhadas em azul.*/
+    private final char playerId;
+
+    /** Ação chamada com a posição da casa vazia clicada pelo jogador.*/
+    private final IntConsumer cellListener;
+
+    /**
+     * Cria o tabuleiro.
+     * @param gameStatus Estado do jogo desenhado pelo componente.
+     * @param playerId Símbolo do jogador atual (X ou O).
+     * @param cellListener Ação chamada com a posição da casa vazia clicada, enquanto o tabuleiro está habilitado.
+     */
+    public BoardPanel(GameStatus gameStatus, char playerId, IntConsumer cellListener) {
+        this.gameStatus = gameStatus;
+        this.playerId = playerId;
+        this.cellListener = cellListener;
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        setPreferredSize(new Dimension(380, 380));
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int position = positionAt(e.getX(), e.getY());
+                if (isEnabled() && position >= 0 && gameStatus.getPosition(position) == '\0') {
+                    BoardPanel.this.cellListener.accept(position);
+                }
+            }
+        });
+    }
+
+    /**
+     * Redesenha apenas a casa de uma posição, depois que uma jogada a alterou.
+     * @param position A posição da casa.
+     */
+    public void repaintCell(int position) {
+        repaint(cellBounds(position));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D graphics = (Graphics2D) g;
+        int size = gameStatus.getSize();
+        int cellSize = cellSize();
+        int left = originX(cellSize);
+        int top = originY(cellSize);
+
+        // Preenche apenas a área que o Swing pediu para redesenhar.
+        Rectangle clip = graphics.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        graphics.setColor(getBackground());
+        graphics.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (cellSize <= 0) {
+            return;
+        }
+
+        // Desenha os símbolos das casas que cruzam a área, copiando as imagens prontas.
+        int firstColumn = Math.max(0, (clip.x - left) / cellSize);
+        int lastColumn = Math.min(size - 1, (clip.x + clip.width - left) / cellSize);
+        int firstRow = Math.max(0, (clip.y - top) / cellSize);
+        int lastRow = Math.min(size - 1, (clip.y + clip.height - top) / cellSize);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                char symbol = gameStatus.getPosition(row * size + column);
+                if (symbol != '\0') {
+                    graphics.drawImage(glyph(symbol, symbol == playerId, cellSize),
+                            left + column * cellSize, top + row * cellSize, null);
+                }
+            }
+        }
+
+        // Desenha as linhas que separam as casas e a borda do tabuleiro.
+        graphics.setColor(GRID_COLOR);
+        graphics.setStroke(GRID_STROKE);
+        for (int line = 0; line <= size; line++) {
+            int offset = line * cellSize;
+            graphics.drawLine(left + offset, top, left + offset, top + size * cellSize);
+            graphics.drawLine(left, top + offset, left + size * cellSize, top + offset);
+        }
+    }
+
+    /**
+     * Retorna a imagem de um símbolo em um tamanho de casa, desenhando-a apenas na primeira vez.
+     * Quando o tamanho das casas muda, como ao redimensionar a janela, as imagens do tamanho anterior são descartadas,
+     * então no máximo quatro imagens ficam guardadas, qualquer que seja o número de partidas.
+     * @param symbol O símbolo (X ou O).
+     * @param own Verdadeiro para a cor das jogadas do jogador atual, falso para a do oponente.
+     * @param cellSize O tamanho da casa, em pixels.
+     * @return A imagem do símbolo, do tamanho da casa e com fundo transparente.
+     */
+    private static BufferedImage glyph(char symbol, boolean own, int cellSize) {
+        if (cellSize != glyphCellSize) {
+            Arrays.fill(glyphs, null);
+            glyphCellSize = cellSize;
+        }
+        int index = (symbol == GameFrame.CROSS ? 0 : 2) + (own ? 0 : 1);
+        if (glyphs[index] == null) {
+            var image = new BufferedImage(cellSize, cellSize, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, Math.max(8, cellSize * 2 / 3)));
+            graphics.setColor(own ? OWN_COLOR : OPPONENT_COLOR);
+            FontMetrics metrics = graphics.getFontMetrics();
+            String text = String.valueOf(symbol);
+            graphics.drawString(text, (cellSize - metrics.stringWidth(text)) / 2,
+                    (cellSize - metrics.getHeight()) / 2 + metrics.getAscent());
+            graphics.dispose();
+            glyphs[index] = image;
+        }
+        return glyphs[index];
+    }
+
+    /**
+     * Calcula o tamanho das casas, que são quadradas e ocupam o maior quadrado que cabe no componente.
+     * @return O tamanho da casa, em pixels.
+     */
+    private int cellSize() {
+        return Math.min(getWidth(), getHeight()) / gameStatus.getSize();
+    }
+
+    /**
+     * Calcula a coluna em que o tabuleiro começa, para que ele fique centralizado no componente.
+     * @param cellSize O tamanho da casa, em pixels.
+     * @return A coordenada horizontal do tabuleiro.
+     */
+    private int originX(int cellSize) {
+        return (getWidth() - cellSize * gameStatus.getSize()) / 2;
+    }
+
+    /**
+     * Calcula a linha em que o tabuleiro começa, para que ele fique centralizado no componente.
+     * @param cellSize O tamanho da casa, em pixels.
+     * @return A coordenada vertical do tabuleiro.
+     */
+    private int originY(int cellSize) {
+        return (getHeight() - cellSize * gameStatus.getSize()) / 2;
+    }
+
+    /**
+     * Calcula a área ocupada pela casa de uma posição, incluindo as linhas ao seu redor.
+     * @param position A posição da casa.
+     * @return O retângulo da casa no componente.
+     */
+    private Rectangle cellBounds(int position) {
+        int size = gameStatus.getSize();
+        int cellSize = cellSize();
+        return new Rectangle(originX(cellSize) + position % size * cellSize - GRID_WIDTH,
+                originY(cellSize) + position / size * cellSize - GRID_WIDTH,
+                cellSize + 2 * GRID_WIDTH, cellSize + 2 * GRID_WIDTH);
+    }
+
+    /**
+     * Encontra a posição da casa em um ponto do componente.
+     * @param x A coordenada horizontal do ponto.
+     * @param y A coordenada vertical do ponto.
+     * @return A posição da casa, ou -1 se o ponto está fora do tabuleiro.
+     */
+    private int positionAt(int x, int y) {
+        int size = gameStatus.getSize();
+        int cellSize = cellSize();
+        if (cellSize <= 0) {
+            return -1;
+        }
+        int column = Math.floorDiv(x - originX(cellSize), cellSize);
+        int row = Math.floorDiv(y - originY(cellSize), cellSize);
+        return column >= 0 && column < size && row >= 0 && row < size ? row * size + column : -1;
+    }
+}
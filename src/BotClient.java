@@ -0,0 +1,470 @@
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Define a classe BotClient, que representa um cliente sem interface gráfica que joga sozinho.
+ * O robô fala o mesmo protocolo do TCPClient, escolhe as jogadas ao acaso ou a partir de um roteiro, pode enviar
+ * mensagens de chat e mede o tempo de ida e volta de cada jogada: do envio até a chegada da resposta do servidor,
+ * que é a jogada do oponente ou o resultado da partida.
+ * Para exercitar a retomada de sessões, o robô pode derrubar a própria conexão a cada tantas jogadas, alternando
+ * entre derrubá-la com a jogada ainda não enviada e logo depois de enviá-la, e então retoma a partida em uma nova
+ * conexão com a ficha de sessão recebida na linha de início.
+ * Em um torneio, cada rodada chega como uma nova linha de início pela mesma conexão, com o símbolo do robô na nova
+ * partida; o robô joga até que o servidor envie o término.
+ */
+public class BotClient implements Runnable {
+
+    /** Valor que indica que o robô não informa nota de habilidade ao servidor.*/
+    public static final int NO_RATING = -1;
+
+    /** Tempo máximo, em milissegundos, de espera por uma mensagem do servidor.*/
+    private static final int READ_TIMEOUT_MILLIS = 30000;
+
+    /** Endereço do servidor.*/
+    private final String host;
+
+    /** Porta do servidor.*/
+    private final int port;
+
+    /** Número de partidas que o robô joga antes de sair, ou zero para jogar até que o servidor envie o término.*/
+    private final int games;
+
+    /** Posições em ordem de preferência, ou nulo para jogar ao acaso.*/
+    private final int[] script;
+
+    /** Intervalo, em jogadas, entre as mensagens de chat enviadas, ou zero para não enviar chat.*/
+    private final int chatEvery;
+
+    /** Indica se o robô negocia o protocolo binário quando o servidor o anuncia.*/
+    private final boolean useBinary;
+
+    /** Nota de habilidade informada ao servidor ao conectar, ou NO_RATING para não informar.*/
+    private final int rating;
+
+    /** Intervalo, em jogadas, entre as quedas de conexão simuladas, ou zero para não simular quedas.*/
+    private final int dropEvery;
+
+    /** Tempos de ida e volta das jogadas, em nanossegundos.*/
+    private long[] latencies = new long[64];
+
+    /** Número de tempos registrados em latencies.*/
+    private int latencyCount;
+
+    /** Número de jogadas enviadas.*/
+    private int movesSent;
+
+    /** Número de partidas concluídas.*/
+    private int gamesPlayed;
+
+    /** Número de partidas retomadas depois de uma queda da conexão.*/
+    private int resumes;
+
+    /** Mensagem do erro que encerrou o robô, ou nulo se ele terminou normalmente.*/
+    private String error;
+
+    /** Socket da conexão atual com o servidor.*/
+    private Socket socket;
+
+    /** Sessão usada para retomar a partida, ou nulo se o servidor não enviou a ficha de sessão.*/
+    private ClientSession session;
+
+    /** Indica se a conexão deve ser derrubada antes da próxima escrita.*/
+    private boolean dropPending;
+
+    /** Estado do jogo visto pelo robô, usado para escolher posições livres e reconhecer o fim da partida.*/
+    private GameStatus gameStatus;
+
+    /** Mensagem de início recebida do servidor.*/
+    private StartMessage start;
+
+    /** Indica se é a vez do robô.*/
+    private boolean myTurn;
+
+    /** Instante, em nanossegundos, do envio da última jogada que ainda aguarda resposta, ou -1 se nenhuma aguarda.*/
+    private long pendingMoveTime = -1;
+
+    /**
+     * Cria um robô.
+     * @param host Endereço do servidor.
+     * @param port Porta do servidor.
+     * @param games Número de partidas que o robô joga antes de sair, ou zero para jogar até o término.
+     * @param script Posições em ordem de preferência, ou nulo para jogar ao acaso.
+     * @param chatEvery Intervalo, em jogadas, entre as mensagens de chat, ou zero para não enviar chat.
+     * @param useBinary Indica se o robô negocia o protocolo binário quando o servidor o anuncia.
+     * @param rating Nota de habilidade informada ao servidor ao conectar, ou NO_RATING para não informar.
+     */
+    public BotClient(String host, int port, int games, int[] script, int chatEvery, boolean useBinary, int rating) {
+        this(host, port, games, script, chatEvery, useBinary, rating, 0);
+    }
+
+    /**
+     * Cria um robô que simula quedas de conexão.
+     * @param host Endereço do servidor.
+     * @param port Porta do servidor.
+     * @param games Número de partidas que o robô joga antes de sair, ou zero para jogar até o término.
+     * @param script Posições em ordem de preferência, ou nulo para jogar ao acaso.
+     * @param chatEvery Intervalo, em jogadas, entre as mensagens de chat, ou zero para não enviar chat.
+     * @param useBinary Indica se o robô negocia o protocolo binário quando o servidor o anuncia.
+     * @param rating Nota de habilidade informada ao servidor ao conectar, ou NO_RATING para não informar.
+     * @param dropEvery Intervalo, em jogadas, entre as quedas de conexão simuladas, ou zero para não simular quedas.
+     */
+    public BotClient(String host, int port, int games, int[] script, int chatEvery, boolean useBinary, int rating,
+                     int dropEvery) {
+        this.dropEvery = dropEvery;
+        this.host = host;
+        this.port = port;
+        this.games = games;
+        this.script = script;
+        this.chatEvery = chatEvery;
+        this.useBinary = useBinary;
+        this.rating = rating;
+    }
+
+    /**
+     * Conecta ao servidor e joga até completar as partidas, o oponente sair ou ocorrer um erro.
+     * Se a conexão cair no meio da partida, retoma a partida em uma nova conexão e continua de onde parou.
+     */
+    @Override
+    public void run() {
+        try {
+            socket = new Socket(host, port);
+            // Desativa o algoritmo de Nagle, como o cliente com interface gráfica, e limita a espera por respostas.
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            var reader = new ProtocolReader(socket.getInputStream());
+            var writer = new ProtocolWriter(socket.getOutputStream());
+            begin(reader, writer);
+            while (!play(reader, writer)) {
+                // A conexão caiu: retoma a partida, negocia de novo o protocolo e reenvia o que o servidor não recebeu.
+                socket.close();
+                ClientSession.Resumed resumed = session.reconnect();
+                resumes++;
+                socket = resumed.socket;
+                socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                reader = resumed.reader;
+                writer = resumed.writer;
+                if (useBinary && start.isBinaryOffered()) {
+                    writer.negotiateBinary();
+                }
+                session.resend(writer, resumed.acknowledged);
+                writer.flush();
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            error = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+        } finally {
+            closeSocket();
+        }
+    }
+
+    /**
+     * Começa a primeira partida: informa a nota, aguarda a mensagem de início e faz a primeira jogada, se for o xis.
+     * @param reader Leitor das mensagens do servidor.
+     * @param writer Escritor das mensagens enviadas ao servidor.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a comunicação, ou se o servidor violar o protocolo.
+     */
+    private void begin(ProtocolReader reader, ProtocolWriter writer) throws IOException {
+        // Informa a nota de habilidade antes de ser pareado.
+        if (rating != NO_RATING) {
+            writer.writeText(GameLobby.RATING_PREFIX + rating);
+            writer.flush();
+        }
+
+        // Aguarda a mensagem de início e negocia o protocolo binário se o servidor o anunciar.
+        if (reader.next() != ProtocolReader.START) {
+            throw new IOException("O servidor não enviou a mensagem de início");
+        }
+        startMatch(reader.getText(), writer);
+        flushOrDrop(writer);
+    }
+
+    /**
+     * Começa uma partida a partir da linha de início: negocia o protocolo binário se o servidor o anunciar,
+     * prepara o tabuleiro e a sessão e faz a primeira jogada, se for o xis.
+     * @param line A linha de início recebida.
+     * @param writer Escritor das mensagens enviadas ao servidor.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a escrita.
+     */
+    private void startMatch(String line, ProtocolWriter writer) throws IOException {
+        start = new StartMessage(line);
+        if (useBinary && start.isBinaryOffered()) {
+            writer.negotiateBinary();
+        }
+        gameStatus = new GameStatus(start.getBoardSize(), start.getWinLength());
+
+        session = dropEvery > 0 ? ClientSession.of(start, host, port) : null;
+
+        // O xis começa a primeira partida.
+        myTurn = start.getPlayerId() == GameFrame.CROSS;
+        if (myTurn) {
+            makeMove(writer);
+        }
+    }
+
+    /**
+     * Joga as partidas trocando mensagens com o servidor, até completá-las ou a conexão cair.
+     * @param reader Leitor das mensagens do servidor.
+     * @param writer Escritor das mensagens enviadas ao servidor.
+     * @return Verdadeiro se o robô completou as partidas, falso se a conexão caiu e pode ser retomada.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a comunicação, ou se o servidor violar o protocolo.
+     */
+    private boolean play(ProtocolReader reader, ProtocolWriter writer) throws IOException {
+        // Responde a cada mensagem do servidor até o fim das partidas.
+        int type;
+        while ((type = nextMessage(reader)) != ProtocolReader.EOF) {
+            if (session != null) {
+                session.countReceived(type);
+            }
+            switch (type) {
+                case BinaryProtocol.MOVE -> {
+                    recordLatency();
+                    int position = reader.getPosition();
+                    if (!gameStatus.isValidMove(position)) {
+                        throw new IOException("Jogada inválida recebida: " + position);
+                    }
+                    gameStatus.makeMove(position, start.getOpponentId());
+                    myTurn = true;
+
+                    // Se a jogada do oponente terminou a partida, aguarda o resultado antes de jogar.
+                    if (!gameStatus.checkWinner(start.getOpponentId()) && !gameStatus.checkDraw() && makeMove(writer)) {
+                        return true;
+                    }
+                }
+                case BinaryProtocol.WON, BinaryProtocol.DRAW -> {
+                    // No servidor que arbitra, o resultado é a resposta à última jogada do robô.
+                    recordLatency();
+                    if (finishGame(writer)) {
+                        return true;
+                    }
+                    // Na partida seguinte começa quem não fez a última jogada; na sala de partida única, a próxima
+                    // partida só começa com uma nova linha de início.
+                    if (myTurn && !start.isSingleGame() && makeMove(writer)) {
+                        return true;
+                    }
+                }
+                // A rodada seguinte de um torneio começa com uma nova linha de início, talvez com outro símbolo.
+                case ProtocolReader.START -> startMatch(reader.getText(), writer);
+                case BinaryProtocol.END -> {
+                    if (gamesPlayed < games) {
+                        throw new IOException("O oponente saiu depois de " + gamesPlayed + " partidas");
+                    }
+                    return true;
+                }
+                // Os batimentos do servidor são respondidos para que ele saiba que o robô continua conectado.
+                case BinaryProtocol.PING -> writer.writePong();
+                // Mensagens de chat e a confirmação da negociação não exigem resposta.
+                default -> { }
+            }
+            flushOrDrop(writer);
+        }
+        if (session == null) {
+            throw new IOException("O servidor encerrou a conexão depois de " + gamesPlayed + " partidas");
+        }
+        return false;
+    }
+
+    /**
+     * Lê a próxima mensagem do servidor; com uma sessão, a falha de leitura é tratada como queda da conexão.
+     * @param reader Leitor das mensagens do servidor.
+     * @return O tipo da mensagem, ou EOF se a conexão caiu.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a leitura sem sessão, ou se a leitura esgotar o tempo.
+     */
+    private int nextMessage(ProtocolReader reader) throws IOException {
+        try {
+            return reader.next();
+        } catch (SocketTimeoutException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            if (session == null) {
+                throw ex;
+            }
+            return ProtocolReader.EOF;
+        }
+    }
+
+    /**
+     * Escreve as mensagens acumuladas, ou derruba a conexão quando uma queda simulada está pendente:
+     * nas quedas ímpares antes da escrita, perdendo a jogada, e nas pares logo depois dela.
+     * @param writer Escritor das mensagens enviadas ao servidor.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a escrita.
+     */
+    private void flushOrDrop(ProtocolWriter writer) throws IOException {
+        if (!dropPending) {
+            try {
+                writer.flush();
+            } catch (IOException ex) {
+                // Com uma sessão, a falha de escrita é uma queda: a próxima leitura falha e a partida é retomada.
+                if (session == null) {
+                    throw ex;
+                }
+                socket.close();
+            }
+            return;
+        }
+        dropPending = false;
+        if (resumes % 2 == 1) {
+            writer.flush();
+        }
+        socket.close();
+    }
+
+    /**
+     * Acumula uma jogada ou mensagem de chat, guardando-a na sessão para que possa ser reenviada depois de uma queda.
+     * @param writer Escritor das mensagens enviadas ao servidor.
+     * @param message Ação que acumula a mensagem no escritor.
+     */
+    private void send(ProtocolWriter writer, Consumer<ProtocolWriter> message) {
+        message.accept(writer);
+        if (session != null) {
+            session.recordSent(message);
+        }
+    }
+
+    /**
+     * Fecha o socket da conexão atual, se houver um.
+     */
+    private void closeSocket() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // O robô já terminou, então a falha ao fechar o socket não muda o resultado.
+            }
+        }
+    }
+
+    /**
+     * Escolhe e enfileira a próxima jogada, com uma mensagem de chat quando for o caso.
+     * Quando o servidor não arbitra a partida, o próprio robô verifica a vitória e o empate, como o GameFrame.
+     * @param writer Escritor das mensagens enviadas ao servidor.
+     * @return Verdadeiro se o robô completou as partidas e saiu, falso caso contrário.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a escrita.
+     */
+    private boolean makeMove(ProtocolWriter writer) throws IOException {
+        int position = choosePosition();
+        gameStatus.makeMove(position, start.getPlayerId());
+        send(writer, out -> out.writeMove(position));
+        movesSent++;
+        myTurn = false;
+        if (chatEvery > 0 && movesSent % chatEvery == 0) {
+            String chat = "jogada " + movesSent;
+            send(writer, out -> out.writeChat(chat));
+        }
+        if (session != null && movesSent % dropEvery == 0) {
+            dropPending = true;
+        }
+
+        // Aguarda a resposta do servidor, exceto quando o próprio robô decide o fim da partida.
+        if (!start.isServerReferee()) {
+            if (gameStatus.checkWinner(start.getPlayerId())) {
+                writer.writeWinner('\0');
+                return finishGame(writer);
+            }
+            if (gameStatus.checkDraw()) {
+                writer.writeDraw();
+                return finishGame(writer);
+            }
+        }
+        pendingMoveTime = System.nanoTime();
+        return false;
+    }
+
+    /**
+     * Conta uma partida concluída e prepara a próxima, ou sai se todas as partidas foram jogadas.
+     * @param writer Escritor das mensagens enviadas ao servidor.
+     * @return Verdadeiro se o robô completou as partidas e saiu, falso caso contrário.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a escrita.
+     */
+    private boolean finishGame(ProtocolWriter writer) throws IOException {
+        gamesPlayed++;
+        gameStatus.reset();
+        if (games == 0 || gamesPlayed < games) {
+            return false;
+        }
+        writer.writeEnd();
+        try {
+            writer.flush();
+        } catch (IOException ex) {
+            // As partidas terminaram; o servidor pode já ter fechado a conexão pela saída do oponente.
+        }
+        return true;
+    }
+
+    /**
+     * Escolhe uma posição livre: a primeira livre do roteiro ou, sem roteiro, uma ao acaso.
+     * @return A posição escolhida.
+     */
+    private int choosePosition() {
+        if (script != null) {
+            for (int position : script) {
+                if (gameStatus.isValidMove(position)) {
+                    return position;
+                }
+            }
+        }
+        // Sorteia uma posição e avança até encontrar uma livre.
+        int cells = start.getBoardSize() * start.getBoardSize();
+        int position = ThreadLocalRandom.current().nextInt(cells);
+        while (!gameStatus.isValidMove(position)) {
+            position = (position + 1) % cells;
+        }
+        return position;
+    }
+
+    /**
+     * Registra o tempo de ida e volta da jogada que aguardava resposta, se houver uma.
+     */
+    private void recordLatency() {
+        if (pendingMoveTime < 0) {
+            return;
+        }
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencyCount * 2);
+        }
+        latencies[latencyCount++] = System.nanoTime() - pendingMoveTime;
+        pendingMoveTime = -1;
+    }
+
+    /**
+     * Retorna os tempos de ida e volta das jogadas.
+     * @return Os tempos registrados, em nanossegundos.
+     */
+    public long[] getLatencies() {
+        return Arrays.copyOf(latencies, latencyCount);
+    }
+
+    /**
+     * Retorna o número de jogadas enviadas.
+     * @return O número de jogadas.
+     */
+    public int getMovesSent() {
+        return movesSent;
+    }
+
+    /**
+     * Retorna o número de partidas concluídas.
+     * @return O número de partidas.
+     */
+    public int getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    /**
+     * Retorna o número de partidas retomadas depois de uma queda da conexão.
+     * @return O número de retomadas.
+     */
+    public int getResumes() {
+        return resumes;
+    }
+
+    /**
+     * Retorna a mensagem do erro que encerrou o robô.
+     * @return A mensagem do erro, ou nulo se o robô terminou normalmente.
+     */
+    public String getError() {
+        return error;
+    }
+}
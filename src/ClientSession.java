@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Define a classe ClientSession, a sessão de um cliente que pode retomar a partida depois de uma queda da conexão.
+ * A sessão guarda a ficha recebida na linha de início, conta as mensagens numeradas recebidas do servidor
+ * (jogadas, resultados e chat) e guarda as últimas jogadas e mensagens de chat enviadas, até que o servidor
+ * confirme o seu recebimento na retomada. Ao reconectar, o cliente envia "RESUME ficha recebidas"; o servidor
+ * responde "RESUMED n", com o número de mensagens que recebeu do cliente, e reenvia as que o cliente perdeu,
+ * enquanto o cliente reenvia as que o servidor não recebeu.
+ * Os métodos são sincronizados, pois a leitura e a escrita do cliente podem estar em threads diferentes.
+ */
+public class ClientSession {
+
+    /** Intervalo, em milissegundos, entre as tentativas de reconexão.*/
+    private static final long RETRY_INTERVAL_MILLIS = 200;
+
+    /** Tempo máximo, em milissegundos, de espera pela resposta à retomada.*/
+    private static final int RESPONSE_TIMEOUT_MILLIS = 2000;
+
+    /** Endereço do servidor.*/
+    private final String host;
+
+    /** Porta do servidor.*/
+    private final int port;
+
+    /** Ficha de sessão recebida na linha de início.*/
+    private final String token;
+
+    /** Últimas jogadas e mensagens de chat enviadas, como ações a aplicar a um escritor, da mais antiga à mais recente.*/
+    private final ArrayDeque<Consumer<ProtocolWriter>> unacknowledged = new ArrayDeque<>();
+
+    /** Número de jogadas e mensagens de chat enviadas ao servidor.*/
+    private long sentMessages;
+
+    /** Número de mensagens numeradas recebidas do servidor.*/
+    private long receivedMessages;
+
+    /**
+     * Cria a sessão de um cliente.
+     * @param host Endereço do servidor.
+     * @param port Porta do servidor.
+     * @param token Ficha de sessão recebida na linha de início.
+     */
+    public ClientSession(String host, int port, String token) {
+        this.host = host;
+        this.port = port;
+        this.token = token;
+    }
+
+    /**
+     * Cria a sessão a partir da linha de início, se o servidor permitir retomar a partida.
+     * @param start A linha de início recebida.
+     * @param host Endereço do servidor.
+     * @param port Porta do servidor.
+     * @return A sessão, ou nulo se o servidor não enviou a ficha de sessão.
+     */
+    public static ClientSession of(StartMessage start, String host, int port) {
+        return start.getSessionToken() == null ? null : new ClientSession(host, port, start.getSessionToken());
+    }
+
+    /**
+     * Conta uma mensagem recebida do servidor, se ela for numerada: jogadas, resultados e mensagens de chat.
+     * @param type O tipo da mensagem, como devolvido pelo ProtocolReader.
+     */
+    public synchronized void countReceived(int type) {
+        if (type == BinaryProtocol.MOVE || type == BinaryProtocol.WON || type == BinaryProtocol.DRAW
+                || type == BinaryProtocol.CHAT) {
+            receivedMessages++;
+        }
+    }
+
+    /**
+     * Guarda uma jogada ou mensagem de chat enviada, para reenviá-la se o servidor não a tiver recebido.
+     * Mensagens mais antigas que o limite guardado pelo servidor são descartadas.
+     * @param message Ação que acumula a mensagem em um escritor ("writer -> writer.writeMove(4)").
+     */
+    public synchronized void recordSent(Consumer<ProtocolWriter> message) {
+        sentMessages++;
+        unacknowledged.add(message);
+        if (unacknowledged.size() > PlayerSeat.BACKLOG_SIZE) {
+            unacknowledged.poll();
+        }
+    }
+
+    /**
+     * Abre uma nova conexão e pede a retomada da partida, tentando de novo até o fim do prazo de reconexão enquanto
+     * a nova conexão falhar ou o servidor a tratar como um novo jogador, o que acontece quando o pedido chega depois
+     * do intervalo que o saguão dá para a primeira linha.
+     * @return A nova conexão, com o número de mensagens do cliente que o servidor recebeu.
+     * @throws IOException Se o servidor recusar a retomada ou o prazo de reconexão acabar.
+     */
+    public Resumed reconnect() throws IOException {
+        long deadline = System.currentTimeMillis() + GameRoom.SESSION_GRACE_MILLIS;
+        while (true) {
+            Resumed resumed = tryResume();
+            if (resumed != null) {
+                return resumed;
+            }
+            if (System.currentTimeMillis() + RETRY_INTERVAL_MILLIS > deadline) {
+                throw new IOException("O prazo de reconexão acabou");
+            }
+            try {
+                Thread.sleep(RETRY_INTERVAL_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Reconexão interrompida", ex);
+            }
+        }
+    }
+
+    /**
+     * Faz uma tentativa de retomada em uma nova conexão.
+     * @return A nova conexão, ou nulo se a tentativa falhou e pode ser repetida.
+     * @throws IOException Se o servidor recusar a retomada, por a sessão ter expirado ou por as mensagens perdidas
+     *                     não estarem mais guardadas.
+     */
+    private Resumed tryResume() throws IOException {
+        Socket socket = new Socket();
+        int type;
+        try {
+            socket.connect(new InetSocketAddress(host, port));
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(RESPONSE_TIMEOUT_MILLIS);
+            var writer = new ProtocolWriter(socket.getOutputStream());
+            writer.writeText(GameRoom.RESUME_PREFIX + token + " " + getReceivedMessages());
+            writer.flush();
+            var reader = new ProtocolReader(socket.getInputStream());
+            type = reader.next();
+            if (type == ProtocolReader.RESUMED) {
+                long acknowledged = Long.parseLong(reader.getText().substring(GameRoom.RESUMED_PREFIX.length()));
+                socket.setSoTimeout(0);
+                return new Resumed(socket, reader, writer, acknowledged);
+            }
+            // O pedido chegou tarde e a conexão foi pareada como um novo jogador: sai da sala criada.
+            if (type == ProtocolReader.START) {
+                writer.writeEnd();
+                writer.flush();
+            }
+        } catch (IOException | NumberFormatException ex) {
+            // A nova conexão falhou ou o servidor não respondeu a tempo.
+            type = ProtocolReader.EOF;
+        }
+        socket.close();
+        if (type == BinaryProtocol.END) {
+            throw new IOException("O servidor recusou a retomada da partida");
+        }
+        return null;
+    }
+
+    /**
+     * Reenvia, em um escritor da nova conexão, as mensagens que o servidor não recebeu.
+     * @param writer Escritor da nova conexão, já com a negociação do protocolo, se houver.
+     * @param acknowledged Número de mensagens do cliente que o servidor recebeu.
+     * @throws IOException Se mensagens que o servidor não recebeu já foram descartadas.
+     */
+    public synchronized void resend(ProtocolWriter writer, long acknowledged) throws IOException {
+        long firstKept = sentMessages - unacknowledged.size() + 1;
+        if (acknowledged < firstKept - 1 || acknowledged > sentMessages) {
+            throw new IOException("Mensagens perdidas na reconexão: o servidor recebeu " + acknowledged
+                    + " de " + sentMessages);
+        }
+        long sequence = firstKept;
+        for (Consumer<ProtocolWriter> message : unacknowledged) {
+            if (sequence++ > acknowledged) {
+                message.accept(writer);
+            }
+        }
+    }
+
+    /**
+     * Retorna o número de mensagens numeradas recebidas do servidor.
+     * @return O número de mensagens.
+     */
+    public synchronized long getReceivedMessages() {
+        return receivedMessages;
+    }
+
+    /**
+     * Define a classe Resumed, a nova conexão de uma partida retomada.
+     */
+    public static final class Resumed {
+
+        /** Socket da nova conexão.*/
+        final Socket socket;
+
+        /** Leitor das mensagens do servidor na nova conexão.*/
+        final ProtocolReader reader;
+
+        /** Escritor das mensagens enviadas ao servidor na nova conexão.*/
+        final ProtocolWriter writer;
+
+        /** Número de mensagens do cliente que o servidor recebeu.*/
+        final long acknowledged;
+
+        /**
+         * Cria a nova conexão de uma partida retomada.
+         * @param socket Socket da nova conexão.
+         * @param reader Leitor das mensagens do servidor.
+         * @param writer Escritor das mensagens enviadas ao servidor.
+         * @param acknowledged Número de mensagens do cliente que o servidor recebeu.
+         */
+        Resumed(Socket socket, ProtocolReader reader, ProtocolWriter writer, long acknowledged) {
+            this.socket = socket;
+            this.reader = reader;
+            this.writer = writer;
+            this.acknowledged = acknowledged;
+        }
+    }
+}
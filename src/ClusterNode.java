@@ -0,0 +1,261 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Define a classe ClusterNode, que liga um servidor sem interface gráfica aos outros nós de um agrupamento.
+ * O nó publica a sua entrada no diretório de salas (RoomDirectory) em intervalos curtos e guarda a última lista dos
+ * outros nós. O saguão pede ao nó que repasse o jogador que passou algum tempo sem par: ele vai para um nó de
+ * identificação menor que tenha alguém aguardando, por uma ligação (NodeLink) que repassa os bytes do jogador ao
+ * outro nó, onde a sala é formada e arbitrada. Como os jogadores só são repassados para identificações menores,
+ * dois nós nunca trocam os seus jogadores entre si, e quem sobra acaba no menor nó com jogadores aguardando.
+ * O nó guarda para qual ligação foi cada ficha de sessão, para repassar ao nó certo a reconexão do jogador.
+ */
+public class ClusterNode {
+
+    /** Intervalo, em milissegundos, entre as publicações da entrada do nó e as leituras do diretório.*/
+    public static final long PUBLISH_INTERVAL_MILLIS = 500;
+
+    /** Idade máxima, em milissegundos, da entrada de um nó ativo; entradas mais antigas são de nós que pararam.*/
+    private static final long STALE_MILLIS = 3 * PUBLISH_INTERVAL_MILLIS;
+
+    /** Número de jogadores repassados a outros nós, inclusive nas reconexões.*/
+    private static final LongAdder forwardedPlayers = new LongAdder();
+
+    /** Número de ligações abertas com outros nós.*/
+    private static final AtomicInteger activeLinks = new AtomicInteger();
+
+    /** Identificação do nó no agrupamento.*/
+    private final String nodeId;
+
+    /** Endereço em que o nó aceita jogadores, publicado para os outros nós.*/
+    private final String host;
+
+    /** Porta em que o nó aceita jogadores.*/
+    private final int port;
+
+    /** Diretório de salas compartilhado pelos nós.*/
+    private final RoomDirectory directory;
+
+    /** Saguão do nó, cujo tamanho da fila é publicado e que recebe de volta quem não pôde ser repassado.*/
+    private final GameLobby lobby;
+
+    /** Ligação de cada ficha de sessão dos jogadores repassados, mantida até o fim do prazo de reconexão.*/
+    private final ConcurrentHashMap<String, NodeLink> sessions = new ConcurrentHashMap<>();
+
+    /** Thread que publica a entrada do nó e lê o diretório.*/
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cluster-directory");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Nós para os quais o saguão pode repassar jogadores, lidos na última consulta ao diretório.*/
+    private volatile List<Peer> peers = List.of();
+
+    /**
+     * Cria o nó do agrupamento.
+     * @param nodeId Identificação do nó, sem espaços e única no agrupamento.
+     * @param host Endereço em que o nó aceita jogadores, publicado para os outros nós.
+     * @param port Porta em que o nó aceita jogadores.
+     * @param directory Diretório de salas compartilhado pelos nós.
+     * @param lobby Saguão do nó.
+     */
+    public ClusterNode(String nodeId, String host, int port, RoomDirectory directory, GameLobby lobby) {
+        this.nodeId = nodeId;
+        this.host = host;
+        this.port = port;
+        this.directory = directory;
+        this.lobby = lobby;
+    }
+
+    /**
+     * Passa a publicar a entrada do nó e a ler o diretório, e remove a entrada quando o processo terminar.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, PUBLISH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                directory.remove(nodeId);
+            } catch (IOException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }, "cluster-shutdown"));
+        System.out.println("Nó " + nodeId + " do agrupamento publicado em " + host + ":" + port);
+    }
+
+    /**
+     * Publica a entrada do nó e guarda os nós ativos de identificação menor que têm jogadores aguardando,
+     * do menor para o maior, que são os destinos possíveis dos jogadores repassados.
+     */
+    private void refresh() {
+        try {
+            long now = System.currentTimeMillis();
+            directory.publish(new NodeEntry(nodeId, host, port, lobby.getQueueDepth(), GameRoom.getActiveRooms(), now));
+            List<Peer> targets = new ArrayList<>();
+            for (NodeEntry entry : directory.list()) {
+                if (entry.getNodeId().compareTo(nodeId) < 0 && entry.getWaitingPlayers() > 0 && entry.isFresh(now, STALE_MILLIS)) {
+                    targets.add(new Peer(entry));
+                }
+            }
+            targets.sort(Comparator.comparing(peer -> peer.entry.getNodeId()));
+            peers = targets;
+        } catch (IOException | RuntimeException ex) {
+            // Uma exceção interromperia as publicações seguintes, então apenas é exibida.
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Escolhe o destino de um jogador sem par: o menor nó que tinha jogadores aguardando na última consulta ao
+     * diretório. Cada jogador aguardando em outro nó recebe no máximo um jogador por consulta, para que um nó não
+     * receba mais jogadores do que tem para pareá-los. Chamado apenas pela thread de pareamento do saguão.
+     * @return O nó de destino, já descontado dos jogadores que ele pode receber, ou nulo se não há para onde repassar.
+     */
+    public NodeEntry claimTarget() {
+        for (Peer peer : peers) {
+            if (peer.available > 0) {
+                peer.available--;
+                return peer.entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Repassa um jogador já retirado do saguão ao nó escolhido. A conexão com o outro nó é aberta em uma thread
+     * virtual, para não atrasar o pareamento; se ela falhar, o jogador volta ao saguão.
+     * @param player O jogador.
+     * @param target O nó de destino, escolhido por claimTarget().
+     */
+    public void forward(PlayerConnection player, NodeEntry target) {
+        String ratingLine = GameLobby.RATING_PREFIX + player.getRating();
+        Thread.ofVirtual().name("node-link").start(() -> {
+            if (!openLink(target, player, ratingLine, null, () -> lobby.playerForwarded(player))) {
+                lobby.join(player, true);
+            }
+        });
+    }
+
+    /**
+     * Repassa a reconexão de um jogador repassado antes ao nó em que está a sua sala.
+     * @param request A linha de retomada ("RESUME ficha última").
+     * @param player A nova conexão do jogador.
+     * @return Falso se a ficha não é de um jogador repassado por este nó, caso em que a retomada não é possível.
+     */
+    public boolean forwardResume(String request, PlayerConnection player) {
+        String[] fields = request.split(" ");
+        NodeLink previous = fields.length == 3 ? sessions.get(fields[1]) : null;
+        if (previous == null) {
+            return false;
+        }
+        Thread.ofVirtual().name("node-link").start(() -> {
+            if (!openLink(previous.getNode(), player, request, fields[1], () -> { })) {
+                // O nó da sala não responde mais: a partida acabou, como quando a sessão expira.
+                player.sendEnd();
+                player.flush();
+                player.close();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Abre a ligação com o nó da sala e repassa por ela o jogador até que um dos lados encerre a conexão.
+     * @param node Nó em que fica a sala do jogador.
+     * @param player A conexão do jogador.
+     * @param firstLine Primeira linha enviada ao outro nó: a nota do jogador ou a retomada.
+     * @param sessionToken Ficha de sessão do jogador, na retomada, ou nulo.
+     * @param onOpen Ação executada quando a ligação é aberta, antes de o jogador passar a ser repassado.
+     * @return Falso se a ligação não pôde ser aberta.
+     */
+    private boolean openLink(NodeEntry node, PlayerConnection player, String firstLine, String sessionToken,
+                             Runnable onOpen) {
+        NodeLink link;
+        try {
+            link = new NodeLink(this, node, player, firstLine, sessionToken);
+        } catch (IOException ex) {
+            System.out.println("Nó " + node + " inacessível: " + ex.getMessage());
+            return false;
+        }
+        activeLinks.incrementAndGet();
+        forwardedPlayers.increment();
+        onOpen.run();
+        if (sessionToken != null) {
+            rememberSession(sessionToken, link);
+        }
+        if (!player.startRelay(link)) {
+            // O jogador saiu enquanto a ligação era aberta.
+            link.close();
+            return true;
+        }
+        link.run();
+        return true;
+    }
+
+    /**
+     * Guarda a ligação de uma ficha de sessão, para repassar a reconexão do jogador ao nó da sua sala.
+     * @param token A ficha de sessão.
+     * @param link A ligação atual do jogador.
+     */
+    public void rememberSession(String token, NodeLink link) {
+        sessions.put(token, link);
+    }
+
+    /**
+     * Registra o encerramento de uma ligação. A ficha de sessão continua guardada pelo prazo de reconexão, e só é
+     * descartada se o jogador não voltou por outra ligação.
+     * @param link A ligação encerrada.
+     */
+    public void linkClosed(NodeLink link) {
+        activeLinks.decrementAndGet();
+        String token = link.getSessionToken();
+        if (token != null && !token.isEmpty()) {
+            scheduler.schedule(() -> sessions.remove(token, link), GameRoom.SESSION_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Retorna o número de jogadores repassados a outros nós, inclusive nas reconexões.
+     * @return O número de jogadores repassados.
+     */
+    public static long getForwardedPlayers() {
+        return forwardedPlayers.sum();
+    }
+
+    /**
+     * Retorna o número de ligações abertas com outros nós.
+     * @return O número de ligações.
+     */
+    public static int getActiveLinks() {
+        return activeLinks.get();
+    }
+
+    /**
+     * Define a classe Peer, um nó de destino lido do diretório, com os jogadores que ele ainda pode receber.
+     */
+    private static final class Peer {
+
+        /** Entrada do nó no diretório.*/
+        final NodeEntry entry;
+
+        /** Jogadores que ainda podem ser repassados ao nó até a próxima consulta (usado apenas pela thread de pareamento).*/
+        int available;
+
+        /**
+         * Cria o destino a partir da entrada do nó.
+         * @param entry Entrada do nó no diretório.
+         */
+        Peer(NodeEntry entry) {
+            this.entry = entry;
+            this.available = entry.getWaitingPlayers();
+        }
+    }
+}
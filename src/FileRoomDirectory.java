@@ -0,0 +1,76 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Define a classe FileRoomDirectory, o diretório de salas local, guardado em um diretório de arquivos compartilhado
+ * pelos nós, com um arquivo por nó ("id.node") contendo a linha da sua entrada.
+ * Cada nó só escreve o próprio arquivo, que é gravado em um arquivo temporário e depois movido por cima do anterior
+ * em uma única operação, então quem lê sempre encontra uma entrada inteira, sem precisar de bloqueio entre processos.
+ * Serve para rodar vários nós na mesma máquina, ou em máquinas que compartilham um sistema de arquivos.
+ */
+public class FileRoomDirectory implements RoomDirectory {
+
+    /** Extensão dos arquivos com as entradas dos nós.*/
+    private static final String ENTRY_SUFFIX = ".node";
+
+    /** Extensão dos arquivos temporários, gravados antes de substituir a entrada.*/
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** Diretório compartilhado pelos nós.*/
+    private final Path directory;
+
+    /**
+     * Cria o diretório de salas, criando também o diretório de arquivos se ele ainda não existir.
+     * @param directory Diretório compartilhado pelos nós.
+     * @throws IOException Exceção de E/S que pode ocorrer ao criar o diretório.
+     */
+    public FileRoomDirectory(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    @Override
+    public void publish(NodeEntry entry) throws IOException {
+        String fileName = fileName(entry.getNodeId());
+        Path temp = directory.resolve(fileName + TEMP_SUFFIX);
+        Files.writeString(temp, entry.toLine() + "\n", StandardCharsets.US_ASCII);
+        Files.move(temp, directory.resolve(fileName + ENTRY_SUFFIX),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public List<NodeEntry> list() throws IOException {
+        List<NodeEntry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    entries.add(NodeEntry.parse(Files.readString(file, StandardCharsets.US_ASCII)));
+                } catch (NoSuchFileException | IllegalArgumentException ex) {
+                    // O nó saiu durante a listagem, ou o arquivo não é de uma entrada: ele apenas é ignorado.
+                }
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void remove(String nodeId) throws IOException {
+        Files.deleteIfExists(directory.resolve(fileName(nodeId) + ENTRY_SUFFIX));
+    }
+
+    /**
+     * Converte a identificação de um nó no nome do seu arquivo, trocando os caracteres que não são seguros em nomes
+     * de arquivo, como os dois-pontos da identificação padrão ("127.0.0.1:6789").
+     * @param nodeId A identificação do nó.
+     * @return O nome do arquivo, sem a extensão.
+     */
+    private static String fileName(String nodeId) {
+        return nodeId.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
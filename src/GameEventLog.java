@@ -0,0 +1,378 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Define a classe GameEventLog, o registro persistente dos eventos das salas: início, jogadas, chat, resultados e
+ * término. Os eventos são apenas acrescentados, nunca alterados, em segmentos de tamanho limitado.
+ * Quem joga só coloca o evento em uma fila limitada; uma thread dedicada retira os eventos em lotes, os codifica em
+ * um buffer direto e os escreve no arquivo com uma única chamada por lote, sincronizando o disco (fsync) no máximo
+ * a cada intervalo de sincronização. Assim a partida nunca espera pelo disco, a menos que a fila encha.
+ * Cada linha tem o instante em milissegundos, o número da sala e o evento, como no protocolo:
+ * "1700000000000 12 MOVE X 4". Os segmentos de uma execução do servidor se chamam
+ * "events-&lt;início da execução&gt;-&lt;sequência&gt;.log" e são lidos pelo GameReplay.
+ */
+public class GameEventLog implements AutoCloseable {
+
+    /** Diretório padrão dos segmentos, relativo ao diretório de trabalho do servidor.*/
+    public static final String DEFAULT_DIRECTORY = "events";
+
+    /** Prefixo do nome dos segmentos.*/
+    public static final String SEGMENT_PREFIX = "events-";
+
+    /** Sufixo do nome dos segmentos.*/
+    public static final String SEGMENT_SUFFIX = ".log";
+
+    /** Número máximo de eventos aguardando a escrita; quem joga só espera se a fila encher.*/
+    private static final int QUEUE_CAPACITY = 64 * 1024;
+
+    /** Número máximo de eventos retirados da fila de uma vez.*/
+    private static final int BATCH_SIZE = 4096;
+
+    /** Tamanho do buffer em que os eventos são codificados antes de cada escrita.*/
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    /** Tamanho a partir do qual o segmento atual é fechado e um novo é aberto.*/
+    private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    /** Intervalo máximo, em milissegundos, entre a escrita de um evento e a sincronização do disco.*/
+    private static final long FSYNC_INTERVAL_MILLIS = 100;
+
+    /** Diretório dos segmentos.*/
+    private final Path directory;
+
+    /** Instante de início da execução, que identifica os seus segmentos.*/
+    private final long runId = System.currentTimeMillis();
+
+    /** Eventos aguardando a escrita.*/
+    private final ArrayBlockingQueue<Event> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    /** Buffer em que a thread de escrita codifica os eventos.*/
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /** Thread que escreve os eventos no disco.*/
+    private final Thread writer;
+
+    /** Número de eventos escritos.*/
+    private final LongAdder writtenEvents = new LongAdder();
+
+    /** Número de vezes que alguém esperou porque a fila estava cheia.*/
+    private final LongAdder queueFullWaits = new LongAdder();
+
+    /** Número de sincronizações do disco.*/
+    private final LongAdder syncs = new LongAdder();
+
+    /** Indica se o registro está sendo encerrado.*/
+    private volatile boolean closing;
+
+    /** Indica se a escrita falhou; a partir daí os eventos são descartados, para que ninguém espere pela fila.*/
+    private volatile boolean failed;
+
+    /** Segmento aberto (acessado apenas pela thread de escrita).*/
+    private FileChannel segment;
+
+    /** Número do segmento aberto.*/
+    private int segmentNumber;
+
+    /** Bytes escritos no segmento aberto.*/
+    private long segmentBytes;
+
+    /** Indica se há bytes escritos ainda não sincronizados com o disco.*/
+    private boolean dirty;
+
+    /** Instante, em nanossegundos, da última sincronização do disco.*/
+    private long lastSync = System.nanoTime();
+
+    /**
+     * Cria o registro, abrindo o primeiro segmento da execução, e inicia a thread de escrita.
+     * @param directory Diretório dos segmentos, criado se não existir.
+     * @throws IOException Exceção de E/S que pode ocorrer ao criar o diretório ou o primeiro segmento.
+     */
+    public GameEventLog(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        openNextSegment();
+        writer = new Thread(this::writeEvents, "event-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Acrescenta um evento ao registro. Apenas coloca o evento na fila; se ela estiver cheia, espera por espaço,
+     * para que nenhum evento seja perdido.
+     * @param roomId O número da sala.
+     * @param event O evento, no formato do protocolo ("MOVE X 4").
+     */
+    public void append(int roomId, String event) {
+        if (failed) {
+            return;
+        }
+        var entry = new Event(System.currentTimeMillis(), roomId, event);
+        if (queue.offer(entry)) {
+            return;
+        }
+        queueFullWaits.increment();
+        try {
+            queue.put(entry);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Laço da thread de escrita: retira os eventos em lotes, escreve cada lote com uma única chamada e sincroniza
+     * o disco quando o intervalo de sincronização termina. Ao encerrar, escreve e sincroniza o que restou na fila.
+     */
+    private void writeEvents() {
+        List<Event> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (true) {
+                Event first = queue.poll(FSYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                    for (Event event : batch) {
+                        encode(event);
+                    }
+                    writtenEvents.add(batch.size());
+                    batch.clear();
+                }
+
+                // Escreve o buffer quando a fila esvazia; enquanto ela tiver eventos, continua acumulando no buffer,
+                // mas sincroniza o disco a cada intervalo mesmo sob carga contínua.
+                boolean syncDue = System.nanoTime() - lastSync >= TimeUnit.MILLISECONDS.toNanos(FSYNC_INTERVAL_MILLIS);
+                if (queue.isEmpty() || syncDue) {
+                    writeBuffer();
+                    if (syncDue) {
+                        sync();
+                    }
+                    if (closing && queue.isEmpty()) {
+                        sync();
+                        segment.close();
+                        return;
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            // Exibe mensagem de erro no console se não for possível escrever no registro, e libera quem esperava.
+            System.out.println(ex.getMessage());
+            failed = true;
+            queue.clear();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Codifica um evento no buffer, escrevendo o buffer no segmento antes se ele estiver cheio.
+     * Os números são escritos dígito a dígito e os eventos em ASCII sem criar cópias; os demais, em UTF-8.
+     * @param event O evento.
+     * @throws IOException Exceção de E/S que pode ocorrer ao escrever o buffer.
+     */
+    private void encode(Event event) throws IOException {
+        String text = event.text;
+        // Reserva o pior caso: dois números, dois espaços, a quebra de linha e até três bytes por caractere.
+        int maxLength = 20 + 1 + 11 + 1 + text.length() * 3 + 1;
+        if (buffer.remaining() < maxLength) {
+            writeBuffer();
+        }
+        if (buffer.remaining() < maxLength) {
+            // Um evento maior que o buffer inteiro, o que só um chat muito longo causaria, é escrito diretamente.
+            writeFully(ByteBuffer.wrap((event.timeMillis + " " + event.roomId + " " + text + "\n")
+                    .getBytes(StandardCharsets.UTF_8)));
+            return;
+        }
+        putNumber(event.timeMillis);
+        buffer.put((byte) ' ');
+        putNumber(event.roomId);
+        buffer.put((byte) ' ');
+        if (isAscii(text)) {
+            for (int i = 0; i < text.length(); i++) {
+                buffer.put((byte) text.charAt(i));
+            }
+        } else {
+            buffer.put(text.getBytes(StandardCharsets.UTF_8));
+        }
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Escreve um número não negativo em decimal no buffer.
+     * @param value O número.
+     */
+    private void putNumber(long value) {
+        if (value >= 10) {
+            putNumber(value / 10);
+        }
+        buffer.put((byte) ('0' + value % 10));
+    }
+
+    /**
+     * Verifica se um texto tem apenas caracteres ASCII, que ocupam um byte cada.
+     * @param text O texto.
+     * @return Verdadeiro se todos os caracteres são ASCII.
+     */
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Escreve o conteúdo do buffer no segmento, abrindo um novo segmento antes se o atual estiver cheio.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a escrita.
+     */
+    private void writeBuffer() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Escreve um buffer inteiro no segmento, trocando de segmento quando o tamanho limite é atingido.
+     * Os segmentos só são trocados entre escritas, então uma linha nunca fica dividida entre dois segmentos.
+     * @param data O buffer a ser escrito.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a escrita.
+     */
+    private void writeFully(ByteBuffer data) throws IOException {
+        if (segmentBytes > 0 && segmentBytes + data.remaining() > SEGMENT_SIZE) {
+            sync();
+            segment.close();
+            openNextSegment();
+        }
+        while (data.hasRemaining()) {
+            segmentBytes += segment.write(data);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Sincroniza com o disco o que foi escrito no segmento aberto.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a sincronização.
+     */
+    private void sync() throws IOException {
+        if (dirty) {
+            segment.force(false);
+            syncs.increment();
+            dirty = false;
+        }
+        lastSync = System.nanoTime();
+    }
+
+    /**
+     * Abre o próximo segmento da execução, que nunca sobrescreve um arquivo existente.
+     * @throws IOException Exceção de E/S que pode ocorrer ao criar o segmento.
+     */
+    private void openNextSegment() throws IOException {
+        segmentNumber++;
+        segment = FileChannel.open(directory.resolve(segmentName(runId, segmentNumber)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentBytes = 0;
+    }
+
+    /**
+     * Monta o nome de um segmento. Os números têm tamanho fixo, para que a ordem dos nomes seja a ordem dos segmentos.
+     * @param runId Instante de início da execução.
+     * @param segmentNumber Número do segmento na execução.
+     * @return O nome do segmento ("events-1700000000000-000001.log").
+     */
+    static String segmentName(long runId, int segmentNumber) {
+        return runPrefix(runId) + String.format("%06d", segmentNumber) + SEGMENT_SUFFIX;
+    }
+
+    /**
+     * Monta o início do nome dos segmentos de uma execução.
+     * @param runId Instante de início da execução.
+     * @return O início do nome ("events-1700000000000-").
+     */
+    static String runPrefix(long runId) {
+        return String.format("%s%013d-", SEGMENT_PREFIX, runId);
+    }
+
+    /**
+     * Encerra o registro, aguardando a escrita e a sincronização dos eventos que ainda estavam na fila.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Retorna o número de eventos escritos.
+     * @return O número de eventos escritos.
+     */
+    public long getWrittenEvents() {
+        return writtenEvents.sum();
+    }
+
+    /**
+     * Retorna o número de vezes que alguém esperou porque a fila estava cheia.
+     * @return O número de esperas.
+     */
+    public long getQueueFullWaits() {
+        return queueFullWaits.sum();
+    }
+
+    /**
+     * Retorna o número de sincronizações do disco.
+     * @return O número de sincronizações.
+     */
+    public long getSyncs() {
+        return syncs.sum();
+    }
+
+    /**
+     * Retorna o número de eventos aguardando a escrita.
+     * @return O tamanho da fila.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Define a classe Event, um evento aguardando a escrita.
+     */
+    private static final class Event {
+
+        /** Instante do evento, em milissegundos.*/
+        final long timeMillis;
+
+        /** O número da sala.*/
+        final int roomId;
+
+        /** O evento, no formato do protocolo.*/
+        final String text;
+
+        /**
+         * Cria um evento.
+         * @param timeMillis Instante do evento, em milissegundos.
+         * @param roomId O número da sala.
+         * @param text O evento, no formato do protocolo.
+         */
+        Event(long timeMillis, int roomId, String text) {
+            this.timeMillis = timeMillis;
+            this.roomId = roomId;
+            this.text = text;
+        }
+    }
+}
@@ -1,17 +1,20 @@
 import javax.swing.*;
-import javax.swing.plaf.metal.MetalButtonUI;
+import javax.swing.text.BadLocationException;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.io.DataOutputStream;
-import java.io.IOException;
+import java.util.ArrayDeque;
 
 /**
- * Define a classe GameFrame, responsável pela interface gráfica do jogo
+ * Define a classe GameFrame, responsável pela interface gráfica do jogo.
+ * Todos os métodos devem ser chamados na thread de eventos do Swing (EDT), exceto opponentMessage, que acumula as
+ * mensagens de chat recebidas e as exibe em lote; as mensagens para o oponente são entregues a um escritor dedicado,
+ * para que a rede nunca trave o tabuleiro.
+ * O tabuleiro é um único componente (BoardPanel) que desenha as casas a partir do estado do jogo e redesenha apenas a
+ * casa de cada jogada, sem criar objetos da interface por jogada ou por partida.
  */
-public class GameFrame extends JFrame implements ActionListener {
+public class GameFrame extends JFrame {
 
     /** Símbolo que representa marca do jogador "X" no jogo da velha.*/
     public static final char CROSS = 'X';
@@ -19,11 +22,14 @@ public class GameFrame extends JFrame implements ActionListener {
     /** Símbolo que representa marca do jogador "O" no jogo da velha.*/
     public static final char CIRCLE = 'O';
 
-    /** Fluxo de saída de dados para comunicação com o oponente.*/
-    private final DataOutputStream dataOutputStream;
+    /** Número máximo de linhas do histórico do chat; as mais antigas são removidas.*/
+    private static final int MAX_CHAT_LINES = 500;
 
-    /** Array de botões representando as células do tabuleiro do jogo da velha.*/
-    private final JButton[] buttons = new JButton[9];
+    /** Escritor dedicado das mensagens enviadas ao oponente, no protocolo de texto ou no binário.*/
+    private final NetworkWriter networkWriter;
+
+    /** Componente que desenha o tabuleiro do jogo da velha a partir do estado do jogo.*/
+    private final BoardPanel board;
 
     /** Quadro principal que contém a interface gráfica do jogo.*/
     private final JFrame frame;
@@ -34,6 +40,18 @@ public class GameFrame extends JFrame implements ActionListener {
     /** Campo de entrada de texto para o chat do jogo.*/
     private JTextField chatInput;
 
+    /** Mensagens de chat do oponente que aguardam a próxima atualização do chat (protegido pelo bloqueio da própria fila).*/
+    private final ArrayDeque<ChatLine> pendingChat = new ArrayDeque<>();
+
+    /** Indica se a atualização do chat já foi agendada na thread de eventos (protegido pelo bloqueio de pendingChat).*/
+    private boolean chatUpdateScheduled;
+
+    /** Limite de taxa das mensagens de chat do jogador, o mesmo que o servidor aplica, ou nenhum até ser definido.*/
+    private TokenBucket chatLimit = new TokenBucket(0, 1);
+
+    /** Tamanho máximo, em caracteres, das mensagens de chat do jogador, o mesmo que o servidor repassa.*/
+    private int maxChatLength = Integer.MAX_VALUE;
+
     /** Classe que armazena o estado atual do jogo.*/
     private final GameStatus gameStatus;
 
@@ -43,18 +61,47 @@ public class GameFrame extends JFrame implements ActionListener {
     /** Indica se é a vez do jogador atual realizar uma jogada.*/
     private boolean myTurn;
 
+    /** Indica se o servidor arbitra a partida, decidindo a vitória e o empate no lugar do jogador.*/
+    private final boolean serverReferee;
+
+    /** Diálogo com o resultado da partida que aguarda a decisão do jogador, ou nulo se não houver nenhum.*/
+    private JDialog resultDialog;
+
+    /** Registro em que os eventos da partida são acrescentados, ou nulo se eles não são registrados.*/
+    private GameEventLog eventLog;
+
+    /** Número com que a partida aparece no registro de eventos.*/
+    private int gameId;
+
+    /**
+     * Cria a interfaxe gráfica do jogo da velha com um chat ao lado, em uma partida 3x3 em que
+     * cada jogador verifica a própria vitória ou empate.
+     * @param playerId Símbolo do jogador atual(X ou O).
+     * @param myTurn Indica se é a vez do jogador atual.
+     * @param networkWriter Escritor dedicado das mensagens enviadas ao oponente.
+     */
+    public GameFrame(char playerId, boolean myTurn, NetworkWriter networkWriter) {
+        this(playerId, myTurn, networkWriter, false, GameStatus.DEFAULT_SIZE, GameStatus.DEFAULT_WIN_LENGTH);
+    }
+
     /**
      * Cria a interfaxe gráfica do jogo da velha com um chat ao lado.
      * @param playerId Símbolo do jogador atual(X ou O).
      * @param myTurn Indica se é a vez do jogador atual.
-     * @param dataOutputStream Fluxo de saída de dados para comunicação.
+     * @param networkWriter Escritor dedicado das mensagens enviadas ao oponente.
+     * @param serverReferee Indica se o servidor decide a vitória e o empate, enviando o resultado aos dois jogadores.
+     * @param boardSize Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
      */
-    public GameFrame(char playerId, boolean myTurn, DataOutputStream dataOutputStream) {
+    public GameFrame(char playerId, boolean myTurn, NetworkWriter networkWriter, boolean serverReferee,
+                     int boardSize, int winLength) {
         // Inicializa os atributos.
         this.playerId = playerId;
         this.myTurn = myTurn;
-        this.dataOutputStream = dataOutputStream;
-        this.gameStatus = new GameStatus();
+        this.networkWriter = networkWriter;
+        this.serverReferee = serverReferee;
+        this.gameStatus = new GameStatus(boardSize, winLength);
+        this.board = new BoardPanel(gameStatus, playerId, this::cellClicked);
 
         // Cria o painel do jogo e o painel de chat.
         var gamePanel = createGamePanel();
@@ -68,8 +115,41 @@ public class GameFrame extends JFrame implements ActionListener {
         // Cria o quadro principal passando o painel dividido como conteúdo.
         frame = createMainFrame(splitPane);
 
-        // Exibe uma mensagem de boas-vindas no início do jogo.
-        showWelcomeMessage();
+        // Exibe uma mensagem de boas-vindas no início do jogo, depois que a construção da janela terminar.
+        SwingUtilities.invokeLater(this::showWelcomeMessage);
+    }
+
+    /**
+     * Define os limites do chat do jogador, que devem ser os mesmos que o servidor aplica às suas mensagens: as
+     * mensagens acima da taxa ficam no campo de entrada e as maiores que o tamanho máximo são cortadas antes do envio.
+     * @param limit Limite de taxa das mensagens.
+     * @param maxLength Tamanho máximo, em caracteres, de uma mensagem.
+     */
+    public void setChatLimit(TokenBucket limit, int maxLength) {
+        this.chatLimit = limit;
+        this.maxChatLength = maxLength;
+    }
+
+    /**
+     * Passa a acrescentar os eventos da partida (jogadas, chat, resultados e término) ao registro de eventos,
+     * no mesmo formato das salas dos servidores sem interface gráfica.
+     * @param eventLog O registro de eventos.
+     * @param gameId Número com que a partida aparece no registro.
+     */
+    public void setEventLog(GameEventLog eventLog, int gameId) {
+        this.eventLog = eventLog;
+        this.gameId = gameId;
+        logEvent("START " + gameStatus.getSize() + " " + gameStatus.getWinLength());
+    }
+
+    /**
+     * Acrescenta um evento da partida ao registro de eventos, se houver. Apenas enfileira o evento, sem esperar pelo disco.
+     * @param event O evento, no formato do protocolo ("MOVE X 4").
+     */
+    private void logEvent(String event) {
+        if (eventLog != null) {
+            eventLog.append(gameId, event);
+        }
     }
 
     /**
@@ -88,11 +168,7 @@ public class GameFrame extends JFrame implements ActionListener {
         mainFrame.addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                try {
-                    dataOutputStream.writeBytes("END\n");
-                } catch (IOException ex) {
-                    throw new RuntimeException(ex);
-                }
+                leaveGame();
             }
         });
 
@@ -106,15 +182,13 @@ public class GameFrame extends JFrame implements ActionListener {
     }
 
     /**
-     * Cria e configura o painel do jogo da velha composto por uma grade 3x3 de botões.
+     * Cria e configura o painel do jogo da velha, que contém o tabuleiro NxN desenhado pelo BoardPanel.
      * @return Um JPanel configurado com os elementos visuais do jogo da velha.
      */
     private JPanel createGamePanel(){
-        // Cria um novo painel para o jogo.
-        JPanel gamePanel = new JPanel();
-
-        // Configura o layout do painel como uma grade 3x3.
-        gamePanel.setLayout(new GridLayout(3, 3));
+        // Cria um novo painel para o jogo, com o tabuleiro ocupando todo o espaço.
+        JPanel gamePanel = new JPanel(new BorderLayout());
+        gamePanel.add(board, BorderLayout.CENTER);
 
         // Define a dimensão do painel.
         gamePanel.setPreferredSize(new Dimension(400, 400));
@@ -122,17 +196,6 @@ public class GameFrame extends JFrame implements ActionListener {
         // Adiciona margens ao redor do painel.
         gamePanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
-        // Itera criando os nove botões do tabuleiro
-        for (int i = 0; i < 9; i++) {
-            buttons[i] = new JButton(); // Cria um novo botão
-            buttons[i].setName(String.valueOf(i)); // Define o nome do botão como a posição no tabuleiro
-            buttons[i].setForeground(Color.BLACK); // Define a cor do texto do botão como preta
-            buttons[i].setBackground(Color.WHITE); // Define a cor de fundo do botão como branca
-            buttons[i].setFont(new Font("", Font.PLAIN, 60)); // Define a fonte do botão
-            buttons[i].addActionListener(this); // Adiciona um ouvinte de ação ao botão
-            gamePanel.add(buttons[i]); // Adiciona o botão ao painel do jogo
-        }
-
         // Retorna o painel do jogo configurado.
         return gamePanel;
     }
@@ -188,7 +251,9 @@ public class GameFrame extends JFrame implements ActionListener {
     private void showWelcomeMessage() {
         // Constrói a mensagem de boas-vindas.
         String welcomeMessage = "Bem vindo ao Jogo da Velha\n" +
-                                "Seu símbolo é: " + playerId + "\n\n" +
+                                "Seu símbolo é: " + playerId + "\n" +
+                                "Tabuleiro " + gameStatus.getSize() + "x" + gameStatus.getSize() +
+                                ", vence quem alinhar " + gameStatus.getWinLength() + "\n\n" +
                                 (myTurn ? "Você começa jogando" : "Seu oponente começa jogando");
 
         // Exibe a mensagem em uma janela de diálogo.
@@ -200,43 +265,47 @@ public class GameFrame extends JFrame implements ActionListener {
     }
 
     /**
-     * Atualiza o tabuleiro com a jogada do jogador atual quando um botão do tabuleiro é clicado,
+     * Atualiza o tabuleiro com a jogada do jogador atual quando uma casa vazia do tabuleiro é clicada,
      * verifica se houve um vencedor ou empate, e notifica o outro jogador sobre a jogada realizada.
-     * @param e O evento de ação que desencadeou o método.
+     * @param position A posição da casa clicada.
      */
-    public void actionPerformed(ActionEvent e) {
+    private void cellClicked(int position) {
         try {
             // Verifica se é a vez do jogador atual.
             if (myTurn) {
                 // Define que não é mais a vez do jogador atual, para que não possa jogar novamente antes do oponente.
                 myTurn = false;
 
-                // Obtém a posição do botão no tabuleiro a partir de seu nome.
-                JButton button = (JButton) e.getSource();
-                var position = button.getName();
-
-                // Define o texto do botão clicado como o símbolo do jogador (X ou O) na cor azul.
-                button.setText(String.valueOf(playerId));
-                button.setUI(new MetalButtonUI() {
-                    protected Color getDisabledTextColor() {
-                        return Color.BLUE;
-                    }
-                });
-                button.setEnabled(false); // Desabilita o botão para evitar mais cliques
+                // Atualiza o estado do jogo com o símbolo do jogador e redesenha a casa, em azul. A casa ocupada
+                // deixa de aceitar cliques.
+                gameStatus.makeMove(position, playerId);
+                board.repaintCell(position);
+                logEvent("MOVE " + playerId + " " + position);
 
-                // Envia a posição da jogada ao oponente.
-                dataOutputStream.writeBytes(position + "\n");
-
-                // Atualiza o estado do jogo com o símbolo do jogador na posição da jogada.
-                gameStatus.makeMove(Integer.parseInt(position), playerId);
+                // Se o servidor arbitra a partida, envia apenas a jogada e aguarda o resultado enviado por ele.
+                if (serverReferee) {
+                    networkWriter.sendNumbered(writer -> writer.writeMove(position));
+                    return;
+                }
 
-                // Verifica se o jogador venceu ou o jogo empatou.
+                // Verifica se o jogador venceu ou o jogo empatou e envia o resultado junto com a jogada,
+                // com uma única escrita feita pelo escritor dedicado.
                 if (gameStatus.checkWinner(playerId)) {
-                    showWinnerFrame(playerId, true); // Se venceu, exibe o diálogo de vitória.
-                    dataOutputStream.writeBytes("WON" + "\n"); // Envia mensagem ao oponente notificando a vitória.
+                    // Notifica o oponente sobre a vitória e exibe o diálogo de vitória.
+                    networkWriter.send(writer -> {
+                        writer.writeMove(position);
+                        writer.writeWinner('\0');
+                    });
+                    showWinnerFrame(playerId, true);
                 } else if (gameStatus.checkDraw()) {
-                    showDrawFrame(); // Se empatou, exibe o diálogo de empate.
-                    dataOutputStream.writeBytes("DRAW" + "\n"); // Envia mensagem ao oponente notificando o empate.
+                    // Notifica o oponente sobre o empate e exibe o diálogo de empate.
+                    networkWriter.send(writer -> {
+                        writer.writeMove(position);
+                        writer.writeDraw();
+                    });
+                    showDrawFrame();
+                } else {
+                    networkWriter.send(writer -> writer.writeMove(position));
                 }
             }
             else {
@@ -259,17 +328,23 @@ public class GameFrame extends JFrame implements ActionListener {
      */
     public void sendMessagePerformed(ActionEvent e) {
         try {
-            // Obtém a mensagem digitada no campo de input.
-            String message = chatInput.getText();
+            // Obtém a mensagem digitada no campo de input, cortada no tamanho que o servidor repassa.
+            String message = GameRoom.truncateChat(chatInput.getText(), maxChatLength);
+
+            // Mantém a mensagem no campo se o jogador excedeu o limite de taxa, que o servidor também aplica.
+            if (!message.isBlank() && !chatLimit.tryTake(System.nanoTime())) {
+                appendChat("[Aguarde um instante para enviar outra mensagem]\n");
+                return;
+            }
 
             // Verifica se a mensagem não está vazia.
             if(!message.isBlank()) {
                 // Adiciona a mensagem formatada com o símbolo do jogador no painel de chat local
-                chatArea.append("~" + playerId + ": ");
-                chatArea.append(message + "\n");
+                appendChat("~" + playerId + ": " + message + "\n");
+                logEvent("CHAT " + playerId + " " + message);
 
                 // Envia a mensagem ao oponente com 'CHAT' concatenado no início para identificar o tipo de mensagem.
-                dataOutputStream.writeBytes("CHAT" + message + "\n");
+                networkWriter.sendNumbered(writer -> writer.writeChat(message));
             }
 
             // Limpa o campo de input.
@@ -280,63 +355,120 @@ public class GameFrame extends JFrame implements ActionListener {
     }
 
     /**
-     * Atualiza o tabuleiro com a jogada do oponente e verifica se houve um vencedor ou empate.
-     * @param buttonName O nome do botão que representa a posição da jogada do oponente.
+     * Atualiza o tabuleiro com a jogada do oponente, recebida como posição numérica.
+     * Jogadas inválidas, como a posição -1 de uma linha que não pôde ser interpretada ou uma casa já ocupada, são
+     * descartadas, da mesma forma que a sala as descarta nos servidores sem interface gráfica.
+     * @param position A posição da jogada do oponente no tabuleiro.
      * @param opponentId O símbolo do oponente (X ou O).
-     * @throws IOException Exceção de E/S que pode ocorrer durante a comunicação.
      */
-    public void opponentMove(String buttonName, char opponentId) throws IOException {
-        // Obtém a posição do botão no tabuleiro a partir de seu nome.
-        int buttonPosition = Integer.parseInt(buttonName);
-
-        // Atualiza o texto do botão com o símbolo do oponente (X ou O) na cor vermelha.
-        buttons[buttonPosition].setText(String.valueOf(opponentId));
-        buttons[buttonPosition].setUI(new MetalButtonUI() {
-            protected Color getDisabledTextColor() {
-                return Color.RED;
-            }
-        });
-        buttons[buttonPosition].setEnabled(false); // Desabilita o botão para evitar mais cliques
+    public void opponentMove(int position, char opponentId) {
+        // Enquanto o resultado é exibido, a jogada é da próxima partida e é conferida no tabuleiro que será reiniciado.
+        int cellCount = gameStatus.getSize() * gameStatus.getSize();
+        boolean valid = resultDialog != null ? position >= 0 && position < cellCount : gameStatus.isValidMove(position);
+        if (!valid) {
+            return;
+        }
+
+        // Se o oponente já começou a próxima partida enquanto o resultado ainda era exibido,
+        // fecha o diálogo e reinicia o tabuleiro antes de aplicar a jogada.
+        if (resultDialog != null) {
+            resultDialog.dispose();
+            resultDialog = null;
+            restartGame();
+        }
 
-        // Atualiza estado do jogo com o símbolo do oponente na posição da jogada.
-        gameStatus.makeMove(buttonPosition, opponentId);
+        // Atualiza estado do jogo com o símbolo do oponente na posição da jogada e redesenha a casa, em vermelho.
+        gameStatus.makeMove(position, opponentId);
+        board.repaintCell(position);
+        logEvent("MOVE " + opponentId + " " + position);
 
         // Define que é agora é a vez do jogador atual.
         myTurn = true;
     }
 
     /**
-     * Exibe uma mensagem enviada pelo oponente no painel de chat.
+     * Acumula uma mensagem enviada pelo oponente para exibi-la no painel de chat. Pode ser chamado por qualquer thread.
+     * As mensagens que chegam juntas são exibidas em lote, com uma única atualização agendada na thread de eventos,
+     * para que uma rajada de chat não ocupe a interface com uma atualização por mensagem. Se a fila passar do tamanho
+     * do histórico, as mensagens mais antigas, que já sairiam do histórico, são descartadas.
      * @param message A mensagem recebida do oponente.
      * @param opponentId O símbolo do oponente (X ou O).
      */
     public void opponentMessage(String message, char opponentId) {
-        // Adiciona a mensagem formatada do oponente no painel do chat.
-        chatArea.append("~" + opponentId + ": ");
-        chatArea.append(message + "\n");
+        synchronized (pendingChat) {
+            if (pendingChat.size() == MAX_CHAT_LINES) {
+                pendingChat.poll();
+            }
+            pendingChat.add(new ChatLine(opponentId, message));
+            if (chatUpdateScheduled) {
+                return;
+            }
+            chatUpdateScheduled = true;
+        }
+        SwingUtilities.invokeLater(this::showPendingChat);
     }
 
     /**
-     * Reinicia o jogo, limpando o conteúdo dos botões no tabuleiro e reabilitando-os,
-     * e também reinicia o estado do jogo, zerando o array de status.
+     * Exibe no painel de chat, com uma única atualização, todas as mensagens do oponente acumuladas até agora.
      */
-    public void restartGame(){
-        // Limpa e habilita todos botões do tabuleiro para o novo jogo.
-        for (JButton button: buttons) {
-            button.setText("");
-            button.setEnabled(true);
+    private void showPendingChat() {
+        var text = new StringBuilder();
+        synchronized (pendingChat) {
+            for (ChatLine line : pendingChat) {
+                // Adiciona a mensagem formatada do oponente no painel do chat.
+                text.append('~').append(line.symbol).append(": ").append(line.text).append('\n');
+                logEvent("CHAT " + line.symbol + " " + line.text);
+            }
+            pendingChat.clear();
+            chatUpdateScheduled = false;
         }
-        // Reseta o estado do jogo para valores iniciais ('\0' representa vazio).
-        for (int i = 0; i < 9; i++) {
-            gameStatus.gamePosition[i] = '\0';
+        appendChat(text.toString());
+    }
+
+    /**
+     * Exibe no painel de chat um aviso sobre a conexão, como a queda e a retomada da partida.
+     * @param notice O texto do aviso.
+     */
+    public void showConnectionNotice(String notice) {
+        appendChat("[" + notice + "]\n");
+    }
+
+    /**
+     * Acrescenta texto ao painel de chat e remove as linhas mais antigas que passarem do tamanho do histórico.
+     * @param text O texto, terminado por quebra de linha.
+     */
+    private void appendChat(String text) {
+        chatArea.append(text);
+        // O texto termina com quebra de linha, então a última linha da área está sempre vazia.
+        int excess = chatArea.getLineCount() - 1 - MAX_CHAT_LINES;
+        if (excess > 0) {
+            try {
+                chatArea.replaceRange("", 0, chatArea.getLineStartOffset(excess));
+            } catch (BadLocationException ex) {
+                System.out.println(ex.getMessage());
+            }
         }
     }
 
+    /**
+     * Reinicia o jogo, zerando o estado do jogo e redesenhando o tabuleiro vazio e habilitado.
+     */
+    public void restartGame(){
+        // Reseta o estado do jogo para valores iniciais ('\0' representa vazio).
+        gameStatus.reset();
+
+        // Habilita e redesenha o tabuleiro inteiro para o novo jogo.
+        board.setEnabled(true);
+        board.repaint();
+    }
+
     /**
      * Notifica o jogador sobre a saída do oponente da partida, exibindo uma mensagem de encerramento,
      * e encerra o programa após a notificação.
      */
     public void opponentLeftGame(){
+        logEvent("END " + (playerId == CROSS ? CIRCLE : CROSS));
+
         // Exibe uma caixa de diálogo informando que o oponente saiu do jogo.
         JOptionPane.showMessageDialog(frame,
                 "Seu oponente deixou a partida",
@@ -353,56 +485,91 @@ public class GameFrame extends JFrame implements ActionListener {
      * de reiniciar o jogo ou encerrar a partida.
      * @param playerId Símbolo do jogador que venceu (X ou O).
      * @param thisPlayerWon Indica se o jogador atual venceu a partida.
-     * @throws IOException Exceção de E/S que pode ocorrer durante a comunicação.
      */
-    public void showWinnerFrame(char playerId, boolean thisPlayerWon) throws IOException {
-        // Exibe uma caixa de diálogo com opções para reiniciar ou encerrar o jogo.
-        int option = JOptionPane.showOptionDialog(frame,
-                "O jogador " + playerId + " venceu a partida. Deseja jogar outra vez?",
-                thisPlayerWon ? "VITÓRIA!" : "DERROTA!",
-                JOptionPane.YES_NO_OPTION,
-                JOptionPane.INFORMATION_MESSAGE,
-                null,
-                new Object[]{"Sim", "Não"},
-                "Sim"
-        );
-
-        // Verifica a opção escolhida pelo jogador.
-        if (option == JOptionPane.YES_OPTION) {
-            // Reinicia o estado do jogo e o tabuleiro.
-            restartGame();
-        } else {
-            // Encerra o programa e envia mensagem ao oponente informando que o jogador saiu.
-            dataOutputStream.writeBytes("END" + "\n");
-            frame.dispose();
-        }
+    public void showWinnerFrame(char playerId, boolean thisPlayerWon) {
+        logEvent("WON " + playerId);
+        showResultDialog("O jogador " + playerId + " venceu a partida. Deseja jogar outra vez?",
+                thisPlayerWon ? "VITÓRIA!" : "DERROTA!");
     }
 
     /**
      * Exibe uma janela de diálogo informando que o jogo resultou em empate e oferece a opção
      * de reiniciar o jogo ou encerrar a partida.
-     * @throws IOException Exceção de E/S que pode ocorrer durante a comunicação.
      */
-    public void showDrawFrame() throws IOException {
-        // Exibe uma caixa de diálogo com opções para reiniciar ou encerrar o jogo.
-        int option = JOptionPane.showOptionDialog(frame,
-                "O jogo empatou. Deseja jogar outra vez?",
-                "VELHA!",
-                JOptionPane.YES_NO_OPTION,
+    public void showDrawFrame() {
+        logEvent("DRAW");
+        showResultDialog("O jogo empatou. Deseja jogar outra vez?", "VELHA!");
+    }
+
+    /**
+     * Exibe o resultado da partida em um diálogo não modal, que não bloqueia a interface nem a leitura do socket.
+     * O tabuleiro fica desabilitado até o jogador escolher entre jogar outra vez e encerrar a partida.
+     * @param message A mensagem do diálogo.
+     * @param title O título do diálogo.
+     */
+    private void showResultDialog(String message, String title) {
+        // Desabilita o tabuleiro até a decisão do jogador.
+        board.setEnabled(false);
+
+        // Cria o diálogo com as opções para reiniciar ou encerrar o jogo.
+        JOptionPane optionPane = new JOptionPane(message,
                 JOptionPane.INFORMATION_MESSAGE,
+                JOptionPane.YES_NO_OPTION,
                 null,
                 new Object[]{"Sim", "Não"},
                 "Sim"
         );
+        JDialog dialog = optionPane.createDialog(frame, title);
+        dialog.setModal(false);
 
-        // Verifica a opção escolhida pelo jogador.
-        if (option == JOptionPane.YES_OPTION) {
-            // Reinicia o estado do jogo e o tabuleiro.
-            restartGame();
-        } else {
-            // Encerra o programa e envia mensagem ao oponente informando que o jogador saiu.
-            dataOutputStream.writeBytes("END" + "\n");
-            frame.dispose();
+        // Trata a opção escolhida pelo jogador; fechar o diálogo equivale a encerrar a partida.
+        optionPane.addPropertyChangeListener(JOptionPane.VALUE_PROPERTY, event -> {
+            if (event.getNewValue() == JOptionPane.UNINITIALIZED_VALUE || resultDialog != dialog) {
+                return;
+            }
+            resultDialog = null;
+            if ("Sim".equals(event.getNewValue())) {
+                // Reinicia o estado do jogo e o tabuleiro.
+                restartGame();
+            } else {
+                // Encerra o programa e envia mensagem ao oponente informando que o jogador saiu.
+                leaveGame();
+            }
+        });
+
+        resultDialog = dialog;
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Envia ao oponente o término da partida, aguardando por um tempo limitado a sua escrita, e fecha a janela.
+     */
+    private void leaveGame() {
+        logEvent("END " + playerId);
+        networkWriter.send(ProtocolWriter::writeEnd);
+        networkWriter.close();
+        frame.dispose();
+    }
+
+    /**
+     * Define a classe ChatLine, uma mensagem de chat do oponente que aguarda para ser exibida.
+     */
+    private static final class ChatLine {
+
+        /** Símbolo de quem enviou a mensagem.*/
+        private final char symbol;
+
+        /** Texto da mensagem.*/
+        private final String text;
+
+        /**
+         * Cria a mensagem.
+         * @param symbol Símbolo de quem enviou a mensagem.
+         * @param text Texto da mensagem.
+         */
+        private ChatLine(char symbol, String text) {
+            this.symbol = symbol;
+            this.text = text;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,511 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Define a classe GameLobby, o saguão em que os jogadores conectados aguardam a formação de pares.
+ * Os jogadores que chegam entram em uma fila sem bloqueio e podem informar uma nota de habilidade ("RATING 1500").
+ * Uma única thread de pareamento recolhe a fila em intervalos curtos, ordena os jogadores pela nota e forma pares
+ * de notas próximas; a diferença de nota aceita cresce com o tempo de espera e, depois da espera máxima, o jogador
+ * é pareado com o vizinho mais próximo, qualquer que seja a nota. O servidor sorteia quem joga com o xis e começa.
+ * Como apenas a thread de pareamento mexe na lista de espera, as threads que atendem as conexões só disputam a fila
+ * de chegada e o mapa de jogadores, ambos concorrentes.
+ * Os jogadores cuja primeira linha ainda não foi lida, como no servidor NIO, só são recolhidos depois de um breve
+ * intervalo, para que a primeira linha do cliente (a nota, o pedido para assistir ou a retomada de uma partida)
+ * chegue antes da formação do par.
+ * No modo contra o computador, cada jogador é colocado imediatamente em uma sala com um jogador automático.
+ * Quando o servidor é um nó de um agrupamento (ClusterNode), o jogador que passa algum tempo sem par é repassado a
+ * outro nó que tenha jogadores aguardando, e a reconexão de um jogador repassado é enviada ao nó da sua sala.
+ * No modo de torneio (Tournament), os jogadores não são pareados pelo saguão: eles se inscrevem no próximo torneio,
+ * que forma os pares de cada rodada.
+ * Quando o servidor é drenado para ser desligado, o saguão deixa de formar salas: quem aguarda um oponente, ou chega
+ * depois, recebe o término e tem a conexão fechada.
+ */
+public class GameLobby {
+
+    /** Nota de habilidade dos jogadores que não informam a sua.*/
+    public static final int DEFAULT_RATING = 1500;
+
+    /** Prefixo da linha com que o jogador informa a sua nota, antes do início da partida.*/
+    public static final String RATING_PREFIX = "RATING ";
+
+    /** Linha com que o cliente pede para assistir a uma sala em vez de jogar ("WATCH" ou "WATCH 12").*/
+    public static final String WATCH_COMMAND = "WATCH";
+
+    /** Maior nota aceita; notas fora do intervalo são ajustadas aos limites.*/
+    private static final int MAX_RATING = 5000;
+
+    /** Intervalo, em milissegundos, entre as rodadas de pareamento.*/
+    private static final long MATCH_INTERVAL_MILLIS = 50;
+
+    /** Tempo, em milissegundos, dado ao cliente para enviar a primeira linha antes de entrar na formação de pares.*/
+    public static final int GREETING_MILLIS = 250;
+
+    /** Diferença de nota aceita para jogadores que acabaram de chegar.*/
+    private static final int BASE_RATING_GAP = 100;
+
+    /** Aumento da diferença de nota aceita a cada segundo de espera.*/
+    private static final int RATING_GAP_PER_SECOND = 100;
+
+    /** Espera máxima, em nanossegundos, depois da qual o jogador é pareado com qualquer nota.*/
+    private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /** Espera, em nanossegundos, depois da qual o jogador sem par pode ser repassado a outro nó do agrupamento.*/
+    private static final long FORWARD_AFTER_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** Número de linhas e de colunas do tabuleiro das salas criadas.*/
+    private final int boardSize;
+
+    /** Número de símbolos em sequência necessários para vencer nas salas criadas.*/
+    private final int winLength;
+
+    /** Indica se cada jogador enfrenta um jogador automático em vez de aguardar outro jogador.*/
+    private final boolean againstAi;
+
+    /** Jogadores que acabaram de chegar e ainda não foram recolhidos pela thread de pareamento.*/
+    private final ConcurrentLinkedQueue<Ticket> arrivals = new ConcurrentLinkedQueue<>();
+
+    /** Fichas dos jogadores que aguardam um oponente, usadas para registrar a saída de quem desiste.*/
+    private final ConcurrentHashMap<PlayerConnection, Ticket> tickets = new ConcurrentHashMap<>();
+
+    /** Jogadores recolhidos que ainda aguardam um oponente (acessada apenas pela thread de pareamento).*/
+    private List<Ticket> waiting = new ArrayList<>();
+
+    /** Número de jogadores aguardando um oponente.*/
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    /** Número de jogadores que já saíram da fila em uma sala.*/
+    private final LongAdder matchedPlayers = new LongAdder();
+
+    /** Soma dos tempos de espera dos jogadores que já saíram da fila, em nanossegundos.*/
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    /** Ação que inicia as salas criadas, definida pelo servidor.*/
+    private volatile Consumer<GameRoom> roomStarter;
+
+    /** Ação chamada para cada jogador repassado a outro nó, definida pelo servidor.*/
+    private volatile Consumer<PlayerConnection> forwardListener = player -> { };
+
+    /** Nó do agrupamento ao qual o servidor pertence, ou nulo se o servidor roda sozinho.*/
+    private volatile ClusterNode cluster;
+
+    /** Torneio em que os jogadores se inscrevem, no lugar do pareamento, ou nulo fora do modo de torneio.*/
+    private volatile Tournament tournament;
+
+    /** Indica se o servidor está sendo drenado, caso em que o saguão não forma mais salas.*/
+    private volatile boolean draining;
+
+    /**
+     * Cria um saguão cujas salas usam o tabuleiro 3x3 clássico.
+     */
+    public GameLobby() {
+        this(GameStatus.DEFAULT_SIZE, GameStatus.DEFAULT_WIN_LENGTH);
+    }
+
+    /**
+     * Cria um saguão cujas salas usam um tabuleiro NxN.
+     * @param boardSize Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     */
+    public GameLobby(int boardSize, int winLength) {
+        this(boardSize, winLength, false);
+    }
+
+    /**
+     * Cria um saguão cujas salas usam um tabuleiro NxN, com jogadores humanos ou contra o computador.
+     * @param boardSize Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     * @param againstAi Verdadeiro para colocar cada jogador em uma sala com um jogador automático.
+     */
+    public GameLobby(int boardSize, int winLength, boolean againstAi) {
+        // Valida as dimensões antes de aceitar jogadores, para que o erro apareça ao iniciar o servidor.
+        GameStatus.checkDimensions(boardSize, winLength);
+        this.boardSize = boardSize;
+        this.winLength = winLength;
+        this.againstAi = againstAi;
+    }
+
+    /**
+     * Inicia o pareamento. Deve ser chamado pelo servidor antes de aceitar jogadores.
+     * @param roomStarter Ação que inicia cada sala criada; no pareamento ela é chamada pela thread de pareamento,
+     *                    e no modo contra o computador, pela thread que colocou o jogador no saguão.
+     */
+    public void start(Consumer<GameRoom> roomStarter) {
+        start(roomStarter, player -> { });
+    }
+
+    /**
+     * Inicia o pareamento, avisando o servidor de cada jogador que deixa o saguão por ter sido repassado a outro nó.
+     * @param roomStarter Ação que inicia cada sala criada.
+     * @param forwardListener Ação chamada para cada jogador repassado a outro nó, pela thread que abriu a ligação.
+     */
+    public void start(Consumer<GameRoom> roomStarter, Consumer<PlayerConnection> forwardListener) {
+        this.roomStarter = roomStarter;
+        this.forwardListener = forwardListener;
+        if (tournament != null) {
+            tournament.start(roomStarter);
+            return;
+        }
+        if (againstAi) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "matchmaker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                matchWaitingPlayers();
+            } catch (RuntimeException ex) {
+                // Uma exceção interromperia as rodadas seguintes, então apenas é exibida.
+                System.out.println(ex.getMessage());
+            }
+        }, MATCH_INTERVAL_MILLIS, MATCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adiciona ao saguão um jogador cuja primeira linha ainda não foi lida; ele só é pareado depois do intervalo
+     * dado para a primeira linha.
+     * @param player O jogador que acabou de se conectar.
+     */
+    public void join(PlayerConnection player) {
+        join(player, false);
+    }
+
+    /**
+     * Adiciona um jogador ao saguão, onde ele aguarda até ser pareado em uma das próximas rodadas de pareamento.
+     * No modo contra o computador, o jogador joga com o xis contra um jogador automático, sem aguardar, e no modo de
+     * torneio ele é inscrito no próximo torneio.
+     * @param player O jogador que acabou de se conectar.
+     * @param greeted Verdadeiro se a primeira linha do jogador já foi lida ou o intervalo para ela já passou.
+     */
+    public void join(PlayerConnection player, boolean greeted) {
+        if (draining) {
+            dismiss(player);
+            return;
+        }
+        if (againstAi) {
+            roomStarter.accept(new GameRoom(player, new AiPlayerConnection(), boardSize, winLength));
+            return;
+        }
+        Tournament currentTournament = tournament;
+        if (currentTournament != null) {
+            currentTournament.register(player, greeted);
+            return;
+        }
+        var ticket = new Ticket(player, greeted ? 0 : TimeUnit.MILLISECONDS.toNanos(GREETING_MILLIS));
+        tickets.put(player, ticket);
+        queueDepth.incrementAndGet();
+        arrivals.offer(ticket);
+    }
+
+    /**
+     * Remove um jogador do saguão, caso ele tenha se desconectado enquanto aguardava um oponente.
+     * @param player O jogador que se desconectou.
+     */
+    public void leave(PlayerConnection player) {
+        Tournament currentTournament = tournament;
+        if (currentTournament != null) {
+            currentTournament.withdraw(player);
+            return;
+        }
+        cancelTicket(player);
+    }
+
+    /**
+     * Retira a ficha de um jogador que saiu, sob o mesmo bloqueio usado para reservar os pares, para que um jogador
+     * não saia entre a reserva da sua ficha e a do oponente.
+     * A ficha é apenas marcada; a thread de pareamento a descarta na próxima rodada.
+     * @param player O jogador que saiu.
+     */
+    private synchronized void cancelTicket(PlayerConnection player) {
+        Ticket ticket = tickets.remove(player);
+        if (ticket != null) {
+            ticket.cancelled = true;
+            queueDepth.decrementAndGet();
+        }
+    }
+
+    /**
+     * Deixa de formar salas, para que o servidor possa ser desligado sem interromper partidas: os jogadores que
+     * aguardam um oponente são dispensados na próxima rodada de pareamento, e os que chegarem, ao chegar.
+     * O torneio, se houver, termina ao fim da rodada em andamento.
+     */
+    public void drain() {
+        draining = true;
+        Tournament currentTournament = tournament;
+        if (currentTournament != null) {
+            currentTournament.drain();
+        }
+    }
+
+    /**
+     * Dispensa um jogador que não será pareado: envia o término e fecha a conexão.
+     * @param player O jogador.
+     */
+    static void dismiss(PlayerConnection player) {
+        player.sendEnd();
+        ServerMetrics.recordSent(BinaryProtocol.END);
+        player.flush();
+        player.close();
+    }
+
+    /**
+     * Liga o saguão a um agrupamento de servidores, para que os jogadores sem par possam ser repassados a outros nós.
+     * @param cluster O nó do agrupamento ao qual o servidor pertence.
+     */
+    public void setCluster(ClusterNode cluster) {
+        this.cluster = cluster;
+    }
+
+    /**
+     * Passa o saguão ao modo de torneio, em que os jogadores se inscrevem no torneio em vez de aguardar um par.
+     * Deve ser chamado antes de start().
+     * @param tournament O torneio.
+     */
+    public void setTournament(Tournament tournament) {
+        this.tournament = tournament;
+    }
+
+    /**
+     * Avisa o servidor de que um jogador deixou o saguão por ter sido repassado a outro nó, depois que a ligação com
+     * o outro nó foi aberta. O jogador que não pôde ser repassado volta ao saguão sem esse aviso.
+     * @param player O jogador repassado.
+     */
+    public void playerForwarded(PlayerConnection player) {
+        forwardListener.accept(player);
+    }
+
+    /**
+     * Repassa ao nó da sua sala a reconexão de um jogador que este nó repassou antes a outro nó.
+     * @param request A linha de retomada ("RESUME ficha última").
+     * @param player A nova conexão do jogador.
+     * @return Falso se o servidor não pertence a um agrupamento ou a ficha não é de um jogador repassado.
+     */
+    public boolean forwardResume(String request, PlayerConnection player) {
+        ClusterNode currentCluster = cluster;
+        return currentCluster != null && currentCluster.forwardResume(request, player);
+    }
+
+    /**
+     * Interpreta a linha com a nota de um jogador ("RATING 1500").
+     * @param message A linha recebida.
+     * @param currentRating Nota atual do jogador, mantida se a linha for inválida.
+     * @return A nota informada, ajustada ao intervalo aceito.
+     */
+    public static int parseRating(String message, int currentRating) {
+        try {
+            int rating = Integer.parseInt(message.substring(RATING_PREFIX.length()).trim());
+            return Math.max(0, Math.min(MAX_RATING, rating));
+        } catch (NumberFormatException | IndexOutOfBoundsException ex) {
+            return currentRating;
+        }
+    }
+
+    /**
+     * Faz uma rodada de pareamento: recolhe os jogadores que chegaram, descarta os que saíram, ordena pela nota
+     * os que já passaram do intervalo da primeira linha e forma pares de vizinhos cuja diferença de nota é
+     * aceitável pelo tempo de espera.
+     */
+    private void matchWaitingPlayers() {
+        long now = System.nanoTime();
+        Ticket arrival;
+        while ((arrival = arrivals.poll()) != null) {
+            waiting.add(arrival);
+        }
+        waiting.removeIf(ticket -> ticket.cancelled);
+
+        // Durante a drenagem, dispensa quem aguarda em vez de formar pares.
+        if (draining) {
+            for (Ticket ticket : waiting) {
+                if (tickets.remove(ticket.player, ticket)) {
+                    queueDepth.decrementAndGet();
+                    dismiss(ticket.player);
+                }
+            }
+            waiting.clear();
+            return;
+        }
+
+        // Quem ainda pode enviar a primeira linha fica de fora desta rodada.
+        List<Ticket> greeting = new ArrayList<>();
+        waiting.removeIf(ticket -> ticket.readyAt - now > 0 && greeting.add(ticket));
+        if (waiting.size() < 2) {
+            forwardUnmatched(waiting, now);
+            waiting.addAll(greeting);
+            return;
+        }
+
+        // Lê a nota atual de cada jogador uma única vez, pois ela pode mudar durante a ordenação.
+        for (Ticket ticket : waiting) {
+            ticket.rating = ticket.player.getRating();
+        }
+        waiting.sort(Comparator.comparingInt(ticket -> ticket.rating));
+
+        List<Ticket> remaining = greeting;
+        int i = 0;
+        while (i < waiting.size()) {
+            Ticket first = waiting.get(i);
+            Ticket second = i + 1 < waiting.size() ? waiting.get(i + 1) : null;
+            if (second != null && canPair(first, second, now)) {
+                if (!createRoom(first, second, now)) {
+                    // Um dos dois saiu durante a rodada; quem continua aguardando volta para a fila.
+                    for (Ticket ticket : new Ticket[] {first, second}) {
+                        if (!ticket.cancelled) {
+                            remaining.add(ticket);
+                        }
+                    }
+                }
+                i += 2;
+            } else {
+                remaining.add(first);
+                i++;
+            }
+        }
+        forwardUnmatched(remaining, now);
+        waiting = remaining;
+    }
+
+    /**
+     * Repassa a outros nós do agrupamento os jogadores que continuam sem par depois da espera mínima, retirando-os
+     * da lista de espera. Os que não têm para onde ir continuam aguardando neste nó.
+     * @param unmatched Jogadores que ficaram sem par nesta rodada, todos já fora do intervalo da primeira linha.
+     * @param now Instante atual, em nanossegundos.
+     */
+    private void forwardUnmatched(List<Ticket> unmatched, long now) {
+        ClusterNode currentCluster = cluster;
+        if (currentCluster == null) {
+            return;
+        }
+        unmatched.removeIf(ticket -> {
+            if (now - ticket.enqueuedAt < FORWARD_AFTER_NANOS) {
+                return false;
+            }
+            NodeEntry target = currentCluster.claimTarget();
+            if (target == null) {
+                return false;
+            }
+            // Quem saiu enquanto aguardava já foi descontado da fila e é apenas descartado.
+            if (tickets.remove(ticket.player, ticket)) {
+                queueDepth.decrementAndGet();
+                currentCluster.forward(ticket.player, target);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Verifica se dois jogadores podem formar um par: a diferença de nota aceita cresce com a espera do jogador
+     * que aguarda há mais tempo e deixa de ter limite depois da espera máxima.
+     * @param first Um dos jogadores.
+     * @param second O outro jogador.
+     * @param now Instante atual, em nanossegundos.
+     * @return Verdadeiro se os jogadores podem formar um par.
+     */
+    private static boolean canPair(Ticket first, Ticket second, long now) {
+        long longestWait = now - Math.min(first.enqueuedAt, second.enqueuedAt);
+        if (longestWait >= MAX_WAIT_NANOS) {
+            return true;
+        }
+        long allowedGap = BASE_RATING_GAP + RATING_GAP_PER_SECOND * longestWait / TimeUnit.SECONDS.toNanos(1);
+        return Math.abs(first.rating - second.rating) <= allowedGap;
+    }
+
+    /**
+     * Cria a sala de um par, sorteando quem joga com o xis e começa a partida, e a entrega ao servidor.
+     * A sala só é criada se os dois jogadores ainda aguardam; se um deles saiu durante a rodada, nenhuma ficha é
+     * retirada e o outro continua na fila.
+     * @param first Um dos jogadores.
+     * @param second O outro jogador.
+     * @param now Instante atual, em nanossegundos.
+     * @return Falso se um dos jogadores saiu antes da formação da sala.
+     */
+    private boolean createRoom(Ticket first, Ticket second, long now) {
+        if (!claimPair(first, second)) {
+            return false;
+        }
+        matchedPlayers.add(2);
+        totalWaitNanos.add(now - first.enqueuedAt + now - second.enqueuedAt);
+
+        boolean firstIsCross = ThreadLocalRandom.current().nextBoolean();
+        PlayerConnection crossPlayer = firstIsCross ? first.player : second.player;
+        PlayerConnection circlePlayer = firstIsCross ? second.player : first.player;
+        roomStarter.accept(new GameRoom(crossPlayer, circlePlayer, boardSize, winLength));
+        return true;
+    }
+
+    /**
+     * Retira da fila as fichas de um par, desde que as duas continuem lá. O bloqueio, compartilhado com a saída dos
+     * jogadores, garante que as duas fichas sejam retiradas juntas ou nenhuma seja.
+     * @param first Ficha de um dos jogadores.
+     * @param second Ficha do outro jogador.
+     * @return Verdadeiro se as duas fichas foram retiradas.
+     */
+    private synchronized boolean claimPair(Ticket first, Ticket second) {
+        if (tickets.get(first.player) != first || tickets.get(second.player) != second) {
+            return false;
+        }
+        tickets.remove(first.player);
+        tickets.remove(second.player);
+        queueDepth.addAndGet(-2);
+        return true;
+    }
+
+    /**
+     * Retorna o número de jogadores aguardando um oponente.
+     * @return O tamanho da fila.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Retorna o tempo médio de espera dos jogadores que já foram pareados.
+     * @return O tempo médio de espera, em milissegundos.
+     */
+    public double getAverageWaitMillis() {
+        long matched = matchedPlayers.sum();
+        return matched == 0 ? 0 : totalWaitNanos.sum() / 1e6 / matched;
+    }
+
+    /**
+     * Define a classe Ticket, a ficha de um jogador na fila do saguão.
+     */
+    private static final class Ticket {
+
+        /** O jogador que aguarda.*/
+        final PlayerConnection player;
+
+        /** Instante, em nanossegundos, em que o jogador entrou na fila.*/
+        final long enqueuedAt = System.nanoTime();
+
+        /** Instante, em nanossegundos, a partir do qual o jogador pode ser pareado.*/
+        final long readyAt;
+
+        /** Nota do jogador lida na rodada de pareamento atual.*/
+        int rating;
+
+        /** Indica se o jogador saiu antes de ser pareado.*/
+        volatile boolean cancelled;
+
+        /**
+         * Cria a ficha de um jogador.
+         * @param player O jogador que aguarda.
+         * @param greetingNanos Intervalo, em nanossegundos, dado para a primeira linha do jogador.
+         */
+        Ticket(PlayerConnection player, long greetingNanos) {
+            this.player = player;
+            this.readyAt = enqueuedAt + greetingNanos;
+        }
+    }
+}
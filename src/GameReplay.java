@@ -0,0 +1,201 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Define a classe GameReplay, a ferramenta que reconstrói as partidas de uma sala a partir do registro de eventos
+ * (GameEventLog). Cada jogada é aplicada a um GameStatus, que é exibido depois de cada jogada, e cada resultado
+ * registrado é conferido com o estado reconstruído antes de o tabuleiro ser reiniciado para a partida seguinte.
+ * Linhas incompletas, como a última linha de um segmento interrompido por uma queda do servidor, são ignoradas.
+ */
+public class GameReplay {
+
+    /**
+     * Método principal da ferramenta de reprodução.
+     * @param args O diretório do registro (padrão "events"); sem mais argumentos, lista as salas da execução mais
+     *             recente. Seguido do número da sala e, opcionalmente, do início da execução, reproduz as partidas
+     *             da sala.
+     */
+    public static void main(String[] args) {
+        Path directory = Paths.get(args.length > 0 ? args[0] : GameEventLog.DEFAULT_DIRECTORY);
+        try {
+            TreeSet<Long> runs = listRuns(directory);
+            if (runs.isEmpty()) {
+                System.out.println("Nenhum segmento encontrado em " + directory);
+                return;
+            }
+            long runId = args.length > 2 ? Long.parseLong(args[2]) : runs.last();
+            if (args.length > 1) {
+                replayRoom(readRoom(directory, runId, Integer.parseInt(args[1])));
+            } else {
+                System.out.println("Execuções: " + runs);
+                listRooms(directory, runId);
+            }
+        } catch (IOException | NumberFormatException ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Lista as execuções que têm segmentos no diretório.
+     * @param directory O diretório do registro.
+     * @return O início de cada execução, em ordem.
+     * @throws IOException Exceção de E/S que pode ocorrer ao listar o diretório.
+     */
+    public static TreeSet<Long> listRuns(Path directory) throws IOException {
+        var runs = new TreeSet<Long>();
+        for (Path segment : listSegments(directory, -1)) {
+            String name = segment.getFileName().toString();
+            runs.add(Long.parseLong(name.substring(GameEventLog.SEGMENT_PREFIX.length(), name.lastIndexOf('-'))));
+        }
+        return runs;
+    }
+
+    /**
+     * Lê os eventos de uma sala em todos os segmentos de uma execução, na ordem em que foram registrados.
+     * @param directory O diretório do registro.
+     * @param runId O início da execução.
+     * @param roomId O número da sala.
+     * @return Os eventos da sala, no formato do protocolo ("MOVE X 4").
+     * @throws IOException Exceção de E/S que pode ocorrer ao ler os segmentos.
+     */
+    public static List<String> readRoom(Path directory, long runId, int roomId) throws IOException {
+        List<String> events = new ArrayList<>();
+        String room = String.valueOf(roomId);
+        for (Path segment : listSegments(directory, runId)) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split(" ", 3);
+                    if (fields.length == 3 && fields[1].equals(room)) {
+                        events.add(fields[2]);
+                    }
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Reproduz as partidas de uma sala, exibindo o tabuleiro depois de cada jogada e conferindo cada resultado.
+     * @param events Os eventos da sala, no formato do protocolo.
+     */
+    public static void replayRoom(List<String> events) {
+        GameStatus gameStatus = null;
+        int game = 1;
+        for (String event : events) {
+            String[] fields = event.split(" ", 3);
+            try {
+                switch (fields[0]) {
+                    case "START" -> {
+                        gameStatus = new GameStatus(Integer.parseInt(fields[1]), Integer.parseInt(fields[2]));
+                        System.out.println("Sala iniciada: tabuleiro " + fields[1] + "x" + fields[1]
+                                + ", vence quem alinhar " + fields[2]);
+                    }
+                    case "MOVE" -> {
+                        char playerId = fields[1].charAt(0);
+                        int position = Integer.parseInt(fields[2]);
+                        gameStatus.makeMove(position, playerId);
+                        System.out.println("Partida " + game + ": " + playerId + " joga em " + position);
+                        printBoard(gameStatus);
+                    }
+                    case "WON", "DRAW" -> {
+                        boolean confirmed = fields[0].equals("WON")
+                                ? gameStatus.checkWinner(fields[1].charAt(0))
+                                : gameStatus.checkDraw();
+                        System.out.println("Partida " + game + ": " + (fields[0].equals("WON")
+                                ? "vitória de " + fields[1] : "empate")
+                                + (confirmed ? "" : " (não confere com o tabuleiro reconstruído)"));
+                        gameStatus.reset();
+                        game++;
+                    }
+                    case "CHAT" -> System.out.println("~" + fields[1] + ": " + (fields.length > 2 ? fields[2] : ""));
+                    case "END" -> System.out.println("Sala encerrada" + (fields.length > 1 ? " por " + fields[1] : ""));
+                    default -> System.out.println("Evento desconhecido: " + event);
+                }
+            } catch (RuntimeException ex) {
+                // Um evento incompleto ou anterior ao início da sala é exibido e ignorado.
+                System.out.println("Evento inválido: " + event);
+            }
+        }
+    }
+
+    /**
+     * Exibe as salas de uma execução, com o número de partidas terminadas e de jogadas de cada uma.
+     * @param directory O diretório do registro.
+     * @param runId O início da execução.
+     * @throws IOException Exceção de E/S que pode ocorrer ao ler os segmentos.
+     */
+    private static void listRooms(Path directory, long runId) throws IOException {
+        // Para cada sala, guarda o número de partidas terminadas e o de jogadas.
+        Map<Integer, long[]> rooms = new TreeMap<>();
+        for (Path segment : listSegments(directory, runId)) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split(" ", 4);
+                    if (fields.length < 3) {
+                        continue;
+                    }
+                    try {
+                        long[] counts = rooms.computeIfAbsent(Integer.parseInt(fields[1]), room -> new long[2]);
+                        if (fields[2].equals("WON") || fields[2].equals("DRAW")) {
+                            counts[0]++;
+                        } else if (fields[2].equals("MOVE")) {
+                            counts[1]++;
+                        }
+                    } catch (NumberFormatException ex) {
+                        // Linha incompleta, ignorada.
+                    }
+                }
+            }
+        }
+        System.out.println("Execução " + runId + ": " + rooms.size() + " salas");
+        rooms.forEach((room, counts) -> System.out.println("Sala " + room + " | Partidas: " + counts[0]
+                + " | Jogadas: " + counts[1]));
+    }
+
+    /**
+     * Exibe o tabuleiro reconstruído, uma linha por linha do tabuleiro, com "-" nas posições vazias.
+     * @param gameStatus O estado do jogo.
+     */
+    private static void printBoard(GameStatus gameStatus) {
+        int size = gameStatus.getSize();
+        for (int row = 0; row < size; row++) {
+            var line = new StringBuilder("  ");
+            for (int column = 0; column < size; column++) {
+                char symbol = gameStatus.getPosition(row * size + column);
+                line.append(symbol == '\0' ? '-' : symbol);
+            }
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Lista os segmentos do diretório em ordem, todos ou apenas os de uma execução.
+     * @param directory O diretório do registro.
+     * @param runId O início da execução, ou -1 para todas as execuções.
+     * @return Os segmentos, na ordem em que foram escritos.
+     * @throws IOException Exceção de E/S que pode ocorrer ao listar o diretório.
+     */
+    private static List<Path> listSegments(Path directory, long runId) throws IOException {
+        String prefix = runId < 0 ? GameEventLog.SEGMENT_PREFIX : GameEventLog.runPrefix(runId);
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(GameEventLog.SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,1041 @@
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Define a classe GameRoom, que representa uma sala com dois jogadores conectados ao servidor.
+ * A sala arbitra a partida: mantém o estado oficial do jogo, valida cada jogada antes de repassá-la ao oponente
+ * e envia o resultado (vitória ou empate) aos dois jogadores. As mensagens de chat são repassadas sem alterações.
+ * A sala também pode ser assistida por espectadores, que recebem as jogadas, os resultados e o chat (SpectatorFeed).
+ * Os mesmos eventos, com o início e o término da sala, são acrescentados ao registro de eventos do servidor, se houver.
+ * Cada jogador ocupa um lugar (PlayerSeat) que sobrevive à queda da conexão: quem cai sem enviar o término tem um
+ * prazo para se reconectar com a ficha de sessão recebida na linha de início ("RESUME ficha última") e continuar
+ * a partida de onde parou; se o prazo acabar, a sala é encerrada como se ele tivesse saído.
+ * A sala envia batimentos ("PING") a cada jogador em intervalos regulares e trata como queda a conexão que passa
+ * vários intervalos sem enviar nada, nem a resposta ("PONG"); o jogador que demora demais para jogar perde a partida
+ * por abandono, e a sala é encerrada como se ele tivesse saído. Todos esses prazos ficam em uma única roda de prazos
+ * (TimingWheel), sem uma thread ou tarefa agendada por conexão.
+ * Nas salas de partida única, como as de um torneio, a partida não recomeça: o resultado é entregue a quem criou a
+ * sala (MatchListener) e os jogadores que continuam conectados são liberados para outra sala, sem fechar a conexão.
+ * Quando o servidor é drenado para ser desligado, cada sala avisa os jogadores pelo chat e termina ao fim da partida
+ * em andamento, em vez de recomeçar; as que não terminam até o fim do prazo da drenagem são encerradas à força.
+ */
+public class GameRoom {
+
+    /** Prefixo da linha com que o jogador retoma a partida em uma nova conexão ("RESUME ficha última").*/
+    public static final String RESUME_PREFIX = "RESUME ";
+
+    /** Prefixo da resposta à retomada, com o número de jogadas e mensagens de chat recebidas do jogador ("RESUMED 7").*/
+    public static final String RESUMED_PREFIX = "RESUMED ";
+
+    /** Campo da linha de início que precede a ficha de sessão do jogador.*/
+    public static final String SESSION_FIELD = "SESSION";
+
+    /** Campo da linha de início que indica uma sala de partida única, que não recomeça depois do resultado.*/
+    public static final String SINGLE_GAME_FIELD = "SINGLE";
+
+    /** Campo da linha de início que precede o intervalo, em milissegundos, entre os batimentos enviados ao jogador.*/
+    public static final String HEARTBEAT_FIELD = "HEARTBEAT";
+
+    /**
+     * Campo da linha de início que precede os limites do chat que o servidor aplica: mensagens por segundo, rajada e
+     * tamanho máximo ("CHATLIMIT 2.0 5 280").
+     */
+    public static final String CHAT_LIMIT_FIELD = "CHATLIMIT";
+
+    /** Prazo, em milissegundos, para o jogador que caiu se reconectar antes de a sala ser encerrada.*/
+    public static final long SESSION_GRACE_MILLIS = 30000;
+
+    /** Intervalo padrão, em milissegundos, entre os batimentos enviados a cada jogador.*/
+    public static final long DEFAULT_HEARTBEAT_MILLIS = 10000;
+
+    /** Número padrão de intervalos sem receber nada do jogador depois do qual a conexão é tratada como queda.*/
+    public static final int DEFAULT_MISSED_HEARTBEATS = 3;
+
+    /** Prazo padrão, em milissegundos, para o jogador da vez jogar antes de perder a partida por abandono.*/
+    public static final long DEFAULT_TURN_TIMEOUT_MILLIS = 300000;
+
+    /** Número padrão de mensagens de chat por segundo que cada jogador pode enviar, em média.*/
+    public static final double DEFAULT_CHAT_PER_SECOND = 2;
+
+    /** Número padrão de mensagens de chat que cada jogador pode enviar em uma rajada, acima da média.*/
+    public static final int DEFAULT_CHAT_BURST = 5;
+
+    /** Prazo padrão, em segundos, para que as salas terminem as partidas em andamento quando o servidor é drenado.*/
+    public static final long DEFAULT_DRAIN_SECONDS = 30;
+
+    /** Aviso enviado pelo chat aos jogadores das salas quando o servidor começa a ser drenado.*/
+    private static final String DRAIN_NOTICE = "[servidor] O servidor será reiniciado: a sala termina ao fim desta partida";
+
+    /** Tamanho máximo padrão, em caracteres, de uma mensagem de chat; o excesso é cortado.*/
+    public static final int DEFAULT_MAX_CHAT_LENGTH = 280;
+
+    /** Roda com os prazos de todas as salas: batimentos, reconexões e jogadas; as tarefas rodam em threads virtuais.*/
+    private static final TimingWheel timers = new TimingWheel("room-timers", 100, 512,
+            Executors.newVirtualThreadPerTaskExecutor());
+
+    /** Intervalo, em milissegundos, entre os batimentos enviados a cada jogador, ou zero para não enviar batimentos.*/
+    private static volatile long heartbeatMillis = DEFAULT_HEARTBEAT_MILLIS;
+
+    /** Número de intervalos sem receber nada do jogador depois do qual a conexão é tratada como queda.*/
+    private static volatile int missedHeartbeats = DEFAULT_MISSED_HEARTBEATS;
+
+    /** Prazo, em milissegundos, para o jogador da vez jogar, ou zero para esperar sem limite.*/
+    private static volatile long turnTimeoutMillis = DEFAULT_TURN_TIMEOUT_MILLIS;
+
+    /** Número de mensagens de chat por segundo que cada jogador pode enviar, em média, ou zero para não limitar.*/
+    private static volatile double chatPerSecond = DEFAULT_CHAT_PER_SECOND;
+
+    /** Número de mensagens de chat que cada jogador pode enviar em uma rajada.*/
+    private static volatile int chatBurst = DEFAULT_CHAT_BURST;
+
+    /** Tamanho máximo, em caracteres, de uma mensagem de chat.*/
+    private static volatile int maxChatLength = DEFAULT_MAX_CHAT_LENGTH;
+
+    /** Número de mensagens de chat descartadas por excederem o limite de taxa do jogador.*/
+    private static final LongAdder droppedChats = new LongAdder();
+
+    /** Número de mensagens de chat cortadas por excederem o tamanho máximo.*/
+    private static final LongAdder truncatedChats = new LongAdder();
+
+    /** Número de batimentos enviados aos jogadores.*/
+    private static final LongAdder pingsSent = new LongAdder();
+
+    /** Número de conexões tratadas como queda por não responderem aos batimentos.*/
+    private static final LongAdder reapedConnections = new LongAdder();
+
+    /** Número de salas encerradas porque o jogador da vez não jogou dentro do prazo.*/
+    private static final LongAdder forfeitedRooms = new LongAdder();
+
+    /** Indica se o servidor está sendo drenado: as salas terminam ao fim da partida em andamento, sem recomeçar.*/
+    private static volatile boolean draining;
+
+    /** Número de salas que terminaram a partida em andamento durante a drenagem do servidor.*/
+    private static final LongAdder drainedRooms = new LongAdder();
+
+    /** Número de salas encerradas à força no fim do prazo da drenagem do servidor.*/
+    private static final LongAdder forceClosedRooms = new LongAdder();
+
+    /** Salas abertas, pela ficha de sessão de cada jogador, para que quem caiu possa retomar a partida.*/
+    private static final ConcurrentHashMap<String, GameRoom> sessions = new ConcurrentHashMap<>();
+
+    /** Número de partidas retomadas depois de uma queda de conexão.*/
+    private static final LongAdder resumedSessions = new LongAdder();
+
+    /** Número de salas encerradas porque um jogador não se reconectou dentro do prazo.*/
+    private static final LongAdder expiredSessions = new LongAdder();
+
+    /** Número de salas abertas no servidor.*/
+    private static final AtomicInteger activeRooms = new AtomicInteger();
+
+    /** Número de jogadas inválidas descartadas pelas salas do servidor.*/
+    private static final AtomicLong rejectedMoves = new AtomicLong();
+
+    /** Próximo número de identificação de sala.*/
+    private static final AtomicInteger nextRoomId = new AtomicInteger(1);
+
+    /** Salas abertas, pelo número de identificação, para que os espectadores possam encontrá-las.*/
+    private static final ConcurrentHashMap<Integer, GameRoom> openRooms = new ConcurrentHashMap<>();
+
+    /** Registro de eventos das salas, ou nulo se os eventos não são registrados.*/
+    private static volatile GameEventLog eventLog;
+
+    /** Número de identificação da sala.*/
+    private final int id = allocateRoomId();
+
+    /** Lugar do jogador que joga com o xis e começa a partida.*/
+    private final PlayerSeat crossSeat;
+
+    /** Lugar do jogador que joga com o círculo.*/
+    private final PlayerSeat circleSeat;
+
+    /** Bloqueio das threads que aguardam a reconexão de um jogador (não fixa threads virtuais, ao contrário do wait()).*/
+    private final ReentrantLock resumeLock = new ReentrantLock();
+
+    /** Condição sinalizada quando um jogador se reconecta ou a sala é encerrada.*/
+    private final Condition seatChanged = resumeLock.newCondition();
+
+    /** Indica se a sala já foi encerrada.*/
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /** Estado oficial do jogo da sala.*/
+    private final GameStatus gameStatus;
+
+    /** Espectadores da sala.*/
+    private final SpectatorFeed spectators = new SpectatorFeed();
+
+    /** Símbolo do jogador que deve fazer a próxima jogada.*/
+    private char currentTurn = GameFrame.CROSS;
+
+    /** Instante, em nanossegundos, da última jogada válida ou do início da sala (protegido pelo bloqueio da sala).*/
+    private long lastMoveNanos = System.nanoTime();
+
+    /** Instante, em nanossegundos, da leitura da jogada que ainda não foi escrita no socket do oponente, ou zero.*/
+    private final AtomicLong relayStartNanos = new AtomicLong();
+
+    /** Quem recebe o resultado nas salas de partida única, ou nulo nas salas em que as partidas recomeçam.*/
+    private final MatchListener matchListener;
+
+    /**
+     * Cria uma sala com dois jogadores e associa a sala a cada um deles.
+     * @param crossPlayer Jogador que joga com o xis.
+     * @param circlePlayer Jogador que joga com o círculo.
+     * @param boardSize Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     */
+    public GameRoom(PlayerConnection crossPlayer, PlayerConnection circlePlayer, int boardSize, int winLength) {
+        this(crossPlayer, circlePlayer, boardSize, winLength, null);
+    }
+
+    /**
+     * Cria uma sala com dois jogadores que, se houver quem receba o resultado, joga uma única partida.
+     * @param crossPlayer Jogador que joga com o xis.
+     * @param circlePlayer Jogador que joga com o círculo.
+     * @param boardSize Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     * @param matchListener Quem recebe o resultado da partida única, ou nulo para que as partidas recomecem.
+     */
+    public GameRoom(PlayerConnection crossPlayer, PlayerConnection circlePlayer, int boardSize, int winLength,
+                    MatchListener matchListener) {
+        this.matchListener = matchListener;
+        this.crossSeat = new PlayerSeat(GameFrame.CROSS, crossPlayer);
+        this.circleSeat = new PlayerSeat(GameFrame.CIRCLE, circlePlayer);
+        this.gameStatus = new GameStatus(boardSize, winLength);
+        crossPlayer.setRoom(this);
+        circlePlayer.setRoom(this);
+        activeRooms.incrementAndGet();
+        openRooms.put(id, this);
+        sessions.put(crossSeat.getToken(), this);
+        sessions.put(circleSeat.getToken(), this);
+    }
+
+    /**
+     * Inicia a partida, informando a cada jogador o símbolo com que irá jogar, as dimensões do tabuleiro,
+     * que o resultado das partidas será decidido pelo servidor, que o protocolo binário pode ser negociado e a ficha
+     * de sessão do jogador, os limites do chat e o intervalo entre os batimentos, se houver ("START X 3 3 REFEREE BINARY
+     * SESSION 9f86d081... CHATLIMIT 2.0 5 280 HEARTBEAT 10000"). A partir daqui a sala passa a verificar as conexões e o prazo de cada jogada.
+     * As salas de partida única se anunciam ("SINGLE") e não anunciam o protocolo binário, pois a linha de início da
+     * próxima sala do jogador chega em texto pela mesma conexão.
+     */
+    public void start() {
+        String board = " " + gameStatus.getSize() + " " + gameStatus.getWinLength() + " REFEREE "
+                + (matchListener == null ? BinaryProtocol.NEGOTIATION_LINE : SINGLE_GAME_FIELD);
+        long heartbeat = heartbeatMillis;
+        String heartbeatField = heartbeat > 0 ? " " + HEARTBEAT_FIELD + " " + heartbeat : "";
+        for (PlayerSeat seat : new PlayerSeat[] {crossSeat, circleSeat}) {
+            seat.getConnection().send("START " + seat.getSymbol() + board + " " + SESSION_FIELD + " " + seat.getToken()
+                    + chatLimitField() + heartbeatField);
+            watchConnection(seat, seat.getConnection());
+        }
+        flush();
+        if (turnTimeoutMillis > 0) {
+            timers.schedule(this::checkTurn, turnTimeoutMillis);
+        }
+        GameEventLog log = eventLog;
+        if (log != null) {
+            log.append(id, "START " + gameStatus.getSize() + " " + gameStatus.getWinLength());
+        }
+    }
+
+    /**
+     * Repassa uma mensagem de chat ao oponente de quem a enviou, cortada no tamanho máximo.
+     * Mensagens acima do limite de taxa do jogador são descartadas, para que quem inunda o chat não ocupe o socket e
+     * a interface do oponente; as aceitas em uma rajada saem na mesma escrita, como as demais respostas da leitura.
+     * Sincronizado na sala, como as jogadas, para que a contagem das mensagens recebidas não mude durante uma retomada.
+     * @param sender O jogador que enviou a mensagem.
+     * @param message O texto da mensagem.
+     */
+    public synchronized void handleChat(PlayerConnection sender, String message) {
+        // Mensagens de uma conexão que já foi substituída por uma reconexão, ou que chegam depois do fim da sala, como
+        // as de um jogador já liberado de uma sala de partida única, são descartadas.
+        PlayerSeat seat = seatOf(sender);
+        if (seat == null || closed.get()) {
+            return;
+        }
+        // A mensagem descartada também é contada, pois o jogador a conta como enviada ao retomar a partida.
+        seat.countReceived();
+        if (!seat.tryChat(System.nanoTime())) {
+            droppedChats.increment();
+            return;
+        }
+        String text = truncateChat(message, maxChatLength);
+        if (text.length() < message.length()) {
+            truncatedChats.increment();
+        }
+        opponentOf(seat).deliver(connection -> connection.sendChat(text));
+        ServerMetrics.recordSent(BinaryProtocol.CHAT);
+        if (hasListeners()) {
+            publishEvent("CHAT " + seat.getSymbol() + " " + text);
+        }
+    }
+
+    /**
+     * Valida a jogada de um jogador e, se for válida, atualiza o estado oficial do jogo,
+     * repassa a jogada ao oponente e envia o resultado aos dois jogadores quando a partida termina.
+     * Jogadas fora da vez, fora do tabuleiro ou em posições ocupadas são descartadas.
+     * @param sender O jogador que fez a jogada.
+     * @param position A posição da jogada.
+     */
+    public synchronized void handleMove(PlayerConnection sender, int position) {
+        // Jogadas de uma conexão que já foi substituída por uma reconexão, ou que chegam depois do fim da sala, são
+        // descartadas.
+        PlayerSeat seat = seatOf(sender);
+        if (seat == null || closed.get()) {
+            return;
+        }
+        seat.countReceived();
+        char playerId = seat.getSymbol();
+
+        // Verifica se é a vez do jogador e se a posição está livre e dentro do tabuleiro.
+        if (playerId != currentTurn || !gameStatus.isValidMove(position)) {
+            rejectedMoves.incrementAndGet();
+            return;
+        }
+
+        // Atualiza o estado oficial do jogo e repassa a jogada ao oponente.
+        PlayerSeat opponent = opponentOf(seat);
+        gameStatus.makeMove(position, playerId);
+        lastMoveNanos = System.nanoTime();
+        opponent.deliver(connection -> connection.sendMove(position));
+        ServerMetrics.recordSent(BinaryProtocol.MOVE);
+        // Marca a leitura da jogada para medir o repasse até a escrita no socket do oponente; numa rajada, vale a primeira.
+        relayStartNanos.compareAndSet(0, sender.getLastReceivedNanos());
+        if (hasListeners()) {
+            publishEvent("MOVE " + playerId + " " + position);
+        }
+
+        // A próxima jogada é do oponente, inclusive na primeira jogada da próxima partida.
+        currentTurn = opponent.getSymbol();
+
+        // Verifica se o jogador venceu ou o jogo empatou, envia o resultado e prepara a próxima partida, ou encerra a
+        // sala de partida única.
+        if (gameStatus.checkWinner(playerId)) {
+            crossSeat.deliver(connection -> connection.sendWinner(playerId));
+            circleSeat.deliver(connection -> connection.sendWinner(playerId));
+            ServerMetrics.recordSent(BinaryProtocol.WON);
+            ServerMetrics.recordSent(BinaryProtocol.WON);
+            publishEvent("WON " + playerId);
+            finishGame(playerId);
+        } else if (gameStatus.checkDraw()) {
+            crossSeat.deliver(PlayerConnection::sendDraw);
+            circleSeat.deliver(PlayerConnection::sendDraw);
+            ServerMetrics.recordSent(BinaryProtocol.DRAW);
+            ServerMetrics.recordSent(BinaryProtocol.DRAW);
+            publishEvent("DRAW");
+            finishGame('\0');
+        }
+    }
+
+    /**
+     * Prepara a próxima partida depois de um resultado, ou encerra a sala de partida única. Durante a drenagem do
+     * servidor, a sala é encerrada em vez de começar outra partida.
+     * @param winner Símbolo do vencedor, ou '\0' no empate.
+     */
+    private void finishGame(char winner) {
+        if (matchListener != null) {
+            finishMatch(null, winner);
+        } else if (draining) {
+            if (endRoom()) {
+                drainedRooms.increment();
+            }
+        } else {
+            gameStatus.reset();
+        }
+    }
+
+    /**
+     * Começa a drenagem das salas: a partir daqui nenhuma sala recomeça a partida. Os jogadores de cada sala aberta
+     * recebem o aviso pelo chat, e as salas cuja partida ainda não teve nenhuma jogada são encerradas na hora.
+     * As salas de partida única terminam normalmente, pois quem as criou também está sendo drenado.
+     */
+    public static void startDraining() {
+        draining = true;
+        for (GameRoom room : openRooms.values()) {
+            room.drain();
+        }
+    }
+
+    /**
+     * Avisa os jogadores da sala de que o servidor será desligado e encerra a sala se a partida ainda não começou.
+     * Sincronizado na sala, como as jogadas, para que a partida não mude durante a verificação.
+     */
+    private synchronized void drain() {
+        if (closed.get()) {
+            return;
+        }
+        for (PlayerSeat seat : new PlayerSeat[] {crossSeat, circleSeat}) {
+            seat.deliver(connection -> connection.sendChat(DRAIN_NOTICE));
+            ServerMetrics.recordSent(BinaryProtocol.CHAT);
+        }
+        if (matchListener == null && isBoardEmpty()) {
+            if (endRoom()) {
+                drainedRooms.increment();
+            }
+        } else {
+            flush();
+        }
+    }
+
+    /**
+     * Verifica se a partida em andamento ainda não teve nenhuma jogada.
+     * @return Verdadeiro se todas as posições do tabuleiro estão livres.
+     */
+    private boolean isBoardEmpty() {
+        int cells = gameStatus.getSize() * gameStatus.getSize();
+        for (int position = 0; position < cells; position++) {
+            if (gameStatus.getPosition(position) != '\0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encerra à força as salas que continuam abertas no fim do prazo da drenagem.
+     * @return O número de salas encerradas.
+     */
+    public static int forceCloseAll() {
+        int count = 0;
+        for (GameRoom room : openRooms.values()) {
+            if (room.endRoom()) {
+                forceClosedRooms.increment();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Encerra a sala sem que nenhum jogador tenha saído, como na drenagem do servidor: descarta as duas sessões,
+     * envia o término aos dois jogadores e fecha as conexões.
+     * @return Falso se a sala já tinha sido encerrada, verdadeiro caso contrário.
+     */
+    private boolean endRoom() {
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+        for (PlayerSeat seat : new PlayerSeat[] {crossSeat, circleSeat}) {
+            sessions.remove(seat.getToken());
+            seat.cancelGraceTimer();
+            PlayerConnection connection = seat.getConnection();
+            connection.sendEnd();
+            ServerMetrics.recordSent(BinaryProtocol.END);
+            connection.flush();
+            connection.close();
+        }
+        activeRooms.decrementAndGet();
+        signalSeatChanged();
+
+        openRooms.remove(id);
+        spectators.finish("END");
+        GameEventLog log = eventLog;
+        if (log != null) {
+            log.append(id, "END");
+        }
+        return true;
+    }
+
+    /**
+     * Encerra a sala, avisando o oponente de quem saiu e fechando a conexão de ambos os jogadores.
+     * @param leavingPlayer O jogador que saiu da partida.
+     */
+    public void close(PlayerConnection leavingPlayer) {
+        PlayerSeat seat = seatOf(leavingPlayer);
+        if (seat == null) {
+            // Uma conexão já substituída por uma reconexão não encerra a sala.
+            leavingPlayer.close();
+            return;
+        }
+        closeSeat(seat);
+    }
+
+    /**
+     * Encerra a sala pela saída do jogador de um lugar, avisando o oponente e fechando a conexão de ambos.
+     * @param leavingSeat O lugar do jogador que saiu.
+     * @return Falso se a sala já tinha sido encerrada, verdadeiro caso contrário.
+     */
+    private boolean closeSeat(PlayerSeat leavingSeat) {
+        // Na sala de partida única, quem sai perde a partida e o oponente segue conectado.
+        if (matchListener != null) {
+            return finishMatch(leavingSeat, opponentOf(leavingSeat).getSymbol());
+        }
+
+        // Garante que a sala seja encerrada apenas uma vez, mesmo que os dois jogadores saiam ao mesmo tempo.
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+
+        // Descarta a sessão de quem saiu. O oponente mantém a sua até o fim do prazo de reconexão, pois pode ter caído
+        // sem que o servidor tenha percebido; ao voltar, ele recebe o que perdeu e o aviso de saída.
+        sessions.remove(leavingSeat.getToken());
+        leavingSeat.cancelGraceTimer();
+        PlayerSeat remainingSeat = opponentOf(leavingSeat);
+        remainingSeat.startGraceTimer(timers.schedule(() -> sessions.remove(remainingSeat.getToken()),
+                SESSION_GRACE_MILLIS));
+
+        // Notifica o oponente sobre a saída do jogador, escrevendo o que ainda estava na fila, e fecha as duas conexões.
+        PlayerConnection opponent = opponentOf(leavingSeat).getConnection();
+        opponent.sendEnd();
+        ServerMetrics.recordSent(BinaryProtocol.END);
+        opponent.flush();
+        crossSeat.getConnection().close();
+        circleSeat.getConnection().close();
+        activeRooms.decrementAndGet();
+        signalSeatChanged();
+
+        // Avisa os espectadores, que são desconectados depois de receberem o aviso, e registra quem saiu.
+        openRooms.remove(id);
+        spectators.finish("END");
+        GameEventLog log = eventLog;
+        if (log != null) {
+            log.append(id, "END " + leavingSeat.getSymbol());
+        }
+        return true;
+    }
+
+    /**
+     * Encerra a sala de partida única depois do resultado ou da saída de um jogador, e entrega o resultado.
+     * Quem saiu, caiu ou perdeu por abandono tem a conexão fechada; o outro recebe a vitória, se a partida não tinha
+     * terminado, e fica sem sala, com a conexão aberta, até que quem criou a sala o coloque em outra.
+     * @param leavingSeat O lugar do jogador que deixou a partida, ou nulo se ela terminou com um resultado.
+     * @param winner Símbolo do vencedor (X ou O), ou '\0' no empate.
+     * @return Falso se a sala já tinha sido encerrada, verdadeiro caso contrário.
+     */
+    private boolean finishMatch(PlayerSeat leavingSeat, char winner) {
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+        if (leavingSeat != null) {
+            publishEvent("WON " + winner);
+        }
+        PlayerConnection crossPlayer = releaseSeat(crossSeat, leavingSeat);
+        PlayerConnection circlePlayer = releaseSeat(circleSeat, leavingSeat);
+        activeRooms.decrementAndGet();
+        signalSeatChanged();
+
+        openRooms.remove(id);
+        spectators.finish("END");
+        GameEventLog log = eventLog;
+        if (log != null) {
+            log.append(id, leavingSeat != null ? "END " + leavingSeat.getSymbol() : "END");
+        }
+        matchListener.matchFinished(crossPlayer, circlePlayer, winner);
+        return true;
+    }
+
+    /**
+     * Libera o lugar de um jogador no fim da sala de partida única: descarta a sessão e o prazo de reconexão e
+     * escreve o que ficou na fila; a conexão de quem deixou a partida, ou está desconectado, é fechada.
+     * @param seat O lugar liberado.
+     * @param leavingSeat O lugar do jogador que deixou a partida, ou nulo se ela terminou com um resultado.
+     * @return A conexão do jogador, já sem sala, ou nulo se ele deixou a partida.
+     */
+    private PlayerConnection releaseSeat(PlayerSeat seat, PlayerSeat leavingSeat) {
+        sessions.remove(seat.getToken());
+        boolean disconnected = seat.isDisconnected();
+        seat.cancelGraceTimer();
+        PlayerConnection connection = seat.getConnection();
+        if (seat == leavingSeat || disconnected) {
+            connection.close();
+            return null;
+        }
+        // O oponente de quem saiu vence por abandono; o resultado comum já foi enviado pela jogada final.
+        if (leavingSeat != null) {
+            connection.sendWinner(seat.getSymbol());
+            ServerMetrics.recordSent(BinaryProtocol.WON);
+        }
+        connection.flush();
+        connection.setRoom(null);
+        return connection;
+    }
+
+    /**
+     * Trata a queda da conexão de um jogador que não enviou o término: a conexão é fechada, mas o lugar fica
+     * reservado pelo prazo de reconexão, e só então a sala é encerrada se ele não tiver voltado.
+     * @param droppedPlayer A conexão que caiu.
+     */
+    public void disconnect(PlayerConnection droppedPlayer) {
+        droppedPlayer.close();
+        PlayerSeat seat = seatOf(droppedPlayer);
+        if (seat == null || closed.get()) {
+            return;
+        }
+        seat.startGraceTimer(timers.schedule(() -> {
+            // Encerra a sala apenas se o jogador ainda não voltou, isto é, se o lugar ainda tem a conexão que caiu.
+            if (seat.getConnection() != droppedPlayer) {
+                return;
+            }
+            sessions.remove(seat.getToken());
+            if (!closed.get()) {
+                expiredSessions.increment();
+                closeSeat(seat);
+            }
+        }, SESSION_GRACE_MILLIS));
+    }
+
+    /**
+     * Passa a enviar batimentos à conexão de um lugar e a verificar se ela ainda responde.
+     * O jogador automático não tem conexão de rede e não é verificado.
+     * @param seat O lugar do jogador.
+     * @param connection A conexão atual do lugar.
+     */
+    private void watchConnection(PlayerSeat seat, PlayerConnection connection) {
+        long interval = heartbeatMillis;
+        if (interval > 0 && !(connection instanceof AiPlayerConnection)) {
+            timers.schedule(() -> checkHeartbeat(seat, connection), interval);
+        }
+    }
+
+    /**
+     * Verifica uma conexão a cada intervalo: se ela passou vários intervalos sem enviar nada, é tratada como queda
+     * e o lugar fica reservado para a reconexão; senão recebe um batimento, que o cliente responde com "PONG".
+     * O batimento é enviado mesmo às conexões ativas, para que o cliente também perceba um servidor que parou.
+     * A verificação termina com a sala, com a queda da conexão ou com a sua troca por uma reconexão, que é verificada
+     * por conta própria.
+     * @param seat O lugar do jogador.
+     * @param connection A conexão verificada.
+     */
+    private void checkHeartbeat(PlayerSeat seat, PlayerConnection connection) {
+        if (closed.get() || seat.getConnection() != connection || seat.isDisconnected()) {
+            return;
+        }
+        long interval = heartbeatMillis;
+        long idleMillis = (System.nanoTime() - connection.getLastReceivedNanos()) / 1_000_000;
+        if (idleMillis >= interval * missedHeartbeats) {
+            reapedConnections.increment();
+            disconnect(connection);
+            return;
+        }
+        connection.sendPing();
+        ServerMetrics.recordSent(BinaryProtocol.PING);
+        connection.flush();
+        pingsSent.increment();
+        timers.schedule(() -> checkHeartbeat(seat, connection), interval);
+    }
+
+    /**
+     * Verifica se o jogador da vez jogou dentro do prazo; se não jogou, ele perde a partida por abandono e a sala
+     * é encerrada como se ele tivesse saído. Senão, agenda a próxima verificação para o fim do prazo da jogada atual.
+     */
+    private void checkTurn() {
+        if (closed.get()) {
+            return;
+        }
+        long timeout = turnTimeoutMillis;
+        PlayerSeat idleSeat;
+        long idleMillis;
+        synchronized (this) {
+            idleSeat = currentTurn == GameFrame.CROSS ? crossSeat : circleSeat;
+            idleMillis = (System.nanoTime() - lastMoveNanos) / 1_000_000;
+        }
+        if (idleMillis < timeout) {
+            timers.schedule(this::checkTurn, timeout - idleMillis);
+        } else if (closeSeat(idleSeat)) {
+            forfeitedRooms.increment();
+        }
+    }
+
+    /**
+     * Retoma a partida de um jogador em uma nova conexão, a partir da linha "RESUME ficha última".
+     * Se a conexão antiga ainda estiver aberta, como quando a queda ainda não foi percebida pelo servidor,
+     * ela é fechada e substituída.
+     * @param request A linha de retomada.
+     * @param connection A nova conexão do jogador.
+     * @return Falso se a sessão não existe mais ou as mensagens pedidas não estão mais guardadas.
+     */
+    public static boolean resume(String request, PlayerConnection connection) {
+        String[] fields = request.split(" ");
+        if (fields.length != 3) {
+            return false;
+        }
+        GameRoom room = sessions.get(fields[1]);
+        try {
+            return room != null && room.resumeSeat(fields[1], Long.parseLong(fields[2]), connection);
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Substitui a conexão do lugar com a ficha informada e reenvia as mensagens que o jogador não recebeu.
+     * Se o oponente saiu enquanto o jogador estava desconectado, ele recebe o que perdeu e o aviso de saída.
+     * Sincronizado na sala para que nenhuma jogada seja tratada durante a troca.
+     * @param token A ficha de sessão.
+     * @param lastReceived Número da última mensagem que o jogador recebeu.
+     * @param connection A nova conexão do jogador.
+     * @return Falso se as mensagens pedidas não estão mais guardadas.
+     */
+    private synchronized boolean resumeSeat(String token, long lastReceived, PlayerConnection connection) {
+        PlayerSeat seat = crossSeat.getToken().equals(token) ? crossSeat : circleSeat;
+        connection.setRoom(this);
+        PlayerConnection oldConnection = seat.resume(connection, lastReceived);
+        if (oldConnection == null) {
+            return false;
+        }
+        oldConnection.close();
+        if (closed.get()) {
+            sessions.remove(token);
+            connection.sendEnd();
+            ServerMetrics.recordSent(BinaryProtocol.END);
+            connection.flush();
+            connection.close();
+            return true;
+        }
+        connection.flush();
+        resumedSessions.increment();
+        watchConnection(seat, connection);
+        signalSeatChanged();
+        return true;
+    }
+
+    /**
+     * Aguarda a reconexão de um jogador cuja conexão caiu, para que a thread que o atendia passe a ler a nova conexão.
+     * @param symbol Símbolo do jogador.
+     * @param droppedPlayer A conexão que caiu.
+     * @return A nova conexão, ou nulo se a sala foi encerrada antes da reconexão.
+     * @throws InterruptedException Se a thread for interrompida enquanto aguarda.
+     */
+    public PlayerConnection awaitResume(char symbol, PlayerConnection droppedPlayer) throws InterruptedException {
+        PlayerSeat seat = symbol == GameFrame.CROSS ? crossSeat : circleSeat;
+        resumeLock.lock();
+        try {
+            while (!closed.get() && seat.getConnection() == droppedPlayer) {
+                seatChanged.await();
+            }
+            return closed.get() ? null : seat.getConnection();
+        } finally {
+            resumeLock.unlock();
+        }
+    }
+
+    /**
+     * Acorda as threads que aguardam a reconexão de um jogador.
+     */
+    private void signalSeatChanged() {
+        resumeLock.lock();
+        try {
+            seatChanged.signalAll();
+        } finally {
+            resumeLock.unlock();
+        }
+    }
+
+    /**
+     * Adiciona um espectador à sala, enviando a ele o cabeçalho ("WATCHING sala N K") e o estado atual do tabuleiro.
+     * @param spectator O espectador.
+     * @return Falso se a sala já foi encerrada, verdadeiro caso contrário.
+     */
+    public synchronized boolean addSpectator(SpectatorConnection spectator) {
+        if (closed.get()) {
+            return false;
+        }
+        spectator.setRoom(this);
+        spectators.add(spectator, "WATCHING " + id + " " + gameStatus.getSize() + " " + gameStatus.getWinLength(),
+                snapshotLine());
+        return true;
+    }
+
+    /**
+     * Remove um espectador da sala.
+     * @param spectator O espectador.
+     */
+    public void removeSpectator(SpectatorConnection spectator) {
+        spectators.remove(spectator);
+    }
+
+    /**
+     * Verifica se algum evento da sala será usado, para que as mensagens só sejam montadas quando necessário.
+     * @return Verdadeiro se há espectadores ou registro de eventos.
+     */
+    private boolean hasListeners() {
+        return eventLog != null || !spectators.isEmpty();
+    }
+
+    /**
+     * Envia um evento da sala aos espectadores e o acrescenta ao registro de eventos. Os resultados são enviados
+     * com o tabuleiro ainda na posição final.
+     * @param event O evento ("MOVE X 4", "WON X", "DRAW" ou "CHAT X texto").
+     */
+    private void publishEvent(String event) {
+        GameEventLog log = eventLog;
+        if (log != null) {
+            log.append(id, event);
+        }
+        if (!spectators.isEmpty()) {
+            spectators.publish(event, this::snapshotLine);
+        }
+    }
+
+    /**
+     * Monta a linha com o estado atual do tabuleiro: uma letra por posição, com "-" nas posições vazias.
+     * @return A linha ("BOARD X-O------").
+     */
+    private synchronized String snapshotLine() {
+        int cells = gameStatus.getSize() * gameStatus.getSize();
+        var line = new StringBuilder(6 + cells).append("BOARD ");
+        for (int position = 0; position < cells; position++) {
+            char symbol = gameStatus.getPosition(position);
+            line.append(symbol == '\0' ? '-' : symbol);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Encontra a sala pedida por um espectador.
+     * @param request O número da sala, ou vazio para a sala aberta com mais espectadores.
+     * @return A sala encontrada, ou nulo se não houver.
+     */
+    public static GameRoom findRoom(String request) {
+        if (request.isBlank()) {
+            return openRooms.values().stream().max(Comparator.comparingInt(room -> room.spectators.size())).orElse(null);
+        }
+        try {
+            return openRooms.get(Integer.parseInt(request.trim()));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Escreve nos sockets as mensagens enfileiradas para os dois jogadores.
+     * É chamado por quem lê as mensagens dos jogadores depois de tratar todas as mensagens recebidas de uma vez,
+     * para que a jogada e o resultado, ou uma rajada de chat, sejam escritos com uma única escrita por jogador.
+     */
+    public void flush() {
+        long startNanos = relayStartNanos.get() == 0 ? 0 : relayStartNanos.getAndSet(0);
+        crossSeat.getConnection().flush();
+        circleSeat.getConnection().flush();
+        if (startNanos != 0) {
+            ServerMetrics.recordMoveRelay(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Executa uma ação para cada um dos jogadores da sala.
+     * @param action A ação a ser executada.
+     */
+    public void forEachPlayer(Consumer<PlayerConnection> action) {
+        action.accept(crossSeat.getConnection());
+        action.accept(circleSeat.getConnection());
+    }
+
+    /**
+     * Retorna a conexão atual de um jogador da sala.
+     * @param symbol Símbolo do jogador (X ou O).
+     * @return A conexão atual do jogador.
+     */
+    public PlayerConnection getConnection(char symbol) {
+        return (symbol == GameFrame.CROSS ? crossSeat : circleSeat).getConnection();
+    }
+
+    /**
+     * Retorna o lugar ocupado por uma conexão.
+     * @param player A conexão de um jogador.
+     * @return O lugar do jogador, ou nulo se a conexão não é a conexão atual de nenhum lugar.
+     */
+    private PlayerSeat seatOf(PlayerConnection player) {
+        if (crossSeat.getConnection() == player) {
+            return crossSeat;
+        }
+        return circleSeat.getConnection() == player ? circleSeat : null;
+    }
+
+    /**
+     * Retorna o lugar do oponente de um jogador da sala.
+     * @param seat O lugar de um dos jogadores.
+     * @return O lugar do outro jogador.
+     */
+    private PlayerSeat opponentOf(PlayerSeat seat) {
+        return seat == crossSeat ? circleSeat : crossSeat;
+    }
+
+    /**
+     * Define os prazos com que as salas verificam as conexões e as jogadas, valendo para as salas iniciadas depois.
+     * @param heartbeatMillis Intervalo, em milissegundos, entre os batimentos, ou zero para não enviar batimentos.
+     * @param missed Número de intervalos sem receber nada do jogador depois do qual a conexão é tratada como queda.
+     * @param turnTimeout Prazo, em milissegundos, para o jogador da vez jogar, ou zero para esperar sem limite.
+     */
+    public static void configureTimeouts(long heartbeatMillis, int missed, long turnTimeout) {
+        GameRoom.heartbeatMillis = heartbeatMillis;
+        GameRoom.missedHeartbeats = Math.max(missed, 1);
+        GameRoom.turnTimeoutMillis = turnTimeout;
+    }
+
+    /**
+     * Define os limites do chat dos jogadores, valendo para as salas iniciadas depois.
+     * @param perSecond Número de mensagens por segundo que cada jogador pode enviar, em média, ou zero para não limitar.
+     * @param burst Número de mensagens que cada jogador pode enviar em uma rajada.
+     * @param maxLength Tamanho máximo, em caracteres, de uma mensagem.
+     */
+    public static void configureChat(double perSecond, int burst, int maxLength) {
+        GameRoom.chatPerSecond = perSecond;
+        GameRoom.chatBurst = Math.max(burst, 1);
+        GameRoom.maxChatLength = Math.max(maxLength, 1);
+    }
+
+    /**
+     * Cria o limite de taxa do chat de um jogador, com os valores configurados.
+     * @return O limite, cheio.
+     */
+    public static TokenBucket newChatLimit() {
+        return new TokenBucket(chatPerSecond, chatBurst);
+    }
+
+    /**
+     * Retorna o tamanho máximo configurado de uma mensagem de chat.
+     * @return O tamanho, em caracteres.
+     */
+    public static int getMaxChatLength() {
+        return maxChatLength;
+    }
+
+    /**
+     * Monta o campo da linha de início com os limites configurados do chat, para que o cliente aplique os mesmos.
+     * @return O campo, precedido de um espaço (" CHATLIMIT 2.0 5 280").
+     */
+    public static String chatLimitField() {
+        return " " + CHAT_LIMIT_FIELD + " " + chatPerSecond + " " + chatBurst + " " + maxChatLength;
+    }
+
+    /**
+     * Corta uma mensagem de chat no tamanho máximo, sem separar os dois caracteres de um emoji ou outro símbolo
+     * fora do plano básico.
+     * @param message A mensagem.
+     * @param maxLength O tamanho máximo, em caracteres.
+     * @return A própria mensagem, se couber, ou o seu início.
+     */
+    public static String truncateChat(String message, int maxLength) {
+        if (message.length() <= maxLength) {
+            return message;
+        }
+        int end = Character.isHighSurrogate(message.charAt(maxLength - 1)) ? maxLength - 1 : maxLength;
+        return message.substring(0, end);
+    }
+
+    /**
+     * Define o registro em que as salas acrescentam os seus eventos.
+     * @param log O registro de eventos, ou nulo para não registrar os eventos.
+     */
+    public static void setEventLog(GameEventLog log) {
+        eventLog = log;
+    }
+
+    /**
+     * Reserva um número de identificação de sala, usado também pela partida do servidor com interface gráfica.
+     * @return O número reservado.
+     */
+    public static int allocateRoomId() {
+        return nextRoomId.getAndIncrement();
+    }
+
+    /**
+     * Retorna o número de jogadas inválidas descartadas pelas salas do servidor.
+     * @return O número de jogadas descartadas.
+     */
+    public static long getRejectedMoves() {
+        return rejectedMoves.get();
+    }
+
+    /**
+     * Retorna o número de partidas retomadas depois de uma queda de conexão.
+     * @return O número de retomadas.
+     */
+    public static long getResumedSessions() {
+        return resumedSessions.sum();
+    }
+
+    /**
+     * Retorna o número de salas encerradas porque um jogador não se reconectou dentro do prazo.
+     * @return O número de sessões expiradas.
+     */
+    public static long getExpiredSessions() {
+        return expiredSessions.sum();
+    }
+
+    /**
+     * Retorna o número de batimentos enviados aos jogadores.
+     * @return O número de batimentos.
+     */
+    public static long getPingsSent() {
+        return pingsSent.sum();
+    }
+
+    /**
+     * Retorna o número de conexões tratadas como queda por não responderem aos batimentos.
+     * @return O número de conexões.
+     */
+    public static long getReapedConnections() {
+        return reapedConnections.sum();
+    }
+
+    /**
+     * Retorna o número de mensagens de chat descartadas por excederem o limite de taxa do jogador.
+     * @return O número de mensagens.
+     */
+    public static long getDroppedChats() {
+        return droppedChats.sum();
+    }
+
+    /**
+     * Retorna o número de mensagens de chat cortadas por excederem o tamanho máximo.
+     * @return O número de mensagens.
+     */
+    public static long getTruncatedChats() {
+        return truncatedChats.sum();
+    }
+
+    /**
+     * Retorna o número de salas encerradas porque o jogador da vez não jogou dentro do prazo.
+     * @return O número de salas.
+     */
+    public static long getForfeitedRooms() {
+        return forfeitedRooms.sum();
+    }
+
+    /**
+     * Indica se o servidor está sendo drenado.
+     * @return Verdadeiro depois do início da drenagem.
+     */
+    public static boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Retorna o número de salas que terminaram a partida em andamento durante a drenagem do servidor.
+     * @return O número de salas.
+     */
+    public static long getDrainedRooms() {
+        return drainedRooms.sum();
+    }
+
+    /**
+     * Retorna o número de salas encerradas à força no fim do prazo da drenagem do servidor.
+     * @return O número de salas.
+     */
+    public static long getForceClosedRooms() {
+        return forceClosedRooms.sum();
+    }
+
+    /**
+     * Retorna o número de prazos agendados na roda das salas (batimentos, reconexões e jogadas).
+     * @return O número de prazos.
+     */
+    public static int getPendingTimers() {
+        return timers.getPendingTimeouts();
+    }
+
+    /**
+     * Retorna o número de salas abertas no servidor.
+     * @return O número de salas abertas.
+     */
+    public static int getActiveRooms() {
+        return activeRooms.get();
+    }
+}
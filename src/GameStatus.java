@@ -1,114 +1,152 @@
 /**
  * Define a classe GameStatus, responsável por armazenar o estado atual do jogo.
+ * O tabuleiro pode ter qualquer tamanho NxN e exigir K símbolos em sequência para vencer. O tabuleiro clássico 3x3
+ * usa máscaras de bits (BitboardEngine); os demais usam verificação incremental da vitória (GridBoardEngine).
  */
 public class GameStatus {
 
-    /** Array que armazena o estado das posições atuais do jogo.*/
-    public char[] gamePosition;
+    /** Tamanho padrão do tabuleiro do jogo da velha.*/
+    public static final int DEFAULT_SIZE = 3;
+
+    /** Número padrão de símbolos em sequência necessários para vencer.*/
+    public static final int DEFAULT_WIN_LENGTH = 3;
+
+    /** Maior tamanho de tabuleiro aceito, cujas posições (até 65535) ainda cabem na jogada larga do protocolo binário.*/
+    public static final int MAX_SIZE = 256;
+
+    /** Número de linhas e de colunas do tabuleiro.*/
+    private final int size;
+
+    /** Número de símbolos em sequência necessários para vencer.*/
+    private final int winLength;
+
+    /** Implementação que armazena e verifica o tabuleiro.*/
+    private final BoardEngine engine;
 
     /**
-     * Construtor da classe GameStatus.
+     * Construtor da classe GameStatus, que cria um tabuleiro 3x3 clássico vazio.
      */
     public GameStatus() {
-        // Inicializa o array de posições do jogo com um tamanho de 9.
-        this.gamePosition = new char[9];
+        this(DEFAULT_SIZE, DEFAULT_WIN_LENGTH);
     }
 
+    /**
+     * Construtor da classe GameStatus, que cria um tabuleiro NxN vazio.
+     * @param size Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     */
+    public GameStatus(int size, int winLength) {
+        checkDimensions(size, winLength);
+        this.size = size;
+        this.winLength = winLength;
+
+        // Usa as máscaras de bits no tabuleiro clássico e a verificação incremental nos demais.
+        this.engine = size == DEFAULT_SIZE && winLength == DEFAULT_WIN_LENGTH
+                ? new BitboardEngine()
+                : new GridBoardEngine(size, winLength);
+    }
+
+    /**
+     * Verifica se as dimensões formam um jogo possível, com todas as posições representáveis no protocolo binário.
+     * @param size Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     * @throws IllegalArgumentException Se o tamanho ou o número de símbolos em sequência for inválido.
+     */
+    public static void checkDimensions(int size, int winLength) {
+        if (size < 1 || size > MAX_SIZE || winLength < 1 || winLength > size) {
+            throw new IllegalArgumentException("Tabuleiro inválido: " + size + "x" + size + " com " + winLength + " em linha");
+        }
+    }
 
     /**
-     * Realiza uma jogada atualizando o array de posições.
+     * Realiza uma jogada atualizando o tabuleiro.
      * @param position A posição onde a jogada será realizada.
      * @param playerId Símbolo do jogador (X ou O).
      */
     public void makeMove(int position, char playerId){
-        // Atualiza o array das posições do jogo com o símbolo do jogador na posição especificada.
-        gamePosition[position] = playerId;
+        engine.makeMove(position, playerId);
     }
 
     /**
-     * Verifica se o jogador venceu o jogo, analisando as linhas, colunas e diagonais do tabuleiro.
-     * @param playerId Símbolo do jogador a ser verificado (X ou O).
-     * @return Verdadeiro se o jogador venceu, falso caso contrário.
+     * Desfaz a última jogada, deixando a posição vazia.
+     * @param position A posição da última jogada realizada.
      */
-    public boolean checkWinner(char playerId) {
-        // Verifica se venceu pelas linhas do tabuleiro.
-        var winner = checkRows(playerId);
-        if (!winner) {
-            // Se não, verifica se venceu pelas colunas do tabuleiro.
-            winner = checkColumns(playerId);
-            if (!winner) {
-                // Se não, verifica se venceu pelas diagonais do tabuleiro.
-                winner = checkDiagonals(playerId);
-            }
-        }
-        // Retorna 'true' se tiver vencido, 'false' se não.
-        return winner;
+    public void undoMove(int position) {
+        engine.undoMove(position);
     }
 
     /**
-     * Verifica se o jogador venceu por meio das linhas do tabuleiro.
-     * @param playerId Símbolo do jogador a ser verificado (X ou O).
-     * @return Verdadeiro se o jogador venceu através das linhas, falso caso contrário.
+     * Verifica se uma jogada é válida, ou seja, se a posição está dentro do tabuleiro e ainda não foi ocupada.
+     * @param position A posição da jogada.
+     * @return Verdadeiro se a jogada é válida, falso caso contrário.
      */
-    private boolean checkRows(char playerId) {
-        // Itera sobre as linhas do tabuleiro pelo array de status do jogo, pulando 3 posições cada loop.
-        for (int x = 0; x <= 6; x = x + 3) {
-            // Verifica se todas as posições na mesma linha contêm o símbolo do jogador.
-            if ((gamePosition[x] == playerId) && (gamePosition[x + 1] == playerId) && (gamePosition[x + 2] == playerId)) {
-                return true; // Se sim, retorna 'true'.
-            }
-        }
-        return false; // Se não tiver vencido por nenhuma linha, retorna 'false'.
+    public boolean isValidMove(int position) {
+        return engine.isValidMove(position);
     }
 
     /**
-     * Verifica se o jogador venceu por meio das colunas do tabuleiro.
-     * @param playerId Símbolo do jogador a ser verificado (X ou O).
-     * @return Verdadeiro se o jogador venceu através das colunas, falso caso contrário.
+     * Retorna o símbolo que ocupa uma posição do tabuleiro.
+     * @param position A posição do tabuleiro.
+     * @return O símbolo do jogador na posição (X ou O), ou '\0' se a posição estiver vazia.
+     */
+    public char getPosition(int position) {
+        return engine.getPosition(position);
+    }
+
+    /**
+     * Cria uma cópia do estado do jogo, com as mesmas dimensões e as mesmas posições ocupadas, que pode ser usada
+     * por outra thread sem afetar este estado.
+     * @return A cópia do estado do jogo.
      */
-    private boolean checkColumns(char playerId) {
-        // Itera sobre as colunas do tabuleiro pelo array de status do jogo, pulando 1 posição cada loop.
-        for (int x = 0; x <= 2; x++) {
-            // Verifica se todas as posições na mesma coluna contêm o símbolo do jogador.
-            if ((gamePosition[x] == playerId) && (gamePosition[x + 3] == playerId) && (gamePosition[x + 6] == playerId)) {
-                return true; // Se sim, retorna 'true'.
+    public GameStatus copy() {
+        var copy = new GameStatus(size, winLength);
+        for (int position = 0; position < size * size; position++) {
+            char symbol = getPosition(position);
+            if (symbol != '\0') {
+                copy.makeMove(position, symbol);
             }
         }
-        return false; // Se não tiver vencido por nenhuma coluna, retorna 'false'.
+        return copy;
     }
 
     /**
-     * Verifica se o jogador venceu por meio das diagonais do tabuleiro.
+     * Reinicia o estado do jogo, deixando todas as posições vazias.
+     */
+    public void reset() {
+        engine.reset();
+    }
+
+    /**
+     * Verifica se o jogador venceu o jogo, alinhando símbolos em uma linha, coluna ou diagonal do tabuleiro.
      * @param playerId Símbolo do jogador a ser verificado (X ou O).
-     * @return Verdadeiro se o jogador venceu através das diagonais, falso caso contrário.
+     * @return Verdadeiro se o jogador venceu, falso caso contrário.
      */
-    private boolean checkDiagonals(char playerId) {
-        // Retorna 'true' se todas as posições na diagonal principal contêm o símbolo do jogador.
-        if ((gamePosition[0] == playerId) && (gamePosition[4] == playerId) && (gamePosition[8] == playerId)) {
-            return true;
-            // Retorna 'true' se todas as posições na diagonal secundária contêm o símbolo do jogador.
-        } else if ((gamePosition[2] == playerId) && (gamePosition[4] == playerId) && (gamePosition[6] == playerId)) {
-            return true;
-            // Retorna 'false' se não  tiver vencido por nenhuma diagonal.
-        } else {
-            return false;
-        }
+    public boolean checkWinner(char playerId) {
+        return engine.checkWinner(playerId);
     }
 
     /**
      * Verifica se o jogo terminou em empate, se todas as posições do tabuleiro estão preenchidas
-     * por um símbolo e não um caracter nulo ('\0'), e não houve nenhum vencedor.
+     * por um símbolo, e não houve nenhum vencedor.
      * @return Verdadeiro se o jogo terminou em empate, falso caso contrário.
      */
     public boolean checkDraw() {
-        // Conta o número de posições ocupadas no tabuleiro pelo array de status do jogo;
-        int count = 0;
-        for (char value : gamePosition) {
-            if (value != '\0') {
-                count++;
-            }
-        }
-        // Retorna 'true' se todas as posições estiverem ocupadas.
-        return count == 9;
+        return engine.checkDraw();
+    }
+
+    /**
+     * Retorna o número de linhas e de colunas do tabuleiro.
+     * @return O tamanho do tabuleiro.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Retorna o número de símbolos em sequência necessários para vencer.
+     * @return O número de símbolos em sequência.
+     */
+    public int getWinLength() {
+        return winLength;
     }
 }
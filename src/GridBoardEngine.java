@@ -0,0 +1,138 @@
+import java.util.Arrays;
+
+/**
+ * Define a classe GridBoardEngine, que armazena um tabuleiro NxN em que vence quem alinhar K símbolos.
+ * A vitória é verificada de forma incremental: a cada jogada são percorridas apenas as quatro linhas que passam
+ * pela posição jogada, até K-1 posições para cada lado, de modo que o custo por jogada é O(K)
+ * independentemente do tamanho do tabuleiro.
+ */
+public class GridBoardEngine implements BoardEngine {
+
+    /** Deslocamentos (linha, coluna) das quatro direções verificadas: horizontal, vertical e as duas diagonais.*/
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    /** Número de linhas e de colunas do tabuleiro.*/
+    private final int size;
+
+    /** Número de símbolos em sequência necessários para vencer.*/
+    private final int winLength;
+
+    /** Array que armazena o estado das posições atuais do jogo ('\0' representa vazio).*/
+    private final char[] cells;
+
+    /** Número de posições ocupadas no tabuleiro.*/
+    private int occupiedCells;
+
+    /** Símbolo do jogador que alinhou K símbolos, ou '\0' se ninguém venceu.*/
+    private char winner;
+
+    /**
+     * Cria um tabuleiro vazio.
+     * @param size Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     */
+    public GridBoardEngine(int size, int winLength) {
+        this.size = size;
+        this.winLength = winLength;
+        this.cells = new char[size * size];
+    }
+
+    /**
+     * Realiza uma jogada e verifica, apenas nas linhas que passam pela posição jogada, se o jogador venceu.
+     * @param position A posição onde a jogada será realizada.
+     * @param playerId Símbolo do jogador (X ou O).
+     */
+    @Override
+    public void makeMove(int position, char playerId) {
+        // Atualiza a posição e a contagem de posições ocupadas.
+        if (cells[position] == '\0') {
+            occupiedCells++;
+        }
+        cells[position] = playerId;
+
+        // Verifica se a jogada completou uma sequência em alguma das quatro direções.
+        int row = position / size;
+        int column = position % size;
+        for (int[] direction : DIRECTIONS) {
+            int count = 1
+                    + countInDirection(row, column, direction[0], direction[1], playerId)
+                    + countInDirection(row, column, -direction[0], -direction[1], playerId);
+            if (count >= winLength) {
+                winner = playerId;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Conta quantos símbolos do jogador aparecem em sequência a partir de uma posição, em uma direção,
+     * sem contar a própria posição e parando ao atingir K-1 símbolos.
+     * @param row Linha da posição inicial.
+     * @param column Coluna da posição inicial.
+     * @param rowStep Deslocamento de linha a cada passo.
+     * @param columnStep Deslocamento de coluna a cada passo.
+     * @param playerId Símbolo do jogador.
+     * @return O número de símbolos do jogador em sequência na direção.
+     */
+    private int countInDirection(int row, int column, int rowStep, int columnStep, char playerId) {
+        int count = 0;
+        int r = row + rowStep;
+        int c = column + columnStep;
+        while (count < winLength - 1 && r >= 0 && r < size && c >= 0 && c < size && cells[r * size + c] == playerId) {
+            count++;
+            r += rowStep;
+            c += columnStep;
+        }
+        return count;
+    }
+
+    /**
+     * Desfaz a última jogada. Como nenhuma jogada é feita depois de uma vitória, desfazer a última jogada
+     * também desfaz qualquer vitória registrada.
+     * @param position A posição da última jogada realizada.
+     */
+    @Override
+    public void undoMove(int position) {
+        if (cells[position] != '\0') {
+            occupiedCells--;
+        }
+        cells[position] = '\0';
+        winner = '\0';
+    }
+
+    @Override
+    public boolean isValidMove(int position) {
+        return position >= 0 && position < cells.length && cells[position] == '\0';
+    }
+
+    @Override
+    public char getPosition(int position) {
+        return cells[position];
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(cells, '\0');
+        occupiedCells = 0;
+        winner = '\0';
+    }
+
+    /**
+     * Verifica se o jogador venceu o jogo, consultando o resultado calculado na última jogada.
+     * @param playerId Símbolo do jogador a ser verificado (X ou O).
+     * @return Verdadeiro se o jogador venceu, falso caso contrário.
+     */
+    @Override
+    public boolean checkWinner(char playerId) {
+        return winner == playerId;
+    }
+
+    /**
+     * Verifica se todas as posições do tabuleiro estão ocupadas, consultando a contagem mantida a cada jogada.
+     * @return Verdadeiro se o tabuleiro está cheio, falso caso contrário.
+     */
+    @Override
+    public boolean checkDraw() {
+        return occupiedCells == cells.length;
+    }
+}
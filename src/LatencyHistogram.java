@@ -0,0 +1,110 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Define a classe LatencyHistogram, um histograma de tempos com faixas de largura crescente, no estilo do HdrHistogram.
+ * Cada potência de dois é dividida em 32 faixas iguais, então o erro de cada valor registrado é de no máximo 1/32
+ * (cerca de 3%) em qualquer escala, de nanossegundos a minutos, com um vetor fixo de contadores.
+ * O registro só incrementa contadores atômicos, sem alocar memória e sem bloqueio, e pode ser feito por várias threads
+ * ao mesmo tempo; os percentis são calculados na leitura, percorrendo as faixas.
+ */
+public class LatencyHistogram {
+
+    /** Número de bits das faixas de cada potência de dois (2^5 = 32 faixas).*/
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** Maior valor registrado com precisão, em nanossegundos (cerca de 18 minutos); valores maiores ficam na última faixa.*/
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    /** Número de valores registrados em cada faixa.*/
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+
+    /** Número total de valores registrados.*/
+    private final LongAdder totalCount = new LongAdder();
+
+    /** Soma dos valores registrados, em nanossegundos.*/
+    private final LongAdder totalNanos = new LongAdder();
+
+    /** Maior valor registrado, em nanossegundos.*/
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Registra um tempo.
+     * @param nanos O tempo, em nanossegundos; valores negativos são tratados como zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(indexOf(Math.min(value, MAX_VALUE)));
+        totalCount.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * Calcula a faixa de um valor: os valores menores que 64 têm uma faixa cada um, e cada potência de dois acima
+     * disso é dividida em 32 faixas, indexadas pelos bits mais altos do valor.
+     * @param value O valor, entre zero e MAX_VALUE.
+     * @return O índice da faixa.
+     */
+    private static int indexOf(long value) {
+        int shift = Math.max(63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS, 0);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Calcula o maior valor de uma faixa, usado como o valor de todos os registros da faixa.
+     * @param index O índice da faixa.
+     * @return O maior valor da faixa.
+     */
+    private static long highestValueOf(int index) {
+        int shift = Math.max((index >>> SUB_BUCKET_BITS) - 1, 0);
+        long mantissa = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * Calcula um percentil dos tempos registrados.
+     * @param percentile O percentil, entre 0 e 100.
+     * @return O tempo, em nanossegundos, abaixo do qual está a fração pedida dos registros, ou zero se não houver nenhum.
+     */
+    public long getPercentile(double percentile) {
+        long total = totalCount.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max((long) Math.ceil(total * percentile / 100), 1);
+        long seen = 0;
+        for (int index = 0; index < counts.length(); index++) {
+            seen += counts.get(index);
+            if (seen >= target) {
+                return Math.min(highestValueOf(index), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * Retorna o número de tempos registrados.
+     * @return O número de registros.
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Retorna a soma dos tempos registrados.
+     * @return A soma, em nanossegundos.
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Retorna o maior tempo registrado.
+     * @return O maior tempo, em nanossegundos.
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+}
@@ -0,0 +1,152 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Define a classe LoadGenerator, o gerador de carga que mede a capacidade do servidor sem interface gráfica.
+ * Conecta N pares de robôs (BotClient) ao mesmo tempo, cada um em uma thread virtual, joga o número de partidas
+ * pedido e exibe as jogadas por segundo, os percentis 50 e 99 do tempo de ida e volta das jogadas e os erros.
+ */
+public class LoadGenerator {
+
+    /**
+     * Método principal do gerador de carga.
+     * @param args Número de pares de robôs, número de partidas por par (0 para jogar até o servidor enviar o término,
+     *             como ao fim de um torneio), endereço e porta do servidor,
+     *             estratégia ("random" ou um roteiro de posições separadas por vírgula, como "4,0,8,2,6"),
+     *             intervalo em jogadas entre mensagens de chat (0 para nenhuma), protocolo ("binary" ou "text") e
+     *             dispersão das notas de habilidade (0 para não informar nota; N para notas sorteadas entre
+     *             1500 - N e 1500 + N) e intervalo em jogadas entre quedas de conexão simuladas, seguidas da
+     *             retomada da partida (0 para nenhuma). Todos são opcionais. O endereço e a porta padrão vêm das
+     *             chaves "server.host" e "server.port" da configuração, que podem ser informadas em qualquer posição
+     *             como opções ("--server.port=6790").
+     */
+    public static void main(String[] args) {
+        ServerConfig config;
+        try {
+            config = ServerConfig.load(args);
+        } catch (IOException | IllegalArgumentException ex) {
+            System.out.println(ex.getMessage());
+            return;
+        }
+        String[] arguments = config.getArguments();
+
+        int pairs = arguments.length > 0 ? Integer.parseInt(arguments[0]) : 100;
+        int games = arguments.length > 1 ? Integer.parseInt(arguments[1]) : 10;
+        String host = arguments.length > 2 ? arguments[2] : config.getHost();
+        int port = arguments.length > 3 ? Integer.parseInt(arguments[3]) : config.getPort();
+        int[] script = arguments.length > 4 ? parseScript(arguments[4]) : null;
+        int chatEvery = arguments.length > 5 ? Integer.parseInt(arguments[5]) : 0;
+        boolean useBinary = arguments.length <= 6 || !arguments[6].equals("text");
+        int ratingSpread = arguments.length > 7 ? Integer.parseInt(arguments[7]) : 0;
+        int dropEvery = arguments.length > 8 ? Integer.parseInt(arguments[8]) : 0;
+
+        System.out.println("Conectando " + pairs + " pares de robôs a " + host + ":" + port
+                + (games > 0 ? " para jogar " + games + " partidas cada" : " para jogar até o servidor encerrar"));
+
+        // Cria dois robôs por par; o saguão do servidor forma os pares pelas notas, com semente fixa para repetir o teste.
+        Random random = new Random(42);
+        List<BotClient> bots = new ArrayList<>(pairs * 2);
+        for (int i = 0; i < pairs * 2; i++) {
+            int rating = ratingSpread > 0
+                    ? GameLobby.DEFAULT_RATING - ratingSpread + random.nextInt(2 * ratingSpread + 1)
+                    : BotClient.NO_RATING;
+            bots.add(new BotClient(host, port, games, script, chatEvery, useBinary, rating, dropEvery));
+        }
+
+        // Executa cada robô em uma thread virtual e aguarda todos terminarem.
+        long startTime = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            bots.forEach(executor::execute);
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        printReport(bots, elapsedNanos);
+    }
+
+    /**
+     * Interpreta a estratégia de jogo informada.
+     * @param strategy "random" para jogar ao acaso, ou posições em ordem de preferência separadas por vírgula.
+     * @return As posições do roteiro, ou nulo para jogar ao acaso.
+     */
+    private static int[] parseScript(String strategy) {
+        if (strategy.equals("random")) {
+            return null;
+        }
+        return Arrays.stream(strategy.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * Soma os resultados dos robôs e exibe o relatório de capacidade.
+     * @param bots Os robôs que terminaram de jogar.
+     * @param elapsedNanos Duração total do teste, em nanossegundos.
+     */
+    private static void printReport(List<BotClient> bots, long elapsedNanos) {
+        long moves = 0;
+        long games = 0;
+        long resumes = 0;
+        int errors = 0;
+        String firstError = null;
+        List<long[]> latencyLists = new ArrayList<>(bots.size());
+        int latencyCount = 0;
+        for (BotClient bot : bots) {
+            moves += bot.getMovesSent();
+            games += bot.getGamesPlayed();
+            resumes += bot.getResumes();
+            if (bot.getError() != null) {
+                errors++;
+                firstError = firstError == null ? bot.getError() : firstError;
+            }
+            long[] botLatencies = bot.getLatencies();
+            latencyLists.add(botLatencies);
+            latencyCount += botLatencies.length;
+        }
+
+        // Junta os tempos de todos os robôs e os ordena para obter os percentis.
+        long[] latencies = new long[latencyCount];
+        int offset = 0;
+        for (long[] botLatencies : latencyLists) {
+            System.arraycopy(botLatencies, 0, latencies, offset, botLatencies.length);
+            offset += botLatencies.length;
+        }
+        Arrays.sort(latencies);
+
+        double seconds = elapsedNanos / 1e9;
+        System.out.println("Duração: " + String.format("%.2f", seconds) + " s"
+                + " | Partidas: " + games / 2
+                + " | Jogadas: " + moves
+                + " | Jogadas/s: " + String.format("%.0f", moves / seconds));
+        System.out.println("Ida e volta das jogadas: p50 " + formatMillis(percentile(latencies, 50))
+                + " | p99 " + formatMillis(percentile(latencies, 99))
+                + " | máximo " + formatMillis(latencies.length > 0 ? latencies[latencies.length - 1] : 0));
+        System.out.println("Retomadas depois de quedas: " + resumes);
+        System.out.println("Erros de conexão: " + errors + (firstError != null ? " (primeiro: " + firstError + ")" : ""));
+    }
+
+    /**
+     * Retorna um percentil de um vetor ordenado.
+     * @param sorted O vetor ordenado.
+     * @param percent O percentil desejado, de 0 a 100.
+     * @return O valor do percentil, ou zero se o vetor estiver vazio.
+     */
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    /**
+     * Formata uma duração em milissegundos.
+     * @param nanos A duração em nanossegundos.
+     * @return A duração formatada, como "0.125 ms".
+     */
+    private static String formatMillis(long nanos) {
+        return String.format("%.3f ms", nanos / 1e6);
+    }
+}
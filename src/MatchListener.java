@@ -0,0 +1,16 @@
+/**
+ * Define a interface MatchListener, que recebe o resultado das salas de partida única, como as de um torneio.
+ * Nessas salas a partida não recomeça ao terminar: a sala envia o resultado, libera os jogadores que continuam
+ * conectados, sem fechar as suas conexões, e avisa quem a criou.
+ */
+public interface MatchListener {
+
+    /**
+     * Recebe o resultado de uma partida. Quem saiu, caiu ou perdeu por abandono perde a partida e tem a conexão
+     * fechada; os demais voltam a não ter sala e podem ser colocados em outra.
+     * @param crossPlayer Conexão atual do jogador do xis, ou nulo se ele deixou a partida.
+     * @param circlePlayer Conexão atual do jogador do círculo, ou nulo se ele deixou a partida.
+     * @param winner Símbolo do vencedor (X ou O), ou '\0' no empate.
+     */
+    void matchFinished(PlayerConnection crossPlayer, PlayerConnection circlePlayer, char winner);
+}
@@ -0,0 +1,597 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Define a classe MinimaxSolver, que escolhe as jogadas do jogador automático do servidor (AiPlayerConnection).
+ * A busca é um minimax com poda alfa-beta (na forma negamax) feito diretamente sobre o GameStatus, que experimenta
+ * cada jogada e a desfaz em seguida. As posições já avaliadas ficam em uma tabela de transposição indexada por um
+ * hash canônico: o tabuleiro tem oito simetrias (quatro rotações, cada uma com ou sem reflexão) que não mudam o
+ * resultado da partida, então o hash de cada simetria é mantido de forma incremental e o menor deles representa
+ * as oito posições equivalentes.
+ * No tabuleiro 3x3 clássico a árvore inteira é resolvida uma única vez, na primeira utilização, e a melhor jogada
+ * de cada posição alcançável fica em uma tabela compacta; cada jogada passa a ser uma simples leitura.
+ * Nos demais tabuleiros a busca é feita a cada jogada, aprofundando-se até resolver a posição ou atingir o limite
+ * de posições avaliadas (e, no servidor, o prazo da jogada); nesse caso é usada a melhor jogada da última profundidade
+ * completa. Só são examinadas as casas vazias a até duas casas de algum símbolo, as mais cercadas primeiro, pois uma
+ * jogada longe de todos os símbolos não ameaça nem defende nada; com o tabuleiro vazio, a jogada é o centro.
+ * Assim, mesmo uma busca interrompida cedo joga perto da disputa, e não na primeira casa vazia. Para o servidor, essas
+ * buscas rodam em threads próprias (searchMove), e cada uma delas mantém um único solucionador, com a sua tabela de
+ * transposição, para todas as salas: a memória das tabelas é limitada pelo número de threads, e não de salas.
+ * Um solucionador não pode ser usado por duas threads ao mesmo tempo, exceto o do tabuleiro clássico, que só lê a
+ * tabela de jogadas.
+ */
+public class MinimaxSolver {
+
+    /** Número de posições do tabuleiro 3x3 codificadas na tabela de jogadas (3 elevado a 9).*/
+    private static final int CLASSIC_POSITIONS = 19683;
+
+    /** Número máximo de jogadas avaliadas por busca nos tabuleiros que não são resolvidos por completo.*/
+    private static final long NODE_BUDGET = 200_000;
+
+    /** Prazo, em nanossegundos, de cada busca do jogador automático do servidor.*/
+    private static final long MOVE_TIME_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /** Intervalo, em jogadas avaliadas (menos um, potência de dois), entre as consultas ao relógio durante a busca.*/
+    private static final int CLOCK_CHECK_MASK = 1023;
+
+    /** Distância máxima, em casas, entre uma jogada examinada e o símbolo mais próximo.*/
+    private static final int NEARBY_RADIUS = 2;
+
+    /** Número de entradas da tabela de transposição (potência de dois).*/
+    private static final int TABLE_SIZE = 1 << 15;
+
+    /** Indica que a pontuação guardada na tabela de transposição é exata.*/
+    private static final int EXACT = 0;
+
+    /** Indica que a pontuação guardada é um limite inferior (a busca foi podada por ser boa demais).*/
+    private static final int LOWER_BOUND = 1;
+
+    /** Indica que a pontuação guardada é um limite superior (nenhuma jogada superou o alfa).*/
+    private static final int UPPER_BOUND = 2;
+
+    /** Threads que fazem as buscas do jogador automático do servidor, fora das threads que atendem as conexões.*/
+    private static final ExecutorService SEARCH_THREADS = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "ai-search");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /** Solucionador de cada thread de busca, reaproveitado, com a sua tabela de transposição, por todas as salas.*/
+    private static final ThreadLocal<MinimaxSolver> SEARCH_SOLVERS = new ThreadLocal<>();
+
+    /** Solucionador do tabuleiro clássico, compartilhado por todos os jogadores automáticos, pois só lê a tabela.*/
+    private static final MinimaxSolver CLASSIC = new MinimaxSolver(GameStatus.DEFAULT_SIZE, GameStatus.DEFAULT_WIN_LENGTH);
+
+    /** Número de linhas e de colunas do tabuleiro.*/
+    private final int size;
+
+    /** Número de símbolos em sequência necessários para vencer.*/
+    private final int winLength;
+
+    /** Número de posições do tabuleiro.*/
+    private final int cellCount;
+
+    /** Imagem de cada posição em cada uma das oito simetrias: symmetries[s][p].*/
+    private final int[][] symmetries;
+
+    /** Inversa de cada simetria, que leva a posição da forma canônica de volta à posição real.*/
+    private final int[][] inverseSymmetries;
+
+    /** Números aleatórios de cada posição para o xis (índice 0) e para o círculo (índice 1), combinados por XOR.*/
+    private final long[][] zobrist;
+
+    /** Números aleatórios que distinguem de quem é a vez, para o xis (índice 0) e para o círculo (índice 1).*/
+    private final long[] sideKeys;
+
+    /** Hash da posição atual em cada uma das oito simetrias, atualizado a cada jogada da busca.*/
+    private final long[] hashes = new long[8];
+
+    /** Hashes canônicos das posições guardadas na tabela de transposição, criada apenas quando há busca.*/
+    private long[] tableKeys;
+
+    /** Entradas da tabela de transposição: pontuação, profundidade, tipo da pontuação e melhor jogada canônica.*/
+    private long[] tableEntries;
+
+    /** Estado do jogo sobre o qual a busca está sendo feita.*/
+    private GameStatus status;
+
+    /** Número de posições vazias no estado da busca.*/
+    private int emptyCells;
+
+    /** Número de posições vazias no início da busca, para saber a que distância da raiz a busca está.*/
+    private int rootEmptyCells;
+
+    /** Proximidade de cada posição aos símbolos do tabuleiro: 2 por vizinho adjacente e 1 por vizinho a duas casas.*/
+    private final int[] nearby;
+
+    /** Jogadas a examinar em cada distância da raiz, reaproveitadas entre as buscas.*/
+    private final List<int[]> plyMoves = new ArrayList<>();
+
+    /** Número de jogadas avaliadas na busca atual.*/
+    private long nodes;
+
+    /** Número máximo de jogadas avaliadas na busca atual.*/
+    private long budget;
+
+    /** Instante, em nanossegundos, em que a busca atual deve parar, se ela tiver prazo.*/
+    private long deadline;
+
+    /** Indica se a busca atual tem prazo.*/
+    private boolean timed;
+
+    /** Melhor jogada encontrada pela última chamada de searchRoot.*/
+    private int rootMove;
+
+    /** Indica se a busca atual foi interrompida por atingir o limite de posições visitadas.*/
+    private boolean aborted;
+
+    /**
+     * Cria um solucionador para um tabuleiro NxN.
+     * @param size Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     */
+    private MinimaxSolver(int size, int winLength) {
+        this.size = size;
+        this.winLength = winLength;
+        this.cellCount = size * size;
+        this.nearby = new int[cellCount];
+        this.symmetries = new int[8][cellCount];
+        this.inverseSymmetries = new int[8][cellCount];
+        for (int position = 0; position < cellCount; position++) {
+            int row = position / size;
+            int column = position % size;
+            int last = size - 1;
+            int[][] images = {
+                    {row, column}, {column, last - row}, {last - row, last - column}, {last - column, row},
+                    {row, last - column}, {column, row}, {last - row, column}, {last - column, last - row}
+            };
+            for (int s = 0; s < 8; s++) {
+                int image = images[s][0] * size + images[s][1];
+                symmetries[s][position] = image;
+                inverseSymmetries[s][image] = position;
+            }
+        }
+
+        // A semente fixa torna as partidas do jogador automático reproduzíveis.
+        Random random = new Random(size * 31L + winLength);
+        this.zobrist = new long[2][cellCount];
+        for (long[] keys : zobrist) {
+            for (int i = 0; i < cellCount; i++) {
+                keys[i] = random.nextLong();
+            }
+        }
+        this.sideKeys = new long[]{random.nextLong() | 1, random.nextLong() | 1};
+    }
+
+    /**
+     * Retorna um solucionador para o tabuleiro informado. O do tabuleiro clássico é compartilhado.
+     * @param size Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     * @return O solucionador.
+     */
+    public static MinimaxSolver forBoard(int size, int winLength) {
+        return isClassic(size, winLength) ? CLASSIC : new MinimaxSolver(size, winLength);
+    }
+
+    /**
+     * Resolve o tabuleiro clássico, caso ainda não tenha sido resolvido. Chamado ao iniciar o servidor,
+     * para que a primeira partida não espere pelo cálculo da tabela.
+     * @return O número de posições com jogada calculada na tabela.
+     */
+    public static int precomputeClassicTable() {
+        int positions = 0;
+        for (byte move : ClassicTable.MOVES) {
+            positions += move >= 0 ? 1 : 0;
+        }
+        return positions;
+    }
+
+    /**
+     * Escolhe a jogada do jogador na posição atual. O estado do jogo é usado durante a busca,
+     * mas volta ao que era antes da chamada. A busca é limitada só pelo número de jogadas avaliadas, e não pelo
+     * relógio, para que as partidas da mesma semente se repitam (SelfPlay).
+     * @param gameStatus O estado do jogo, que não pode estar terminado.
+     * @param player Símbolo do jogador que vai jogar (X ou O).
+     * @return A posição escolhida.
+     */
+    public int chooseMove(GameStatus gameStatus, char player) {
+        if (isClassic(size, winLength)) {
+            return ClassicTable.MOVES[ClassicTable.index(gameStatus, player)];
+        }
+        return bestMove(gameStatus, player, NODE_BUDGET, Long.MAX_VALUE);
+    }
+
+    /**
+     * Busca a jogada do jogador em uma das threads de busca e a entrega a quem pediu, naquela thread. Usado nos
+     * tabuleiros que não são resolvidos pela tabela de jogadas, cuja busca pode levar centenas de milissegundos.
+     * @param gameStatus Cópia do estado do jogo, que não pode estar terminado e passa a ser usada pela busca.
+     * @param player Símbolo do jogador que vai jogar (X ou O).
+     * @param onMove Quem recebe a posição escolhida.
+     */
+    public static void searchMove(GameStatus gameStatus, char player, IntConsumer onMove) {
+        SEARCH_THREADS.execute(() -> {
+            try {
+                // As salas de um servidor têm todas o mesmo tabuleiro, então o solucionador da thread quase nunca muda.
+                MinimaxSolver solver = SEARCH_SOLVERS.get();
+                if (solver == null || solver.size != gameStatus.getSize() || solver.winLength != gameStatus.getWinLength()) {
+                    solver = new MinimaxSolver(gameStatus.getSize(), gameStatus.getWinLength());
+                    SEARCH_SOLVERS.set(solver);
+                }
+                onMove.accept(solver.bestMove(gameStatus, player, NODE_BUDGET, MOVE_TIME_NANOS));
+            } catch (RuntimeException ex) {
+                System.out.println(ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Verifica se o tabuleiro é o 3x3 clássico, resolvido pela tabela de jogadas.
+     * @param size Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     * @return Verdadeiro se o tabuleiro é o clássico.
+     */
+    public static boolean isClassic(int size, int winLength) {
+        return size == GameStatus.DEFAULT_SIZE && winLength == GameStatus.DEFAULT_WIN_LENGTH;
+    }
+
+    /**
+     * Busca a melhor jogada aprofundando a busca uma jogada por vez, até resolver a posição, encontrar uma vitória
+     * ou derrota forçada, ou atingir o limite de jogadas avaliadas ou o prazo.
+     * @param gameStatus O estado do jogo.
+     * @param player Símbolo do jogador que vai jogar.
+     * @param nodeBudget Número máximo de jogadas avaliadas.
+     * @param timeLimitNanos Prazo da busca, em nanossegundos, ou Long.MAX_VALUE para buscar sem prazo.
+     * @return A melhor jogada da última profundidade completa, ou a primeira jogada examinada se nenhuma terminou.
+     */
+    private int bestMove(GameStatus gameStatus, char player, long nodeBudget, long timeLimitNanos) {
+        if (tableKeys == null) {
+            tableKeys = new long[TABLE_SIZE];
+            tableEntries = new long[TABLE_SIZE];
+        }
+        status = gameStatus;
+        budget = nodeBudget;
+        nodes = 0;
+        aborted = false;
+        timed = timeLimitNanos != Long.MAX_VALUE;
+        deadline = timed ? System.nanoTime() + timeLimitNanos : 0;
+
+        // Calcula os hashes das oito simetrias e a proximidade das posições aos símbolos da posição inicial.
+        Arrays.fill(hashes, 0);
+        Arrays.fill(nearby, 0);
+        emptyCells = 0;
+        for (int position = 0; position < cellCount; position++) {
+            char symbol = gameStatus.getPosition(position);
+            if (symbol == '\0') {
+                emptyCells++;
+            } else {
+                toggle(position, symbol);
+                markNearby(position, 1);
+            }
+        }
+        rootEmptyCells = emptyCells;
+
+        // Sem nenhuma profundidade completa, fica com a primeira jogada examinada, que é a mais próxima da disputa.
+        generateMoves(0, storedMove(player));
+        int best = plyMoves(0)[0];
+        for (int depth = 1; depth <= emptyCells; depth++) {
+            int score = searchRoot(player, depth);
+            if (aborted) {
+                break;
+            }
+            best = rootMove;
+            // Uma pontuação diferente de zero é uma vitória ou derrota forçada, que não muda com mais profundidade.
+            if (score != 0) {
+                break;
+            }
+        }
+        status = null;
+        return best;
+    }
+
+    /**
+     * Busca a melhor jogada da raiz até a profundidade informada, guardando-a em rootMove.
+     * @param player Símbolo do jogador que vai jogar.
+     * @param depth Número de jogadas examinadas à frente.
+     * @return A pontuação da melhor jogada.
+     */
+    private int searchRoot(char player, int depth) {
+        char opponent = player == GameFrame.CROSS ? GameFrame.CIRCLE : GameFrame.CROSS;
+        int alpha = -cellCount - 1;
+        int bestScore = alpha;
+        int[] moves = plyMoves(0);
+        int count = generateMoves(0, storedMove(player));
+        rootMove = -1;
+        for (int i = 0; i < count; i++) {
+            int position = moves[i];
+            int score = scoreMove(position, player, opponent, depth, alpha, cellCount + 1);
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                rootMove = position;
+                alpha = score;
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Avalia uma posição pelo negamax com poda alfa-beta, consultando e atualizando a tabela de transposição.
+     * A pontuação é do ponto de vista de quem vai jogar: positiva se ele vence, negativa se perde.
+     * @param player Símbolo do jogador que vai jogar.
+     * @param depth Número de jogadas examinadas à frente.
+     * @param alpha Menor pontuação que ainda interessa a quem vai jogar.
+     * @param beta Maior pontuação que o oponente ainda permite.
+     * @return A pontuação da posição.
+     */
+    private int negamax(char player, int depth, int alpha, int beta) {
+        // Consulta a tabela de transposição pela forma canônica da posição.
+        int symmetry = canonicalSymmetry();
+        long key = hashes[symmetry] ^ sideKeys[player == GameFrame.CROSS ? 0 : 1];
+        int slot = (int) (key ^ (key >>> 32)) & (TABLE_SIZE - 1);
+        int first = -1;
+        if (tableKeys[slot] == key) {
+            long entry = tableEntries[slot];
+            int storedScore = (int) (entry >> 32);
+            first = inverseSymmetries[symmetry][(int) (entry & 0xFFFF)];
+            if (((entry >>> 20) & 0xFFF) >= depth) {
+                int flag = (int) (entry >>> 16) & 0xF;
+                if (flag == EXACT) {
+                    return storedScore;
+                } else if (flag == LOWER_BOUND) {
+                    alpha = Math.max(alpha, storedScore);
+                } else {
+                    beta = Math.min(beta, storedScore);
+                }
+                if (alpha >= beta) {
+                    return storedScore;
+                }
+            }
+        }
+
+        // Examina primeiro a melhor jogada guardada, o que aumenta as podas, e depois as demais.
+        char opponent = player == GameFrame.CROSS ? GameFrame.CIRCLE : GameFrame.CROSS;
+        int originalAlpha = alpha;
+        int bestScore = -cellCount - 1;
+        int bestPosition = -1;
+        int ply = rootEmptyCells - emptyCells;
+        int[] moves = plyMoves(ply);
+        int count = generateMoves(ply, first);
+        for (int i = 0; i < count; i++) {
+            int position = moves[i];
+            int score = scoreMove(position, player, opponent, depth, alpha, beta);
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestPosition = position;
+            }
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        // Guarda a pontuação e a melhor jogada, convertida para a forma canônica.
+        int flag = bestScore <= originalAlpha ? UPPER_BOUND : bestScore >= beta ? LOWER_BOUND : EXACT;
+        tableKeys[slot] = key;
+        tableEntries[slot] = ((long) bestScore << 32) | ((long) depth << 20) | ((long) flag << 16)
+                | symmetries[symmetry][bestPosition];
+        return bestScore;
+    }
+
+    /**
+     * Experimenta uma jogada, avalia a posição resultante e desfaz a jogada.
+     * A vitória vale mais quanto mais cedo acontece, para que o jogador automático vença o quanto antes
+     * e adie ao máximo uma derrota inevitável. Cada jogada avaliada conta no limite de jogadas da busca.
+     * @param position A posição da jogada.
+     * @param player Símbolo do jogador que faz a jogada.
+     * @param opponent Símbolo do oponente.
+     * @param depth Número de jogadas examinadas à frente, incluindo esta.
+     * @param alpha Menor pontuação que ainda interessa ao jogador.
+     * @param beta Maior pontuação que o oponente ainda permite.
+     * @return A pontuação da jogada, do ponto de vista do jogador.
+     */
+    private int scoreMove(int position, char player, char opponent, int depth, int alpha, int beta) {
+        // O relógio é consultado a cada bloco de jogadas, pois a consulta custa mais que avaliar uma jogada.
+        if (++nodes > budget || (timed && (nodes & CLOCK_CHECK_MASK) == 0 && System.nanoTime() - deadline > 0)) {
+            aborted = true;
+            return 0;
+        }
+        status.makeMove(position, player);
+        toggle(position, player);
+        markNearby(position, 1);
+        emptyCells--;
+
+        int score;
+        if (status.checkWinner(player)) {
+            score = 1 + emptyCells;
+        } else if (emptyCells == 0 || depth == 1) {
+            // Empate, ou o limite de profundidade foi atingido sem que ninguém vencesse.
+            score = 0;
+        } else {
+            score = -negamax(opponent, depth - 1, -beta, -alpha);
+        }
+
+        emptyCells++;
+        markNearby(position, -1);
+        toggle(position, player);
+        status.undoMove(position);
+        return score;
+    }
+
+    /**
+     * Lista as jogadas a examinar na posição atual: primeiro a jogada guardada na tabela de transposição, depois as
+     * casas vazias próximas de algum símbolo, das mais cercadas para as menos. Com o tabuleiro vazio, o centro.
+     * @param ply Distância da posição atual à raiz da busca, que escolhe o vetor em que as jogadas são guardadas.
+     * @param first Jogada a examinar primeiro, ou -1 se não houver.
+     * @return O número de jogadas guardadas em plyMoves(ply).
+     */
+    private int generateMoves(int ply, int first) {
+        int[] moves = plyMoves(ply);
+        int count = 0;
+        if (first >= 0 && status.isValidMove(first)) {
+            moves[count++] = first;
+        }
+        int sorted = count;
+        for (int position = 0; position < cellCount; position++) {
+            if (nearby[position] == 0 || position == first || !status.isValidMove(position)) {
+                continue;
+            }
+            // Ordenação por inserção, pela proximidade, sem mexer na jogada guardada.
+            int i = count++;
+            while (i > sorted && nearby[moves[i - 1]] < nearby[position]) {
+                moves[i] = moves[i - 1];
+                i--;
+            }
+            moves[i] = position;
+        }
+        if (count == 0) {
+            moves[count++] = (size / 2) * size + size / 2;
+        }
+        return count;
+    }
+
+    /**
+     * Retorna o vetor de jogadas de uma distância da raiz, criando-o na primeira vez que a busca chega a ela.
+     * @param ply Distância à raiz da busca.
+     * @return O vetor de jogadas.
+     */
+    private int[] plyMoves(int ply) {
+        while (plyMoves.size() <= ply) {
+            plyMoves.add(new int[cellCount]);
+        }
+        return plyMoves.get(ply);
+    }
+
+    /**
+     * Atualiza a proximidade das posições em volta de um símbolo colocado ou retirado do tabuleiro.
+     * @param position A posição do símbolo.
+     * @param sign 1 se o símbolo foi colocado, -1 se foi retirado.
+     */
+    private void markNearby(int position, int sign) {
+        int row = position / size;
+        int column = position % size;
+        for (int r = Math.max(0, row - NEARBY_RADIUS); r <= Math.min(size - 1, row + NEARBY_RADIUS); r++) {
+            for (int c = Math.max(0, column - NEARBY_RADIUS); c <= Math.min(size - 1, column + NEARBY_RADIUS); c++) {
+                int distance = Math.max(Math.abs(r - row), Math.abs(c - column));
+                nearby[r * size + c] += sign * (NEARBY_RADIUS + 1 - distance);
+            }
+        }
+    }
+
+    /**
+     * Retorna a melhor jogada guardada para a posição da raiz, convertida para a posição real.
+     * @param player Símbolo do jogador que vai jogar.
+     * @return A jogada guardada, ou -1 se a posição não estiver na tabela.
+     */
+    private int storedMove(char player) {
+        int symmetry = canonicalSymmetry();
+        long key = hashes[symmetry] ^ sideKeys[player == GameFrame.CROSS ? 0 : 1];
+        int slot = (int) (key ^ (key >>> 32)) & (TABLE_SIZE - 1);
+        return tableKeys[slot] == key ? inverseSymmetries[symmetry][(int) (tableEntries[slot] & 0xFFFF)] : -1;
+    }
+
+    /**
+     * Retorna a simetria cujo hash é o menor, que define a forma canônica da posição.
+     * @return O índice da simetria, de 0 a 7.
+     */
+    private int canonicalSymmetry() {
+        int symmetry = 0;
+        for (int s = 1; s < 8; s++) {
+            if (hashes[s] < hashes[symmetry]) {
+                symmetry = s;
+            }
+        }
+        return symmetry;
+    }
+
+    /**
+     * Acrescenta ou remove o símbolo de uma posição nos hashes das oito simetrias.
+     * @param position A posição.
+     * @param symbol Símbolo do jogador (X ou O).
+     */
+    private void toggle(int position, char symbol) {
+        long[] keys = zobrist[symbol == GameFrame.CROSS ? 0 : 1];
+        for (int s = 0; s < 8; s++) {
+            hashes[s] ^= keys[symmetries[s][position]];
+        }
+    }
+
+    /**
+     * Define a classe ClassicTable, que guarda a melhor jogada de cada posição alcançável do tabuleiro 3x3.
+     * Cada posição é codificada em base 3 (0 vazia, 1 xis, 2 círculo), e há uma tabela para cada jogador da vez,
+     * pois qualquer um dos dois pode começar a partida. A tabela é calculada na primeira utilização da classe.
+     */
+    private static final class ClassicTable {
+
+        /** Melhor jogada de cada posição, ou -1 se a posição não é alcançável ou já terminou.*/
+        static final byte[] MOVES = build();
+
+        /**
+         * Calcula a tabela, visitando todas as posições alcançáveis a partir do tabuleiro vazio.
+         * @return A tabela de jogadas.
+         */
+        private static byte[] build() {
+            byte[] moves = new byte[2 * CLASSIC_POSITIONS];
+            Arrays.fill(moves, (byte) -1);
+            var solver = new MinimaxSolver(GameStatus.DEFAULT_SIZE, GameStatus.DEFAULT_WIN_LENGTH);
+            var gameStatus = new GameStatus();
+            fill(moves, solver, gameStatus, GameFrame.CROSS);
+            fill(moves, solver, gameStatus, GameFrame.CIRCLE);
+            return moves;
+        }
+
+        /**
+         * Resolve a posição atual e as posições alcançáveis a partir dela, ainda não resolvidas.
+         * @param moves A tabela de jogadas.
+         * @param solver O solucionador usado para resolver cada posição.
+         * @param gameStatus O estado do jogo na posição atual.
+         * @param player Símbolo do jogador da vez.
+         */
+        private static void fill(byte[] moves, MinimaxSolver solver, GameStatus gameStatus, char player) {
+            int index = index(gameStatus, player);
+            if (moves[index] >= 0) {
+                return;
+            }
+            // A busca sem limite de posições resolve a partida até o fim.
+            moves[index] = (byte) solver.bestMove(gameStatus, player, Long.MAX_VALUE, Long.MAX_VALUE);
+
+            char opponent = player == GameFrame.CROSS ? GameFrame.CIRCLE : GameFrame.CROSS;
+            for (int position = 0; position < gameStatus.getSize() * gameStatus.getSize(); position++) {
+                if (!gameStatus.isValidMove(position)) {
+                    continue;
+                }
+                gameStatus.makeMove(position, player);
+                if (!gameStatus.checkWinner(player) && !gameStatus.checkDraw()) {
+                    fill(moves, solver, gameStatus, opponent);
+                }
+                gameStatus.undoMove(position);
+            }
+        }
+
+        /**
+         * Calcula o índice de uma posição na tabela.
+         * @param gameStatus O estado do jogo.
+         * @param player Símbolo do jogador da vez.
+         * @return O índice da posição.
+         */
+        static int index(GameStatus gameStatus, char player) {
+            int code = 0;
+            for (int position = 8; position >= 0; position--) {
+                char symbol = gameStatus.getPosition(position);
+                code = code * 3 + (symbol == GameFrame.CROSS ? 1 : symbol == GameFrame.CIRCLE ? 2 : 0);
+            }
+            return (player == GameFrame.CROSS ? 0 : CLASSIC_POSITIONS) + code;
+        }
+    }
+}
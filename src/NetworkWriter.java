@@ -0,0 +1,141 @@
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Define a classe NetworkWriter, que escreve as mensagens do cliente em uma thread dedicada.
+ * A interface gráfica apenas entrega as mensagens ao escritor e segue respondendo ao usuário, mesmo que a rede
+ * esteja lenta; as mensagens são escritas na ordem em que foram entregues.
+ * Com uma sessão, as jogadas e mensagens de chat ficam guardadas até a retomada, e o escritor pode passar para
+ * a nova conexão de uma partida retomada, reenviando o que o servidor não recebeu.
+ */
+public class NetworkWriter {
+
+    /** Tempo máximo, em milissegundos, para escrever as mensagens pendentes ao encerrar o escritor.*/
+    private static final long CLOSE_TIMEOUT_MILLIS = 1000;
+
+    /** Escritor das mensagens do protocolo, usado e trocado apenas pela thread de escrita.*/
+    private ProtocolWriter protocolWriter;
+
+    /** Sessão que guarda as jogadas e mensagens de chat enviadas, ou nulo se a partida não pode ser retomada.*/
+    private volatile ClientSession session;
+
+    /** Thread única que escreve as mensagens no socket, preservando a ordem.*/
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "network-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Cria o escritor dedicado sobre o escritor do protocolo de uma conexão.
+     * @param protocolWriter Escritor das mensagens do protocolo.
+     */
+    public NetworkWriter(ProtocolWriter protocolWriter) {
+        this.protocolWriter = protocolWriter;
+    }
+
+    /**
+     * Entrega um grupo de mensagens para ser escrito no socket com uma única escrita, sem bloquear quem chama.
+     * @param messages Ação que acumula as mensagens no escritor do protocolo.
+     */
+    public void send(Consumer<ProtocolWriter> messages) {
+        execute(() -> {
+            messages.accept(protocolWriter);
+            flush();
+        });
+    }
+
+    /**
+     * Entrega uma jogada ou mensagem de chat, que é guardada na sessão para ser reenviada se a conexão cair
+     * antes de o servidor recebê-la.
+     * @param message Ação que acumula uma única jogada ou mensagem de chat no escritor do protocolo.
+     */
+    public void sendNumbered(Consumer<ProtocolWriter> message) {
+        execute(() -> {
+            message.accept(protocolWriter);
+            ClientSession currentSession = session;
+            if (currentSession != null) {
+                currentSession.recordSent(message);
+            }
+            flush();
+        });
+    }
+
+    /**
+     * Passa a escrever na nova conexão de uma partida retomada: negocia de novo o protocolo binário, se for o caso,
+     * e reenvia as jogadas e mensagens de chat que o servidor não recebeu, antes das mensagens entregues depois.
+     * @param resumed A nova conexão.
+     * @param binary Verdadeiro para negociar o protocolo binário na nova conexão.
+     */
+    public void reconnect(ClientSession.Resumed resumed, boolean binary) {
+        execute(() -> {
+            protocolWriter = resumed.writer;
+            if (binary) {
+                protocolWriter.negotiateBinary();
+            }
+            try {
+                session.resend(protocolWriter, resumed.acknowledged);
+            } catch (IOException ex) {
+                System.out.println(ex.getMessage());
+            }
+            flush();
+        });
+    }
+
+    /**
+     * Define a sessão em que as jogadas e mensagens de chat enviadas são guardadas.
+     * @param session A sessão, ou nulo se a partida não pode ser retomada.
+     */
+    public void setSession(ClientSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Indica se o escritor foi encerrado, isto é, se o jogador saiu da partida.
+     * @return Verdadeiro se o escritor foi encerrado.
+     */
+    public boolean isClosed() {
+        return executor.isShutdown();
+    }
+
+    /**
+     * Entrega uma tarefa à thread de escrita.
+     * @param task A tarefa.
+     */
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            // O escritor já foi encerrado, então a mensagem é descartada.
+        }
+    }
+
+    /**
+     * Escreve no socket as mensagens acumuladas. Chamado apenas pela thread de escrita.
+     */
+    private void flush() {
+        try {
+            protocolWriter.flush();
+        } catch (IOException ex) {
+            // Exibe mensagem de erro no console se a escrita falhar; com uma sessão, a mensagem será reenviada.
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Encerra o escritor, aguardando por um tempo limitado a escrita das mensagens pendentes,
+     * como o término da partida enviado ao fechar a janela.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Define a classe NioGameServer, que representa o servidor sem interface gráfica baseado em seletores NIO.
+ * O servidor aceita milhares de conexões, forma pares de jogadores em salas e repassa as mensagens entre eles
+ * usando um pequeno conjunto de threads de seletor, sem uma thread por conexão.
+ * O servidor pode aceitar conexões em várias portas; cada porta tem a sua thread de aceitação, e todas entregam as
+ * conexões ao mesmo conjunto de workers e ao mesmo saguão.
+ */
+public class NioGameServer {
+
+    /** Intervalo, em segundos, entre as exibições das estatísticas do servidor.*/
+    private static final int STATS_INTERVAL_SECONDS = 10;
+
+    /** Configuração do servidor, com as portas, o endereço e as opções dos sockets.*/
+    private final ServerConfig config;
+
+    /** Workers que atendem as conexões aceitas, cada um com seu próprio seletor.*/
+    private final NioSelectorWorker[] workers;
+
+    /** Saguão do servidor, onde os jogadores aguardam um oponente.*/
+    private final GameLobby lobby;
+
+    /**
+     * Cria o servidor NIO com um worker de seletor para cada thread de trabalho da configuração.
+     * @param config Configuração do servidor, com as portas e o número de threads de seletor.
+     * @param lobby Saguão do servidor, onde os jogadores aguardam um oponente.
+     * @throws IOException Exceção de E/S que pode ocorrer ao abrir os seletores.
+     */
+    public NioGameServer(ServerConfig config, GameLobby lobby) throws IOException {
+        this.config = config;
+        this.lobby = lobby;
+        this.workers = new NioSelectorWorker[config.getWorkers()];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new NioSelectorWorker(lobby);
+        }
+    }
+
+    /**
+     * Inicia as threads de seletor e aceita conexões indefinidamente em todas as portas,
+     * distribuindo os canais aceitos entre os workers em rodízio.
+     * @throws IOException Exceção de E/S que pode ocorrer ao abrir os sockets de boas-vindas.
+     */
+    public void start() throws IOException {
+        // Inicia uma thread para cada worker de seletor.
+        for (int i = 0; i < workers.length; i++) {
+            Thread thread = new Thread(workers[i], "nio-selector-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        startStatsReporter();
+
+        // As salas são iniciadas pela thread de pareamento; as escritas nas conexões são protegidas por bloqueio
+        // e o seletor de cada conexão é acordado para continuar o que não couber no canal.
+        lobby.start(GameRoom::start);
+
+        // Abre todos os canais de boas-vindas antes de aceitar, para que uma porta em uso impeça o início do servidor.
+        List<ServerSocketChannel> welcomeChannels = new ArrayList<>();
+        try {
+            for (int port : config.getPorts()) {
+                ServerSocketChannel welcomeChannel = ServerSocketChannel.open();
+                welcomeChannels.add(welcomeChannel);
+                config.bind(welcomeChannel.socket(), port);
+                System.out.println("Servidor NIO aguardando conexões em " + config.describeListener(port));
+            }
+
+            // As portas adicionais são aceitas por threads próprias; a principal, pela thread atual.
+            for (int i = 1; i < welcomeChannels.size(); i++) {
+                ServerSocketChannel welcomeChannel = welcomeChannels.get(i);
+                int first = i % workers.length;
+                Thread thread = new Thread(() -> {
+                    try {
+                        acceptConnections(welcomeChannel, first);
+                    } catch (IOException ex) {
+                        System.out.println(ex.getMessage());
+                    }
+                }, "nio-acceptor-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            acceptConnections(welcomeChannels.get(0), 0);
+        } finally {
+            for (ServerSocketChannel welcomeChannel : welcomeChannels) {
+                welcomeChannel.close();
+            }
+        }
+    }
+
+    /**
+     * Aceita conexões indefinidamente em um canal de boas-vindas e as entrega aos workers em rodízio.
+     * @param welcomeChannel O canal de boas-vindas, já associado à sua porta.
+     * @param first Índice do worker que recebe a primeira conexão, para que as portas não comecem todas pelo mesmo.
+     * @throws IOException Exceção de E/S que pode ocorrer ao aceitar uma conexão.
+     */
+    private void acceptConnections(ServerSocketChannel welcomeChannel, int first) throws IOException {
+        int next = first;
+        while (true) {
+            SocketChannel channel = welcomeChannel.accept();
+            ServerMetrics.recordAccepted();
+            channel.configureBlocking(false);
+            // Ajusta as opções da conexão, que por padrão desativam o algoritmo de Nagle: as mensagens de cada
+            // jogada já são agrupadas em uma única escrita, então segurar o segmento só atrasaria a jogada.
+            config.configureConnection(channel.socket());
+            workers[next].register(channel);
+            next = (next + 1) % workers.length;
+        }
+    }
+
+    /**
+     * Inicia uma thread que exibe periodicamente o número de salas e quantas mensagens cada escrita
+     * nos sockets levou em média, o que mostra as chamadas de sistema economizadas pelo agrupamento.
+     */
+    private void startStatsReporter() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "server-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> System.out.println("Salas: " + GameRoom.getActiveRooms()
+                + " | Na fila: " + lobby.getQueueDepth()
+                + " | Espera média: " + String.format("%.1f ms", lobby.getAverageWaitMillis())
+                + " | Espectadores: " + SpectatorFeed.getActiveSpectators()
+                + " | Saltos: " + SpectatorConnection.getSkips()
+                + " | Desconectados por atraso: " + SpectatorConnection.getDrops()
+                + " | Retomadas: " + GameRoom.getResumedSessions()
+                + " | Sessões expiradas: " + GameRoom.getExpiredSessions()
+                + " | Batimentos: " + GameRoom.getPingsSent()
+                + " | Conexões mortas: " + GameRoom.getReapedConnections()
+                + " | Abandonos: " + GameRoom.getForfeitedRooms()
+                + " | Chat descartado: " + GameRoom.getDroppedChats()
+                + " | Repassados: " + ClusterNode.getForwardedPlayers()
+                + " | Ligações: " + ClusterNode.getActiveLinks()
+                + " | Rodadas de torneio: " + Tournament.getCompletedRounds()
+                + " | Prazos: " + GameRoom.getPendingTimers()
+                + " | Mensagens: " + OutboundStats.getMessages()
+                + " | Escritas: " + OutboundStats.getWrites()
+                + " | Mensagens por escrita: " + String.format("%.2f", OutboundStats.getMessagesPerWrite())),
+                STATS_INTERVAL_SECONDS, STATS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+}
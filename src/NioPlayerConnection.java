@@ -0,0 +1,523 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Define a classe NioPlayerConnection, que representa a conexão não bloqueante de um jogador com o servidor NIO.
+ * As mensagens enviadas ficam em uma fila de saída, que é escrita no canal com uma única escrita agrupada em flush()
+ * e continuada pelo seletor quando o canal não aceita todos os dados de uma vez.
+ * A conexão começa no protocolo de texto e passa para o protocolo binário quando o jogador o negocia.
+ * Uma conexão que começa com a linha de retomada ("RESUME ficha última") substitui a conexão que caiu no lugar do jogador.
+ * O jogador repassado a outro nó do agrupamento deixa de ser interpretado: os bytes seguem pela ligação (NodeLink).
+ */
+public class NioPlayerConnection implements PlayerConnection {
+
+    /** Tamanho máximo de uma linha do protocolo, acima do qual a conexão é considerada inválida.*/
+    private static final int MAX_LINE_LENGTH = 8192;
+
+    /** Canal de comunicação com o jogador.*/
+    private final SocketChannel channel;
+
+    /** Chave de registro do canal no seletor que atende o jogador.*/
+    private final SelectionKey key;
+
+    /** Fila de mensagens ainda não escritas no canal.*/
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+
+    /** Vetor reaproveitado para entregar a fila de saída à escrita agrupada do canal.*/
+    private ByteBuffer[] gatherBuffers = new ByteBuffer[8];
+
+    /** Número de mensagens enfileiradas que ainda não foram contadas em uma escrita.*/
+    private int unsentMessages;
+
+    /** Bytes da linha parcialmente recebida, reaproveitados entre as linhas.*/
+    private byte[] lineBytes = new byte[64];
+
+    /** Número de bytes da linha parcialmente recebida.*/
+    private int lineLength;
+
+    /** Bytes de um quadro binário parcialmente recebido, em modo de escrita e reaproveitados, ou nulo antes do primeiro.*/
+    private ByteBuffer partialFrame;
+
+    /** Sala em que o jogador está participando.*/
+    private volatile GameRoom room;
+
+    /** Ligação com o nó do agrupamento em que fica a sala do jogador repassado, ou nulo se a sala é deste nó.*/
+    private volatile NodeLink link;
+
+    /** Nota de habilidade informada pelo jogador.*/
+    private volatile int rating = GameLobby.DEFAULT_RATING;
+
+    /** Sala pedida pelo cliente que quer assistir em vez de jogar, ou nulo se ele vai jogar.*/
+    private String watchRequest;
+
+    /** Linha de retomada enviada pelo jogador que caiu e voltou, ou nulo se ele está começando uma partida.*/
+    private String resumeRequest;
+
+    /** Instante, em nanossegundos, da última leitura com dados do jogador.*/
+    private volatile long lastReceivedNanos = System.nanoTime();
+
+    /** Indica se a conexão já foi encerrada.*/
+    private boolean closed;
+
+    /** Indica se o jogador negociou o protocolo binário (protegido pelo bloqueio da conexão).*/
+    private boolean binary;
+
+    /**
+     * Cria a conexão de um jogador a partir de um canal já registrado em um seletor.
+     * @param channel Canal de comunicação com o jogador.
+     * @param key Chave de registro do canal no seletor.
+     */
+    public NioPlayerConnection(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    /**
+     * Lê os dados disponíveis no canal e entrega cada mensagem completa à sala do jogador.
+     * No protocolo de texto os bytes são decodificados como ISO-8859-1, como são escritos pelos clientes.
+     * @param buffer Buffer de leitura compartilhado pelo seletor.
+     * @return Falso se o jogador encerrou a conexão ou violou o protocolo, verdadeiro caso contrário.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a leitura.
+     */
+    public boolean read(ByteBuffer buffer) throws IOException {
+        // Lê o que estiver disponível no canal, sem bloquear.
+        buffer.clear();
+        int bytesRead = channel.read(buffer);
+        if (bytesRead < 0) {
+            return false;
+        }
+        if (bytesRead > 0) {
+            lastReceivedNanos = System.nanoTime();
+            ServerMetrics.recordBytesReceived(bytesRead);
+        }
+        buffer.flip();
+
+        // O jogador repassado a outro nó tem os seus bytes repassados como chegaram, sem interpretá-los.
+        NodeLink currentLink = link;
+        if (currentLink != null) {
+            return currentLink.forward(buffer);
+        }
+
+        // Percorre os bytes recebidos montando as linhas do protocolo, até que o protocolo binário seja negociado.
+        // A negociação só é feita por esta thread, então a leitura do indicador não precisa de bloqueio.
+        while (buffer.hasRemaining()) {
+            if (binary) {
+                return readFrames(buffer);
+            }
+            byte value = buffer.get();
+            if (value == '\n') {
+                // Remove o retorno de carro de clientes que enviam "\r\n".
+                int length = lineLength;
+                if (length > 0 && lineBytes[length - 1] == '\r') {
+                    length--;
+                }
+                lineLength = 0;
+                if (!dispatchLine(length)) {
+                    return false;
+                }
+                // Depois do pedido para assistir ou da retomada, o cliente aguarda a resposta do servidor.
+                if (room == null && (watchRequest != null || resumeRequest != null)) {
+                    return true;
+                }
+            } else if (lineLength < MAX_LINE_LENGTH) {
+                if (lineLength == lineBytes.length) {
+                    lineBytes = Arrays.copyOf(lineBytes, Math.min(lineBytes.length * 2, MAX_LINE_LENGTH));
+                }
+                lineBytes[lineLength++] = value;
+            } else {
+                // Linhas grandes demais indicam um cliente que não fala o protocolo do jogo.
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Trata uma linha completa do protocolo de texto, classificada direto nos bytes, sem criar objetos para as
+     * jogadas e as mensagens de controle.
+     * Mensagens recebidas antes da formação da sala são descartadas, exceto a nota, o pedido para assistir,
+     * a retomada e o término. Depois do pedido para assistir ou da retomada, o restante da leitura é
+     * descartado, pois o cliente aguarda a resposta do servidor antes de enviar outras mensagens.
+     * @param length Número de bytes da linha em lineBytes, sem a quebra de linha.
+     * @return Falso se o jogador encerrou a conexão antes da formação da sala, verdadeiro caso contrário.
+     */
+    private boolean dispatchLine(int length) {
+        int type = TextProtocol.decodeType(lineBytes, length);
+        GameRoom currentRoom = room;
+        if (type == ProtocolReader.NEGOTIATION) {
+            negotiateBinary();
+        } else if (currentRoom != null) {
+            ServerMetrics.recordReceived(type);
+            switch (type) {
+                case BinaryProtocol.MOVE -> currentRoom.handleMove(this, TextProtocol.decodeMove(lineBytes, length));
+                case BinaryProtocol.CHAT -> currentRoom.handleChat(this,
+                        TextProtocol.decodeText(lineBytes, TextProtocol.CHAT_PREFIX_LENGTH, length));
+                case BinaryProtocol.END -> currentRoom.close(this);
+                // Resultados enviados pelos jogadores são descartados, pois a sala decide a vitória e o empate, assim
+                // como as notas e retomadas que chegaram depois da formação da sala e as respostas aos batimentos.
+                default -> { }
+            }
+        } else if (type == ProtocolReader.RATING) {
+            rating = GameLobby.parseRating(TextProtocol.decodeText(lineBytes, 0, length), rating);
+        } else if (type == ProtocolReader.WATCH) {
+            watchRequest = TextProtocol.decodeText(lineBytes, GameLobby.WATCH_COMMAND.length(), length);
+        } else if (type == ProtocolReader.RESUME) {
+            resumeRequest = TextProtocol.decodeText(lineBytes, 0, length);
+        } else if (type == BinaryProtocol.END) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Lê os quadros binários completos do buffer e guarda os bytes de um quadro incompleto para a próxima leitura.
+     * @param buffer Buffer com os bytes recebidos.
+     * @return Falso se o jogador violou o protocolo, verdadeiro caso contrário.
+     */
+    private boolean readFrames(ByteBuffer buffer) {
+        // Junta o quadro incompleto da leitura anterior com os bytes recebidos agora, no mesmo buffer reaproveitado.
+        ByteBuffer source = buffer;
+        if (partialFrame != null && partialFrame.position() > 0) {
+            ensurePartialCapacity(partialFrame.position() + buffer.remaining());
+            partialFrame.put(buffer).flip();
+            source = partialFrame;
+        }
+
+        while (source.hasRemaining()) {
+            // Verifica se o próximo quadro já chegou inteiro.
+            int length;
+            try {
+                length = BinaryProtocol.frameLength(source);
+            } catch (IllegalArgumentException ex) {
+                return false;
+            }
+            if (length < 0 || source.remaining() < length) {
+                // Guarda o início do quadro para a próxima leitura.
+                if (source == partialFrame) {
+                    partialFrame.compact();
+                } else {
+                    ensurePartialCapacity(source.remaining());
+                    partialFrame.clear();
+                    partialFrame.put(source);
+                }
+                return true;
+            }
+            if (!dispatchFrame(source, length)) {
+                return false;
+            }
+        }
+        if (source == partialFrame) {
+            partialFrame.clear();
+        }
+        return true;
+    }
+
+    /**
+     * Garante que o buffer do quadro incompleto comporte um número de bytes, criando-o ou aumentando-o quando
+     * necessário e mantendo os bytes já guardados. O buffer cresce no máximo até o tamanho do maior chat.
+     * @param capacity O número de bytes que o buffer precisa comportar.
+     */
+    private void ensurePartialCapacity(int capacity) {
+        if (partialFrame == null) {
+            partialFrame = ByteBuffer.allocate(Math.max(capacity, 64));
+        } else if (partialFrame.capacity() < capacity) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(partialFrame.capacity() * 2, capacity));
+            partialFrame.flip();
+            partialFrame = larger.put(partialFrame);
+        }
+    }
+
+    /**
+     * Entrega um quadro binário completo à sala do jogador, consumindo-o do buffer.
+     * Como no protocolo de texto, quadros recebidos sem sala (antes da formação do par ou, nos torneios, entre as
+     * partidas) são descartados, exceto o término, que encerra a conexão.
+     * @param source Buffer posicionado no início do quadro.
+     * @param length Tamanho do quadro em bytes.
+     * @return Falso se o jogador encerrou a conexão sem estar em uma sala, verdadeiro caso contrário.
+     */
+    private boolean dispatchFrame(ByteBuffer source, int length) {
+        GameRoom currentRoom = room;
+        byte opcode = source.get(source.position());
+        if (currentRoom == null) {
+            source.position(source.position() + length);
+            return opcode != BinaryProtocol.END;
+        }
+        ServerMetrics.recordReceived(opcode);
+        switch (opcode) {
+            case BinaryProtocol.MOVE, BinaryProtocol.MOVE_WIDE -> currentRoom.handleMove(this, BinaryProtocol.decodeMove(source));
+            case BinaryProtocol.CHAT -> currentRoom.handleChat(this, BinaryProtocol.decodeChat(source));
+            case BinaryProtocol.END -> {
+                source.position(source.position() + length);
+                currentRoom.close(this);
+            }
+            // Resultados enviados pelos jogadores são descartados, pois a sala decide a vitória e o empate, e as
+            // respostas aos batimentos já contaram como sinal de vida na leitura.
+            default -> source.position(source.position() + length);
+        }
+        return true;
+    }
+
+    /**
+     * Confirma a negociação do protocolo binário: a linha de confirmação é a última mensagem em texto,
+     * e todas as mensagens seguintes, nos dois sentidos, usam o protocolo binário.
+     * A confirmação é escrita junto com as demais respostas ao final da leitura.
+     */
+    private synchronized void negotiateBinary() {
+        if (closed) {
+            return;
+        }
+        outbound.add(ByteBuffer.wrap(textBytes(BinaryProtocol.NEGOTIATION_LINE)));
+        unsentMessages++;
+        binary = true;
+    }
+
+    /**
+     * Enfileira uma linha de texto para o jogador, independentemente do protocolo negociado.
+     * @param message A mensagem a ser enviada, sem a quebra de linha.
+     */
+    @Override
+    public void send(String message) {
+        enqueue(null, message);
+    }
+
+    @Override
+    public void sendMove(int position) {
+        enqueue(BinaryProtocol.encodeMove(position), TextProtocol.encodeMove(position));
+    }
+
+    @Override
+    public void sendWinner(char playerId) {
+        enqueue(BinaryProtocol.encodeWinner(playerId), "WON " + playerId);
+    }
+
+    @Override
+    public void sendDraw() {
+        enqueue(BinaryProtocol.encodeDraw(), TextProtocol.encodeDraw());
+    }
+
+    @Override
+    public void sendChat(String message) {
+        enqueue(BinaryProtocol.encodeChat(message), "CHAT" + message);
+    }
+
+    @Override
+    public void sendEnd() {
+        enqueue(BinaryProtocol.encodeEnd(), TextProtocol.encodeEnd());
+    }
+
+    @Override
+    public void sendPing() {
+        enqueue(BinaryProtocol.encodePing(), TextProtocol.encodePing());
+    }
+
+    /**
+     * Enfileira uma mensagem, que será escrita no canal na próxima chamada de flush().
+     * A escolha entre o quadro binário e a linha de texto é feita sob o bloqueio da conexão, para que nenhuma
+     * mensagem em texto seja enfileirada depois da confirmação da negociação do protocolo binário.
+     * Pode ser chamado por qualquer thread, inclusive pelo seletor que atende o oponente.
+     * @param frame O quadro binário da mensagem, que não é alterado, ou nulo para enviar sempre em texto.
+     * @param textMessage A mensagem no protocolo de texto, sem a quebra de linha.
+     */
+    private synchronized void enqueue(byte[] frame, String textMessage) {
+        // Ignora mensagens para conexões já encerradas.
+        if (closed) {
+            return;
+        }
+        outbound.add(ByteBuffer.wrap(binary && frame != null ? frame : textBytes(textMessage)));
+        unsentMessages++;
+    }
+
+    /**
+     * Enfileira uma mensagem cuja linha de texto já está codificada, como as jogadas e o empate, que são
+     * compartilhadas por todas as conexões e não precisam ser codificadas a cada envio.
+     * @param frame O quadro binário da mensagem, que não é alterado.
+     * @param textLine A linha da mensagem no protocolo de texto, com a quebra de linha, que não é alterada.
+     */
+    private synchronized void enqueue(byte[] frame, byte[] textLine) {
+        if (closed) {
+            return;
+        }
+        outbound.add(ByteBuffer.wrap(binary ? frame : textLine));
+        unsentMessages++;
+    }
+
+    @Override
+    public synchronized boolean startRelay(NodeLink link) {
+        if (closed) {
+            return false;
+        }
+        this.link = link;
+        return true;
+    }
+
+    @Override
+    public void sendRelayed(byte[] bytes, int length) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            outbound.add(ByteBuffer.wrap(Arrays.copyOf(bytes, length)));
+            unsentMessages++;
+        }
+        flush();
+    }
+
+    /**
+     * Codifica uma mensagem do protocolo de texto, acrescentando a quebra de linha.
+     * @param message A mensagem sem a quebra de linha.
+     * @return Os bytes da mensagem em ISO-8859-1.
+     */
+    private static byte[] textBytes(String message) {
+        return (message + "\n").getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Escreve no canal as mensagens pendentes, ao final do tratamento de uma leitura ou quando o seletor
+     * avisa que o canal aceita mais dados. Pode ser chamado por qualquer thread.
+     */
+    @Override
+    public void flush() {
+        boolean written;
+        synchronized (this) {
+            written = closed || writeOutbound();
+        }
+        // A sala é encerrada fora do bloqueio para não disputar o bloqueio da conexão do oponente.
+        if (!written) {
+            abort();
+        }
+    }
+
+    /**
+     * Escreve no canal as mensagens pendentes na fila de saída com uma escrita agrupada (gathering write),
+     * isto é, uma única chamada de sistema para todas as mensagens enfileiradas.
+     * Se o canal não aceitar todos os dados, registra o interesse em escrita para que o seletor continue depois.
+     * @return Falso se a escrita falhou, verdadeiro caso contrário.
+     */
+    private boolean writeOutbound() {
+        if (outbound.isEmpty()) {
+            return true;
+        }
+        try {
+            // Entrega todas as mensagens, na ordem em que foram enfileiradas, a uma única escrita.
+            if (gatherBuffers.length < outbound.size()) {
+                gatherBuffers = new ByteBuffer[Math.max(gatherBuffers.length * 2, outbound.size())];
+            }
+            int count = 0;
+            for (ByteBuffer message : outbound) {
+                gatherBuffers[count++] = message;
+            }
+            ServerMetrics.recordBytesSent(channel.write(gatherBuffers, 0, count));
+            OutboundStats.recordWrite(unsentMessages);
+            unsentMessages = 0;
+
+            // Remove da fila as mensagens escritas por completo e solta as referências do vetor.
+            while (!outbound.isEmpty() && !outbound.peek().hasRemaining()) {
+                outbound.poll();
+            }
+            Arrays.fill(gatherBuffers, 0, count, null);
+
+            if (!outbound.isEmpty()) {
+                // O buffer do sistema está cheio: o seletor avisará quando for possível continuar.
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                key.selector().wakeup();
+                return true;
+            }
+            // Tudo foi escrito, então volta a aguardar apenas leituras.
+            key.interestOps(SelectionKey.OP_READ);
+            return true;
+        } catch (IOException | CancelledKeyException ex) {
+            // Exibe mensagem de erro no console se a escrita falhar.
+            System.out.println(ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Trata uma falha de escrita como queda da conexão, reservando o lugar do jogador para a reconexão.
+     */
+    private void abort() {
+        GameRoom currentRoom = room;
+        if (currentRoom != null) {
+            currentRoom.disconnect(this);
+        } else {
+            close();
+        }
+    }
+
+    /**
+     * Encerra a conexão, cancelando o registro no seletor e fechando o canal, e a ligação com o outro nó, se houver.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            // Verifica se a conexão ainda não foi encerrada.
+            if (closed) {
+                return;
+            }
+            closed = true;
+            outbound.clear();
+            key.cancel();
+            try {
+                // Fecha o canal.
+                channel.close();
+            } catch (IOException ex) {
+                // Exibe mensagem de erro no console se houver uma exceção ao fechar o canal.
+                System.out.println(ex.getMessage());
+            }
+        }
+        // A ligação é encerrada fora do bloqueio, pois a sua thread de leitura pode estar escrevendo para o jogador.
+        NodeLink currentLink = link;
+        if (currentLink != null) {
+            currentLink.close();
+        }
+    }
+
+    /**
+     * Retorna a sala pedida pelo cliente que quer assistir em vez de jogar.
+     * @return O número da sala, vazio para qualquer sala, ou nulo se o cliente vai jogar.
+     */
+    public String getWatchRequest() {
+        return watchRequest;
+    }
+
+    /**
+     * Retorna a linha de retomada enviada pelo jogador ao conectar.
+     * @return A linha ("RESUME ficha última"), ou nulo se o jogador está começando uma partida.
+     */
+    public String getResumeRequest() {
+        return resumeRequest;
+    }
+
+    /**
+     * Descarta a linha de retomada depois que ela foi repassada a outro nó, para que não seja tratada de novo.
+     */
+    public void clearResumeRequest() {
+        resumeRequest = null;
+    }
+
+    @Override
+    public long getLastReceivedNanos() {
+        return lastReceivedNanos;
+    }
+
+    @Override
+    public int getRating() {
+        return rating;
+    }
+
+    @Override
+    public GameRoom getRoom() {
+        return room;
+    }
+
+    @Override
+    public void setRoom(GameRoom room) {
+        this.room = room;
+    }
+}
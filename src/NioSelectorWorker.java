@@ -0,0 +1,222 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Define a classe NioSelectorWorker, que atende um conjunto de conexões de jogadores com um único seletor.
+ * Cada worker roda em sua própria thread e processa leituras e escritas de milhares de canais sem bloquear.
+ * Uma conexão que pede para assistir a uma sala deixa o saguão e passa a ser atendida como espectadora,
+ * e uma que retoma uma partida deixa o saguão e ocupa o lugar do jogador que caiu, ou é repassada ao nó do
+ * agrupamento em que fica a sala do jogador.
+ */
+public class NioSelectorWorker implements Runnable {
+
+    /** Tamanho do buffer de leitura compartilhado pelas conexões do worker.*/
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    /** Seletor que monitora os canais atendidos pelo worker.*/
+    private final Selector selector;
+
+    /** Canais aceitos pelo servidor que ainda precisam ser registrados no seletor.*/
+    private final ConcurrentLinkedQueue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+
+    /** Buffer de leitura reutilizado por todas as conexões do worker.*/
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    /** Saguão do servidor, onde os jogadores aguardam um oponente.*/
+    private final GameLobby lobby;
+
+    /**
+     * Cria um worker com um novo seletor.
+     * @param lobby Saguão do servidor, onde os jogadores aguardam um oponente.
+     * @throws IOException Exceção de E/S que pode ocorrer ao abrir o seletor.
+     */
+    public NioSelectorWorker(GameLobby lobby) throws IOException {
+        this.lobby = lobby;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Entrega um canal recém aceito ao worker. O registro acontece na thread do seletor.
+     * @param channel O canal do jogador, já configurado como não bloqueante.
+     */
+    public void register(SocketChannel channel) {
+        pendingChannels.add(channel);
+        selector.wakeup();
+    }
+
+    /**
+     * Laço principal do worker, que aguarda eventos do seletor e os despacha para as conexões.
+     */
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // Aguarda eventos de leitura ou escrita e registra os canais que chegaram.
+                selector.select();
+                registerPendingChannels();
+
+                // Processa cada canal pronto.
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handleKey(key);
+                }
+            } catch (IOException ex) {
+                // Exibe mensagem de erro no console se houver uma exceção no seletor.
+                System.out.println(ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Registra no seletor os canais entregues pelo servidor e adiciona cada jogador ao saguão.
+     */
+    private void registerPendingChannels() {
+        SocketChannel channel;
+        while ((channel = pendingChannels.poll()) != null) {
+            try {
+                // Registra o canal para leitura e associa a conexão do jogador à chave.
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                var connection = new NioPlayerConnection(channel, key);
+                key.attach(connection);
+
+                // Coloca o jogador no saguão; a partida começa quando o saguão formar o par.
+                lobby.join(connection);
+            } catch (IOException ex) {
+                // Exibe mensagem de erro no console se não for possível registrar o canal.
+                System.out.println(ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Trata um evento do seletor para a conexão associada à chave.
+     * @param key A chave que ficou pronta.
+     */
+    private void handleKey(SelectionKey key) {
+        if (key.attachment() instanceof NioSpectatorConnection spectator) {
+            handleSpectatorKey(key, spectator);
+            return;
+        }
+        var connection = (NioPlayerConnection) key.attachment();
+        try {
+            // Escreve o que ficou pendente na fila de saída.
+            if (key.isValid() && key.isWritable()) {
+                connection.flush();
+            }
+            // Lê as mensagens recebidas e trata a desconexão do jogador.
+            if (key.isValid() && key.isReadable()) {
+                if (!connection.read(readBuffer)) {
+                    disconnect(connection);
+                    return;
+                }
+                if (connection.getWatchRequest() != null && connection.getRoom() == null) {
+                    becomeSpectator(key, connection);
+                    return;
+                }
+                if (connection.getResumeRequest() != null && connection.getRoom() == null) {
+                    resumeSession(connection);
+                    return;
+                }
+                // Escreve de uma só vez as respostas a todas as mensagens desta leitura.
+                GameRoom room = connection.getRoom();
+                if (room != null) {
+                    room.flush();
+                } else {
+                    connection.flush();
+                }
+            }
+        } catch (IOException | CancelledKeyException ex) {
+            // Uma falha de leitura é tratada como saída do jogador.
+            disconnect(connection);
+        } catch (RuntimeException ex) {
+            // Uma falha no tratamento das mensagens de um jogador encerra apenas a conexão dele, sem derrubar o seletor
+            // que atende as demais.
+            System.out.println(ex.getMessage());
+            disconnect(connection);
+        }
+    }
+
+    /**
+     * Trata um evento do seletor para um espectador: escreve a fila pendente e descarta o que ele enviar.
+     * @param key A chave que ficou pronta.
+     * @param spectator O espectador associado à chave.
+     */
+    private void handleSpectatorKey(SelectionKey key, NioSpectatorConnection spectator) {
+        try {
+            if (key.isValid() && key.isWritable()) {
+                spectator.flush();
+            }
+            if (key.isValid() && key.isReadable() && !spectator.read(readBuffer)) {
+                spectator.leave();
+            }
+        } catch (IOException | CancelledKeyException ex) {
+            // Uma falha de leitura é tratada como saída do espectador.
+            spectator.leave();
+        } catch (RuntimeException ex) {
+            System.out.println(ex.getMessage());
+            spectator.leave();
+        }
+    }
+
+    /**
+     * Retira do saguão uma conexão que pediu para assistir a uma sala e a associa à sala pedida como espectadora.
+     * Se a sala não existir ou já tiver terminado, o cliente recebe "END" e é desconectado.
+     * @param key A chave de registro do canal.
+     * @param connection A conexão que pediu para assistir.
+     */
+    private void becomeSpectator(SelectionKey key, NioPlayerConnection connection) {
+        lobby.leave(connection);
+        var spectator = new NioSpectatorConnection((SocketChannel) key.channel(), key);
+        key.attach(spectator);
+        GameRoom room = GameRoom.findRoom(connection.getWatchRequest());
+        if (room == null || !room.addSpectator(spectator)) {
+            spectator.finish(ByteBuffer.wrap("END\n".getBytes(StandardCharsets.ISO_8859_1)));
+        }
+    }
+
+    /**
+     * Retira do saguão uma conexão que retoma uma partida e a coloca no lugar do jogador que caiu, ou a repassa ao
+     * nó em que fica a sala de um jogador que este nó repassou antes.
+     * Se a sessão não existir mais, o cliente recebe "END" e é desconectado.
+     * @param connection A conexão que pediu a retomada.
+     */
+    private void resumeSession(NioPlayerConnection connection) {
+        lobby.leave(connection);
+        String request = connection.getResumeRequest();
+        if (GameRoom.resume(request, connection)) {
+            return;
+        }
+        if (lobby.forwardResume(request, connection)) {
+            // A ligação é aberta em outra thread; a retomada já foi tratada e não deve ser repassada de novo.
+            connection.clearResumeRequest();
+            return;
+        }
+        connection.sendEnd();
+        connection.flush();
+        connection.close();
+    }
+
+    /**
+     * Trata a queda de um jogador, removendo-o do saguão ou reservando o seu lugar na sala para a reconexão.
+     * A saída com o término é tratada pela sala ao receber a mensagem.
+     * @param connection A conexão do jogador que caiu.
+     */
+    private void disconnect(NioPlayerConnection connection) {
+        lobby.leave(connection);
+        GameRoom room = connection.getRoom();
+        if (room != null) {
+            room.disconnect(connection);
+        } else {
+            connection.close();
+        }
+    }
+}
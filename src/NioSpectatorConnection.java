@@ -0,0 +1,109 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * Define a classe NioSpectatorConnection, que representa a conexão não bloqueante de um espectador no servidor NIO.
+ * Quem publica uma mensagem apenas a enfileira e acorda o seletor do espectador; a escrita no canal é feita pela
+ * thread desse seletor, com uma escrita agrupada de toda a fila, de forma que os jogadores nunca esperam por ela.
+ */
+public class NioSpectatorConnection extends SpectatorConnection {
+
+    /** Canal de comunicação com o espectador.*/
+    private final SocketChannel channel;
+
+    /** Chave de registro do canal no seletor que atende o espectador.*/
+    private final SelectionKey key;
+
+    /** Vetor reaproveitado para entregar a fila à escrita agrupada do canal.*/
+    private ByteBuffer[] gatherBuffers = new ByteBuffer[8];
+
+    /**
+     * Cria a conexão de um espectador a partir de um canal já registrado em um seletor.
+     * @param channel Canal de comunicação com o espectador.
+     * @param key Chave de registro do canal no seletor.
+     */
+    public NioSpectatorConnection(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    /**
+     * Registra o interesse em escrita e acorda o seletor, que chamará flush() na sua própria thread.
+     */
+    @Override
+    protected void requestWrite() {
+        try {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            key.selector().wakeup();
+        } catch (CancelledKeyException ex) {
+            // O espectador já foi desconectado.
+        }
+    }
+
+    /**
+     * Escreve a fila no canal, sem bloquear, quando o seletor avisa que o canal aceita dados.
+     * Quando a fila esvazia, volta a aguardar apenas leituras, ou fecha a conexão se a sala terminou.
+     */
+    public void flush() {
+        boolean close = false;
+        lock.lock();
+        try {
+            if (closed || outbound.isEmpty()) {
+                return;
+            }
+            if (gatherBuffers.length < outbound.size()) {
+                gatherBuffers = new ByteBuffer[Math.max(gatherBuffers.length * 2, outbound.size())];
+            }
+            int count = 0;
+            for (ByteBuffer message : outbound) {
+                gatherBuffers[count++] = message;
+            }
+            ServerMetrics.recordBytesSent(channel.write(gatherBuffers, 0, count));
+
+            // Remove da fila as mensagens escritas por completo e solta as referências do vetor.
+            while (!outbound.isEmpty() && !outbound.peek().hasRemaining()) {
+                outbound.poll();
+                recordProgress();
+            }
+            Arrays.fill(gatherBuffers, 0, count, null);
+
+            if (outbound.isEmpty()) {
+                key.interestOps(SelectionKey.OP_READ);
+                close = finishing;
+            }
+        } catch (IOException | CancelledKeyException ex) {
+            close = true;
+        } finally {
+            lock.unlock();
+        }
+        if (close) {
+            leave();
+        }
+    }
+
+    /**
+     * Descarta os dados enviados pelo espectador, que não participa da partida.
+     * @param buffer Buffer de leitura compartilhado pelo seletor.
+     * @return Falso se o espectador encerrou a conexão, verdadeiro caso contrário.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a leitura.
+     */
+    public boolean read(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        return channel.read(buffer) >= 0;
+    }
+
+    @Override
+    protected void closeSocket() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            // Exibe mensagem de erro no console se houver uma exceção ao fechar o canal.
+            System.out.println(ex.getMessage());
+        }
+    }
+}
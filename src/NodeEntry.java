@@ -0,0 +1,126 @@
+/**
+ * Define a classe NodeEntry, a entrada de um nó do servidor no diretório de salas compartilhado entre os nós.
+ * A entrada informa onde o nó aceita jogadores, quantos jogadores aguardam um oponente e quantas salas estão abertas
+ * nele, e quando foi publicada; entradas que não são renovadas a tempo são de nós que pararam e são ignoradas.
+ * No diretório cada entrada é gravada como uma única linha ("id endereço porta na_fila salas instante").
+ */
+public final class NodeEntry {
+
+    /** Identificação do nó, única no agrupamento, que também decide para qual nó os jogadores são repassados.*/
+    private final String nodeId;
+
+    /** Endereço em que o nó aceita jogadores.*/
+    private final String host;
+
+    /** Porta em que o nó aceita jogadores.*/
+    private final int port;
+
+    /** Número de jogadores aguardando um oponente no nó.*/
+    private final int waitingPlayers;
+
+    /** Número de salas abertas no nó.*/
+    private final int activeRooms;
+
+    /** Instante, em milissegundos desde a época, em que a entrada foi publicada.*/
+    private final long updatedAtMillis;
+
+    /**
+     * Cria a entrada de um nó.
+     * @param nodeId Identificação do nó, sem espaços.
+     * @param host Endereço em que o nó aceita jogadores.
+     * @param port Porta em que o nó aceita jogadores.
+     * @param waitingPlayers Número de jogadores aguardando um oponente no nó.
+     * @param activeRooms Número de salas abertas no nó.
+     * @param updatedAtMillis Instante, em milissegundos desde a época, em que a entrada foi publicada.
+     */
+    public NodeEntry(String nodeId, String host, int port, int waitingPlayers, int activeRooms, long updatedAtMillis) {
+        this.nodeId = nodeId;
+        this.host = host;
+        this.port = port;
+        this.waitingPlayers = waitingPlayers;
+        this.activeRooms = activeRooms;
+        this.updatedAtMillis = updatedAtMillis;
+    }
+
+    /**
+     * Interpreta a linha de uma entrada gravada no diretório.
+     * @param line A linha, sem a quebra de linha.
+     * @return A entrada.
+     * @throws IllegalArgumentException Se a linha não for uma entrada válida.
+     */
+    public static NodeEntry parse(String line) {
+        String[] fields = line.trim().split(" ");
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("Entrada de nó inválida: " + line);
+        }
+        try {
+            return new NodeEntry(fields[0], fields[1], Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                    Integer.parseInt(fields[4]), Long.parseLong(fields[5]));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Entrada de nó inválida: " + line, ex);
+        }
+    }
+
+    /**
+     * Codifica a entrada como a linha gravada no diretório.
+     * @return A linha, sem a quebra de linha.
+     */
+    public String toLine() {
+        return nodeId + " " + host + " " + port + " " + waitingPlayers + " " + activeRooms + " " + updatedAtMillis;
+    }
+
+    /**
+     * Verifica se a entrada ainda vale, isto é, se o nó a renovou há pouco tempo.
+     * @param nowMillis Instante atual, em milissegundos desde a época.
+     * @param maxAgeMillis Idade máxima, em milissegundos, de uma entrada válida.
+     * @return Verdadeiro se a entrada foi publicada dentro da idade máxima.
+     */
+    public boolean isFresh(long nowMillis, long maxAgeMillis) {
+        return nowMillis - updatedAtMillis <= maxAgeMillis;
+    }
+
+    /**
+     * Retorna a identificação do nó.
+     * @return A identificação do nó.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Retorna o endereço em que o nó aceita jogadores.
+     * @return O endereço do nó.
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Retorna a porta em que o nó aceita jogadores.
+     * @return A porta do nó.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Retorna o número de jogadores aguardando um oponente no nó.
+     * @return O tamanho da fila do nó.
+     */
+    public int getWaitingPlayers() {
+        return waitingPlayers;
+    }
+
+    /**
+     * Retorna o número de salas abertas no nó.
+     * @return O número de salas.
+     */
+    public int getActiveRooms() {
+        return activeRooms;
+    }
+
+    @Override
+    public String toString() {
+        return nodeId + " (" + host + ":" + port + ")";
+    }
+}
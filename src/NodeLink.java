@@ -0,0 +1,222 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Define a classe NodeLink, a ligação entre nós do agrupamento por onde passa um jogador repassado a outro nó.
+ * O nó que aceitou o jogador abre uma conexão com o nó da sala e passa a repassar os bytes nos dois sentidos, sem
+ * interpretá-los: para o outro nó a ligação é um cliente comum, que informa a nota do jogador, e é lá que ficam a
+ * sala, a sessão e os batimentos. Assim o protocolo negociado, a retomada e o chat funcionam como em um único nó.
+ * Do primeiro texto recebido do outro nó é lida a ficha de sessão da linha de início, para que a reconexão do
+ * jogador, que chega ao nó que o aceitou, seja repassada ao nó da sua sala.
+ * Cada ligação tem uma thread virtual que lê o outro nó e outra que escreve nele. A thread que lê o jogador, que no
+ * servidor NIO é a do seletor, só coloca os bytes em uma fila limitada; se o outro nó não os lê e a fila enche, o
+ * jogador é desconectado, em vez de a thread do seletor esperar pela escrita.
+ */
+public class NodeLink {
+
+    /** Tempo máximo, em milissegundos, para abrir a conexão com o outro nó.*/
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+
+    /** Tamanho do buffer de leitura dos bytes recebidos do outro nó.*/
+    private static final int BUFFER_SIZE = 4096;
+
+    /** Número máximo de leituras do jogador aguardando a escrita no outro nó.*/
+    private static final int QUEUE_CAPACITY = 64;
+
+    /** Nó do agrupamento que abriu a ligação.*/
+    private final ClusterNode cluster;
+
+    /** Nó em que fica a sala do jogador.*/
+    private final NodeEntry node;
+
+    /** Conexão do jogador repassado.*/
+    private final PlayerConnection player;
+
+    /** Canal bloqueante com o outro nó.*/
+    private final SocketChannel channel;
+
+    /** Indica se a ligação já foi encerrada.*/
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /** Bytes do jogador aguardando a escrita no outro nó.*/
+    private final ArrayBlockingQueue<ByteBuffer> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    /** Thread que escreve no outro nó, ou nulo enquanto a ligação não começou a repassar.*/
+    private volatile Thread writer;
+
+    /** Ficha de sessão do jogador no outro nó, ou nulo enquanto a linha de início não chegou.*/
+    private volatile String sessionToken;
+
+    /**
+     * Abre a ligação com o nó da sala e envia a primeira linha do jogador.
+     * @param cluster Nó do agrupamento que abre a ligação.
+     * @param node Nó em que fica a sala do jogador.
+     * @param player Conexão do jogador repassado.
+     * @param firstLine Primeira linha enviada ao outro nó, sem a quebra de linha: a nota do jogador ou a retomada.
+     * @param sessionToken Ficha de sessão já conhecida, na retomada, ou nulo para lê-la da linha de início.
+     * @throws IOException Exceção de E/S que pode ocorrer ao conectar ou ao enviar a primeira linha.
+     */
+    public NodeLink(ClusterNode cluster, NodeEntry node, PlayerConnection player, String firstLine, String sessionToken)
+            throws IOException {
+        this.cluster = cluster;
+        this.node = node;
+        this.player = player;
+        this.sessionToken = sessionToken;
+        this.channel = SocketChannel.open();
+        try {
+            channel.socket().connect(new InetSocketAddress(node.getHost(), node.getPort()), CONNECT_TIMEOUT_MILLIS);
+            // As mensagens do jogador já chegam agrupadas, então não há motivo para segurá-las.
+            channel.socket().setTcpNoDelay(true);
+            write(ByteBuffer.wrap((firstLine + "\n").getBytes(StandardCharsets.ISO_8859_1)));
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Repassa ao jogador, até que um dos lados encerre a conexão, tudo o que o outro nó enviar, e inicia a thread
+     * que escreve no outro nó os bytes do jogador.
+     * Deve ser chamado depois que a conexão do jogador passou a repassar os seus bytes para a ligação.
+     */
+    public void run() {
+        writer = Thread.ofVirtual().name("node-link-writer").start(this::writeQueued);
+        if (closed.get()) {
+            // A ligação foi encerrada antes de a thread existir, então ninguém a interrompeu.
+            writer.interrupt();
+        }
+        var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        var firstLine = new StringBuilder();
+        try {
+            int bytesRead;
+            while ((bytesRead = channel.read(buffer.clear())) >= 0) {
+                if (sessionToken == null) {
+                    readSessionToken(buffer.array(), bytesRead, firstLine);
+                }
+                player.sendRelayed(buffer.array(), bytesRead);
+            }
+        } catch (IOException ex) {
+            // A ligação foi fechada por este nó, ao encerrar a conexão do jogador, ou o outro nó caiu.
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Monta a primeira linha recebida do outro nó e, quando ela termina, guarda a ficha de sessão da linha de início.
+     * @param bytes Bytes recebidos.
+     * @param length Número de bytes recebidos.
+     * @param firstLine Parte da primeira linha já recebida.
+     */
+    private void readSessionToken(byte[] bytes, int length, StringBuilder firstLine) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != '\n') {
+                firstLine.append((char) (bytes[i] & 0xFF));
+                continue;
+            }
+            String line = firstLine.toString();
+            if (line.startsWith("START")) {
+                try {
+                    String token = new StartMessage(line).getSessionToken();
+                    if (token != null) {
+                        sessionToken = token;
+                        cluster.rememberSession(token, this);
+                    }
+                } catch (IllegalArgumentException ex) {
+                    System.out.println(ex.getMessage());
+                }
+            }
+            // Qualquer outra primeira linha, como o término, não tem ficha; a busca termina aqui de todo modo.
+            if (sessionToken == null) {
+                sessionToken = "";
+            }
+            return;
+        }
+    }
+
+    /**
+     * Coloca na fila de escrita para o outro nó os bytes recebidos do jogador, sem esperar pela escrita. Pode ser
+     * chamado pela thread do seletor do servidor NIO.
+     * @param bytes Buffer com os bytes recebidos, entre a posição e o limite, que são copiados e consumidos.
+     * @return Falso se a ligação foi encerrada ou a fila está cheia, caso em que o jogador deve ser desconectado.
+     */
+    public boolean forward(ByteBuffer bytes) {
+        if (closed.get()) {
+            return false;
+        }
+        if (!queue.offer(ByteBuffer.allocate(bytes.remaining()).put(bytes).flip())) {
+            System.out.println("O nó " + node + " não está lendo o jogador repassado; desconectando o jogador.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Laço da thread de escrita: escreve no outro nó, na ordem de chegada, os bytes colocados na fila, até que a
+     * ligação seja encerrada.
+     */
+    private void writeQueued() {
+        try {
+            while (!closed.get()) {
+                write(queue.take());
+            }
+        } catch (InterruptedException | IOException ex) {
+            // A ligação foi encerrada, ou o outro nó caiu.
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Escreve todos os bytes no outro nó, esperando enquanto ele não os lê.
+     * @param bytes Buffer com os bytes, entre a posição e o limite, que são consumidos.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a escrita.
+     */
+    private void write(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * Encerra a ligação e a conexão do jogador. Para o outro nó a queda da ligação é a queda do jogador, que
+     * tem o prazo de reconexão para voltar. Pode ser chamado mais de uma vez, por qualquer um dos lados.
+     */
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+        }
+        Thread currentWriter = writer;
+        if (currentWriter != null && currentWriter != Thread.currentThread()) {
+            currentWriter.interrupt();
+        }
+        player.close();
+        cluster.linkClosed(this);
+    }
+
+    /**
+     * Retorna o nó em que fica a sala do jogador.
+     * @return O nó da sala.
+     */
+    public NodeEntry getNode() {
+        return node;
+    }
+
+    /**
+     * Retorna a ficha de sessão do jogador no outro nó.
+     * @return A ficha, vazia se a primeira linha não tinha ficha, ou nulo se ela ainda não chegou.
+     */
+    public String getSessionToken() {
+        return sessionToken;
+    }
+}
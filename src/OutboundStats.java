@@ -0,0 +1,55 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Define a classe OutboundStats, que conta as mensagens enviadas e as escritas feitas nos sockets.
+ * As mensagens de uma mesma jogada (a jogada e o resultado) ou de uma rajada de chat são agrupadas em uma única
+ * escrita; a razão entre os dois contadores mostra quantas chamadas de sistema o agrupamento economiza.
+ */
+public final class OutboundStats {
+
+    /** Número de mensagens enviadas pelas conexões deste processo.*/
+    private static final LongAdder messages = new LongAdder();
+
+    /** Número de escritas feitas nos sockets pelas conexões deste processo.*/
+    private static final LongAdder writes = new LongAdder();
+
+    /**
+     * Construtor privado, pois a classe só possui membros estáticos.
+     */
+    private OutboundStats() {
+    }
+
+    /**
+     * Registra uma escrita no socket.
+     * @param messageCount Número de mensagens incluídas na escrita (zero na continuação de uma escrita parcial).
+     */
+    public static void recordWrite(int messageCount) {
+        messages.add(messageCount);
+        writes.increment();
+    }
+
+    /**
+     * Retorna o número de mensagens enviadas.
+     * @return O número de mensagens.
+     */
+    public static long getMessages() {
+        return messages.sum();
+    }
+
+    /**
+     * Retorna o número de escritas feitas nos sockets.
+     * @return O número de escritas.
+     */
+    public static long getWrites() {
+        return writes.sum();
+    }
+
+    /**
+     * Retorna o número médio de mensagens por escrita no socket.
+     * @return A média de mensagens por escrita, ou zero se nada foi escrito.
+     */
+    public static double getMessagesPerWrite() {
+        long writeCount = writes.sum();
+        return writeCount == 0 ? 0 : (double) messages.sum() / writeCount;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Define a interface PlayerConnection, que representa a conexão de um jogador com o servidor sem interface gráfica.
+ * Cada implementação sabe apenas enviar mensagens do protocolo ao jogador e encerrar a conexão;
+ * o encaminhamento das mensagens entre os jogadores fica a cargo da sala (GameRoom).
+ * As mensagens tipadas são enviadas no protocolo de texto por padrão; as conexões que negociam
+ * o protocolo binário sobrescrevem esses métodos.
+ * As mensagens ficam na fila de saída da conexão até a chamada de flush(), para que todas as mensagens
+ * de uma jogada sejam escritas no socket de uma só vez.
+ */
+public interface PlayerConnection {
+
+    /**
+     * Enfileira uma linha de texto para o jogador, acrescentando a quebra de linha ao final.
+     * É usada diretamente apenas para a linha de início da partida.
+     * @param message A mensagem a ser enviada, sem a quebra de linha.
+     */
+    void send(String message);
+
+    /**
+     * Envia ao jogador a jogada do oponente.
+     * @param position A posição da jogada.
+     */
+    default void sendMove(int position) {
+        send(String.valueOf(position));
+    }
+
+    /**
+     * Envia ao jogador o vencedor da partida.
+     * @param playerId Símbolo do vencedor (X ou O).
+     */
+    default void sendWinner(char playerId) {
+        send("WON " + playerId);
+    }
+
+    /**
+     * Envia ao jogador o empate da partida.
+     */
+    default void sendDraw() {
+        send("DRAW");
+    }
+
+    /**
+     * Envia ao jogador uma mensagem de chat do oponente.
+     * @param message O texto da mensagem.
+     */
+    default void sendChat(String message) {
+        send("CHAT" + message);
+    }
+
+    /**
+     * Envia ao jogador o aviso de que o oponente saiu da partida.
+     */
+    default void sendEnd() {
+        send("END");
+    }
+
+    /**
+     * Envia ao jogador o batimento com que a sala verifica se ele ainda responde.
+     */
+    default void sendPing() {
+        send("PING");
+    }
+
+    /**
+     * Escreve no socket, de uma só vez, todas as mensagens enfileiradas para o jogador.
+     * Se a escrita falhar, a conexão é encerrada.
+     */
+    void flush();
+
+    /**
+     * Encerra a conexão com o jogador, liberando os recursos associados.
+     */
+    void close();
+
+    /**
+     * Retorna a nota de habilidade informada pelo jogador, usada pelo saguão para formar pares de notas próximas.
+     * @return A nota do jogador, ou a nota padrão se ele não informou nenhuma.
+     */
+    default int getRating() {
+        return GameLobby.DEFAULT_RATING;
+    }
+
+    /**
+     * Retorna o instante em que os últimos dados do jogador foram recebidos, usado para perceber conexões mortas.
+     * @return O instante, em nanossegundos, no relógio de System.nanoTime().
+     */
+    default long getLastReceivedNanos() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Passa a repassar, sem interpretá-los, todos os bytes recebidos do jogador pela ligação com o nó do agrupamento
+     * em que fica a sua sala. Só é chamado para jogadores retirados do saguão, antes de qualquer sala.
+     * @param link A ligação com o outro nó.
+     * @return Falso se a conexão não pode ser repassada, como a do jogador automático ou uma conexão já encerrada.
+     */
+    default boolean startRelay(NodeLink link) {
+        return false;
+    }
+
+    /**
+     * Escreve para o jogador, sem alterações e de imediato, bytes recebidos do nó em que fica a sua sala.
+     * @param bytes Os bytes recebidos, que podem ser reaproveitados depois da chamada.
+     * @param length Número de bytes a escrever.
+     */
+    default void sendRelayed(byte[] bytes, int length) {
+    }
+
+    /**
+     * Retorna a sala em que o jogador está participando.
+     * @return A sala do jogador, ou nulo se ele ainda aguarda um oponente.
+     */
+    GameRoom getRoom();
+
+    /**
+     * Define a sala em que o jogador está participando.
+     * @param room A sala do jogador.
+     */
+    void setRoom(GameRoom room);
+}
@@ -0,0 +1,166 @@
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.HexFormat;
+import java.util.function.Consumer;
+
+/**
+ * Define a classe PlayerSeat, o lugar de um jogador em uma sala, que sobrevive às quedas da conexão.
+ * O lugar guarda a ficha de sessão entregue ao jogador na linha de início, a conexão atual e as últimas mensagens
+ * enviadas a ele, numeradas em sequência a partir de 1 (a linha de início é a mensagem 0). Quando a conexão cai,
+ * as mensagens continuam sendo numeradas e guardadas; o jogador que se reconecta informa a última mensagem que
+ * recebeu e recebe de novo as seguintes. O lugar também conta as jogadas e mensagens de chat recebidas do jogador,
+ * para que ele saiba o que reenviar.
+ * Os métodos são sincronizados no próprio lugar; quem também precisa do bloqueio da sala o adquire antes.
+ */
+public class PlayerSeat {
+
+    /** Número máximo de mensagens guardadas para reenvio; quem perdeu mais que isso não consegue retomar a partida.*/
+    public static final int BACKLOG_SIZE = 64;
+
+    /** Gerador das fichas de sessão, imprevisíveis para que ninguém tome o lugar de outro jogador.*/
+    private static final SecureRandom tokenGenerator = new SecureRandom();
+
+    /** Símbolo do jogador (X ou O).*/
+    private final char symbol;
+
+    /** Ficha de sessão do lugar.*/
+    private final String token;
+
+    /** Últimas mensagens enviadas ao jogador, como ações a aplicar a uma conexão, da mais antiga à mais recente.*/
+    private final ArrayDeque<Consumer<PlayerConnection>> backlog = new ArrayDeque<>();
+
+    /** Conexão atual do jogador.*/
+    private volatile PlayerConnection connection;
+
+    /** Número da última mensagem enviada ao jogador.*/
+    private long sentMessages;
+
+    /** Número de jogadas e mensagens de chat recebidas do jogador.*/
+    private long receivedMessages;
+
+    /** Prazo para o jogador se reconectar, ou nulo se ele está conectado.*/
+    private TimingWheel.Timeout graceTimer;
+
+    /** Limite de taxa das mensagens de chat do jogador, que não recomeça cheio quando ele se reconecta.*/
+    private final TokenBucket chatLimit = GameRoom.newChatLimit();
+
+    /**
+     * Cria o lugar de um jogador com uma nova ficha de sessão.
+     * @param symbol Símbolo do jogador (X ou O).
+     * @param connection Conexão inicial do jogador.
+     */
+    public PlayerSeat(char symbol, PlayerConnection connection) {
+        this.symbol = symbol;
+        this.connection = connection;
+        byte[] bytes = new byte[16];
+        tokenGenerator.nextBytes(bytes);
+        this.token = HexFormat.of().formatHex(bytes);
+    }
+
+    /**
+     * Numera e guarda uma mensagem e a entrega à conexão atual. Com o jogador desconectado, a mensagem só é guardada,
+     * pois a conexão fechada a descarta.
+     * @param message Ação que enfileira a mensagem em uma conexão ("connection -> connection.sendMove(4)").
+     */
+    public synchronized void deliver(Consumer<PlayerConnection> message) {
+        sentMessages++;
+        backlog.add(message);
+        if (backlog.size() > BACKLOG_SIZE) {
+            backlog.poll();
+        }
+        message.accept(connection);
+    }
+
+    /**
+     * Verifica se o jogador ainda pode enviar uma mensagem de chat, consumindo uma ficha do seu limite de taxa.
+     * @param nowNanos O instante atual, de System.nanoTime().
+     * @return Verdadeiro se a mensagem é aceita, falso se ela excede a taxa.
+     */
+    public synchronized boolean tryChat(long nowNanos) {
+        return chatLimit.tryTake(nowNanos);
+    }
+
+    /**
+     * Conta uma jogada ou mensagem de chat recebida do jogador.
+     */
+    public synchronized void countReceived() {
+        receivedMessages++;
+    }
+
+    /**
+     * Troca a conexão do jogador por uma nova, reenviando as mensagens posteriores à última que ele recebeu.
+     * A nova conexão recebe antes a linha "RESUMED n", em que n é o número de jogadas e mensagens de chat que o
+     * lugar recebeu do jogador, para que ele reenvie as que se perderam.
+     * @param newConnection A nova conexão do jogador.
+     * @param lastReceived Número da última mensagem que o jogador recebeu.
+     * @return A conexão substituída, ou nulo se as mensagens pedidas não estão mais guardadas.
+     */
+    public synchronized PlayerConnection resume(PlayerConnection newConnection, long lastReceived) {
+        long firstKept = sentMessages - backlog.size() + 1;
+        if (lastReceived < firstKept - 1 || lastReceived > sentMessages) {
+            return null;
+        }
+        PlayerConnection oldConnection = connection;
+        connection = newConnection;
+        cancelGraceTimer();
+        newConnection.send(GameRoom.RESUMED_PREFIX + receivedMessages);
+        long sequence = firstKept;
+        for (Consumer<PlayerConnection> message : backlog) {
+            if (sequence++ > lastReceived) {
+                message.accept(newConnection);
+            }
+        }
+        return oldConnection;
+    }
+
+    /**
+     * Inicia o prazo para o jogador se reconectar.
+     * @param timer O prazo agendado, cancelado se o jogador voltar.
+     */
+    public synchronized void startGraceTimer(TimingWheel.Timeout timer) {
+        cancelGraceTimer();
+        graceTimer = timer;
+    }
+
+    /**
+     * Cancela o prazo para o jogador se reconectar, se houver um.
+     */
+    public synchronized void cancelGraceTimer() {
+        if (graceTimer != null) {
+            graceTimer.cancel();
+            graceTimer = null;
+        }
+    }
+
+    /**
+     * Indica se o jogador está desconectado, aguardando o fim do prazo para se reconectar.
+     * @return Verdadeiro se o prazo de reconexão está correndo.
+     */
+    public synchronized boolean isDisconnected() {
+        return graceTimer != null;
+    }
+
+    /**
+     * Retorna o símbolo do jogador.
+     * @return O símbolo (X ou O).
+     */
+    public char getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Retorna a ficha de sessão do lugar.
+     * @return A ficha, em hexadecimal.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Retorna a conexão atual do jogador.
+     * @return A conexão.
+     */
+    public PlayerConnection getConnection() {
+        return connection;
+    }
+}
@@ -0,0 +1,228 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Define a classe ProtocolReader, que lê as mensagens do jogo de um fluxo de entrada bloqueante.
+ * O leitor começa no protocolo de texto e passa para o protocolo binário ao receber a linha de negociação,
+ * devolvendo em ambos os casos o tipo da mensagem e guardando seu conteúdo para consulta.
+ */
+public class ProtocolReader {
+
+    /** Tipo devolvido quando o fluxo termina.*/
+    public static final int EOF = -1;
+
+    /** Tipo da linha de início enviada pelo servidor ("START ..."), disponível em getText().*/
+    public static final int START = 16;
+
+    /** Tipo da linha de negociação do protocolo binário; depois dela o leitor passa a ler quadros binários.*/
+    public static final int NEGOTIATION = 17;
+
+    /** Tipo da linha com a nota de habilidade do jogador ("RATING 1500"), disponível em getText().*/
+    public static final int RATING = 18;
+
+    /** Tipo da linha com que o cliente pede para assistir a uma sala ("WATCH 12"); o número fica em getText().*/
+    public static final int WATCH = 19;
+
+    /** Tipo da linha com que o jogador retoma a partida em uma nova conexão ("RESUME ficha 12"), inteira em getText().*/
+    public static final int RESUME = 20;
+
+    /** Tipo da resposta do servidor à retomada ("RESUMED 7"), inteira em getText().*/
+    public static final int RESUMED = 21;
+
+    /** Tamanho máximo de uma linha do protocolo de texto.*/
+    private static final int MAX_LINE_LENGTH = 8192;
+
+    /** Fluxo de entrada de dados.*/
+    private final DataInputStream input;
+
+    /** Bytes da linha de texto ou do texto do chat em leitura, reaproveitados entre as mensagens.*/
+    private byte[] lineBytes = new byte[128];
+
+    /** Indica se o leitor já passou para o protocolo binário.*/
+    private boolean binary;
+
+    /** Posição da última jogada lida, ou -1 se a jogada não era um número válido.*/
+    private int position;
+
+    /** Símbolo do vencedor da última vitória lida, ou '\0' se for quem enviou a mensagem.*/
+    private char symbol;
+
+    /** Texto da última mensagem de chat, linha de início ou linha de nota lida.*/
+    private String text;
+
+    /**
+     * Cria um leitor sobre o fluxo de entrada de uma conexão.
+     * @param inputStream O fluxo de entrada do socket.
+     */
+    public ProtocolReader(InputStream inputStream) {
+        this.input = new DataInputStream(new BufferedInputStream(inputStream));
+    }
+
+    /**
+     * Lê a próxima mensagem do fluxo.
+     * @return O tipo da mensagem: um dos códigos de BinaryProtocol, START, NEGOTIATION, RATING, WATCH, RESUME,
+     *         RESUMED ou EOF.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a leitura, ou se a mensagem for inválida.
+     */
+    public int next() throws IOException {
+        return binary ? nextFrame() : nextLine();
+    }
+
+    /**
+     * Lê a próxima mensagem no protocolo de texto e a classifica pelo prefixo, direto nos bytes da linha.
+     * Jogadas e mensagens de controle não criam objetos; só o chat e as linhas de início de conexão viram texto.
+     * @return O tipo da mensagem.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a leitura.
+     */
+    private int nextLine() throws IOException {
+        int length = readLine();
+        if (length < 0) {
+            return EOF;
+        }
+        int type = TextProtocol.decodeType(lineBytes, length);
+        switch (type) {
+            // A partir da confirmação da negociação, as mensagens são binárias.
+            case NEGOTIATION -> binary = true;
+            case START, RATING, RESUME, RESUMED -> text = TextProtocol.decodeText(lineBytes, 0, length);
+            case WATCH -> text = TextProtocol.decodeText(lineBytes, GameLobby.WATCH_COMMAND.length(), length);
+            // A vitória pode trazer o símbolo do vencedor ("WON X") ou não ("WON").
+            case BinaryProtocol.WON -> symbol = TextProtocol.decodeWinner(lineBytes, length);
+            case BinaryProtocol.CHAT -> text = TextProtocol.decodeText(lineBytes, TextProtocol.CHAT_PREFIX_LENGTH, length);
+            // Se a linha não se encaixa nos casos anteriores então é uma jogada.
+            case BinaryProtocol.MOVE -> position = TextProtocol.decodeMove(lineBytes, length);
+            default -> { }
+        }
+        return type;
+    }
+
+    /**
+     * Lê uma linha de texto terminada por quebra de linha para o vetor reaproveitado lineBytes.
+     * @return O número de bytes da linha, sem a quebra de linha, ou -1 se o fluxo terminou.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a leitura, ou se a linha for grande demais.
+     */
+    private int readLine() throws IOException {
+        int length = 0;
+        int value;
+        while ((value = input.read()) != '\n') {
+            if (value < 0) {
+                return length == 0 ? -1 : length;
+            }
+            ensureCapacity(length + 1);
+            lineBytes[length++] = (byte) value;
+        }
+        // Remove o retorno de carro de quem envia "\r\n".
+        if (length > 0 && lineBytes[length - 1] == '\r') {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * Aumenta o vetor reaproveitado lineBytes, se necessário, até o tamanho máximo de uma linha.
+     * @param capacity O número de bytes que o vetor precisa comportar.
+     * @throws IOException Se o tamanho pedido passar do tamanho máximo de uma linha.
+     */
+    private void ensureCapacity(int capacity) throws IOException {
+        if (capacity <= lineBytes.length) {
+            return;
+        }
+        if (capacity > MAX_LINE_LENGTH) {
+            throw new IOException("Linha grande demais");
+        }
+        lineBytes = Arrays.copyOf(lineBytes, Math.min(Math.max(lineBytes.length * 2, capacity), MAX_LINE_LENGTH));
+    }
+
+    /**
+     * Lê o próximo quadro no protocolo binário.
+     * @return O tipo da mensagem.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a leitura, ou se o código for desconhecido.
+     */
+    private int nextFrame() throws IOException {
+        int opcode = input.read();
+        try {
+            switch (opcode) {
+                case -1:
+                    return EOF;
+                case BinaryProtocol.MOVE:
+                    position = input.readUnsignedByte();
+                    return BinaryProtocol.MOVE;
+                case BinaryProtocol.MOVE_WIDE:
+                    position = input.readUnsignedShort();
+                    return BinaryProtocol.MOVE;
+                case BinaryProtocol.WON:
+                    symbol = (char) input.readUnsignedByte();
+                    return BinaryProtocol.WON;
+                case BinaryProtocol.DRAW:
+                case BinaryProtocol.END:
+                case BinaryProtocol.PING:
+                case BinaryProtocol.PONG:
+                    return opcode;
+                case BinaryProtocol.CHAT:
+                    int length = input.readUnsignedShort();
+                    if (length > BinaryProtocol.MAX_CHAT_BYTES) {
+                        throw new IOException("Mensagem de chat grande demais: " + length + " bytes");
+                    }
+                    // Lê o texto para o vetor reaproveitado das linhas; só a String do chat é criada.
+                    ensureCapacity(length);
+                    input.readFully(lineBytes, 0, length);
+                    text = new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+                    return BinaryProtocol.CHAT;
+                default:
+                    throw new IOException("Código de mensagem desconhecido: " + opcode);
+            }
+        } catch (EOFException ex) {
+            // O fluxo terminou no meio de um quadro.
+            return EOF;
+        }
+    }
+
+    /**
+     * Indica se já há bytes recebidos aguardando leitura, ou seja, se a próxima chamada a next() provavelmente
+     * não irá bloquear. Permite agrupar as respostas de uma rajada de mensagens em uma única escrita.
+     * @return Verdadeiro se há bytes disponíveis para leitura.
+     * @throws IOException Exceção de E/S que pode ocorrer ao consultar o fluxo.
+     */
+    public boolean hasBufferedInput() throws IOException {
+        return input.available() > 0;
+    }
+
+    /**
+     * Lê os bytes disponíveis sem interpretá-los, começando pelos que já estão no buffer do leitor. Usado para
+     * repassar a outro nó um jogador cujas mensagens não são mais lidas como mensagens do jogo.
+     * @param buffer Buffer que recebe os bytes.
+     * @return O número de bytes lidos, ou -1 se o fluxo terminou.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a leitura.
+     */
+    public int readRaw(byte[] buffer) throws IOException {
+        return input.read(buffer);
+    }
+
+    /**
+     * Retorna a posição da última jogada lida.
+     * @return A posição da jogada, ou -1 se a jogada não era um número válido.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Retorna o símbolo do vencedor da última vitória lida.
+     * @return O símbolo do vencedor, ou '\0' se o vencedor é quem enviou a mensagem.
+     */
+    public char getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Retorna o texto da última mensagem de chat, linha de início ou linha de nota lida.
+     * @return O texto da mensagem.
+     */
+    public String getText() {
+        return text;
+    }
+}
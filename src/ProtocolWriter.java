@@ -0,0 +1,202 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Define a classe ProtocolWriter, que escreve as mensagens do jogo em um fluxo de saída bloqueante.
+ * O escritor começa no protocolo de texto e passa para o protocolo binário depois da negociação.
+ * As mensagens são acumuladas em um buffer e só vão para o fluxo em flush(), com uma única chamada de escrita,
+ * para que a jogada e o resultado, ou uma rajada de chat, saiam no mesmo segmento TCP.
+ * As mensagens de threads diferentes não se misturam.
+ */
+public class ProtocolWriter {
+
+    /** Fluxo de saída de dados.*/
+    private final OutputStream output;
+
+    /** Bloqueio que serializa as escritas (não fixa threads virtuais durante a escrita, ao contrário do synchronized).*/
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /** Indica se o escritor já passou para o protocolo binário (protegido pelo bloqueio de escrita).*/
+    private boolean binary;
+
+    /** Bytes das mensagens ainda não escritas no fluxo (protegido pelo bloqueio de escrita).*/
+    private byte[] pending = new byte[256];
+
+    /** Número de bytes ocupados em pending.*/
+    private int pendingLength;
+
+    /** Número de mensagens acumuladas em pending.*/
+    private int pendingMessages;
+
+    /**
+     * Cria um escritor sobre o fluxo de saída de uma conexão.
+     * @param outputStream O fluxo de saída do socket.
+     */
+    public ProtocolWriter(OutputStream outputStream) {
+        this.output = outputStream;
+    }
+
+    /**
+     * Acumula a linha de negociação do protocolo binário e passa a escrever as próximas mensagens nesse protocolo.
+     * A linha é a última mensagem em texto do escritor, mesmo com outras threads escrevendo ao mesmo tempo.
+     */
+    public void negotiateBinary() {
+        writeLock.lock();
+        try {
+            append(textBytes(BinaryProtocol.NEGOTIATION_LINE));
+            binary = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Acumula uma linha de texto, independentemente do protocolo, como a linha de início da partida.
+     * @param line A linha a ser escrita, sem a quebra de linha.
+     */
+    public void writeText(String line) {
+        write(null, line);
+    }
+
+    /**
+     * Acumula uma jogada.
+     * @param position A posição da jogada.
+     */
+    public void writeMove(int position) {
+        write(BinaryProtocol.encodeMove(position), TextProtocol.encodeMove(position));
+    }
+
+    /**
+     * Acumula a vitória de um jogador.
+     * @param playerId Símbolo do vencedor, ou '\0' para indicar quem enviou a mensagem.
+     */
+    public void writeWinner(char playerId) {
+        write(BinaryProtocol.encodeWinner(playerId), playerId == '\0' ? "WON" : "WON " + playerId);
+    }
+
+    /**
+     * Acumula o empate da partida.
+     */
+    public void writeDraw() {
+        write(BinaryProtocol.encodeDraw(), TextProtocol.encodeDraw());
+    }
+
+    /**
+     * Acumula uma mensagem de chat. No protocolo binário o texto é enviado em UTF-8.
+     * @param message O texto da mensagem.
+     */
+    public void writeChat(String message) {
+        write(BinaryProtocol.encodeChat(message), "CHAT" + message);
+    }
+
+    /**
+     * Acumula o término da partida.
+     */
+    public void writeEnd() {
+        write(BinaryProtocol.encodeEnd(), TextProtocol.encodeEnd());
+    }
+
+    /**
+     * Acumula o batimento com que o servidor verifica se o jogador ainda responde.
+     */
+    public void writePing() {
+        write(BinaryProtocol.encodePing(), TextProtocol.encodePing());
+    }
+
+    /**
+     * Acumula a resposta ao batimento.
+     */
+    public void writePong() {
+        write(BinaryProtocol.encodePong(), TextProtocol.encodePong());
+    }
+
+    /**
+     * Acumula bytes já codificados, sem interpretá-los, como os recebidos de outro nó para um jogador repassado.
+     * @param bytes Os bytes, que são copiados.
+     * @param length Número de bytes a acumular.
+     */
+    public void writeRaw(byte[] bytes, int length) {
+        writeLock.lock();
+        try {
+            append(Arrays.copyOf(bytes, length));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Codifica uma mensagem do protocolo de texto, acrescentando a quebra de linha.
+     * @param message A mensagem sem a quebra de linha.
+     * @return Os bytes da mensagem em ISO-8859-1.
+     */
+    private static byte[] textBytes(String message) {
+        return (message + "\n").getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Escreve no fluxo, com uma única chamada, todas as mensagens acumuladas desde a última escrita.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a escrita.
+     */
+    public void flush() throws IOException {
+        writeLock.lock();
+        try {
+            if (pendingLength == 0) {
+                return;
+            }
+            output.write(pending, 0, pendingLength);
+            output.flush();
+            OutboundStats.recordWrite(pendingMessages);
+        } finally {
+            // Descarta o buffer mesmo se a escrita falhar, pois a conexão será encerrada.
+            pendingLength = 0;
+            pendingMessages = 0;
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Acumula uma mensagem no protocolo em uso.
+     * A escolha do protocolo é feita sob o bloqueio, junto com o acúmulo.
+     * @param frame O quadro binário da mensagem, ou nulo para escrever sempre em texto.
+     * @param textMessage A mensagem no protocolo de texto, sem a quebra de linha.
+     */
+    private void write(byte[] frame, String textMessage) {
+        writeLock.lock();
+        try {
+            append(binary && frame != null ? frame : textBytes(textMessage));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Acumula uma mensagem cuja linha de texto já está codificada, como as jogadas e o empate, que são
+     * compartilhadas e não precisam ser codificadas a cada escrita.
+     * @param frame O quadro binário da mensagem.
+     * @param textLine A linha da mensagem no protocolo de texto, com a quebra de linha.
+     */
+    private void write(byte[] frame, byte[] textLine) {
+        writeLock.lock();
+        try {
+            append(binary ? frame : textLine);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Copia os bytes de uma mensagem para o buffer, aumentando-o se necessário. Deve ser chamado sob o bloqueio.
+     * @param bytes Os bytes da mensagem.
+     */
+    private void append(byte[] bytes) {
+        if (pendingLength + bytes.length > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + bytes.length));
+        }
+        System.arraycopy(bytes, 0, pending, pendingLength, bytes.length);
+        pendingLength += bytes.length;
+        pendingMessages++;
+    }
+}
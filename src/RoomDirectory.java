@@ -0,0 +1,34 @@
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Define a interface RoomDirectory, o diretório de salas compartilhado pelos nós de um agrupamento de servidores.
+ * Cada nó publica periodicamente a sua entrada (NodeEntry), com o endereço em que aceita jogadores, os jogadores que
+ * aguardam um oponente e as salas abertas, e lê as entradas dos outros nós para decidir para onde repassar quem não
+ * encontrou par. O diretório não guarda o estado das partidas, que fica apenas no nó de cada sala.
+ * A implementação local (FileRoomDirectory) usa um diretório de arquivos, para rodar vários nós em uma única máquina
+ * sem nenhum serviço externo; outras implementações podem usar um serviço compartilhado pelas máquinas.
+ */
+public interface RoomDirectory {
+
+    /**
+     * Publica a entrada de um nó, substituindo a anterior do mesmo nó.
+     * @param entry A entrada do nó.
+     * @throws IOException Exceção de E/S que pode ocorrer ao gravar a entrada.
+     */
+    void publish(NodeEntry entry) throws IOException;
+
+    /**
+     * Lista as entradas publicadas por todos os nós, inclusive as de nós que pararam sem removê-las.
+     * @return As entradas, em qualquer ordem.
+     * @throws IOException Exceção de E/S que pode ocorrer ao ler as entradas.
+     */
+    List<NodeEntry> list() throws IOException;
+
+    /**
+     * Remove a entrada de um nó, quando ele deixa o agrupamento.
+     * @param nodeId A identificação do nó.
+     * @throws IOException Exceção de E/S que pode ocorrer ao remover a entrada.
+     */
+    void remove(String nodeId) throws IOException;
+}
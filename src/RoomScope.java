@@ -0,0 +1,146 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Define a classe RoomScope, que agrupa todas as tarefas de uma sala em um único escopo estruturado.
+ * Quando qualquer tarefa do escopo termina, o escopo é encerrado: as ações de encerramento fecham as conexões
+ * da sala e as demais tarefas são interrompidas, de forma que nenhuma tarefa sobreviva à sala.
+ */
+public class RoomScope implements AutoCloseable {
+
+    /** Executor que roda as tarefas do escopo.*/
+    private final Executor executor;
+
+    /** Threads que estão rodando tarefas do escopo.*/
+    private final Set<Thread> runningThreads = new HashSet<>();
+
+    /** Ações executadas uma única vez quando o escopo é encerrado.*/
+    private final List<Runnable> shutdownActions = new ArrayList<>();
+
+    /** Indica se o escopo já foi encerrado.*/
+    private final AtomicBoolean shutdown = new AtomicBoolean();
+
+    /** Bloqueio que protege o estado do escopo (não fixa threads virtuais na espera, ao contrário do synchronized).*/
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Condição sinalizada quando todas as tarefas do escopo terminam.*/
+    private final Condition allTasksDone = lock.newCondition();
+
+    /** Número de tarefas iniciadas que ainda não terminaram.*/
+    private int pendingTasks;
+
+    /**
+     * Cria um escopo cujas tarefas rodam no executor informado.
+     * @param executor Executor que roda as tarefas do escopo.
+     */
+    public RoomScope(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Inicia uma tarefa no escopo. Quando a tarefa terminar, por qualquer motivo, o escopo é encerrado.
+     * @param task A tarefa a ser executada.
+     */
+    public void fork(Runnable task) {
+        lock.lock();
+        try {
+            pendingTasks++;
+        } finally {
+            lock.unlock();
+        }
+        executor.execute(() -> {
+            Thread thread = Thread.currentThread();
+            lock.lock();
+            try {
+                runningThreads.add(thread);
+            } finally {
+                lock.unlock();
+            }
+            try {
+                // Tarefas que começam depois do encerramento do escopo não chegam a rodar.
+                if (!shutdown.get()) {
+                    task.run();
+                }
+            } finally {
+                lock.lock();
+                try {
+                    runningThreads.remove(thread);
+                } finally {
+                    lock.unlock();
+                }
+                shutdown();
+                lock.lock();
+                try {
+                    pendingTasks--;
+                    allTasksDone.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Registra uma ação a ser executada quando o escopo for encerrado, como fechar uma conexão.
+     * @param action A ação de encerramento.
+     */
+    public void onShutdown(Runnable action) {
+        lock.lock();
+        try {
+            shutdownActions.add(action);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Encerra o escopo, executando as ações de encerramento e interrompendo as tarefas que ainda estão rodando.
+     */
+    public void shutdown() {
+        // Garante que o escopo seja encerrado apenas uma vez.
+        if (!shutdown.compareAndSet(false, true)) {
+            return;
+        }
+        lock.lock();
+        try {
+            shutdownActions.forEach(Runnable::run);
+            runningThreads.forEach(Thread::interrupt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Aguarda o término de todas as tarefas do escopo.
+     * @throws InterruptedException Se a thread for interrompida enquanto aguarda.
+     */
+    public void join() throws InterruptedException {
+        lock.lock();
+        try {
+            while (pendingTasks > 0) {
+                allTasksDone.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Encerra o escopo e aguarda o término das tarefas, para que nenhuma delas sobreviva à sala.
+     */
+    @Override
+    public void close() {
+        shutdown();
+        try {
+            join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
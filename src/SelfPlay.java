@@ -0,0 +1,469 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Define a classe SelfPlay, a ferramenta que joga em lote partidas de robô contra robô dentro do próprio processo,
+ * sem sockets e sem interface gráfica, para calibrar o jogador automático e testar o motor do jogo sob carga.
+ * As partidas são divididas em blocos por uma tarefa recursiva (RecursiveTask) em um ForkJoinPool com uma thread por
+ * núcleo; cada bloco joga as suas partidas em um único GameStatus, reiniciado a cada partida, e as estatísticas dos
+ * blocos são somadas na volta da recursão, sem nenhum estado compartilhado entre as threads. Cada bloco sorteia as
+ * jogadas com a sua própria semente, derivada da semente pedida e da posição do bloco, então o resultado não depende
+ * do número de threads.
+ * As jogadas passam pela mesma validação das salas (isValidMove) e o fim de cada partida é decidido por
+ * checkWinner e checkDraw, como no servidor; ao fim de cada partida o resultado do motor é conferido com uma
+ * varredura simples do tabuleiro, e as divergências são contadas como inconsistências do motor.
+ */
+public class SelfPlay {
+
+    /** Número de partidas jogadas por bloco, abaixo do qual a tarefa não é mais dividida.*/
+    private static final int GAMES_PER_BLOCK = 4096;
+
+    /** Número máximo de aberturas exibidas nos tabuleiros maiores que 5x5.*/
+    private static final int MAX_OPENINGS_SHOWN = 10;
+
+    /**
+     * Método principal da ferramenta de partidas em lote.
+     * @param args Número de partidas, tamanho do tabuleiro, número de símbolos em sequência para vencer, estratégia
+     *             do xis e do círculo ("random", "minimax" ou "minimax:0.2" para que 20% das jogadas sejam ao acaso),
+     *             número de threads e semente. Todos são opcionais.
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int boardSize = args.length > 1 ? Integer.parseInt(args[1]) : GameStatus.DEFAULT_SIZE;
+        int winLength = args.length > 2 ? Integer.parseInt(args[2]) : Math.min(boardSize, GameStatus.DEFAULT_WIN_LENGTH);
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : 42;
+        Strategy cross;
+        Strategy circle;
+        try {
+            GameStatus.checkDimensions(boardSize, winLength);
+            cross = Strategy.parse(args.length > 3 ? args[3] : "random");
+            circle = Strategy.parse(args.length > 4 ? args[4] : "random");
+        } catch (IllegalArgumentException ex) {
+            System.out.println(ex.getMessage());
+            return;
+        }
+
+        // Resolve o tabuleiro clássico antes de medir, para que a tabela do jogador automático não entre no tempo.
+        if (cross.usesSolver() || circle.usesSolver()) {
+            MinimaxSolver.precomputeClassicTable();
+        }
+
+        System.out.println("Jogando " + games + " partidas " + boardSize + "x" + boardSize + " (" + winLength
+                + " em sequência), " + cross + " contra " + circle + ", com " + threads + " threads");
+        long startTime = System.nanoTime();
+        Stats stats;
+        try (var pool = new ForkJoinPool(threads)) {
+            stats = pool.invoke(new BatchTask(boardSize, winLength, cross, circle, seed, 0, games));
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+        printReport(stats, boardSize, elapsedNanos);
+    }
+
+    /**
+     * Exibe as estatísticas somadas: resultados, duração média, vazão e resultados por abertura.
+     * @param stats As estatísticas de todas as partidas.
+     * @param boardSize Número de linhas e de colunas do tabuleiro.
+     * @param elapsedNanos Duração total, em nanossegundos.
+     */
+    private static void printReport(Stats stats, int boardSize, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println("Duração: " + String.format("%.2f", seconds) + " s"
+                + " | Partidas/s: " + String.format("%.0f", stats.games / seconds)
+                + " | Jogadas/s: " + String.format("%.0f", stats.moves / seconds));
+        System.out.println("Vitórias do X: " + percent(stats.crossWins, stats.games)
+                + " | Vitórias do O: " + percent(stats.circleWins, stats.games)
+                + " | Empates: " + percent(stats.draws, stats.games)
+                + " | Duração média: " + String.format("%.2f", (double) stats.moves / Math.max(1, stats.games))
+                + " jogadas");
+        System.out.println("Inconsistências do motor: " + stats.inconsistencies
+                + (stats.firstInconsistency != null ? " (primeira: " + stats.firstInconsistency + ")" : ""));
+
+        // Nos tabuleiros grandes, exibe apenas as aberturas mais favoráveis ao xis.
+        List<Integer> openings = new ArrayList<>();
+        for (int position = 0; position < stats.openings.length; position++) {
+            if (stats.openingGames(position) > 0) {
+                openings.add(position);
+            }
+        }
+        if (boardSize > 5) {
+            openings.sort(Comparator.comparingDouble((Integer position) ->
+                    (double) stats.openings[position][0] / stats.openingGames(position)).reversed());
+            openings = openings.subList(0, Math.min(MAX_OPENINGS_SHOWN, openings.size()));
+        }
+        System.out.println("Abertura | Partidas | X | O | Empates");
+        for (int position : openings) {
+            long openingGames = stats.openingGames(position);
+            System.out.println(String.format("%8d", position) + " | " + openingGames
+                    + " | " + percent(stats.openings[position][0], openingGames)
+                    + " | " + percent(stats.openings[position][1], openingGames)
+                    + " | " + percent(stats.openings[position][2], openingGames));
+        }
+    }
+
+    /**
+     * Formata uma proporção como porcentagem.
+     * @param count O número de ocorrências.
+     * @param total O total.
+     * @return A porcentagem, com uma casa decimal.
+     */
+    private static String percent(long count, long total) {
+        return String.format("%.1f%%", total == 0 ? 0 : 100.0 * count / total);
+    }
+
+    /**
+     * Verifica, varrendo todo o tabuleiro, se um jogador tem símbolos suficientes em sequência em alguma direção.
+     * É propositalmente simples, sem nada em comum com a verificação do motor, para servir de referência.
+     * @param gameStatus O estado do jogo.
+     * @param player O símbolo do jogador.
+     * @return Verdadeiro se o jogador tem uma sequência vencedora.
+     */
+    private static boolean hasLine(GameStatus gameStatus, char player) {
+        int size = gameStatus.getSize();
+        int length = gameStatus.getWinLength();
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                for (int[] direction : directions) {
+                    int count = 0;
+                    while (count < length) {
+                        int r = row + direction[0] * count;
+                        int c = column + direction[1] * count;
+                        if (r < 0 || r >= size || c < 0 || c >= size || gameStatus.getPosition(r * size + c) != player) {
+                            break;
+                        }
+                        count++;
+                    }
+                    if (count == length) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Define a classe BatchTask, a tarefa que joga um intervalo de partidas, dividindo-o ao meio enquanto ele for
+     * maior que um bloco.
+     */
+    private static final class BatchTask extends RecursiveTask<Stats> {
+
+        /** Número de linhas e de colunas do tabuleiro.*/
+        private final int boardSize;
+
+        /** Número de símbolos em sequência necessários para vencer.*/
+        private final int winLength;
+
+        /** Estratégia do xis.*/
+        private final Strategy cross;
+
+        /** Estratégia do círculo.*/
+        private final Strategy circle;
+
+        /** Semente pedida, da qual deriva a semente de cada bloco.*/
+        private final long seed;
+
+        /** Número da primeira partida do intervalo.*/
+        private final long from;
+
+        /** Número seguinte ao da última partida do intervalo.*/
+        private final long to;
+
+        /**
+         * Cria a tarefa de um intervalo de partidas.
+         * @param boardSize Número de linhas e de colunas do tabuleiro.
+         * @param winLength Número de símbolos em sequência necessários para vencer.
+         * @param cross Estratégia do xis.
+         * @param circle Estratégia do círculo.
+         * @param seed Semente pedida.
+         * @param from Número da primeira partida.
+         * @param to Número seguinte ao da última partida.
+         */
+        BatchTask(int boardSize, int winLength, Strategy cross, Strategy circle, long seed, long from, long to) {
+            this.boardSize = boardSize;
+            this.winLength = winLength;
+            this.cross = cross;
+            this.circle = circle;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from <= GAMES_PER_BLOCK) {
+                return playBlock();
+            }
+            // Divide o intervalo em blocos inteiros, para que a semente de cada bloco não dependa da divisão.
+            long blocks = (to - from + GAMES_PER_BLOCK - 1) / GAMES_PER_BLOCK;
+            long middle = from + blocks / 2 * GAMES_PER_BLOCK;
+            var left = new BatchTask(boardSize, winLength, cross, circle, seed, from, middle);
+            left.fork();
+            Stats right = new BatchTask(boardSize, winLength, cross, circle, seed, middle, to).compute();
+            return left.join().merge(right);
+        }
+
+        /**
+         * Joga as partidas do bloco em um único estado de jogo, com o gerador e os solucionadores do bloco.
+         * @return As estatísticas do bloco.
+         */
+        private Stats playBlock() {
+            var random = new SplittableRandom(seed * 31 + from / GAMES_PER_BLOCK);
+            var gameStatus = new GameStatus(boardSize, winLength);
+            MinimaxSolver solver = cross.usesSolver() || circle.usesSolver()
+                    ? MinimaxSolver.forBoard(boardSize, winLength) : null;
+            int cells = boardSize * boardSize;
+            var stats = new Stats(cells);
+            for (long game = from; game < to; game++) {
+                gameStatus.reset();
+                char player = GameFrame.CROSS;
+                int opening = -1;
+                int moves = 0;
+                char winner;
+                while (true) {
+                    Strategy strategy = player == GameFrame.CROSS ? cross : circle;
+                    int position = strategy.chooseMove(gameStatus, player, cells - moves, random, solver);
+                    if (!gameStatus.isValidMove(position)) {
+                        stats.recordInconsistency("jogada inválida " + position + " na partida " + game);
+                        winner = '?';
+                        break;
+                    }
+                    gameStatus.makeMove(position, player);
+                    // Uma posição ocupada tem de ser recusada, como as salas recusam a jogada repetida.
+                    if (gameStatus.isValidMove(position)) {
+                        stats.recordInconsistency("posição " + position + " aceita depois de ocupada na partida " + game);
+                    }
+                    opening = moves == 0 ? position : opening;
+                    moves++;
+                    if (gameStatus.checkWinner(player)) {
+                        winner = player;
+                        break;
+                    }
+                    if (gameStatus.checkDraw()) {
+                        winner = '\0';
+                        break;
+                    }
+                    player = player == GameFrame.CROSS ? GameFrame.CIRCLE : GameFrame.CROSS;
+                }
+                if (winner != '?') {
+                    verifyResult(gameStatus, winner, moves, cells, game, stats);
+                    stats.record(opening, winner, moves);
+                }
+            }
+            return stats;
+        }
+
+        /**
+         * Confere o resultado do motor com a varredura simples: o vencedor tem uma sequência e o perdedor não, e no
+         * empate nenhum dos dois tem sequência e o tabuleiro está cheio.
+         * @param gameStatus O estado final da partida.
+         * @param winner O vencedor segundo o motor, ou '\0' no empate.
+         * @param moves Número de jogadas da partida.
+         * @param cells Número de posições do tabuleiro.
+         * @param game Número da partida, exibido na divergência.
+         * @param stats Estatísticas em que a divergência é contada.
+         */
+        private static void verifyResult(GameStatus gameStatus, char winner, int moves, int cells, long game, Stats stats) {
+            boolean crossLine = hasLine(gameStatus, GameFrame.CROSS);
+            boolean circleLine = hasLine(gameStatus, GameFrame.CIRCLE);
+            boolean consistent = switch (winner) {
+                case GameFrame.CROSS -> crossLine && !circleLine;
+                case GameFrame.CIRCLE -> circleLine && !crossLine;
+                default -> !crossLine && !circleLine && moves == cells;
+            };
+            if (!consistent) {
+                stats.recordInconsistency("resultado " + (winner == '\0' ? "empate" : "vitória do " + winner)
+                        + " divergente na partida " + game);
+            }
+        }
+    }
+
+    /**
+     * Define a classe Strategy, a forma como um robô escolhe as jogadas: ao acaso, pelo jogador automático, ou pelo
+     * jogador automático com uma parte das jogadas ao acaso, para simular jogadores mais fracos.
+     */
+    private static final class Strategy {
+
+        /** Proporção das jogadas feitas ao acaso, de 0 a 1.*/
+        private final double noise;
+
+        /** Indica se as demais jogadas são escolhidas pelo jogador automático.*/
+        private final boolean minimax;
+
+        /**
+         * Cria uma estratégia.
+         * @param noise Proporção das jogadas feitas ao acaso.
+         * @param minimax Indica se as demais jogadas são escolhidas pelo jogador automático.
+         */
+        private Strategy(double noise, boolean minimax) {
+            this.noise = noise;
+            this.minimax = minimax;
+        }
+
+        /**
+         * Interpreta uma estratégia: "random", "minimax" ou "minimax:<proporção de jogadas ao acaso>".
+         * @param text A estratégia informada.
+         * @return A estratégia.
+         * @throws IllegalArgumentException Se a estratégia for desconhecida.
+         */
+        static Strategy parse(String text) {
+            if (text.equals("random")) {
+                return new Strategy(1, false);
+            }
+            if (text.equals("minimax")) {
+                return new Strategy(0, true);
+            }
+            if (text.startsWith("minimax:")) {
+                try {
+                    double noise = Double.parseDouble(text.substring("minimax:".length()));
+                    if (noise >= 0 && noise <= 1) {
+                        return new Strategy(noise, true);
+                    }
+                } catch (NumberFormatException ex) {
+                    // Cai na mensagem de estratégia desconhecida abaixo.
+                }
+            }
+            throw new IllegalArgumentException("Estratégia desconhecida: " + text);
+        }
+
+        /**
+         * Indica se a estratégia usa o jogador automático.
+         * @return Verdadeiro se alguma jogada é escolhida pelo jogador automático.
+         */
+        boolean usesSolver() {
+            return minimax && noise < 1;
+        }
+
+        /**
+         * Escolhe a jogada do jogador na posição atual.
+         * @param gameStatus O estado do jogo, que não está terminado.
+         * @param player Símbolo do jogador (X ou O).
+         * @param emptyCells Número de posições livres.
+         * @param random Gerador do bloco.
+         * @param solver Solucionador do bloco, ou nulo se nenhuma estratégia o usa.
+         * @return A posição escolhida.
+         */
+        int chooseMove(GameStatus gameStatus, char player, int emptyCells, SplittableRandom random,
+                       MinimaxSolver solver) {
+            if (minimax && (noise == 0 || random.nextDouble() >= noise)) {
+                return solver.chooseMove(gameStatus, player);
+            }
+            // Sorteia uma das posições livres, todas com a mesma chance.
+            int skip = random.nextInt(emptyCells);
+            int position = 0;
+            while (!gameStatus.isValidMove(position) || skip-- > 0) {
+                position++;
+            }
+            return position;
+        }
+
+        @Override
+        public String toString() {
+            return !minimax ? "random" : noise == 0 ? "minimax" : "minimax:" + noise;
+        }
+    }
+
+    /**
+     * Define a classe Stats, as estatísticas de um conjunto de partidas, somadas na volta da recursão.
+     */
+    private static final class Stats {
+
+        /** Resultados por abertura: vitórias do xis, do círculo e empates, pela posição da primeira jogada.*/
+        final long[][] openings;
+
+        /** Número de partidas.*/
+        long games;
+
+        /** Número de vitórias do xis.*/
+        long crossWins;
+
+        /** Número de vitórias do círculo.*/
+        long circleWins;
+
+        /** Número de empates.*/
+        long draws;
+
+        /** Número total de jogadas.*/
+        long moves;
+
+        /** Número de divergências encontradas na verificação do motor.*/
+        long inconsistencies;
+
+        /** Descrição da primeira divergência, ou nulo se não houve nenhuma.*/
+        String firstInconsistency;
+
+        /**
+         * Cria estatísticas vazias.
+         * @param cells Número de posições do tabuleiro.
+         */
+        Stats(int cells) {
+            this.openings = new long[cells][3];
+        }
+
+        /**
+         * Registra uma partida terminada.
+         * @param opening Posição da primeira jogada.
+         * @param winner Símbolo do vencedor, ou '\0' no empate.
+         * @param gameMoves Número de jogadas da partida.
+         */
+        void record(int opening, char winner, int gameMoves) {
+            games++;
+            moves += gameMoves;
+            int result = winner == GameFrame.CROSS ? 0 : winner == GameFrame.CIRCLE ? 1 : 2;
+            openings[opening][result]++;
+            switch (result) {
+                case 0 -> crossWins++;
+                case 1 -> circleWins++;
+                default -> draws++;
+            }
+        }
+
+        /**
+         * Registra uma divergência do motor, guardando a descrição apenas da primeira.
+         * @param description A descrição da divergência.
+         */
+        void recordInconsistency(String description) {
+            inconsistencies++;
+            if (firstInconsistency == null) {
+                firstInconsistency = description;
+            }
+        }
+
+        /**
+         * Retorna o número de partidas de uma abertura.
+         * @param position Posição da primeira jogada.
+         * @return O número de partidas.
+         */
+        long openingGames(int position) {
+            return openings[position][0] + openings[position][1] + openings[position][2];
+        }
+
+        /**
+         * Soma as estatísticas de outro conjunto de partidas a estas.
+         * @param other As outras estatísticas.
+         * @return Estas estatísticas, já somadas.
+         */
+        Stats merge(Stats other) {
+            for (int position = 0; position < openings.length; position++) {
+                for (int result = 0; result < 3; result++) {
+                    openings[position][result] += other.openings[position][result];
+                }
+            }
+            games += other.games;
+            crossWins += other.crossWins;
+            circleWins += other.circleWins;
+            draws += other.draws;
+            moves += other.moves;
+            inconsistencies += other.inconsistencies;
+            if (firstInconsistency == null) {
+                firstInconsistency = other.firstInconsistency;
+            }
+            return this;
+        }
+    }
+}
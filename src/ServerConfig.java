@@ -0,0 +1,468 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Define a classe ServerConfig, a configuração do servidor e do cliente, que permite ajustar os endereços, as portas,
+ * as opções dos sockets e o número de threads sem recompilar.
+ * Cada chave é procurada, nesta ordem, nas opções da linha de comando ("--server.port=6790"), nas propriedades do
+ * sistema ("-Dserver.port=6790") e no arquivo de propriedades; sem nenhuma delas vale o valor padrão. O arquivo é o
+ * informado pela chave "config" (na linha de comando ou nas propriedades do sistema) ou, sem ela, o "server.properties"
+ * do diretório atual, se existir.
+ * As opções dos servidores são lidas e conferidas na criação, então um valor inválido impede o início do servidor
+ * em vez de aparecer na primeira conexão.
+ * Rede: "server.bind" (endereço local do servidor, vazio para todos), "server.port" (porta do jogo; nos servidores
+ * sem interface gráfica, várias portas separadas por vírgula), "server.host" (endereço ao qual o cliente se conecta),
+ * "server.backlog" (fila de conexões pendentes), "server.workers" (threads de seletor do servidor NIO) e
+ * "socket.noDelay", "socket.keepAlive", "socket.reuseAddress", "socket.receiveBuffer" e "socket.sendBuffer" (opções
+ * das conexões aceitas).
+ * Partidas: "board.size" e "board.winLength" (dimensões do tabuleiro, até 256x256), "server.opponent" ("players",
+ * "ai" ou "tournament"), "turn.seconds" (prazo de cada jogada, zero para esperar sem limite), "heartbeat.seconds"
+ * (intervalo entre os batimentos, zero para não enviá-los) e "heartbeat.missed" (intervalos sem resposta até a
+ * conexão ser dada como morta).
+ * Chat: "chat.perSecond" (mensagens por segundo, em média, zero para não limitar), "chat.burst" (mensagens em uma
+ * rajada) e "chat.maxLength" (caracteres por mensagem).
+ * Métricas: "metrics.bind" (endereço do endpoint de coleta, por padrão apenas a própria máquina, vazio para todos) e
+ * "metrics.port" (porta do endpoint, zero para publicar apenas por JMX).
+ * Torneios: "tournament.format" ("swiss" ou "roundrobin"), "tournament.players" (inscritos para que cada torneio
+ * comece) e "tournament.rounds" (rodadas do suíço, zero para calculá-las pelo número de jogadores).
+ * Agrupamento: "cluster.dir" (diretório de salas compartilhado pelos nós; sem ele o servidor não faz parte de um
+ * agrupamento), "node.host" (endereço publicado para os outros nós) e "node.id" (identificação do nó).
+ * Término: "drain.seconds" (prazo para as partidas em andamento terminarem quando o servidor recebe o sinal de
+ * término, zero para terminar sem drenar).
+ */
+public class ServerConfig {
+
+    /** Chave do caminho do arquivo de propriedades.*/
+    public static final String FILE_KEY = "config";
+
+    /** Arquivo de propriedades lido quando a chave "config" não é informada, se existir.*/
+    public static final String DEFAULT_FILE = "server.properties";
+
+    /** Endereço padrão do servidor ao qual o cliente se conecta.*/
+    public static final String DEFAULT_HOST = "127.0.0.1";
+
+    /** Porta padrão do jogo.*/
+    public static final int DEFAULT_PORT = 6789;
+
+    /** Tamanho padrão da fila de conexões pendentes dos sockets de boas-vindas.*/
+    public static final int DEFAULT_BACKLOG = 1024;
+
+    /** Adversário padrão dos servidores sem interface gráfica: outro jogador, escolhido pelo saguão.*/
+    public static final String OPPONENT_PLAYERS = "players";
+
+    /** Adversário em que cada jogador enfrenta o computador.*/
+    public static final String OPPONENT_AI = "ai";
+
+    /** Adversário em que os jogadores disputam torneios.*/
+    public static final String OPPONENT_TOURNAMENT = "tournament";
+
+    /** Prefixo das opções da linha de comando.*/
+    private static final String FLAG_PREFIX = "--";
+
+    /** Opções informadas na linha de comando.*/
+    private final Properties flags;
+
+    /** Propriedades lidas do arquivo, vazias se não houver arquivo.*/
+    private final Properties fileProperties;
+
+    /** Argumentos da linha de comando que não são opções, na ordem em que foram informados.*/
+    private final String[] arguments;
+
+    /** Portas em que o servidor aceita conexões; a primeira é a porta principal.*/
+    private final int[] ports;
+
+    /** Endereço local em que o servidor aceita conexões, ou vazio para todos os endereços da máquina.*/
+    private final String bindHost;
+
+    /** Tamanho da fila de conexões pendentes dos sockets de boas-vindas.*/
+    private final int backlog;
+
+    /** Número de threads de seletor do servidor NIO.*/
+    private final int workers;
+
+    /** Indica se o algoritmo de Nagle é desativado nas conexões (TCP_NODELAY).*/
+    private final boolean noDelay;
+
+    /** Indica se o sistema envia sondas de atividade nas conexões ociosas (SO_KEEPALIVE).*/
+    private final boolean keepAlive;
+
+    /** Indica se a porta pode ser reaberta logo depois que o servidor termina (SO_REUSEADDR).*/
+    private final boolean reuseAddress;
+
+    /** Tamanho, em bytes, do buffer de recepção das conexões, ou zero para o padrão do sistema.*/
+    private final int receiveBuffer;
+
+    /** Tamanho, em bytes, do buffer de envio das conexões, ou zero para o padrão do sistema.*/
+    private final int sendBuffer;
+
+    /**
+     * Cria a configuração e confere as opções dos servidores.
+     * @param flags Opções informadas na linha de comando.
+     * @param fileProperties Propriedades lidas do arquivo.
+     * @param arguments Argumentos da linha de comando que não são opções.
+     * @throws IllegalArgumentException Se alguma opção dos servidores for inválida.
+     */
+    private ServerConfig(Properties flags, Properties fileProperties, String[] arguments) {
+        this.flags = flags;
+        this.fileProperties = fileProperties;
+        this.arguments = arguments;
+        this.ports = parsePorts(getString("server.port", String.valueOf(DEFAULT_PORT)));
+        this.bindHost = getString("server.bind", "");
+        this.backlog = getInt("server.backlog", DEFAULT_BACKLOG);
+        this.workers = getInt("server.workers", Runtime.getRuntime().availableProcessors());
+        // O algoritmo de Nagle fica desativado por padrão: as mensagens de cada jogada já são agrupadas em uma única
+        // escrita, então segurar o segmento à espera de mais dados só atrasaria a jogada.
+        this.noDelay = getBoolean("socket.noDelay", true);
+        this.keepAlive = getBoolean("socket.keepAlive", false);
+        this.reuseAddress = getBoolean("socket.reuseAddress", true);
+        this.receiveBuffer = getInt("socket.receiveBuffer", 0);
+        this.sendBuffer = getInt("socket.sendBuffer", 0);
+        if (backlog < 1 || workers < 1 || receiveBuffer < 0 || sendBuffer < 0) {
+            throw new IllegalArgumentException("server.backlog e server.workers devem ser positivos"
+                    + " e socket.receiveBuffer e socket.sendBuffer não podem ser negativos");
+        }
+    }
+
+    /**
+     * Lê a configuração: separa as opções da linha de comando dos demais argumentos e lê o arquivo de propriedades.
+     * @param args Argumentos da linha de comando.
+     * @return A configuração.
+     * @throws IOException Se o arquivo de propriedades informado não puder ser lido.
+     * @throws IllegalArgumentException Se uma opção estiver mal escrita ou for inválida.
+     */
+    public static ServerConfig load(String[] args) throws IOException {
+        var flags = new Properties();
+        List<String> arguments = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith(FLAG_PREFIX)) {
+                arguments.add(arg);
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (separator <= FLAG_PREFIX.length()) {
+                throw new IllegalArgumentException("Opção inválida: " + arg + " (use --chave=valor)");
+            }
+            flags.setProperty(arg.substring(FLAG_PREFIX.length(), separator), arg.substring(separator + 1));
+        }
+
+        // Lê o arquivo informado, que precisa existir, ou o arquivo padrão, se existir.
+        String file = flags.getProperty(FILE_KEY, System.getProperty(FILE_KEY));
+        Path path = Paths.get(file != null ? file : DEFAULT_FILE);
+        var fileProperties = new Properties();
+        if (file != null && !Files.isRegularFile(path)) {
+            throw new IOException("Arquivo de configuração não encontrado: " + path);
+        }
+        if (Files.isRegularFile(path)) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                fileProperties.load(reader);
+            }
+        }
+        return new ServerConfig(flags, fileProperties, arguments.toArray(new String[0]));
+    }
+
+    /**
+     * Retorna os argumentos da linha de comando que não são opções, como o modo do servidor.
+     * @return Os argumentos, na ordem em que foram informados.
+     */
+    public String[] getArguments() {
+        return arguments.clone();
+    }
+
+    /**
+     * Retorna o adversário dos jogadores nos servidores sem interface gráfica: "ai" ou "tournament", se um deles
+     * aparecer em qualquer posição depois do modo, ou, sem eles, a chave "server.opponent".
+     * @return "players", "ai" ou "tournament".
+     * @throws IllegalArgumentException Se a chave tiver outro valor.
+     */
+    public String getOpponent() {
+        for (int i = 1; i < arguments.length; i++) {
+            if (isOpponentArgument(arguments[i])) {
+                return arguments[i];
+            }
+        }
+        String opponent = getString("server.opponent", OPPONENT_PLAYERS);
+        if (!opponent.equals(OPPONENT_PLAYERS) && !isOpponentArgument(opponent)) {
+            throw invalidValue("server.opponent", opponent);
+        }
+        return opponent;
+    }
+
+    /**
+     * Retorna o tamanho do tabuleiro das partidas dos servidores sem interface gráfica: o primeiro argumento numérico
+     * depois do modo ou, sem ele, a chave "board.size".
+     * @return O número de linhas e de colunas do tabuleiro.
+     * @throws IllegalArgumentException Se o valor não for um número inteiro.
+     */
+    public int getBoardSize() {
+        return getArgumentOrInt(0, "board.size", GameStatus.DEFAULT_SIZE);
+    }
+
+    /**
+     * Retorna o número de símbolos em sequência necessários para vencer as partidas dos servidores sem interface
+     * gráfica: o segundo argumento numérico depois do modo ou, sem ele, a chave "board.winLength".
+     * @param boardSize Tamanho do tabuleiro, que limita o valor padrão.
+     * @return O número de símbolos em sequência.
+     * @throws IllegalArgumentException Se o valor não for um número inteiro.
+     */
+    public int getWinLength(int boardSize) {
+        return getArgumentOrInt(1, "board.winLength", Math.min(boardSize, GameStatus.DEFAULT_WIN_LENGTH));
+    }
+
+    /**
+     * Retorna o valor inteiro de uma das dimensões do tabuleiro informadas depois do modo ou, se ela não foi
+     * informada, de uma chave. O adversário ("ai" ou "tournament") não conta como dimensão, em qualquer posição.
+     * @param index Posição da dimensão entre os argumentos depois do modo, sem contar o adversário.
+     * @param key A chave equivalente ao argumento.
+     * @param defaultValue Valor usado se nem o argumento nem a chave forem informados.
+     * @return O valor do argumento ou da chave, ou o valor padrão.
+     * @throws IllegalArgumentException Se o valor não for um número inteiro.
+     */
+    private int getArgumentOrInt(int index, String key, int defaultValue) {
+        int position = 0;
+        for (int i = 1; i < arguments.length; i++) {
+            if (isOpponentArgument(arguments[i]) || position++ != index) {
+                continue;
+            }
+            try {
+                return Integer.parseInt(arguments[i]);
+            } catch (NumberFormatException ex) {
+                throw invalidValue(key, arguments[i]);
+            }
+        }
+        return getInt(key, defaultValue);
+    }
+
+    /**
+     * Verifica se um argumento escolhe o adversário dos jogadores.
+     * @param argument O argumento.
+     * @return Verdadeiro para "ai" e "tournament".
+     */
+    private static boolean isOpponentArgument(String argument) {
+        return argument.equals(OPPONENT_AI) || argument.equals(OPPONENT_TOURNAMENT);
+    }
+
+    /**
+     * Retorna o valor de uma chave, sem os espaços das pontas.
+     * @param key A chave.
+     * @param defaultValue Valor usado se a chave não for informada.
+     * @return O valor da chave, ou o valor padrão.
+     */
+    public String getString(String key, String defaultValue) {
+        String value = flags.getProperty(key);
+        if (value == null) {
+            value = System.getProperty(key);
+        }
+        if (value == null) {
+            value = fileProperties.getProperty(key);
+        }
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    /**
+     * Retorna o valor inteiro de uma chave.
+     * @param key A chave.
+     * @param defaultValue Valor usado se a chave não for informada.
+     * @return O valor da chave, ou o valor padrão.
+     * @throws IllegalArgumentException Se o valor não for um número inteiro.
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException ex) {
+            throw invalidValue(key, value);
+        }
+    }
+
+    /**
+     * Retorna o valor inteiro longo de uma chave.
+     * @param key A chave.
+     * @param defaultValue Valor usado se a chave não for informada.
+     * @return O valor da chave, ou o valor padrão.
+     * @throws IllegalArgumentException Se o valor não for um número inteiro.
+     */
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        try {
+            return value != null ? Long.parseLong(value) : defaultValue;
+        } catch (NumberFormatException ex) {
+            throw invalidValue(key, value);
+        }
+    }
+
+    /**
+     * Retorna o valor decimal de uma chave.
+     * @param key A chave.
+     * @param defaultValue Valor usado se a chave não for informada.
+     * @return O valor da chave, ou o valor padrão.
+     * @throws IllegalArgumentException Se o valor não for um número.
+     */
+    public double getDouble(String key, double defaultValue) {
+        String value = getString(key, null);
+        try {
+            return value != null ? Double.parseDouble(value) : defaultValue;
+        } catch (NumberFormatException ex) {
+            throw invalidValue(key, value);
+        }
+    }
+
+    /**
+     * Retorna o valor lógico de uma chave, que deve ser "true" ou "false".
+     * @param key A chave.
+     * @param defaultValue Valor usado se a chave não for informada.
+     * @return O valor da chave, ou o valor padrão.
+     * @throws IllegalArgumentException Se o valor não for "true" nem "false".
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+            throw invalidValue(key, value);
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Retorna o endereço do servidor ao qual o cliente se conecta, da chave "server.host".
+     * @return O endereço do servidor.
+     */
+    public String getHost() {
+        return getString("server.host", DEFAULT_HOST);
+    }
+
+    /**
+     * Retorna as portas em que o servidor aceita conexões, da chave "server.port" (várias separadas por vírgula).
+     * @return As portas; a primeira é a porta principal, publicada para os outros nós do agrupamento.
+     */
+    public int[] getPorts() {
+        return ports.clone();
+    }
+
+    /**
+     * Retorna a porta principal do servidor, que é também a porta padrão do cliente.
+     * @return A primeira porta da chave "server.port".
+     */
+    public int getPort() {
+        return ports[0];
+    }
+
+    /**
+     * Retorna o número de threads de seletor do servidor NIO, da chave "server.workers".
+     * @return O número de threads de seletor.
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Abre um socket de boas-vindas no endereço da chave "server.bind" e em uma porta.
+     * @param port A porta.
+     * @return O socket de boas-vindas, já aguardando conexões.
+     * @throws IOException Se o socket não puder ser aberto, como quando a porta já está em uso.
+     */
+    public ServerSocket openListener(int port) throws IOException {
+        var welcomeSocket = new ServerSocket();
+        try {
+            bind(welcomeSocket, port);
+            return welcomeSocket;
+        } catch (IOException | RuntimeException ex) {
+            welcomeSocket.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Ajusta as opções de um socket de boas-vindas e o associa ao endereço da chave "server.bind" e a uma porta.
+     * Serve também ao socket do canal de boas-vindas do servidor NIO.
+     * O buffer de recepção é ajustado antes da associação, para que valha para as conexões aceitas desde o início,
+     * inclusive na negociação da janela do TCP.
+     * @param welcomeSocket O socket de boas-vindas, ainda não associado.
+     * @param port A porta.
+     * @throws IOException Se o socket não puder ser associado.
+     */
+    public void bind(ServerSocket welcomeSocket, int port) throws IOException {
+        welcomeSocket.setOption(StandardSocketOptions.SO_REUSEADDR, reuseAddress);
+        if (receiveBuffer > 0) {
+            welcomeSocket.setOption(StandardSocketOptions.SO_RCVBUF, receiveBuffer);
+        }
+        var address = bindHost.isEmpty() ? new InetSocketAddress(port) : new InetSocketAddress(bindHost, port);
+        if (address.isUnresolved()) {
+            throw new IOException("Endereço desconhecido: " + bindHost);
+        }
+        welcomeSocket.bind(address, backlog);
+    }
+
+    /**
+     * Ajusta as opções de uma conexão aceita: TCP_NODELAY, SO_KEEPALIVE e os tamanhos dos buffers.
+     * @param socket O socket da conexão.
+     * @throws IOException Se alguma opção não puder ser ajustada.
+     */
+    public void configureConnection(Socket socket) throws IOException {
+        socket.setOption(StandardSocketOptions.TCP_NODELAY, noDelay);
+        socket.setOption(StandardSocketOptions.SO_KEEPALIVE, keepAlive);
+        if (receiveBuffer > 0) {
+            socket.setOption(StandardSocketOptions.SO_RCVBUF, receiveBuffer);
+        }
+        if (sendBuffer > 0) {
+            socket.setOption(StandardSocketOptions.SO_SNDBUF, sendBuffer);
+        }
+    }
+
+    /**
+     * Descreve o endereço em que o servidor aceita conexões em uma porta, para as mensagens do console.
+     * @param port A porta.
+     * @return O endereço e a porta.
+     */
+    public String describeListener(int port) {
+        return (bindHost.isEmpty() ? "*" : bindHost) + ":" + port;
+    }
+
+    /**
+     * Interpreta a lista de portas da chave "server.port".
+     * @param value As portas, separadas por vírgula.
+     * @return As portas, sem repetições.
+     * @throws IllegalArgumentException Se alguma porta for inválida ou repetida.
+     */
+    private static int[] parsePorts(String value) {
+        String[] parts = value.split(",");
+        int[] parsed = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                parsed[i] = Integer.parseInt(parts[i].trim());
+            } catch (NumberFormatException ex) {
+                throw invalidValue("server.port", value);
+            }
+            if (parsed[i] < 0 || parsed[i] > 65535) {
+                throw invalidValue("server.port", value);
+            }
+        }
+        if (Arrays.stream(parsed).distinct().count() != parsed.length) {
+            throw new IllegalArgumentException("Porta repetida em server.port: " + value);
+        }
+        return parsed;
+    }
+
+    /**
+     * Cria a exceção de um valor inválido.
+     * @param key A chave.
+     * @param value O valor informado.
+     * @return A exceção, com a chave e o valor na mensagem.
+     */
+    private static IllegalArgumentException invalidValue(String key, String value) {
+        return new IllegalArgumentException("Valor inválido para " + key + ": " + value);
+    }
+}
@@ -0,0 +1,391 @@
+import com.sun.net.httpserver.HttpServer;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Define a classe ServerMetrics, que reúne as métricas dos servidores sem interface gráfica: conexões aceitas,
+ * mensagens recebidas e enviadas por tipo, bytes nos sockets e o tempo de repasse das jogadas, isto é, da leitura
+ * da jogada até a escrita dela no socket do oponente.
+ * Os contadores são somadores com células por thread (LongAdder) e o tempo de repasse fica em um LatencyHistogram,
+ * então o registro não aloca memória nem disputa bloqueios no caminho das mensagens.
+ * As métricas são publicadas por JMX e em um endpoint HTTP de texto ("/metrics"), no formato de exposição do
+ * Prometheus, junto com os contadores das salas e das escritas agrupadas.
+ */
+public final class ServerMetrics {
+
+    /** Porta padrão do endpoint de coleta.*/
+    public static final int DEFAULT_PORT = 9100;
+
+    /** Endereço padrão do endpoint de coleta: apenas a própria máquina.*/
+    public static final String DEFAULT_BIND = "127.0.0.1";
+
+    /** Caminho do endpoint de coleta.*/
+    public static final String PATH = "/metrics";
+
+    /** Nome com que as métricas são registradas no servidor JMX da plataforma.*/
+    private static final String OBJECT_NAME = "TicTacToe:type=ServerMetrics";
+
+    /** Nome de cada tipo de mensagem, pelo código do protocolo binário, ou nulo para os códigos não contados.*/
+    private static final String[] TYPE_NAMES = {null, "move", null, "won", "draw", "chat", "end", "ping", "pong"};
+
+    /** Número de conexões aceitas.*/
+    private static final LongAdder connectionsAccepted = new LongAdder();
+
+    /** Mensagens recebidas dos jogadores, pelo código do protocolo binário.*/
+    private static final LongAdder[] received = newCounters();
+
+    /** Mensagens enviadas aos jogadores, pelo código do protocolo binário.*/
+    private static final LongAdder[] sent = newCounters();
+
+    /** Número de bytes recebidos dos jogadores.*/
+    private static final LongAdder bytesReceived = new LongAdder();
+
+    /** Número de bytes enviados aos jogadores e espectadores.*/
+    private static final LongAdder bytesSent = new LongAdder();
+
+    /** Tempos de repasse das jogadas.*/
+    private static final LatencyHistogram moveRelay = new LatencyHistogram();
+
+    /**
+     * Construtor privado, pois a classe só possui membros estáticos.
+     */
+    private ServerMetrics() {
+    }
+
+    /**
+     * Cria um contador para cada código do protocolo binário.
+     * @return Os contadores, indexados pelo código.
+     */
+    private static LongAdder[] newCounters() {
+        var counters = new LongAdder[TYPE_NAMES.length];
+        for (int type = 0; type < counters.length; type++) {
+            counters[type] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /**
+     * Registra uma conexão aceita.
+     */
+    public static void recordAccepted() {
+        connectionsAccepted.increment();
+    }
+
+    /**
+     * Registra uma mensagem recebida de um jogador. Os tipos que não são mensagens do jogo, como a negociação
+     * do protocolo, são ignorados.
+     * @param type O código da mensagem no protocolo binário (a jogada larga conta como jogada).
+     */
+    public static void recordReceived(int type) {
+        int index = type == BinaryProtocol.MOVE_WIDE ? BinaryProtocol.MOVE : type;
+        if (index > 0 && index < received.length) {
+            received[index].increment();
+        }
+    }
+
+    /**
+     * Registra uma mensagem enviada a um jogador.
+     * @param type O código da mensagem no protocolo binário.
+     */
+    public static void recordSent(int type) {
+        sent[type].increment();
+    }
+
+    /**
+     * Registra bytes recebidos dos jogadores.
+     * @param bytes O número de bytes.
+     */
+    public static void recordBytesReceived(long bytes) {
+        bytesReceived.add(bytes);
+    }
+
+    /**
+     * Registra bytes enviados aos jogadores ou espectadores.
+     * @param bytes O número de bytes.
+     */
+    public static void recordBytesSent(long bytes) {
+        bytesSent.add(bytes);
+    }
+
+    /**
+     * Registra o tempo de repasse de uma jogada.
+     * @param nanos O tempo, em nanossegundos, da leitura da jogada até a escrita no socket do oponente.
+     */
+    public static void recordMoveRelay(long nanos) {
+        moveRelay.record(nanos);
+    }
+
+    /**
+     * Envolve o fluxo de entrada de uma conexão, contando os bytes lidos.
+     * @param input O fluxo de entrada do socket.
+     * @return O fluxo que conta os bytes.
+     */
+    public static InputStream meter(InputStream input) {
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                int value = super.read();
+                if (value >= 0) {
+                    bytesReceived.increment();
+                }
+                return value;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int count = super.read(buffer, offset, length);
+                if (count > 0) {
+                    bytesReceived.add(count);
+                }
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Envolve o fluxo de saída de uma conexão, contando os bytes escritos.
+     * @param output O fluxo de saída do socket.
+     * @return O fluxo que conta os bytes.
+     */
+    public static OutputStream meter(OutputStream output) {
+        return new FilterOutputStream(output) {
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                // Escreve o bloco inteiro de uma vez; o FilterOutputStream escreveria byte a byte.
+                out.write(buffer, offset, length);
+                bytesSent.add(length);
+            }
+        };
+    }
+
+    /**
+     * Publica as métricas por JMX e, se a porta for maior que zero, no endpoint de coleta.
+     * Falhas são exibidas no console e não impedem o servidor de continuar.
+     * @param bindHost Endereço local do endpoint de coleta, ou vazio para todos os endereços da máquina.
+     * @param port A porta do endpoint de coleta, ou zero para publicar apenas por JMX.
+     */
+    public static void start(String bindHost, int port) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new StandardMBean(new View(), ServerMetricsMBean.class), new ObjectName(OBJECT_NAME));
+        } catch (JMException ex) {
+            System.out.println(ex.getMessage());
+        }
+        if (port <= 0) {
+            return;
+        }
+        try {
+            var address = bindHost.isEmpty() ? new InetSocketAddress(port) : new InetSocketAddress(bindHost, port);
+            if (address.isUnresolved()) {
+                throw new IOException("Endereço desconhecido: " + bindHost);
+            }
+            HttpServer server = HttpServer.create(address, 0);
+            server.createContext(PATH, exchange -> {
+                byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(body);
+                }
+            });
+            server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-http");
+                thread.setDaemon(true);
+                return thread;
+            }));
+            server.start();
+            InetSocketAddress bound = server.getAddress();
+            String host = bound.getAddress().isAnyLocalAddress() ? "*" : bound.getAddress().getHostAddress();
+            System.out.println("Métricas em http://" + host + ":" + bound.getPort() + PATH);
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Monta o texto do endpoint de coleta, no formato de exposição do Prometheus: uma linha "# TYPE" por métrica,
+     * seguida de uma linha por série. Os tempos são exibidos em segundos.
+     * @return As métricas, uma por linha.
+     */
+    public static String scrape() {
+        var text = new StringBuilder(2048);
+        appendMetric(text, "connections_accepted_total", "counter", connectionsAccepted.sum());
+        appendMetric(text, "active_rooms", "gauge", GameRoom.getActiveRooms());
+        appendMetric(text, "spectators", "gauge", SpectatorFeed.getActiveSpectators());
+        appendByType(text, "messages_received_total", received);
+        appendByType(text, "messages_sent_total", sent);
+        appendMetric(text, "bytes_received_total", "counter", bytesReceived.sum());
+        appendMetric(text, "bytes_sent_total", "counter", bytesSent.sum());
+        appendMetric(text, "socket_writes_total", "counter", OutboundStats.getWrites());
+        appendMetric(text, "rejected_moves_total", "counter", GameRoom.getRejectedMoves());
+        appendMetric(text, "resumed_sessions_total", "counter", GameRoom.getResumedSessions());
+        appendMetric(text, "expired_sessions_total", "counter", GameRoom.getExpiredSessions());
+        appendMetric(text, "reaped_connections_total", "counter", GameRoom.getReapedConnections());
+        appendMetric(text, "forfeited_rooms_total", "counter", GameRoom.getForfeitedRooms());
+        appendMetric(text, "draining", "gauge", GameRoom.isDraining() ? 1 : 0);
+        appendMetric(text, "drained_rooms_total", "counter", GameRoom.getDrainedRooms());
+        appendMetric(text, "force_closed_rooms_total", "counter", GameRoom.getForceClosedRooms());
+        appendMetric(text, "chat_dropped_total", "counter", GameRoom.getDroppedChats());
+        appendMetric(text, "chat_truncated_total", "counter", GameRoom.getTruncatedChats());
+        appendMetric(text, "cluster_forwarded_players_total", "counter", ClusterNode.getForwardedPlayers());
+        appendMetric(text, "cluster_links", "gauge", ClusterNode.getActiveLinks());
+        appendMetric(text, "tournament_rounds_total", "counter", Tournament.getCompletedRounds());
+        appendMetric(text, "tournament_matches_total", "counter", Tournament.getCompletedMatches());
+
+        text.append("# TYPE tictactoe_move_relay_seconds summary\n");
+        for (double quantile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            text.append("tictactoe_move_relay_seconds{quantile=\"").append(quantile).append("\"} ")
+                    .append(seconds(moveRelay.getPercentile(quantile * 100))).append('\n');
+        }
+        text.append("tictactoe_move_relay_seconds_sum ").append(seconds(moveRelay.getTotalNanos())).append('\n');
+        text.append("tictactoe_move_relay_seconds_count ").append(moveRelay.getCount()).append('\n');
+        text.append("# TYPE tictactoe_move_relay_max_seconds gauge\n");
+        text.append("tictactoe_move_relay_max_seconds ").append(seconds(moveRelay.getMaxNanos())).append('\n');
+        return text.toString();
+    }
+
+    /**
+     * Acrescenta uma métrica com uma única série ao texto do endpoint.
+     * @param text O texto do endpoint.
+     * @param name O nome da métrica, sem o prefixo.
+     * @param type O tipo da métrica ("counter" ou "gauge").
+     * @param value O valor.
+     */
+    private static void appendMetric(StringBuilder text, String name, String type, long value) {
+        text.append("# TYPE tictactoe_").append(name).append(' ').append(type).append('\n');
+        text.append("tictactoe_").append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Acrescenta um contador com uma série por tipo de mensagem ao texto do endpoint.
+     * @param text O texto do endpoint.
+     * @param name O nome da métrica, sem o prefixo.
+     * @param counters Os contadores, pelo código do protocolo binário.
+     */
+    private static void appendByType(StringBuilder text, String name, LongAdder[] counters) {
+        text.append("# TYPE tictactoe_").append(name).append(" counter\n");
+        for (int type = 0; type < counters.length; type++) {
+            if (TYPE_NAMES[type] != null) {
+                text.append("tictactoe_").append(name).append("{type=\"").append(TYPE_NAMES[type]).append("\"} ")
+                        .append(counters[type].sum()).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Formata um tempo em segundos, com precisão de nanossegundos.
+     * @param nanos O tempo, em nanossegundos.
+     * @return O tempo em segundos ("0.000123456").
+     */
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    /**
+     * Define a classe View, a visão das métricas publicada por JMX.
+     */
+    private static final class View implements ServerMetricsMBean {
+
+        @Override
+        public long getConnectionsAccepted() {
+            return connectionsAccepted.sum();
+        }
+
+        @Override
+        public int getActiveRooms() {
+            return GameRoom.getActiveRooms();
+        }
+
+        @Override
+        public long getMovesReceived() {
+            return received[BinaryProtocol.MOVE].sum();
+        }
+
+        @Override
+        public long getChatsReceived() {
+            return received[BinaryProtocol.CHAT].sum();
+        }
+
+        @Override
+        public long getEndsReceived() {
+            return received[BinaryProtocol.END].sum();
+        }
+
+        @Override
+        public long getMovesSent() {
+            return sent[BinaryProtocol.MOVE].sum();
+        }
+
+        @Override
+        public long getChatsSent() {
+            return sent[BinaryProtocol.CHAT].sum();
+        }
+
+        @Override
+        public long getWinsSent() {
+            return sent[BinaryProtocol.WON].sum();
+        }
+
+        @Override
+        public long getDrawsSent() {
+            return sent[BinaryProtocol.DRAW].sum();
+        }
+
+        @Override
+        public long getEndsSent() {
+            return sent[BinaryProtocol.END].sum();
+        }
+
+        @Override
+        public long getBytesReceived() {
+            return bytesReceived.sum();
+        }
+
+        @Override
+        public long getBytesSent() {
+            return bytesSent.sum();
+        }
+
+        @Override
+        public long getMoveRelayCount() {
+            return moveRelay.getCount();
+        }
+
+        @Override
+        public long getMoveRelayP50Micros() {
+            return moveRelay.getPercentile(50) / 1000;
+        }
+
+        @Override
+        public long getMoveRelayP99Micros() {
+            return moveRelay.getPercentile(99) / 1000;
+        }
+
+        @Override
+        public long getMoveRelayP999Micros() {
+            return moveRelay.getPercentile(99.9) / 1000;
+        }
+
+        @Override
+        public long getMoveRelayMaxMicros() {
+            return moveRelay.getMaxNanos() / 1000;
+        }
+
+        @Override
+        public String scrape() {
+            return ServerMetrics.scrape();
+        }
+    }
+}
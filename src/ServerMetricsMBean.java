@@ -0,0 +1,114 @@
+/**
+ * Define a interface ServerMetricsMBean, a visão das métricas do servidor publicada por JMX (por exemplo, no JConsole,
+ * em "TicTacToe:type=ServerMetrics"). Cada atributo é lido dos contadores no momento da consulta.
+ */
+public interface ServerMetricsMBean {
+
+    /**
+     * Retorna o número de conexões aceitas desde o início do servidor.
+     * @return O número de conexões.
+     */
+    long getConnectionsAccepted();
+
+    /**
+     * Retorna o número de salas abertas.
+     * @return O número de salas.
+     */
+    int getActiveRooms();
+
+    /**
+     * Retorna o número de jogadas recebidas dos jogadores.
+     * @return O número de jogadas.
+     */
+    long getMovesReceived();
+
+    /**
+     * Retorna o número de mensagens de chat recebidas dos jogadores.
+     * @return O número de mensagens.
+     */
+    long getChatsReceived();
+
+    /**
+     * Retorna o número de términos recebidos dos jogadores.
+     * @return O número de términos.
+     */
+    long getEndsReceived();
+
+    /**
+     * Retorna o número de jogadas repassadas aos jogadores.
+     * @return O número de jogadas.
+     */
+    long getMovesSent();
+
+    /**
+     * Retorna o número de mensagens de chat repassadas aos jogadores.
+     * @return O número de mensagens.
+     */
+    long getChatsSent();
+
+    /**
+     * Retorna o número de vitórias enviadas aos jogadores.
+     * @return O número de vitórias.
+     */
+    long getWinsSent();
+
+    /**
+     * Retorna o número de empates enviados aos jogadores.
+     * @return O número de empates.
+     */
+    long getDrawsSent();
+
+    /**
+     * Retorna o número de términos enviados aos jogadores.
+     * @return O número de términos.
+     */
+    long getEndsSent();
+
+    /**
+     * Retorna o número de bytes recebidos dos jogadores.
+     * @return O número de bytes.
+     */
+    long getBytesReceived();
+
+    /**
+     * Retorna o número de bytes enviados aos jogadores e espectadores.
+     * @return O número de bytes.
+     */
+    long getBytesSent();
+
+    /**
+     * Retorna o número de jogadas repassadas com o tempo medido.
+     * @return O número de jogadas.
+     */
+    long getMoveRelayCount();
+
+    /**
+     * Retorna a mediana do tempo de repasse das jogadas.
+     * @return O tempo, em microssegundos.
+     */
+    long getMoveRelayP50Micros();
+
+    /**
+     * Retorna o percentil 99 do tempo de repasse das jogadas.
+     * @return O tempo, em microssegundos.
+     */
+    long getMoveRelayP99Micros();
+
+    /**
+     * Retorna o percentil 99,9 do tempo de repasse das jogadas.
+     * @return O tempo, em microssegundos.
+     */
+    long getMoveRelayP999Micros();
+
+    /**
+     * Retorna o maior tempo de repasse de uma jogada.
+     * @return O tempo, em microssegundos.
+     */
+    long getMoveRelayMaxMicros();
+
+    /**
+     * Retorna todas as métricas no formato de texto do endpoint de coleta.
+     * @return As métricas, uma por linha.
+     */
+    String scrape();
+}
@@ -0,0 +1,281 @@
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+
+/**
+ * Define a classe SocketPlayerConnection, que representa a conexão bloqueante de um jogador com o servidor.
+ * A leitura é feita por uma tarefa da sala, em uma thread virtual ou de plataforma, com código no estilo bloqueante.
+ * A conexão começa no protocolo de texto e passa para o protocolo binário quando o jogador o negocia.
+ * Uma conexão aberta para retomar uma partida ("RESUME ficha última") substitui a conexão que caiu no lugar do jogador.
+ * O jogador repassado a outro nó do agrupamento tem os seus bytes lidos por uma thread virtual, que os repassa pela
+ * ligação (NodeLink) sem interpretá-los.
+ */
+public class SocketPlayerConnection implements PlayerConnection {
+
+    /** Socket de comunicação com o jogador.*/
+    private final Socket socket;
+
+    /** Leitor das mensagens enviadas pelo jogador.*/
+    private final ProtocolReader inFromPlayer;
+
+    /** Escritor das mensagens enviadas ao jogador, que serializa as escritas sem fixar a thread virtual.*/
+    private final ProtocolWriter outToPlayer;
+
+    /** Sala em que o jogador está participando.*/
+    private volatile GameRoom room;
+
+    /** Ligação com o nó do agrupamento em que fica a sala do jogador repassado, ou nulo se a sala é deste nó.*/
+    private volatile NodeLink link;
+
+    /** Nota de habilidade informada pelo jogador.*/
+    private volatile int rating = GameLobby.DEFAULT_RATING;
+
+    /** Sala pedida pelo cliente que quer assistir em vez de jogar, ou nulo se ele vai jogar.*/
+    private String watchRequest;
+
+    /** Linha de retomada enviada pelo jogador que caiu e voltou, ou nulo se ele está começando uma partida.*/
+    private String resumeRequest;
+
+    /** Instante, em nanossegundos, da última mensagem recebida do jogador.*/
+    private volatile long lastReceivedNanos = System.nanoTime();
+
+    /**
+     * Cria a conexão de um jogador a partir de um socket aceito pelo servidor.
+     * @param socket Socket de comunicação com o jogador.
+     * @throws IOException Exceção de E/S que pode ocorrer ao abrir os fluxos.
+     */
+    public SocketPlayerConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        this.inFromPlayer = new ProtocolReader(ServerMetrics.meter(socket.getInputStream()));
+        this.outToPlayer = new ProtocolWriter(ServerMetrics.meter(socket.getOutputStream()));
+    }
+
+    /**
+     * Aguarda, por pouco tempo, a linha opcional que os clientes enviam logo após conectar: a nota do jogador,
+     * o pedido para assistir a uma sala ou a retomada de uma partida. Quem não envia nada entra no saguão com a nota padrão ao fim da espera.
+     * Outras mensagens recebidas antes do início da partida são descartadas, como no servidor NIO.
+     * @param timeoutMillis Tempo máximo de espera, em milissegundos.
+     * @return Falso se o jogador encerrou a conexão, verdadeiro caso contrário.
+     */
+    public boolean readGreeting(int timeoutMillis) {
+        try {
+            socket.setSoTimeout(timeoutMillis);
+            int type = inFromPlayer.next();
+            if (type == ProtocolReader.RATING) {
+                rating = GameLobby.parseRating(inFromPlayer.getText(), rating);
+            } else if (type == ProtocolReader.WATCH) {
+                watchRequest = inFromPlayer.getText();
+            } else if (type == ProtocolReader.RESUME) {
+                resumeRequest = inFromPlayer.getText();
+            }
+            socket.setSoTimeout(0);
+            return type != ProtocolReader.EOF;
+        } catch (SocketTimeoutException ex) {
+            // O jogador não informou a nota a tempo; a leitura volta a aguardar sem limite de tempo.
+            try {
+                socket.setSoTimeout(0);
+                return true;
+            } catch (IOException closed) {
+                return false;
+            }
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Lê as mensagens do jogador e as entrega à sala até que ele saia da partida ou a conexão seja fechada.
+     * Se o jogador enviou o término, encerra a sala, avisando o oponente; se a conexão caiu, a sala aguarda
+     * a reconexão do jogador pelo prazo de retomada.
+     * @return Verdadeiro se o jogador saiu da partida, falso se a conexão caiu ou foi fechada.
+     */
+    public boolean readMessages() {
+        boolean left = false;
+        try {
+            // Aguarda mensagens do jogador e as repassa à sala.
+            int type;
+            while ((type = inFromPlayer.next()) != ProtocolReader.EOF) {
+                lastReceivedNanos = System.nanoTime();
+                ServerMetrics.recordReceived(type);
+                switch (type) {
+                    // Confirma a negociação imediatamente; a partir daqui as mensagens são binárias nos dois sentidos.
+                    case ProtocolReader.NEGOTIATION -> {
+                        outToPlayer.negotiateBinary();
+                        flush();
+                    }
+                    case BinaryProtocol.MOVE -> room.handleMove(this, inFromPlayer.getPosition());
+                    case BinaryProtocol.CHAT -> room.handleChat(this, inFromPlayer.getText());
+                    case BinaryProtocol.END -> {
+                        left = true;
+                        return true;
+                    }
+                    // Resultados enviados pelo jogador são descartados, pois a sala decide a vitória e o empate, e as
+                    // respostas aos batimentos só contam como sinal de vida.
+                    default -> { }
+                }
+                // Escreve as respostas quando não há mais mensagens recebidas, agrupando as de uma rajada.
+                if (!inFromPlayer.hasBufferedInput()) {
+                    room.flush();
+                }
+            }
+        } catch (IOException ex) {
+            // A conexão foi fechada, pelo jogador ou pelo encerramento da sala, ou o jogador violou o protocolo.
+        } finally {
+            // Encerra a sala, avisando o oponente da saída do jogador, ou reserva o lugar de quem caiu.
+            if (left) {
+                room.close(this);
+            } else {
+                room.disconnect(this);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Passa a repassar os bytes do jogador pela ligação com o outro nó, em uma thread virtual que lê o socket até
+     * que um dos lados encerre a conexão.
+     * @param link A ligação com o outro nó.
+     * @return Falso se o socket já foi fechado.
+     */
+    @Override
+    public boolean startRelay(NodeLink link) {
+        if (socket.isClosed()) {
+            return false;
+        }
+        this.link = link;
+        Thread.ofVirtual().name("node-relay").start(() -> {
+            byte[] buffer = new byte[4096];
+            try {
+                int bytesRead;
+                while ((bytesRead = inFromPlayer.readRaw(buffer)) >= 0) {
+                    lastReceivedNanos = System.nanoTime();
+                    if (!link.forward(ByteBuffer.wrap(buffer, 0, bytesRead))) {
+                        break;
+                    }
+                }
+            } catch (IOException ex) {
+                // O jogador saiu ou a ligação foi encerrada, o que fecha o socket.
+            } finally {
+                link.close();
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public void sendRelayed(byte[] bytes, int length) {
+        outToPlayer.writeRaw(bytes, length);
+        flush();
+    }
+
+    /**
+     * Enfileira uma linha de texto para o jogador, independentemente do protocolo negociado.
+     * @param message A mensagem a ser enviada, sem a quebra de linha.
+     */
+    @Override
+    public void send(String message) {
+        outToPlayer.writeText(message);
+    }
+
+    @Override
+    public void sendMove(int position) {
+        outToPlayer.writeMove(position);
+    }
+
+    @Override
+    public void sendWinner(char playerId) {
+        outToPlayer.writeWinner(playerId);
+    }
+
+    @Override
+    public void sendDraw() {
+        outToPlayer.writeDraw();
+    }
+
+    @Override
+    public void sendChat(String message) {
+        outToPlayer.writeChat(message);
+    }
+
+    @Override
+    public void sendEnd() {
+        outToPlayer.writeEnd();
+    }
+
+    @Override
+    public void sendPing() {
+        outToPlayer.writePing();
+    }
+
+    /**
+     * Escreve no socket as mensagens enfileiradas com uma única escrita.
+     */
+    @Override
+    public void flush() {
+        try {
+            outToPlayer.flush();
+        } catch (IOException ex) {
+            // Fecha o socket se a escrita falhar; a tarefa de leitura encerrará a sala.
+            close();
+        }
+    }
+
+    /**
+     * Fecha o socket do jogador, o que também interrompe a leitura bloqueada em andamento, e a ligação com o
+     * outro nó, se houver.
+     */
+    @Override
+    public void close() {
+        // Verifica se o socket ainda está aberto.
+        if (!socket.isClosed()) {
+            try {
+                // Fecha o socket.
+                socket.close();
+            } catch (IOException ex) {
+                // Exibe mensagem de erro no console se houver uma exceção ao fechar o socket.
+                System.out.println(ex.getMessage());
+            }
+        }
+        NodeLink currentLink = link;
+        if (currentLink != null) {
+            currentLink.close();
+        }
+    }
+
+    /**
+     * Retorna a sala pedida pelo cliente que quer assistir em vez de jogar.
+     * @return O número da sala, vazio para qualquer sala, ou nulo se o cliente vai jogar.
+     */
+    public String getWatchRequest() {
+        return watchRequest;
+    }
+
+    /**
+     * Retorna a linha de retomada enviada pelo jogador ao conectar.
+     * @return A linha ("RESUME ficha última"), ou nulo se o jogador está começando uma partida.
+     */
+    public String getResumeRequest() {
+        return resumeRequest;
+    }
+
+    @Override
+    public long getLastReceivedNanos() {
+        return lastReceivedNanos;
+    }
+
+    @Override
+    public int getRating() {
+        return rating;
+    }
+
+    @Override
+    public GameRoom getRoom() {
+        return room;
+    }
+
+    @Override
+    public void setRoom(GameRoom room) {
+        this.room = room;
+    }
+}
@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Condition;
+
+/**
+ * Define a classe SocketSpectatorConnection, que representa a conexão bloqueante de um espectador.
+ * Quem publica uma mensagem apenas a enfileira e sinaliza a tarefa de escrita do espectador, que escreve a fila
+ * no socket com código no estilo bloqueante; assim uma escrita lenta bloqueia apenas a thread do espectador.
+ */
+public class SocketSpectatorConnection extends SpectatorConnection {
+
+    /** Socket de comunicação com o espectador.*/
+    private final Socket socket;
+
+    /** Canal de escrita sobre o fluxo de saída do socket, que aceita os buffers compartilhados.*/
+    private final WritableByteChannel outToSpectator;
+
+    /** Condição sinalizada quando há mensagens na fila ou a conexão é encerrada.*/
+    private final Condition messagesQueued = lock.newCondition();
+
+    /**
+     * Cria a conexão de um espectador a partir de um socket aceito pelo servidor.
+     * @param socket Socket de comunicação com o espectador.
+     * @throws IOException Exceção de E/S que pode ocorrer ao abrir o fluxo de saída.
+     */
+    public SocketSpectatorConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        this.outToSpectator = Channels.newChannel(socket.getOutputStream());
+    }
+
+    /**
+     * Inicia a tarefa que escreve a fila no socket e lê o socket até o espectador sair, descartando o que ele enviar.
+     * Bloqueia a thread atual até a saída do espectador.
+     * @param executor Executor que roda a tarefa de escrita.
+     */
+    public void serve(Executor executor) {
+        executor.execute(this::writeMessages);
+        try {
+            InputStream input = socket.getInputStream();
+            byte[] discarded = new byte[256];
+            while (input.read(discarded) >= 0) {
+                // O espectador não participa da partida.
+            }
+        } catch (IOException ex) {
+            // A conexão foi fechada, pelo espectador ou pelo encerramento da sala.
+        } finally {
+            leave();
+        }
+    }
+
+    /**
+     * Escreve as mensagens da fila no socket até a conexão ser encerrada.
+     * As mensagens são retiradas da fila sob o bloqueio e escritas fora dele, para não atrasar quem publica.
+     */
+    private void writeMessages() {
+        List<ByteBuffer> batch = new ArrayList<>();
+        try {
+            while (true) {
+                boolean last;
+                lock.lock();
+                try {
+                    while (outbound.isEmpty() && !closed) {
+                        messagesQueued.await();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    batch.addAll(outbound);
+                    outbound.clear();
+                    last = finishing;
+                } finally {
+                    lock.unlock();
+                }
+
+                for (ByteBuffer message : batch) {
+                    while (message.hasRemaining()) {
+                        ServerMetrics.recordBytesSent(outToSpectator.write(message));
+                    }
+                }
+                batch.clear();
+                lock.lock();
+                try {
+                    recordProgress();
+                } finally {
+                    lock.unlock();
+                }
+                if (last) {
+                    break;
+                }
+            }
+        } catch (IOException ex) {
+            // O espectador saiu ou o socket foi fechado.
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        leave();
+    }
+
+    /**
+     * Sinaliza a tarefa de escrita.
+     */
+    @Override
+    protected void requestWrite() {
+        lock.lock();
+        try {
+            messagesQueued.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fecha o socket, o que também desbloqueia a leitura e a escrita em andamento.
+     */
+    @Override
+    protected void closeSocket() {
+        lock.lock();
+        try {
+            messagesQueued.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            // Exibe mensagem de erro no console se houver uma exceção ao fechar o socket.
+            System.out.println(ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Define a classe SpectatorConnection, que representa a conexão de um espectador: recebe as jogadas, os resultados
+ * e o chat de uma sala, mas não joga.
+ * As mensagens chegam já codificadas em buffers somente leitura compartilhados por todos os espectadores da sala
+ * (SpectatorFeed); cada espectador guarda apenas uma cópia rasa do buffer, com a sua própria posição de escrita.
+ * A fila de cada espectador é limitada: quem não acompanha a partida pula para o estado atual do tabuleiro,
+ * descartando as mensagens atrasadas, e quem continua sem escrever nada depois disso é desconectado.
+ * Assim um espectador lento nunca atrasa os jogadores. As subclasses escrevem a fila no socket.
+ */
+public abstract class SpectatorConnection {
+
+    /** Número máximo de mensagens na fila de um espectador antes de ele pular para o estado atual.*/
+    private static final int MAX_QUEUED_MESSAGES = 64;
+
+    /** Número de vezes que algum espectador pulou para o estado atual do tabuleiro.*/
+    private static final LongAdder skips = new LongAdder();
+
+    /** Número de espectadores desconectados por não acompanharem a partida.*/
+    private static final LongAdder drops = new LongAdder();
+
+    /** Bloqueio que protege a fila (não fixa threads virtuais na espera, ao contrário do synchronized).*/
+    protected final ReentrantLock lock = new ReentrantLock();
+
+    /** Mensagens ainda não escritas, em ordem; o buffer da frente pode estar parcialmente escrito.*/
+    protected final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+
+    /** Indica se o espectador pulou para o estado atual e ainda não conseguiu escrever nenhuma mensagem desde então.*/
+    private boolean skippedWithoutProgress;
+
+    /** Indica se a conexão deve ser fechada assim que a fila for escrita.*/
+    protected boolean finishing;
+
+    /** Indica se a conexão já foi encerrada.*/
+    protected boolean closed;
+
+    /** Sala que o espectador está assistindo.*/
+    private volatile GameRoom room;
+
+    /**
+     * Enfileira uma mensagem compartilhada. Se a fila estiver cheia, descarta as mensagens ainda não iniciadas
+     * e coloca no lugar delas o estado atual do tabuleiro; se isso já aconteceu sem que nada fosse escrito,
+     * o espectador é desconectado.
+     * @param message Cópia rasa do buffer compartilhado da mensagem.
+     * @param snapshot Fornece o estado atual do tabuleiro, calculado apenas se for necessário.
+     */
+    public void offer(ByteBuffer message, Supplier<ByteBuffer> snapshot) {
+        boolean drop = false;
+        lock.lock();
+        try {
+            if (closed || finishing) {
+                return;
+            }
+            if (outbound.size() < MAX_QUEUED_MESSAGES) {
+                outbound.add(message);
+            } else if (skippedWithoutProgress) {
+                drop = true;
+            } else {
+                // Mantém apenas a mensagem que já começou a ser escrita, para não corromper o fluxo.
+                ByteBuffer head = outbound.peek();
+                outbound.clear();
+                if (head.position() > 0) {
+                    outbound.add(head);
+                }
+                outbound.add(snapshot.get());
+                skippedWithoutProgress = true;
+                skips.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (drop) {
+            drops.increment();
+            leave();
+            return;
+        }
+        requestWrite();
+    }
+
+    /**
+     * Enfileira a última mensagem e fecha a conexão assim que a fila for escrita.
+     * @param message Cópia rasa do buffer compartilhado da última mensagem.
+     */
+    public void finish(ByteBuffer message) {
+        lock.lock();
+        try {
+            if (closed || finishing) {
+                return;
+            }
+            outbound.add(message);
+            finishing = true;
+        } finally {
+            lock.unlock();
+        }
+        requestWrite();
+    }
+
+    /**
+     * Registra que ao menos uma mensagem foi escrita por completo. Chamado pelas subclasses com o bloqueio adquirido.
+     */
+    protected void recordProgress() {
+        skippedWithoutProgress = false;
+    }
+
+    /**
+     * Avisa a subclasse de que há mensagens na fila para escrever. Não pode bloquear quem publica as mensagens.
+     */
+    protected abstract void requestWrite();
+
+    /**
+     * Fecha o socket do espectador.
+     */
+    protected abstract void closeSocket();
+
+    /**
+     * Retira o espectador da sala e fecha a conexão.
+     */
+    public void leave() {
+        GameRoom currentRoom = room;
+        if (currentRoom != null) {
+            currentRoom.removeSpectator(this);
+        }
+        close();
+    }
+
+    /**
+     * Fecha a conexão, descartando as mensagens que ainda não foram escritas.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            outbound.clear();
+        } finally {
+            lock.unlock();
+        }
+        closeSocket();
+    }
+
+    /**
+     * Define a sala que o espectador está assistindo.
+     * @param room A sala.
+     */
+    public void setRoom(GameRoom room) {
+        this.room = room;
+    }
+
+    /**
+     * Retorna o número de vezes que algum espectador pulou para o estado atual do tabuleiro.
+     * @return O número de saltos.
+     */
+    public static long getSkips() {
+        return skips.sum();
+    }
+
+    /**
+     * Retorna o número de espectadores desconectados por não acompanharem a partida.
+     * @return O número de espectadores desconectados.
+     */
+    public static long getDrops() {
+        return drops.sum();
+    }
+}
@@ -0,0 +1,115 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Define a classe SpectatorFeed, que distribui as mensagens de uma sala aos seus espectadores.
+ * Cada mensagem é codificada uma única vez em um buffer somente leitura, e cada espectador recebe uma cópia rasa
+ * desse buffer (duplicate()), que compartilha os bytes e tem apenas a sua própria posição de escrita.
+ * A lista de espectadores é lida a cada mensagem e alterada raramente, por isso é uma lista copiada na escrita.
+ * As mensagens são linhas de texto em UTF-8:
+ * "WATCHING sala N K", "BOARD células", "MOVE X|O posição", "WON X|O", "DRAW", "CHAT X|O texto" e "END".
+ */
+public class SpectatorFeed {
+
+    /** Número de espectadores conectados no servidor.*/
+    private static final AtomicInteger activeSpectators = new AtomicInteger();
+
+    /** Espectadores da sala.*/
+    private final CopyOnWriteArrayList<SpectatorConnection> spectators = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adiciona um espectador, enviando antes o cabeçalho e o estado atual do tabuleiro.
+     * Deve ser chamado sob o bloqueio da sala, para que nenhuma jogada seja publicada entre o estado e a inclusão.
+     * @param spectator O espectador.
+     * @param header Linha de cabeçalho ("WATCHING 12 3 3").
+     * @param snapshot Linha com o estado atual do tabuleiro.
+     */
+    public void add(SpectatorConnection spectator, String header, String snapshot) {
+        spectator.offer(encode(header), null);
+        spectator.offer(encode(snapshot), null);
+        spectators.add(spectator);
+        activeSpectators.incrementAndGet();
+    }
+
+    /**
+     * Remove um espectador que saiu ou foi desconectado.
+     * @param spectator O espectador.
+     */
+    public void remove(SpectatorConnection spectator) {
+        if (spectators.remove(spectator)) {
+            activeSpectators.decrementAndGet();
+        }
+    }
+
+    /**
+     * Verifica se a sala tem espectadores, para que as mensagens só sejam montadas quando houver quem as receba.
+     * @return Verdadeiro se há ao menos um espectador.
+     */
+    public boolean isEmpty() {
+        return spectators.isEmpty();
+    }
+
+    /**
+     * Retorna o número de espectadores da sala.
+     * @return O número de espectadores.
+     */
+    public int size() {
+        return spectators.size();
+    }
+
+    /**
+     * Codifica uma mensagem uma única vez e a entrega a todos os espectadores.
+     * @param message A mensagem, sem a quebra de linha.
+     * @param snapshot Fornece o estado atual do tabuleiro para os espectadores atrasados.
+     */
+    public void publish(String message, Supplier<String> snapshot) {
+        ByteBuffer shared = encode(message);
+
+        // O estado do tabuleiro também é codificado uma única vez, e apenas se algum espectador estiver atrasado.
+        var sharedSnapshot = new Supplier<ByteBuffer>() {
+            private ByteBuffer encoded;
+
+            @Override
+            public ByteBuffer get() {
+                if (encoded == null) {
+                    encoded = encode(snapshot.get());
+                }
+                return encoded.duplicate();
+            }
+        };
+        for (SpectatorConnection spectator : spectators) {
+            spectator.offer(shared.duplicate(), sharedSnapshot);
+        }
+    }
+
+    /**
+     * Envia a última mensagem a todos os espectadores, que são desconectados depois de recebê-la.
+     * @param message A última mensagem, sem a quebra de linha.
+     */
+    public void finish(String message) {
+        ByteBuffer shared = encode(message);
+        for (SpectatorConnection spectator : spectators) {
+            spectator.finish(shared.duplicate());
+        }
+    }
+
+    /**
+     * Codifica uma mensagem em um buffer somente leitura, acrescentando a quebra de linha.
+     * @param message A mensagem.
+     * @return O buffer somente leitura.
+     */
+    private static ByteBuffer encode(String message) {
+        return ByteBuffer.wrap((message + "\n").getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Retorna o número de espectadores conectados no servidor.
+     * @return O número de espectadores.
+     */
+    public static int getActiveSpectators() {
+        return activeSpectators.get();
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Define a classe StartMessage, que representa a linha de início enviada pelo servidor a cada jogador.
+ * A linha informa o símbolo do jogador ("START X" ou "START O"), opcionalmente as dimensões do tabuleiro
+ * ("START X 15 5"), se o servidor arbitra a partida ("REFEREE") e se ele aceita o protocolo binário ("BINARY"),
+ * como em "START X 3 3 REFEREE BINARY". Por último pode vir a ficha de sessão com que o jogador retoma a partida
+ * depois de uma queda da conexão ("SESSION 9f86d081..."), os limites do chat que o servidor aplica a cada jogador
+ * ("CHATLIMIT 2.0 5 280": mensagens por segundo, rajada e tamanho máximo) e o intervalo, em milissegundos, entre os
+ * batimentos que o servidor envia ("HEARTBEAT 10000"); clientes antigos ignoram os campos que não conhecem.
+ * Nas salas de partida única, como as dos torneios, "SINGLE" ocupa o lugar de "BINARY"
+ * ("START X 3 3 REFEREE SINGLE"): ao fim da partida, o jogador aguarda outra linha de início ou o término.
+ */
+public class StartMessage {
+
+    /** Símbolo do jogador (X ou O).*/
+    private final char playerId;
+
+    /** Número de linhas e de colunas do tabuleiro.*/
+    private final int boardSize;
+
+    /** Número de símbolos em sequência necessários para vencer.*/
+    private final int winLength;
+
+    /** Indica se o servidor arbitra a partida.*/
+    private final boolean serverReferee;
+
+    /** Indica se o servidor aceita o protocolo binário.*/
+    private final boolean binaryOffered;
+
+    /** Indica se a sala joga uma única partida, depois da qual o jogador aguarda outra linha de início ou o término.*/
+    private final boolean singleGame;
+
+    /** Ficha de sessão do jogador, ou nulo se o servidor não permite retomar a partida.*/
+    private final String sessionToken;
+
+    /** Intervalo, em milissegundos, entre os batimentos enviados pelo servidor, ou zero se ele não os envia.*/
+    private final long heartbeatMillis;
+
+    /** Mensagens de chat por segundo que o servidor aceita, em média, ou zero se ele não anunciou um limite.*/
+    private final double chatPerSecond;
+
+    /** Mensagens de chat que o servidor aceita em uma rajada.*/
+    private final int chatBurst;
+
+    /** Tamanho máximo, em caracteres, das mensagens de chat, ou zero se o servidor não anunciou um limite.*/
+    private final int maxChatLength;
+
+    /**
+     * Interpreta uma linha de início.
+     * @param line A linha recebida do servidor, sem a quebra de linha.
+     * @throws IllegalArgumentException Se a linha não for uma linha de início válida.
+     */
+    public StartMessage(String line) {
+        List<String> fields = Arrays.asList(line.split(" "));
+        if (fields.size() < 2 || !fields.get(0).equals("START") || fields.get(1).isEmpty()) {
+            throw new IllegalArgumentException("Linha de início inválida: " + line);
+        }
+        this.playerId = fields.get(1).charAt(0);
+        boolean hasBoardSize = fields.size() > 3 && Character.isDigit(fields.get(2).charAt(0));
+        this.boardSize = hasBoardSize ? Integer.parseInt(fields.get(2)) : GameStatus.DEFAULT_SIZE;
+        this.winLength = hasBoardSize ? Integer.parseInt(fields.get(3)) : GameStatus.DEFAULT_WIN_LENGTH;
+        this.serverReferee = fields.contains("REFEREE");
+        this.binaryOffered = fields.contains(BinaryProtocol.NEGOTIATION_LINE);
+        this.singleGame = fields.contains(GameRoom.SINGLE_GAME_FIELD);
+        int session = fields.indexOf(GameRoom.SESSION_FIELD);
+        this.sessionToken = session >= 0 && session + 1 < fields.size() ? fields.get(session + 1) : null;
+        int heartbeat = fields.indexOf(GameRoom.HEARTBEAT_FIELD);
+        this.heartbeatMillis = heartbeat >= 0 && heartbeat + 1 < fields.size() ? Long.parseLong(fields.get(heartbeat + 1)) : 0;
+        int chatLimit = fields.indexOf(GameRoom.CHAT_LIMIT_FIELD);
+        boolean hasChatLimit = chatLimit >= 0 && chatLimit + 3 < fields.size();
+        this.chatPerSecond = hasChatLimit ? Double.parseDouble(fields.get(chatLimit + 1)) : 0;
+        this.chatBurst = hasChatLimit ? Integer.parseInt(fields.get(chatLimit + 2)) : 1;
+        this.maxChatLength = hasChatLimit ? Integer.parseInt(fields.get(chatLimit + 3)) : 0;
+    }
+
+    /**
+     * Retorna o símbolo do jogador.
+     * @return O símbolo do jogador (X ou O).
+     */
+    public char getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * Retorna o símbolo do oponente.
+     * @return O símbolo do oponente (X ou O).
+     */
+    public char getOpponentId() {
+        return playerId == GameFrame.CROSS ? GameFrame.CIRCLE : GameFrame.CROSS;
+    }
+
+    /**
+     * Retorna o número de linhas e de colunas do tabuleiro.
+     * @return O tamanho do tabuleiro.
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Retorna o número de símbolos em sequência necessários para vencer.
+     * @return O número de símbolos em sequência.
+     */
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * Indica se o servidor arbitra a partida, enviando o resultado aos dois jogadores.
+     * @return Verdadeiro se o servidor arbitra a partida.
+     */
+    public boolean isServerReferee() {
+        return serverReferee;
+    }
+
+    /**
+     * Indica se o servidor aceita o protocolo binário.
+     * @return Verdadeiro se o protocolo binário pode ser negociado.
+     */
+    public boolean isBinaryOffered() {
+        return binaryOffered;
+    }
+
+    /**
+     * Indica se a sala joga uma única partida, como as rodadas de um torneio.
+     * @return Verdadeiro se a partida não recomeça depois do resultado.
+     */
+    public boolean isSingleGame() {
+        return singleGame;
+    }
+
+    /**
+     * Retorna a ficha de sessão do jogador, usada para retomar a partida depois de uma queda da conexão.
+     * @return A ficha, ou nulo se o servidor não a enviou.
+     */
+    public String getSessionToken() {
+        return sessionToken;
+    }
+
+    /**
+     * Retorna o intervalo entre os batimentos enviados pelo servidor.
+     * @return O intervalo, em milissegundos, ou zero se o servidor não envia batimentos.
+     */
+    public long getHeartbeatMillis() {
+        return heartbeatMillis;
+    }
+
+    /**
+     * Cria o limite de taxa do chat do jogador com os valores anunciados pelo servidor.
+     * @return O limite, cheio, que aceita todas as mensagens se o servidor não anunciou um limite.
+     */
+    public TokenBucket newChatLimit() {
+        return new TokenBucket(chatPerSecond, chatBurst);
+    }
+
+    /**
+     * Retorna o tamanho máximo das mensagens de chat anunciado pelo servidor.
+     * @return O tamanho, em caracteres, ou Integer.MAX_VALUE se o servidor não anunciou um limite.
+     */
+    public int getMaxChatLength() {
+        return maxChatLength > 0 ? maxChatLength : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Retorna o tempo máximo de espera por uma mensagem do servidor, depois do qual o cliente trata a conexão como
+     * perdida: alguns intervalos de batimento sem receber nada.
+     * @return O tempo, em milissegundos, ou zero para esperar sem limite quando o servidor não envia batimentos.
+     */
+    public int getReadTimeoutMillis() {
+        return (int) (heartbeatMillis * GameRoom.DEFAULT_MISSED_HEARTBEATS);
+    }
+}
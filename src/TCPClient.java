@@ -1,78 +1,230 @@
 import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
 
 /**
  * Define a classe TCPClient, que representa o cliente TCP para o jogo da velha.
+ * Se a conexão cair no meio da partida e o servidor tiver enviado uma ficha de sessão, o cliente se reconecta
+ * e retoma a partida de onde parou, sem que o jogador precise fazer nada. Quando o servidor envia batimentos,
+ * o cliente os responde e trata como queda da conexão um servidor que passa alguns intervalos sem enviar nada.
  */
 public class TCPClient {
 
-    /** Endereço IP utilizado para a comunicação via socket no jogo.*/
-    private static final String SOCKET_IP = "127.0.0.1";
-
-    /** Número da porta utilizado para a comunicação via socket no jogo.*/
-    private static final int SOCKET_PORT = 6789;
-
     /**
      * Método principal para iniciar o cliente do jogo da velha.
      * Estabelece a conexão via socket com o servidor, configura os fluxos de entrada e saída de dados, e inicia a interface gráfica.
+     * @param args Opcionalmente o endereço e a porta do servidor e a nota de habilidade do jogador; ou "bot" seguido
+     *             do endereço, da porta, do número de partidas e da nota, para jogar sem interface gráfica com jogadas ao acaso;
+     *             ou "watch" seguido do endereço, da porta e do número da sala, para assistir a uma partida no console.
+     *             O endereço e a porta padrão vêm das chaves "server.host" e "server.port" da configuração, que podem
+     *             ser informadas em qualquer posição como opções ("--server.host=192.168.0.10").
      */
     public static void main(String[] args) {
-        try (Socket clientSocket = new Socket(SOCKET_IP, SOCKET_PORT)) {
-            // Configura os fluxos de entrada e saída de dados.
-            BufferedReader inFromServer = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-            DataOutputStream outToServer = new DataOutputStream(clientSocket.getOutputStream());
-
-            // Inicia a interface gráfica do jogo para o jogador círculo sem a vez de jogar.
-            var gameFrame = new GameFrame(GameFrame.CIRCLE, false, outToServer);
-
-            // Aguarda mensagens do servidor e as manipula conforme necessário.
-            String message;
-            while ((message = inFromServer.readLine()) != null) {
-                handleServerMessage(message, gameFrame, clientSocket);
+        ServerConfig config;
+        try {
+            config = ServerConfig.load(args);
+        } catch (IOException | IllegalArgumentException ex) {
+            System.out.println(ex.getMessage());
+            return;
+        }
+        String[] arguments = config.getArguments();
+
+        // Verifica se foi solicitado o cliente sem interface gráfica.
+        if (arguments.length > 0 && arguments[0].equals("bot")) {
+            startBot(arguments, config);
+            return;
+        }
+        // Verifica se foi solicitado o modo espectador.
+        if (arguments.length > 0 && arguments[0].equals("watch")) {
+            startSpectator(arguments, config);
+            return;
+        }
+
+        String host = arguments.length > 0 ? arguments[0] : config.getHost();
+        int port = arguments.length > 1 ? Integer.parseInt(arguments[1]) : config.getPort();
+        Socket clientSocket = null;
+        try {
+            clientSocket = new Socket(host, port);
+            // Desativa o algoritmo de Nagle: cada jogada já é enviada com uma única escrita.
+            clientSocket.setTcpNoDelay(true);
+
+            // Configura o leitor e o escritor das mensagens do protocolo.
+            ProtocolReader inFromServer = new ProtocolReader(clientSocket.getInputStream());
+            var outToServer = new NetworkWriter(new ProtocolWriter(clientSocket.getOutputStream()));
+
+            // Informa a nota de habilidade, se houver, para que o saguão do servidor escolha um oponente de nível próximo.
+            if (arguments.length > 2) {
+                String rating = GameLobby.RATING_PREFIX + Integer.parseInt(arguments[2]);
+                outToServer.send(writer -> writer.writeText(rating));
+            }
+
+            // Aguarda a mensagem de início, que informa o símbolo do jogador, as dimensões do tabuleiro,
+            // se o servidor arbitra a partida e se ele aceita o protocolo binário.
+            if (inFromServer.next() != ProtocolReader.START) {
+                return;
+            }
+            var start = new StartMessage(inFromServer.getText());
+            char playerId = start.getPlayerId();
+
+            // Negocia o protocolo binário quando o servidor o anuncia; o servidor confirma com a mesma linha.
+            if (start.isBinaryOffered()) {
+                outToServer.send(ProtocolWriter::negotiateBinary);
+            }
+
+            // Limita a espera por mensagens quando o servidor envia batimentos, para perceber uma conexão morta.
+            clientSocket.setSoTimeout(start.getReadTimeoutMillis());
+
+            // Inicia a interface gráfica do jogo na thread de eventos do Swing, para o jogador que começa jogando se for o xis.
+            var frameReference = new AtomicReference<GameFrame>();
+            SwingUtilities.invokeAndWait(() -> {
+                var frame = new GameFrame(playerId, playerId == GameFrame.CROSS, outToServer, start.isServerReferee(),
+                        start.getBoardSize(), start.getWinLength());
+                // Aplica os limites do chat anunciados pelo servidor, que descarta as mensagens acima deles.
+                frame.setChatLimit(start.newChatLimit(), start.getMaxChatLength());
+                frameReference.set(frame);
+            });
+            GameFrame gameFrame = frameReference.get();
+
+            // Guarda a ficha de sessão, se o servidor a enviou, para retomar a partida se a conexão cair.
+            ClientSession session = ClientSession.of(start, host, port);
+            outToServer.setSession(session);
+
+            // Aguarda mensagens do servidor e as entrega à interface gráfica, sem nunca esperar por ela,
+            // para que um diálogo aberto não impeça a leitura do socket.
+            while (true) {
+                int type;
+                try {
+                    type = inFromServer.next();
+                } catch (IOException ex) {
+                    type = ProtocolReader.EOF;
+                }
+                if (type == ProtocolReader.EOF) {
+                    // A conexão caiu sem que o jogador ou o oponente tenham saído: retoma a partida em uma nova conexão.
+                    if (session == null || outToServer.isClosed()) {
+                        if (!outToServer.isClosed()) {
+                            SwingUtilities.invokeLater(() -> gameFrame.showConnectionNotice("Conexão perdida"));
+                        }
+                        return;
+                    }
+                    closeSocket(clientSocket);
+                    SwingUtilities.invokeLater(() -> gameFrame.showConnectionNotice("Conexão perdida, reconectando..."));
+                    ClientSession.Resumed resumed = session.reconnect();
+                    clientSocket = resumed.socket;
+                    clientSocket.setSoTimeout(start.getReadTimeoutMillis());
+                    inFromServer = resumed.reader;
+                    outToServer.reconnect(resumed, start.isBinaryOffered());
+                    SwingUtilities.invokeLater(() -> gameFrame.showConnectionNotice("Partida retomada"));
+                    continue;
+                }
+                // Responde aos batimentos sem passar pela interface gráfica.
+                if (type == BinaryProtocol.PING) {
+                    outToServer.send(ProtocolWriter::writePong);
+                    continue;
+                }
+                if (session != null) {
+                    session.countReceived(type);
+                }
+                handleServerMessage(type, inFromServer, gameFrame, playerId, clientSocket);
+                if (type == BinaryProtocol.END) {
+                    return;
+                }
             }
         } catch (Exception ex) {
             System.out.println(ex.getMessage());
+        } finally {
+            closeSocket(clientSocket);
+        }
+    }
+
+    /**
+     * Inicia um robô sem interface gráfica, que joga com jogadas ao acaso e exibe o resultado ao terminar.
+     * Para gerar carga com muitos robôs ao mesmo tempo, use o LoadGenerator.
+     * @param args "bot", seguido opcionalmente do endereço, da porta, do número de partidas e da nota de habilidade.
+     * @param config Configuração do cliente, com o endereço e a porta padrão.
+     */
+    private static void startBot(String[] args, ServerConfig config) {
+        String host = args.length > 1 ? args[1] : config.getHost();
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : config.getPort();
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        int rating = args.length > 4 ? Integer.parseInt(args[4]) : BotClient.NO_RATING;
+
+        var bot = new BotClient(host, port, games, null, 0, true, rating);
+        bot.run();
+        System.out.println("Partidas: " + bot.getGamesPlayed() + " | Jogadas: " + bot.getMovesSent()
+                + (bot.getError() != null ? " | Erro: " + bot.getError() : ""));
+    }
+
+    /**
+     * Assiste a uma sala no console, exibindo cada linha enviada pelo servidor até o fim da partida.
+     * Sem o número da sala, o servidor escolhe a sala com mais espectadores.
+     * @param args "watch", seguido opcionalmente do endereço, da porta e do número da sala.
+     * @param config Configuração do cliente, com o endereço e a porta padrão.
+     */
+    private static void startSpectator(String[] args, ServerConfig config) {
+        String host = args.length > 1 ? args[1] : config.getHost();
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : config.getPort();
+        String request = GameLobby.WATCH_COMMAND + (args.length > 3 ? " " + Integer.parseInt(args[3]) : "");
+
+        try (Socket clientSocket = new Socket(host, port)) {
+            clientSocket.getOutputStream().write((request + "\n").getBytes(StandardCharsets.UTF_8));
+            var inFromServer = new BufferedReader(
+                    new InputStreamReader(clientSocket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = inFromServer.readLine()) != null) {
+                System.out.println(line);
+            }
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
         }
     }
 
     /**
      * Manipula as mensagens recebidas do servidor e atualiza a interface gráfica do jogo conforme necessário.
      * As mensagens podem indicar o término da partida, o reinício do jogo, mensagens de chat ou movimentos do oponente.
-     * @param message A mensagem recebida do servidor.
+     * O conteúdo da mensagem é copiado do leitor e a atualização da interface é agendada na thread de eventos do Swing.
+     * @param type O tipo da mensagem recebida do servidor.
+     * @param message O leitor que recebeu a mensagem, com o seu conteúdo.
      * @param gameFrame A instância da interface gráfica do jogo.
+     * @param playerId O símbolo do jogador atual (X ou O).
      * @param clientSocket Socket do cliente.
-     * @throws IOException Exceção de E/S que pode ocorrer durante a comunicação.
      */
-    private static void handleServerMessage(String message, GameFrame gameFrame, Socket clientSocket) throws IOException {
-        // Verifica se a mensagem indica o término da partida.
-        // Se for, notifica o jogador sobre a saída do oponente e encerra o programa.
-        if (message.startsWith("END")) {
-            gameFrame.opponentLeftGame();
-            closeSocket(clientSocket);
-        }
-        // Verifica se a mensagem indica o que o oponente ganhou.
-        // Se for, notifica o jogador sobre a vitória e prepara para iniciar um novo jogo.
-        else if (message.startsWith("WON")) {
-            gameFrame.showWinnerFrame(GameFrame.CIRCLE, false);
-        }
-        // Verifica se a mensagem indica o que o jogo deu velha.
-        // Se for, notifica o jogador sobre o empate e prepara para iniciar um novo jogo.
-        else if (message.startsWith("DRAW")) {
-            gameFrame.showDrawFrame();
-        }
-        // Verifica se a mensagem é uma mensagem de chat.
-        // Se for, remove o marcador "CHAT" da mensagem e exibe no chat do jogador atual com o xis.
-        else if (message.startsWith("CHAT")) {
-            message = message.replaceFirst("CHAT", "");
-            gameFrame.opponentMessage(message, GameFrame.CROSS);
-        }
-        // Se a mensagem não se encaixa nos casos anteriores então é um movimento do oponente.
-        // Realiza a jogada do oponente no tabuleiro do jogador atual com o xis.
-        else {
-            gameFrame.opponentMove(message, GameFrame.CROSS);
+    private static void handleServerMessage(int type, ProtocolReader message, GameFrame gameFrame, char playerId,
+                                            Socket clientSocket) {
+        // Obtém o símbolo do oponente a partir do símbolo do jogador atual.
+        char opponentId = playerId == GameFrame.CROSS ? GameFrame.CIRCLE : GameFrame.CROSS;
+
+        switch (type) {
+            // Verifica se a mensagem indica o término da partida.
+            // Se for, notifica o jogador sobre a saída do oponente e encerra o programa.
+            case BinaryProtocol.END -> {
+                SwingUtilities.invokeLater(gameFrame::opponentLeftGame);
+                closeSocket(clientSocket);
+            }
+            // Verifica se a mensagem indica o vencedor, enviado pelo servidor que arbitra a partida ("WON X"),
+            // ou a vitória do oponente, quando o símbolo não é informado ("WON").
+            // Notifica o jogador sobre o resultado e prepara para iniciar um novo jogo.
+            case BinaryProtocol.WON -> {
+                char winnerId = message.getSymbol() == '\0' ? opponentId : message.getSymbol();
+                SwingUtilities.invokeLater(() -> gameFrame.showWinnerFrame(winnerId, winnerId == playerId));
+            }
+            // Verifica se a mensagem indica o que o jogo deu velha.
+            // Se for, notifica o jogador sobre o empate e prepara para iniciar um novo jogo.
+            case BinaryProtocol.DRAW -> SwingUtilities.invokeLater(gameFrame::showDrawFrame);
+            // Verifica se a mensagem é uma mensagem de chat.
+            // Se for, entrega ao chat do jogador atual com o símbolo do oponente, que exibe as mensagens em lote.
+            case BinaryProtocol.CHAT -> gameFrame.opponentMessage(message.getText(), opponentId);
+            // Verifica se a mensagem é um movimento do oponente.
+            // Se for, realiza a jogada do oponente no tabuleiro do jogador atual com o símbolo do oponente.
+            case BinaryProtocol.MOVE -> {
+                int position = message.getPosition();
+                SwingUtilities.invokeLater(() -> gameFrame.opponentMove(position, opponentId));
+            }
+            // A confirmação da negociação do protocolo binário não altera a interface.
+            default -> { }
         }
     }
 
@@ -1,38 +1,150 @@
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
 
 /**
  * Define a classe TCPServer, que representa o servidor TCP para o jogo da velha.
  */
 public class TCPServer {
 
-    /** Número da porta utilizado para a comunicação via socket no jogo.*/
-    private static final int SOCKET_PORT = 6789;
+    /** Intervalo, em milissegundos, entre as verificações das salas abertas durante a drenagem.*/
+    private static final long DRAIN_POLL_MILLIS = 50;
 
     /**
      * Método principal para iniciar o servidor do jogo da velha.
      * Estabelece a conexão via socket com o cliente, configura os fluxos de entrada e saída de dados, e inicia a interface gráfica.
+     * Se um modo for informado nos argumentos, inicia o servidor sem interface gráfica, que apenas forma pares de clientes
+     * e publica as suas métricas, e que ao receber o sinal de término (SIGTERM ou Ctrl+C) é drenado antes de terminar.
+     * Nos dois casos os eventos das partidas são acrescentados ao registro de eventos, no diretório "events", e o
+     * servidor envia batimentos aos clientes, tratando como saída quem para de respondê-los. As chaves da configuração
+     * estão descritas em ServerConfig.
+     * @param args Modo do servidor sem interface gráfica ("nio", "virtual" ou "platform"), seguido opcionalmente
+     *             do tamanho do tabuleiro e do número de símbolos em sequência para vencer e, em qualquer posição
+     *             depois do modo, de "ai" para que cada jogador enfrente o computador ou "tournament" para que os
+     *             jogadores disputem torneios (apenas no modo "nio"); ou vazio para jogar pelo servidor. Sem eles
+     *             valem as chaves "board.size", "board.winLength" e "server.opponent". Os argumentos iniciados por
+     *             "--" são opções da configuração, como "--server.port=6789,6790", e podem aparecer em qualquer
+     *             posição.
      */
     public static void main(String[] args) {
-        try(ServerSocket welcomeSocket = new ServerSocket(SOCKET_PORT)){
+        // Lê a configuração antes de abrir qualquer recurso, para que um valor inválido não deixe nada pela metade.
+        ServerConfig config;
+        long heartbeatMillis;
+        int missedHeartbeats;
+        String metricsBind;
+        int metricsPort;
+        long drainMillis;
+        int boardSize;
+        int winLength;
+        String opponent;
+        try {
+            config = ServerConfig.load(args);
+            heartbeatMillis = config.getLong("heartbeat.seconds", GameRoom.DEFAULT_HEARTBEAT_MILLIS / 1000) * 1000;
+            missedHeartbeats = config.getInt("heartbeat.missed", GameRoom.DEFAULT_MISSED_HEARTBEATS);
+            GameRoom.configureTimeouts(heartbeatMillis, missedHeartbeats,
+                    config.getLong("turn.seconds", GameRoom.DEFAULT_TURN_TIMEOUT_MILLIS / 1000) * 1000);
+            GameRoom.configureChat(config.getDouble("chat.perSecond", GameRoom.DEFAULT_CHAT_PER_SECOND),
+                    config.getInt("chat.burst", GameRoom.DEFAULT_CHAT_BURST),
+                    config.getInt("chat.maxLength", GameRoom.DEFAULT_MAX_CHAT_LENGTH));
+            metricsBind = config.getString("metrics.bind", ServerMetrics.DEFAULT_BIND);
+            metricsPort = config.getInt("metrics.port", ServerMetrics.DEFAULT_PORT);
+            drainMillis = config.getLong("drain.seconds", GameRoom.DEFAULT_DRAIN_SECONDS) * 1000;
+            boardSize = config.getBoardSize();
+            winLength = config.getWinLength(boardSize);
+            GameStatus.checkDimensions(boardSize, winLength);
+            opponent = config.getOpponent();
+        } catch (IOException | IllegalArgumentException ex) {
+            System.out.println(ex.getMessage());
+            return;
+        }
+        String[] arguments = config.getArguments();
+        GameEventLog eventLog = openEventLog();
+
+        // Verifica se foi solicitado o servidor sem interface gráfica.
+        if (arguments.length > 0) {
+            GameRoom.setEventLog(eventLog);
+            ServerMetrics.start(metricsBind, metricsPort);
+            boolean againstAi = opponent.equals(ServerConfig.OPPONENT_AI);
+            boolean tournament = opponent.equals(ServerConfig.OPPONENT_TOURNAMENT);
+            if (againstAi) {
+                precomputeAi(boardSize, winLength);
+            }
+            var lobby = new GameLobby(boardSize, winLength, againstAi);
+            if (tournament && !setupTournament(config, arguments[0], lobby, boardSize, winLength)) {
+                return;
+            }
+            if (!againstAi && !tournament && config.getString("cluster.dir", null) != null) {
+                joinCluster(config, lobby);
+            }
+            // Ao terminar, drena as salas antes de fechar o registro de eventos, para que os eventos das partidas que
+            // terminam durante a drenagem também sejam gravados.
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                drainServer(lobby, drainMillis);
+                closeEventLog(eventLog);
+            }, "server-shutdown"));
+            startHeadlessServer(config, arguments[0], lobby);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> closeEventLog(eventLog), "event-log-shutdown"));
+
+        // O servidor com interface gráfica atende um único cliente, então usa apenas a porta principal.
+        try(ServerSocket welcomeSocket = config.openListener(config.getPort())){
             // Aguarda e aceita a conexão de um cliente.
             Socket connectionSocket = welcomeSocket.accept();
 
-            // Configura os fluxos de entrada e saída de dados.
-            BufferedReader inFromClient = new BufferedReader(new InputStreamReader(connectionSocket.getInputStream()));
-            DataOutputStream outToClient = new DataOutputStream(connectionSocket.getOutputStream());
+            // Ajusta as opções da conexão, que por padrão desativam o algoritmo de Nagle: cada jogada já é enviada
+            // com uma única escrita.
+            config.configureConnection(connectionSocket);
 
-            // Inicia a interface gráfica do jogo para o jogador xis com a vez de jogar.
-            var gameFrame = new GameFrame(GameFrame.CROSS, true, outToClient);
+            // Configura os fluxos de entrada e saída de dados, sempre no protocolo de texto, pois o servidor
+            // com interface gráfica não anuncia o protocolo binário.
+            var inFromClient = new ProtocolReader(connectionSocket.getInputStream());
+            var outToClient = new NetworkWriter(new ProtocolWriter(connectionSocket.getOutputStream()));
 
-            // Aguarda mensagens do cliente e as manipula conforme necessário.
-            String message;
-            while ((message = inFromClient.readLine()) != null) {
-                handleClientMessage(message, gameFrame, connectionSocket);
+            // Informa ao cliente que ele joga com o círculo, os limites do chat e o intervalo entre os batimentos, se
+            // houver. Quem passa alguns intervalos sem enviar nada, nem a resposta aos batimentos, é tratado como se
+            // tivesse saído.
+            String heartbeatField = "";
+            if (heartbeatMillis > 0) {
+                heartbeatField = " " + GameRoom.HEARTBEAT_FIELD + " " + heartbeatMillis;
+                connectionSocket.setSoTimeout((int) (heartbeatMillis * Math.max(missedHeartbeats, 1)));
+                startHeartbeat(outToClient, heartbeatMillis);
+            }
+            String startLine = "START " + GameFrame.CIRCLE + GameRoom.chatLimitField() + heartbeatField;
+            outToClient.send(writer -> writer.writeText(startLine));
+
+            // Inicia a interface gráfica do jogo na thread de eventos do Swing, para o jogador xis com a vez de jogar.
+            var frameReference = new AtomicReference<GameFrame>();
+            SwingUtilities.invokeAndWait(() -> {
+                var frame = new GameFrame(GameFrame.CROSS, true, outToClient);
+                frame.setChatLimit(GameRoom.newChatLimit(), GameRoom.getMaxChatLength());
+                if (eventLog != null) {
+                    frame.setEventLog(eventLog, GameRoom.allocateRoomId());
+                }
+                frameReference.set(frame);
+            });
+            GameFrame gameFrame = frameReference.get();
+
+            // Aguarda mensagens do cliente e as entrega à interface gráfica, sem nunca esperar por ela.
+            // O chat do cliente tem o mesmo limite de taxa dos servidores sem interface gráfica.
+            TokenBucket chatLimit = GameRoom.newChatLimit();
+            int type;
+            try {
+                while ((type = inFromClient.next()) != ProtocolReader.EOF) {
+                    handleClientMessage(type, inFromClient, gameFrame, connectionSocket, chatLimit);
+                }
+            } catch (SocketTimeoutException ex) {
+                // O cliente parou de responder aos batimentos: a partida termina como se ele tivesse saído.
+                SwingUtilities.invokeLater(gameFrame::opponentLeftGame);
+                closeSocket(connectionSocket);
             }
         } catch (Exception ex) {
             System.out.println(ex.getMessage());
@@ -40,40 +152,214 @@ public class TCPServer {
     }
 
     /**
-     * Manipula as mensagens recebidas do cliente e atualiza a interface gráfica do jogo conforme necessário.
-     *  mensagens podem indicar o término da partida, o reinício do jogo, mensagens de chat ou movimentos do oponente.
-     * @param message A mensagem recebida do cliente.
-     * @param gameFrame A instância da interface gráfica do jogo.
-     * @param serverSocket Socket do servidor.
-     * @throws IOException Exceção de E/S que pode ocorrer durante a comunicação.
+     * Abre o registro de eventos das partidas. Quem o abre deve fechá-lo quando o processo terminar, para que os
+     * eventos ainda na fila sejam escritos e sincronizados com o disco.
+     * @return O registro de eventos, ou nulo se não for possível abri-lo; nesse caso as partidas seguem sem registro.
+     */
+    private static GameEventLog openEventLog() {
+        try {
+            return new GameEventLog(Paths.get(GameEventLog.DEFAULT_DIRECTORY));
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Fecha o registro de eventos, aguardando a escrita dos eventos ainda na fila.
+     * @param eventLog O registro de eventos, ou nulo se ele não foi aberto.
+     */
+    private static void closeEventLog(GameEventLog eventLog) {
+        if (eventLog != null) {
+            eventLog.close();
+        }
+    }
+
+    /**
+     * Drena o servidor sem interface gráfica antes de o processo terminar: o saguão deixa de formar salas e dispensa
+     * quem aguarda, os jogadores das salas são avisados e cada sala termina ao fim da partida em andamento. As salas
+     * ainda abertas no fim do prazo são encerradas à força. Os números de salas drenadas e encerradas à força são
+     * exibidos e publicados nas métricas.
+     * Os sockets de boas-vindas continuam abertos, para que quem cair durante a drenagem possa retomar a partida.
+     * @param lobby Saguão do servidor.
+     * @param drainMillis Prazo, em milissegundos, para que as partidas terminem, ou zero para terminar sem drenar.
+     */
+    private static void drainServer(GameLobby lobby, long drainMillis) {
+        if (drainMillis <= 0) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        System.out.println("Drenando o servidor: " + GameRoom.getActiveRooms() + " salas abertas, prazo de "
+                + drainMillis / 1000 + " s");
+        lobby.drain();
+        GameRoom.startDraining();
+
+        // Aguarda as salas terminarem e o saguão dispensar quem aguardava, exibindo o andamento a cada segundo.
+        long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(drainMillis);
+        long nextReport = startTime + TimeUnit.SECONDS.toNanos(1);
+        try {
+            while ((GameRoom.getActiveRooms() > 0 || lobby.getQueueDepth() > 0) && System.nanoTime() - deadline < 0) {
+                Thread.sleep(DRAIN_POLL_MILLIS);
+                if (System.nanoTime() - nextReport >= 0) {
+                    System.out.println("Drenando: " + GameRoom.getActiveRooms() + " salas abertas");
+                    nextReport += TimeUnit.SECONDS.toNanos(1);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        int forced = GameRoom.forceCloseAll();
+        System.out.println("Drenagem concluída em " + (System.nanoTime() - startTime) / 1_000_000 + " ms: "
+                + GameRoom.getDrainedRooms() + " salas terminaram as partidas e " + forced
+                + " foram encerradas à força");
+    }
+
+    /**
+     * Liga o servidor ao agrupamento cujo diretório de salas está no diretório de arquivos da propriedade "cluster.dir".
+     * O nó é publicado com a porta principal do servidor. Se o diretório não puder ser aberto, o servidor segue sozinho.
+     * @param config Configuração do servidor.
+     * @param lobby Saguão do servidor.
      */
-    private static void handleClientMessage(String message, GameFrame gameFrame, Socket serverSocket) throws IOException {
-        // Verifica se a mensagem indica o término da partida.
-        // Se for, notifica o jogador sobre a saída do oponente e encerra o programa.
-        if (message.startsWith("END")) {
-            gameFrame.opponentLeftGame();
-            closeSocket(serverSocket);
+    private static void joinCluster(ServerConfig config, GameLobby lobby) {
+        try {
+            int port = config.getPort();
+            var directory = new FileRoomDirectory(Paths.get(config.getString("cluster.dir", null)));
+            String host = config.getString("node.host", InetAddress.getLoopbackAddress().getHostAddress());
+            var cluster = new ClusterNode(config.getString("node.id", host + ":" + port), host, port, directory, lobby);
+            lobby.setCluster(cluster);
+            cluster.start();
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
         }
-        // Verifica se a mensagem indica o que o oponente ganhou.
-        // Se for, notifica o jogador sobre a vitória e prepara para iniciar um novo jogo.
-        else if (message.startsWith("WON")) {
-            gameFrame.showWinnerFrame(GameFrame.CROSS, false);
+    }
+
+    /**
+     * Passa o saguão ao modo de torneio, com o sistema e os números de inscritos e de rodadas das propriedades.
+     * O torneio libera os jogadores ao fim de cada partida, sem fechar as conexões, o que só o servidor NIO permite:
+     * no servidor com uma thread por conexão, a leitura de cada jogador pertence ao escopo da sua sala.
+     * @param config Configuração do servidor.
+     * @param mode O modo do servidor.
+     * @param lobby Saguão do servidor.
+     * @param boardSize Número de linhas e de colunas do tabuleiro das partidas.
+     * @param winLength Número de símbolos em sequência necessários para vencer nas partidas.
+     * @return Falso se o torneio não pode ser organizado, caso em que o servidor não é iniciado.
+     */
+    private static boolean setupTournament(ServerConfig config, String mode, GameLobby lobby, int boardSize,
+                                           int winLength) {
+        if (!mode.equals("nio")) {
+            System.out.println("O modo de torneio só é oferecido pelo servidor nio");
+            return false;
         }
-        // Verifica se a mensagem indica o que o jogo deu velha.
-        // Se for, notifica o jogador sobre o empate e prepara para iniciar um novo jogo.
-        else if (message.startsWith("DRAW")) {
-            gameFrame.showDrawFrame();
+        try {
+            lobby.setTournament(new Tournament(config.getString("tournament.format", Tournament.SWISS),
+                    config.getInt("tournament.players", Tournament.DEFAULT_PLAYERS),
+                    config.getInt("tournament.rounds", 0), boardSize, winLength,
+                    Paths.get(Tournament.DEFAULT_DIRECTORY)));
+            return true;
+        } catch (IllegalArgumentException ex) {
+            System.out.println(ex.getMessage());
+            return false;
         }
-        // Verifica se a mensagem é uma mensagem de chat.
-        // Se for, remove o marcador "CHAT" da mensagem e exibe no chat do jogador atual com o círculo.
-        else if (message.startsWith("CHAT")) {
-            message = message.replaceFirst("CHAT", "");
-            gameFrame.opponentMessage(message, GameFrame.CIRCLE);
+    }
+
+    /**
+     * Inicia uma thread que envia um batimento ao cliente a cada intervalo, pelo escritor dedicado da interface gráfica.
+     * @param outToClient Escritor das mensagens enviadas ao cliente.
+     * @param heartbeatMillis Intervalo, em milissegundos, entre os batimentos.
+     */
+    private static void startHeartbeat(NetworkWriter outToClient, long heartbeatMillis) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> outToClient.send(ProtocolWriter::writePing),
+                heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Inicia o servidor sem interface gráfica, que aceita muitos clientes e os coloca em salas de dois jogadores.
+     * @param config Configuração do servidor, com as portas, as opções dos sockets e o número de threads de seletor.
+     * @param mode O modo do servidor: "nio" para o servidor baseado em seletores,
+     *             "virtual" ou "platform" para o servidor com uma thread virtual ou de plataforma por conexão.
+     * @param lobby Saguão do servidor, com as dimensões do tabuleiro das salas.
+     */
+    private static void startHeadlessServer(ServerConfig config, String mode, GameLobby lobby) {
+        try {
+            // Verifica o modo solicitado e inicia o servidor correspondente.
+            if (mode.equals("nio")) {
+                new NioGameServer(config, lobby).start();
+            } else if (mode.equals("virtual") || mode.equals("platform")) {
+                new BlockingGameServer(config, mode.equals("virtual"), lobby).start();
+            } else {
+                System.out.println("Modo de servidor desconhecido: " + mode);
+            }
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Calcula a tabela de jogadas do tabuleiro clássico antes de aceitar jogadores, para que nenhuma partida
+     * contra o computador espere por ela.
+     * @param boardSize Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     */
+    private static void precomputeAi(int boardSize, int winLength) {
+        if (boardSize != GameStatus.DEFAULT_SIZE || winLength != GameStatus.DEFAULT_WIN_LENGTH) {
+            return;
         }
-        // Se a mensagem não se encaixa nos casos anteriores então é um movimento do oponente.
-        // Realiza a jogada do oponente no tabuleiro do jogador atual com o círculo.
-        else {
-            gameFrame.opponentMove(message, GameFrame.CIRCLE);
+        long startTime = System.nanoTime();
+        int positions = MinimaxSolver.precomputeClassicTable();
+        System.out.println("Tabela do jogador automático calculada: " + positions + " posições em "
+                + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Manipula as mensagens recebidas do cliente e atualiza a interface gráfica do jogo conforme necessário.
+     * As mensagens podem indicar o término da partida, o reinício do jogo, mensagens de chat ou movimentos do oponente.
+     * O conteúdo da mensagem é copiado do leitor e a atualização da interface é agendada na thread de eventos do Swing.
+     * @param type O tipo da mensagem recebida do cliente.
+     * @param message O leitor que recebeu a mensagem, com o seu conteúdo.
+     * @param gameFrame A instância da interface gráfica do jogo.
+     * @param serverSocket Socket do servidor.
+     * @param chatLimit Limite de taxa do chat do cliente.
+     */
+    private static void handleClientMessage(int type, ProtocolReader message, GameFrame gameFrame, Socket serverSocket,
+                                            TokenBucket chatLimit) {
+        switch (type) {
+            // Verifica se a mensagem indica o término da partida.
+            // Se for, notifica o jogador sobre a saída do oponente e encerra o programa.
+            case BinaryProtocol.END -> {
+                SwingUtilities.invokeLater(gameFrame::opponentLeftGame);
+                closeSocket(serverSocket);
+            }
+            // Verifica se a mensagem indica o que o oponente ganhou.
+            // Se for, notifica o jogador sobre a vitória e prepara para iniciar um novo jogo. O oponente do servidor
+            // com interface gráfica é o cliente, que sempre joga com o círculo.
+            case BinaryProtocol.WON -> SwingUtilities.invokeLater(() -> gameFrame.showWinnerFrame(GameFrame.CIRCLE, false));
+            // Verifica se a mensagem indica o que o jogo deu velha.
+            // Se for, notifica o jogador sobre o empate e prepara para iniciar um novo jogo.
+            case BinaryProtocol.DRAW -> SwingUtilities.invokeLater(gameFrame::showDrawFrame);
+            // Verifica se a mensagem é uma mensagem de chat.
+            // Se for, exibe o texto, já sem o marcador "CHAT" e cortado no tamanho máximo, no chat do jogador atual com o
+            // círculo. Mensagens acima do limite de taxa são descartadas; as aceitas são acumuladas pela interface, que
+            // as exibe em lote.
+            case BinaryProtocol.CHAT -> {
+                if (chatLimit.tryTake(System.nanoTime())) {
+                    gameFrame.opponentMessage(GameRoom.truncateChat(message.getText(), GameRoom.getMaxChatLength()),
+                            GameFrame.CIRCLE);
+                }
+            }
+            // Verifica se a mensagem é um movimento do oponente.
+            // Se for, realiza a jogada do oponente no tabuleiro do jogador atual com o círculo.
+            case BinaryProtocol.MOVE -> {
+                int position = message.getPosition();
+                SwingUtilities.invokeLater(() -> gameFrame.opponentMove(position, GameFrame.CIRCLE));
+            }
+            // Descarta a nota de habilidade, que só é usada pelo saguão dos servidores sem interface gráfica,
+            // e os batimentos, que só mostram que o cliente continua conectado.
+            default -> { }
         }
     }
 
@@ -0,0 +1,258 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Define a classe TextProtocol, que decodifica e codifica as linhas do protocolo de texto direto nos bytes.
+ * As linhas recebidas são classificadas pelo prefixo e as jogadas são lidas como número sem criar nenhum objeto,
+ * então o caminho de recebimento das jogadas e das mensagens de controle não aloca memória; apenas o texto do chat e as
+ * linhas de início de conexão (início, nota, pedido para assistir e retomada) viram String.
+ * As linhas que não mudam, como as jogadas e o empate, são codificadas uma única vez e compartilhadas.
+ */
+public final class TextProtocol {
+
+    /** Maior posição cuja linha de jogada é codificada de antemão.*/
+    private static final int CACHED_MOVES = 256;
+
+    /** Linha de negociação do protocolo binário.*/
+    private static final byte[] NEGOTIATION = ascii(BinaryProtocol.NEGOTIATION_LINE);
+
+    /** Prefixo da linha de início.*/
+    private static final byte[] START = ascii("START");
+
+    /** Prefixo da nota de habilidade.*/
+    private static final byte[] RATING = ascii(GameLobby.RATING_PREFIX);
+
+    /** Prefixo do pedido para assistir a uma sala.*/
+    private static final byte[] WATCH = ascii(GameLobby.WATCH_COMMAND);
+
+    /** Prefixo da resposta à retomada, verificado antes do prefixo da retomada, que é parte dele.*/
+    private static final byte[] RESUMED = ascii(GameRoom.RESUMED_PREFIX);
+
+    /** Prefixo da retomada.*/
+    private static final byte[] RESUME = ascii(GameRoom.RESUME_PREFIX);
+
+    /** Prefixo do término da partida.*/
+    private static final byte[] END = ascii("END");
+
+    /** Prefixo da vitória.*/
+    private static final byte[] WON = ascii("WON");
+
+    /** Prefixo do empate.*/
+    private static final byte[] DRAW = ascii("DRAW");
+
+    /** Linha do batimento.*/
+    private static final byte[] PING = ascii("PING");
+
+    /** Linha da resposta ao batimento.*/
+    private static final byte[] PONG = ascii("PONG");
+
+    /** Prefixo do chat, seguido diretamente do texto.*/
+    private static final byte[] CHAT = ascii("CHAT");
+
+    /** Tamanho do prefixo do chat, que é seguido diretamente do texto.*/
+    public static final int CHAT_PREFIX_LENGTH = CHAT.length;
+
+    /** Linha do empate, compartilhada por todas as conexões (nunca é alterada).*/
+    private static final byte[] DRAW_LINE = ascii("DRAW\n");
+
+    /** Linha do término da partida, compartilhada por todas as conexões (nunca é alterada).*/
+    private static final byte[] END_LINE = ascii("END\n");
+
+    /** Linha do batimento, compartilhada por todas as conexões (nunca é alterada).*/
+    private static final byte[] PING_LINE = ascii("PING\n");
+
+    /** Linha da resposta ao batimento, compartilhada por todas as conexões (nunca é alterada).*/
+    private static final byte[] PONG_LINE = ascii("PONG\n");
+
+    /** Linhas das jogadas nas posições de 0 a 255, compartilhadas por todas as conexões (nunca são alteradas).*/
+    private static final byte[][] MOVE_LINES = new byte[CACHED_MOVES][];
+
+    static {
+        for (int position = 0; position < CACHED_MOVES; position++) {
+            MOVE_LINES[position] = ascii(position + "\n");
+        }
+    }
+
+    /**
+     * Construtor privado, pois a classe só possui membros estáticos.
+     */
+    private TextProtocol() {
+    }
+
+    /**
+     * Classifica uma linha recebida pelo prefixo, na mesma ordem em que os leitores sempre a classificaram.
+     * @param line Bytes da linha, sem a quebra de linha.
+     * @param length Número de bytes da linha.
+     * @return O tipo da mensagem: um dos códigos de BinaryProtocol, ou START, NEGOTIATION, RATING, WATCH, RESUME ou
+     *         RESUMED de ProtocolReader. Linhas que não se encaixam em nenhum prefixo são jogadas.
+     */
+    public static int decodeType(byte[] line, int length) {
+        if (equals(line, length, NEGOTIATION)) {
+            return ProtocolReader.NEGOTIATION;
+        }
+        if (startsWith(line, length, START)) {
+            return ProtocolReader.START;
+        }
+        if (startsWith(line, length, RATING)) {
+            return ProtocolReader.RATING;
+        }
+        if (startsWith(line, length, WATCH)) {
+            return ProtocolReader.WATCH;
+        }
+        if (startsWith(line, length, RESUMED)) {
+            return ProtocolReader.RESUMED;
+        }
+        if (startsWith(line, length, RESUME)) {
+            return ProtocolReader.RESUME;
+        }
+        if (startsWith(line, length, END)) {
+            return BinaryProtocol.END;
+        }
+        if (startsWith(line, length, WON)) {
+            return BinaryProtocol.WON;
+        }
+        if (startsWith(line, length, DRAW)) {
+            return BinaryProtocol.DRAW;
+        }
+        if (equals(line, length, PING)) {
+            return BinaryProtocol.PING;
+        }
+        if (equals(line, length, PONG)) {
+            return BinaryProtocol.PONG;
+        }
+        if (startsWith(line, length, CHAT)) {
+            return BinaryProtocol.CHAT;
+        }
+        return BinaryProtocol.MOVE;
+    }
+
+    /**
+     * Lê a posição de uma linha de jogada, com as mesmas regras de Integer.parseInt, sem criar objetos.
+     * @param line Bytes da linha, sem a quebra de linha.
+     * @param length Número de bytes da linha.
+     * @return A posição, ou -1 se a linha não é um número válido.
+     */
+    public static int decodeMove(byte[] line, int length) {
+        int index = length > 0 && (line[0] == '+' || line[0] == '-') ? 1 : 0;
+        if (index == length) {
+            return -1;
+        }
+        long value = 0;
+        for (; index < length; index++) {
+            int digit = line[index] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE) {
+                // Números grandes demais também não são posições válidas.
+                return -1;
+            }
+        }
+        return line[0] == '-' ? (int) -value : (int) value;
+    }
+
+    /**
+     * Lê o símbolo do vencedor de uma linha de vitória ("WON X" ou "WON").
+     * @param line Bytes da linha, sem a quebra de linha.
+     * @param length Número de bytes da linha.
+     * @return O símbolo do vencedor, ou '\0' se for quem enviou a mensagem.
+     */
+    public static char decodeWinner(byte[] line, int length) {
+        return length > WON.length + 1 ? (char) (line[WON.length + 1] & 0xFF) : '\0';
+    }
+
+    /**
+     * Cria o texto de uma parte da linha, decodificada como ISO-8859-1. É a única alocação do recebimento em texto,
+     * feita apenas para o chat e as linhas de início de conexão.
+     * @param line Bytes da linha.
+     * @param offset Início do texto na linha.
+     * @param length Número de bytes da linha.
+     * @return O texto entre offset e o fim da linha.
+     */
+    public static String decodeText(byte[] line, int offset, int length) {
+        return new String(line, offset, Math.max(length - offset, 0), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Codifica a linha de uma jogada, compartilhada para as posições de 0 a 255.
+     * @param position A posição da jogada.
+     * @return A linha da jogada com a quebra de linha, que não deve ser alterada.
+     */
+    public static byte[] encodeMove(int position) {
+        if (position >= 0 && position < CACHED_MOVES) {
+            return MOVE_LINES[position];
+        }
+        return ascii(position + "\n");
+    }
+
+    /**
+     * Retorna a linha do empate.
+     * @return A linha com a quebra de linha, que não deve ser alterada.
+     */
+    public static byte[] encodeDraw() {
+        return DRAW_LINE;
+    }
+
+    /**
+     * Retorna a linha do término da partida.
+     * @return A linha com a quebra de linha, que não deve ser alterada.
+     */
+    public static byte[] encodeEnd() {
+        return END_LINE;
+    }
+
+    /**
+     * Retorna a linha do batimento.
+     * @return A linha com a quebra de linha, que não deve ser alterada.
+     */
+    public static byte[] encodePing() {
+        return PING_LINE;
+    }
+
+    /**
+     * Retorna a linha da resposta ao batimento.
+     * @return A linha com a quebra de linha, que não deve ser alterada.
+     */
+    public static byte[] encodePong() {
+        return PONG_LINE;
+    }
+
+    /**
+     * Verifica se a linha começa com um prefixo.
+     * @param line Bytes da linha.
+     * @param length Número de bytes da linha.
+     * @param prefix O prefixo.
+     * @return Verdadeiro se a linha começa com o prefixo.
+     */
+    private static boolean startsWith(byte[] line, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Verifica se a linha é exatamente igual a um texto.
+     * @param line Bytes da linha.
+     * @param length Número de bytes da linha.
+     * @param text O texto.
+     * @return Verdadeiro se a linha é igual ao texto.
+     */
+    private static boolean equals(byte[] line, int length, byte[] text) {
+        return length == text.length && startsWith(line, length, text);
+    }
+
+    /**
+     * Codifica um texto em ISO-8859-1.
+     * @param text O texto.
+     * @return Os bytes do texto.
+     */
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
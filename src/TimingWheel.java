@@ -0,0 +1,197 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Define a classe TimingWheel, um agendador de prazos em roda (hashed timing wheel) para dezenas de milhares de
+ * conexões, com uma única thread e custo constante para agendar e cancelar cada prazo.
+ * A roda tem um número fixo de posições, cada uma com a lista dos prazos que vencem nela; a thread avança uma posição
+ * a cada tique e entrega ao executor as tarefas dos prazos vencidos. Prazos mais longos que uma volta completa guardam
+ * o número de voltas que ainda faltam. A precisão é de um tique, o bastante para batimentos e prazos de reconexão.
+ * Os prazos novos chegam por uma fila sem bloqueio e só a thread da roda mexe nas listas das posições.
+ */
+public class TimingWheel {
+
+    /** Duração de um tique, em nanossegundos.*/
+    private final long tickNanos;
+
+    /** Primeiro prazo da lista de cada posição da roda.*/
+    private final Timeout[] buckets;
+
+    /** Máscara que transforma um número de tiques em uma posição da roda (o tamanho é uma potência de dois).*/
+    private final int mask;
+
+    /** Prazos agendados que ainda não foram colocados na roda.*/
+    private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<>();
+
+    /** Executor das tarefas dos prazos vencidos, para que uma tarefa demorada não atrase a roda.*/
+    private final Executor executor;
+
+    /** Instante, em nanossegundos, em que a roda começou a girar.*/
+    private final long startNanos = System.nanoTime();
+
+    /** Número de prazos agendados que ainda não venceram nem foram descartados depois de cancelados.*/
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /** Número de tiques já processados, usado apenas pela thread da roda.*/
+    private long tick;
+
+    /**
+     * Cria a roda e inicia a sua thread, que não impede o encerramento do processo.
+     * @param name Nome da thread da roda.
+     * @param tickMillis Duração de um tique, em milissegundos.
+     * @param wheelSize Número de posições da roda, arredondado para a potência de dois seguinte.
+     * @param executor Executor das tarefas dos prazos vencidos.
+     */
+    public TimingWheel(String name, long tickMillis, int wheelSize, Executor executor) {
+        this.tickNanos = tickMillis * 1_000_000;
+        this.buckets = new Timeout[Integer.highestOneBit(Math.max(wheelSize - 1, 1)) << 1];
+        this.mask = buckets.length - 1;
+        this.executor = executor;
+        Thread thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Agenda uma tarefa para depois de um prazo. Pode ser chamado por qualquer thread.
+     * @param task A tarefa, executada pelo executor da roda.
+     * @param delayMillis O prazo, em milissegundos.
+     * @return O prazo agendado, que pode ser cancelado.
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        var timeout = new Timeout(task, System.nanoTime() + delayMillis * 1_000_000);
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Retorna o número de prazos agendados que ainda não venceram.
+     * @return O número de prazos.
+     */
+    public int getPendingTimeouts() {
+        return pending.get();
+    }
+
+    /**
+     * Laço da thread da roda: aguarda o fim de cada tique, coloca na roda os prazos agendados desde o anterior
+     * e entrega as tarefas dos prazos vencidos na posição atual.
+     */
+    private void run() {
+        while (true) {
+            long sleepNanos = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+            transferAdded();
+            expire((int) (tick & mask));
+            tick++;
+        }
+    }
+
+    /**
+     * Coloca na roda os prazos agendados desde o último tique, calculando a posição e as voltas que faltam.
+     * Prazos que já venceram vão para a posição atual.
+     */
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.cancelled) {
+                pending.decrementAndGet();
+                continue;
+            }
+            long ticks = Math.max((timeout.deadlineNanos - startNanos) / tickNanos, tick);
+            timeout.remainingRounds = (ticks - tick) / buckets.length;
+            int bucket = (int) (ticks & mask);
+            timeout.next = buckets[bucket];
+            buckets[bucket] = timeout;
+        }
+    }
+
+    /**
+     * Percorre a lista de uma posição, retirando os prazos cancelados e os vencidos, e entrega as tarefas vencidas
+     * ao executor. Os prazos das voltas seguintes ficam na lista com uma volta a menos.
+     * @param bucket A posição da roda.
+     */
+    private void expire(int bucket) {
+        Timeout previous = null;
+        Timeout timeout = buckets[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (!timeout.cancelled && timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                previous = timeout;
+            } else {
+                // Retira o prazo da lista, vencido ou cancelado.
+                if (previous == null) {
+                    buckets[bucket] = next;
+                } else {
+                    previous.next = next;
+                }
+                timeout.next = null;
+                pending.decrementAndGet();
+                if (!timeout.cancelled) {
+                    submit(timeout.task);
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Entrega a tarefa de um prazo vencido ao executor.
+     * @param task A tarefa.
+     */
+    private void submit(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            // Exibe mensagem de erro no console se o executor recusar a tarefa; a roda continua girando.
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Define a classe Timeout, um prazo agendado na roda.
+     */
+    public static final class Timeout {
+
+        /** Tarefa executada quando o prazo vence.*/
+        private final Runnable task;
+
+        /** Instante, em nanossegundos, em que o prazo vence.*/
+        private final long deadlineNanos;
+
+        /** Indica se o prazo foi cancelado; o prazo cancelado é retirado da roda quando a thread passar por ele.*/
+        private volatile boolean cancelled;
+
+        /** Voltas completas da roda que faltam até o prazo vencer, usado apenas pela thread da roda.*/
+        private long remainingRounds;
+
+        /** Próximo prazo da lista da mesma posição, usado apenas pela thread da roda.*/
+        private Timeout next;
+
+        /**
+         * Cria um prazo.
+         * @param task Tarefa executada quando o prazo vence.
+         * @param deadlineNanos Instante, em nanossegundos, em que o prazo vence.
+         */
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancela o prazo; se a tarefa já foi entregue ao executor, ela ainda pode ser executada.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Define a classe TokenBucket, um balde de fichas que limita a taxa de um evento, como as mensagens de chat de um
+ * jogador. O balde começa cheio, cada evento consome uma ficha e as fichas voltam continuamente até a capacidade,
+ * então são aceitas rajadas curtas do tamanho da capacidade e, em média, no máximo a taxa de reposição.
+ * As fichas são repostas pelo tempo decorrido a cada consulta, sem thread nem agendamento.
+ * Não é seguro para várias threads: quem o usa deve protegê-lo, como o lugar do jogador faz com o seu bloqueio.
+ */
+public class TokenBucket {
+
+    /** Número máximo de fichas, ou seja, o tamanho da maior rajada aceita.*/
+    private final double capacity;
+
+    /** Fichas repostas por nanossegundo, ou zero para aceitar todos os eventos.*/
+    private final double tokensPerNano;
+
+    /** Fichas disponíveis na última consulta.*/
+    private double tokens;
+
+    /** Instante, em nanossegundos, da última consulta.*/
+    private long lastRefillNanos = System.nanoTime();
+
+    /**
+     * Cria um balde cheio.
+     * @param perSecond Fichas repostas por segundo, ou zero para não limitar a taxa.
+     * @param capacity Número máximo de fichas, pelo menos uma.
+     */
+    public TokenBucket(double perSecond, int capacity) {
+        this.capacity = Math.max(capacity, 1);
+        this.tokensPerNano = Math.max(perSecond, 0) / 1e9;
+        this.tokens = this.capacity;
+    }
+
+    /**
+     * Consome uma ficha, se houver, depois de repor as fichas do tempo decorrido desde a última consulta.
+     * @param nowNanos O instante atual, de System.nanoTime().
+     * @return Verdadeiro se o evento é aceito, falso se ele excede a taxa.
+     */
+    public boolean tryTake(long nowNanos) {
+        if (tokensPerNano == 0) {
+            return true;
+        }
+        tokens = Math.min(capacity, tokens + (nowNanos - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = nowNanos;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+}
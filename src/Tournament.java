@@ -0,0 +1,622 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Define a classe Tournament, o torneio que o servidor organiza entre os jogadores conectados, no lugar do saguão.
+ * Os jogadores que chegam se inscrevem; quando há inscritos suficientes, o torneio começa com todos eles e é jogado
+ * em rodadas, no sistema suíço (cada rodada junta jogadores de pontuação próxima que ainda não se enfrentaram) ou
+ * todos contra todos. Cada partida de uma rodada é uma sala de partida única (GameRoom com MatchListener), e todas
+ * as salas da rodada são jogadas ao mesmo tempo pelas threads que atendem as conexões, como as demais salas; a
+ * rodada seguinte começa assim que a última partida termina. A vitória vale um ponto e o empate meio ponto, e quem
+ * fica sem oponente em uma rodada ímpar ganha a vitória. Quem sai, cai sem voltar no prazo ou perde por abandono
+ * deixa o torneio, perdendo a partida em andamento e as seguintes.
+ * Ao fim de cada rodada o servidor exibe o tempo da rodada e a classificação, que também é gravada no diretório de
+ * torneios; ao fim do torneio os jogadores recebem o término, e os próximos inscritos formam um novo torneio.
+ * Quando o servidor é drenado, nenhum torneio começa e o torneio em andamento termina ao fim da rodada atual.
+ * Todo o estado do torneio é acessado apenas pela thread do torneio: as inscrições, as saídas e os resultados
+ * chegam como tarefas para ela, então nada precisa de bloqueio.
+ */
+public class Tournament {
+
+    /** Sistema suíço: cada rodada junta jogadores de pontuação próxima que ainda não se enfrentaram.*/
+    public static final String SWISS = "swiss";
+
+    /** Sistema todos contra todos: cada jogador enfrenta todos os outros uma vez.*/
+    public static final String ROUND_ROBIN = "roundrobin";
+
+    /** Número padrão de inscritos para que um torneio comece.*/
+    public static final int DEFAULT_PLAYERS = 8;
+
+    /** Diretório padrão em que as classificações dos torneios são gravadas.*/
+    public static final String DEFAULT_DIRECTORY = "tournaments";
+
+    /** Intervalo, em milissegundos, entre as verificações das inscrições.*/
+    private static final long REGISTRATION_CHECK_MILLIS = 50;
+
+    /** Pontos da vitória, contados em meios pontos para que o empate seja inteiro.*/
+    private static final int WIN_POINTS = 2;
+
+    /** Pontos do empate, em meios pontos.*/
+    private static final int DRAW_POINTS = 1;
+
+    /** Número de rodadas concluídas em todos os torneios.*/
+    private static final LongAdder completedRounds = new LongAdder();
+
+    /** Número de partidas de torneio concluídas.*/
+    private static final LongAdder completedMatches = new LongAdder();
+
+    /** Sistema de disputa: SWISS ou ROUND_ROBIN.*/
+    private final String format;
+
+    /** Número de inscritos para que um torneio comece.*/
+    private final int minPlayers;
+
+    /** Número de rodadas pedido para o sistema suíço, ou zero para calculá-lo pelo número de jogadores.*/
+    private final int requestedRounds;
+
+    /** Número de linhas e de colunas do tabuleiro das partidas.*/
+    private final int boardSize;
+
+    /** Número de símbolos em sequência necessários para vencer nas partidas.*/
+    private final int winLength;
+
+    /** Diretório em que as classificações são gravadas, ou nulo para apenas exibi-las.*/
+    private final Path directory;
+
+    /** Thread do torneio, a única que acessa as inscrições, as rodadas e a classificação.*/
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tournament");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Jogadores inscritos que aguardam o próximo torneio.*/
+    private final List<Entrant> registered = new ArrayList<>();
+
+    /** Participante de cada conexão, inscrito ou no torneio em andamento.*/
+    private final Map<PlayerConnection, Entrant> entrants = new HashMap<>();
+
+    /** Participantes do torneio em andamento, na ordem de inscrição, inclusive os que já saíram.*/
+    private List<Entrant> field = new ArrayList<>();
+
+    /** Ação que inicia as salas criadas, definida pelo servidor.*/
+    private Consumer<GameRoom> roomStarter;
+
+    /** Número do torneio em andamento, ou do último, contado desde o início do servidor.*/
+    private int eventNumber;
+
+    /** Instante, em milissegundos, em que o torneio em andamento começou, usado no nome do arquivo da classificação.*/
+    private long eventStartMillis;
+
+    /** Número da rodada em andamento.*/
+    private int round;
+
+    /** Número de rodadas do torneio em andamento.*/
+    private int totalRounds;
+
+    /** Número de partidas da rodada em andamento que ainda não terminaram.*/
+    private int pendingMatches;
+
+    /** Número de partidas da rodada em andamento.*/
+    private int roundMatches;
+
+    /** Instante, em nanossegundos, em que a rodada em andamento começou.*/
+    private long roundStartNanos;
+
+    /** Número sequencial dado aos jogadores inscritos, que os identifica na classificação.*/
+    private int nextEntrantNumber = 1;
+
+    /** Indica se o servidor está sendo drenado, caso em que nenhuma rodada ou torneio começa.*/
+    private boolean draining;
+
+    /**
+     * Cria o torneio.
+     * @param format Sistema de disputa: SWISS ou ROUND_ROBIN.
+     * @param minPlayers Número de inscritos para que um torneio comece, no mínimo dois.
+     * @param requestedRounds Número de rodadas do sistema suíço, ou zero para calculá-lo pelo número de jogadores.
+     * @param boardSize Número de linhas e de colunas do tabuleiro das partidas.
+     * @param winLength Número de símbolos em sequência necessários para vencer nas partidas.
+     * @param directory Diretório em que as classificações são gravadas, ou nulo para apenas exibi-las.
+     */
+    public Tournament(String format, int minPlayers, int requestedRounds, int boardSize, int winLength, Path directory) {
+        if (!format.equals(SWISS) && !format.equals(ROUND_ROBIN)) {
+            throw new IllegalArgumentException("Sistema de torneio desconhecido: " + format);
+        }
+        this.format = format;
+        this.minPlayers = Math.max(2, minPlayers);
+        this.requestedRounds = Math.max(0, requestedRounds);
+        this.boardSize = boardSize;
+        this.winLength = winLength;
+        this.directory = directory;
+    }
+
+    /**
+     * Passa a verificar as inscrições e a organizar os torneios. Chamado pelo saguão ao iniciar.
+     * @param roomStarter Ação que inicia cada sala criada, chamada pela thread do torneio.
+     */
+    public void start(Consumer<GameRoom> roomStarter) {
+        scheduler.execute(() -> this.roomStarter = roomStarter);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                checkRegistrations();
+            } catch (RuntimeException ex) {
+                // Uma exceção interromperia as verificações seguintes, então apenas é exibida.
+                System.out.println(ex.getMessage());
+            }
+        }, REGISTRATION_CHECK_MILLIS, REGISTRATION_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+        System.out.println("Torneio " + (format.equals(SWISS) ? "suíço" : "todos contra todos")
+                + " aguardando " + minPlayers + " inscritos");
+    }
+
+    /**
+     * Inscreve um jogador que acabou de se conectar no próximo torneio.
+     * @param player O jogador.
+     * @param greeted Verdadeiro se a primeira linha do jogador já foi lida ou o intervalo para ela já passou.
+     */
+    public void register(PlayerConnection player, boolean greeted) {
+        // A primeira linha do cliente (a nota, o pedido para assistir ou a retomada) chega antes do início do torneio.
+        long readyAt = System.nanoTime() + (greeted ? 0 : TimeUnit.MILLISECONDS.toNanos(GameLobby.GREETING_MILLIS));
+        scheduler.execute(() -> {
+            var entrant = new Entrant(nextEntrantNumber++, player, readyAt);
+            registered.add(entrant);
+            entrants.put(player, entrant);
+        });
+    }
+
+    /**
+     * Retira do torneio um jogador que se desconectou fora de uma partida: ele perde as partidas que faltam.
+     * A queda durante uma partida é tratada pela sala, que guarda o lugar pelo prazo de reconexão e informa no
+     * resultado se o jogador deixou o torneio.
+     * @param player A conexão que caiu.
+     */
+    public void withdraw(PlayerConnection player) {
+        scheduler.execute(() -> {
+            Entrant entrant = entrants.get(player);
+            if (entrant == null) {
+                return;
+            }
+            if (entrant.inMatch) {
+                // A conexão pode ter caído logo depois de a sala liberá-la, antes de o resultado chegar aqui.
+                entrant.droppedConnection = player;
+                return;
+            }
+            entrants.remove(player);
+            registered.remove(entrant);
+            entrant.withdrawn = true;
+        });
+    }
+
+    /**
+     * Deixa de organizar torneios, para que o servidor possa ser desligado: os inscritos que aguardam o próximo
+     * torneio são dispensados, e o torneio em andamento termina ao fim da rodada atual, com a classificação gravada.
+     * Aguarda a thread do torneio dispensar os inscritos, para que eles recebam o término antes do fim do processo.
+     */
+    public void drain() {
+        try {
+            scheduler.submit(() -> {
+                draining = true;
+                for (Entrant entrant : registered) {
+                    entrants.remove(entrant.connection);
+                    GameLobby.dismiss(entrant.connection);
+                }
+                registered.clear();
+            }).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Começa um torneio quando há inscritos suficientes cuja primeira linha já chegou, com todos eles.
+     */
+    private void checkRegistrations() {
+        if (roomStarter == null || !field.isEmpty() || draining) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<Entrant> ready = new ArrayList<>();
+        for (Entrant entrant : registered) {
+            if (now - entrant.readyAt >= 0) {
+                ready.add(entrant);
+            }
+        }
+        if (ready.size() < minPlayers) {
+            return;
+        }
+        registered.removeAll(ready);
+        for (Entrant entrant : ready) {
+            entrant.rating = entrant.connection.getRating();
+        }
+        field = ready;
+        eventNumber++;
+        eventStartMillis = System.currentTimeMillis();
+        round = 0;
+        int players = field.size();
+        if (format.equals(ROUND_ROBIN)) {
+            totalRounds = players % 2 == 0 ? players - 1 : players;
+        } else {
+            // Sem um número pedido, o suíço tem as rodadas necessárias para separar um único vencedor invicto.
+            int rounds = requestedRounds > 0 ? requestedRounds : 32 - Integer.numberOfLeadingZeros(players - 1);
+            totalRounds = Math.min(rounds, players - 1);
+        }
+        System.out.println("Torneio " + eventNumber + " começou com " + players + " jogadores e " + totalRounds
+                + " rodadas");
+        startRound();
+    }
+
+    /**
+     * Forma os pares da próxima rodada e inicia todas as partidas dela de uma vez.
+     * Quem fica sem oponente ganha a vitória, assim como quem enfrentaria um jogador que já saiu.
+     */
+    private void startRound() {
+        round++;
+        roundStartNanos = System.nanoTime();
+        List<Entrant[]> pairings = format.equals(SWISS) ? pairSwiss() : pairRoundRobin();
+        pendingMatches = 0;
+        for (Entrant[] pairing : pairings) {
+            Entrant first = pairing[0];
+            Entrant second = pairing[1];
+            if (first == null || second == null || first.withdrawn || second.withdrawn) {
+                awardBye(first);
+                awardBye(second);
+                continue;
+            }
+            // Joga com o xis, e começa, quem jogou menos vezes com ele.
+            boolean firstIsCross = first.crossGames <= second.crossGames;
+            Entrant cross = firstIsCross ? first : second;
+            Entrant circle = firstIsCross ? second : first;
+            cross.crossGames++;
+            cross.opponents.add(circle);
+            circle.opponents.add(cross);
+            cross.inMatch = true;
+            circle.inMatch = true;
+            pendingMatches++;
+            var room = new GameRoom(cross.connection, circle.connection, boardSize, winLength,
+                    (crossPlayer, circlePlayer, winner) -> scheduler.execute(
+                            () -> recordResult(cross, circle, crossPlayer, circlePlayer, winner)));
+            roomStarter.accept(room);
+        }
+        roundMatches = pendingMatches;
+        if (pendingMatches == 0) {
+            finishRound();
+        }
+    }
+
+    /**
+     * Dá a vitória da rodada a um participante sem oponente, se ele ainda está no torneio.
+     * @param entrant O participante, ou nulo.
+     */
+    private static void awardBye(Entrant entrant) {
+        if (entrant != null && !entrant.withdrawn) {
+            entrant.points += WIN_POINTS;
+            entrant.wins++;
+            entrant.byes++;
+        }
+    }
+
+    /**
+     * Forma os pares de uma rodada do sistema suíço: os jogadores que continuam no torneio são ordenados pela
+     * classificação e cada um, do primeiro ao último, enfrenta o próximo sem par que ele ainda não enfrentou, ou o
+     * próximo sem par se já enfrentou todos. Com um número ímpar de jogadores, o último colocado que ainda não ficou
+     * sem oponente fica de fora da rodada.
+     * @return Os pares da rodada; o par com um único jogador é o de quem fica de fora.
+     */
+    private List<Entrant[]> pairSwiss() {
+        List<Entrant> active = new ArrayList<>();
+        for (Entrant entrant : field) {
+            if (!entrant.withdrawn) {
+                active.add(entrant);
+            }
+        }
+        rank(active);
+        List<Entrant[]> pairings = new ArrayList<>();
+        if (active.size() % 2 == 1) {
+            Entrant bye = active.getLast();
+            for (int i = active.size() - 1; i >= 0; i--) {
+                if (active.get(i).byes == 0) {
+                    bye = active.get(i);
+                    break;
+                }
+            }
+            active.remove(bye);
+            pairings.add(new Entrant[] {bye, null});
+        }
+        while (!active.isEmpty()) {
+            Entrant first = active.removeFirst();
+            int opponent = 0;
+            for (int i = 0; i < active.size(); i++) {
+                if (!first.opponents.contains(active.get(i))) {
+                    opponent = i;
+                    break;
+                }
+            }
+            pairings.add(new Entrant[] {first, active.remove(opponent)});
+        }
+        return pairings;
+    }
+
+    /**
+     * Forma os pares de uma rodada do sistema todos contra todos pelo método do círculo: o primeiro inscrito fica
+     * parado e os demais giram uma posição por rodada, e cada posição enfrenta a posição espelhada. Com um número
+     * ímpar de jogadores, uma posição vazia completa o círculo, e quem a enfrenta fica de fora da rodada.
+     * Os jogadores que saíram continuam no círculo, para que os pares das outras rodadas não mudem.
+     * @return Os pares da rodada.
+     */
+    private List<Entrant[]> pairRoundRobin() {
+        List<Entrant> circle = new ArrayList<>(field);
+        if (circle.size() % 2 == 1) {
+            circle.add(null);
+        }
+        int size = circle.size();
+        List<Entrant[]> pairings = new ArrayList<>(size / 2);
+        for (int i = 0; i < size / 2; i++) {
+            pairings.add(new Entrant[] {circleSlot(circle, i), circleSlot(circle, size - 1 - i)});
+        }
+        return pairings;
+    }
+
+    /**
+     * Retorna o participante de uma posição do círculo na rodada em andamento.
+     * @param circle Os participantes na ordem de inscrição, com a posição vazia quando o número é ímpar.
+     * @param slot A posição no círculo.
+     * @return O participante da posição, ou nulo na posição vazia.
+     */
+    private Entrant circleSlot(List<Entrant> circle, int slot) {
+        if (slot == 0) {
+            return circle.getFirst();
+        }
+        return circle.get(1 + (slot - 1 + round - 1) % (circle.size() - 1));
+    }
+
+    /**
+     * Registra o resultado de uma partida e, se ela era a última da rodada, encerra a rodada.
+     * @param cross Participante que jogou com o xis.
+     * @param circle Participante que jogou com o círculo.
+     * @param crossPlayer Conexão atual do jogador do xis, ou nulo se ele deixou a partida.
+     * @param circlePlayer Conexão atual do jogador do círculo, ou nulo se ele deixou a partida.
+     * @param winner Símbolo do vencedor, ou '\0' no empate.
+     */
+    private void recordResult(Entrant cross, Entrant circle, PlayerConnection crossPlayer, PlayerConnection circlePlayer,
+                              char winner) {
+        completedMatches.increment();
+        returnFromMatch(cross, crossPlayer);
+        returnFromMatch(circle, circlePlayer);
+        if (winner == '\0') {
+            cross.points += DRAW_POINTS;
+            circle.points += DRAW_POINTS;
+            cross.draws++;
+            circle.draws++;
+        } else {
+            Entrant winnerEntrant = winner == GameFrame.CROSS ? cross : circle;
+            Entrant loser = winner == GameFrame.CROSS ? circle : cross;
+            winnerEntrant.points += WIN_POINTS;
+            winnerEntrant.wins++;
+            loser.losses++;
+        }
+        if (--pendingMatches == 0) {
+            finishRound();
+        }
+    }
+
+    /**
+     * Atualiza um participante que saiu de uma partida: guarda a conexão atual, que pode ser a de uma reconexão,
+     * ou o retira do torneio se ele deixou a partida ou a sua conexão caiu logo depois dela.
+     * @param entrant O participante.
+     * @param connection A conexão atual do participante, ou nulo se ele deixou a partida.
+     */
+    private void returnFromMatch(Entrant entrant, PlayerConnection connection) {
+        entrant.inMatch = false;
+        entrants.remove(entrant.connection);
+        if (connection != null && connection == entrant.droppedConnection) {
+            connection.close();
+            connection = null;
+        }
+        entrant.droppedConnection = null;
+        if (connection == null) {
+            entrant.withdrawn = true;
+            return;
+        }
+        entrant.connection = connection;
+        entrants.put(connection, entrant);
+    }
+
+    /**
+     * Encerra a rodada em andamento: exibe o tempo da rodada e a classificação, grava a classificação e começa a
+     * próxima rodada, ou encerra o torneio depois da última, quando restam menos de dois jogadores ou durante a
+     * drenagem do servidor.
+     */
+    private void finishRound() {
+        completedRounds.increment();
+        long elapsedMillis = (System.nanoTime() - roundStartNanos) / 1_000_000;
+        String standings = standings();
+        System.out.println("Torneio " + eventNumber + ": rodada " + round + " de " + totalRounds + " concluída em "
+                + elapsedMillis + " ms, com " + roundMatches + " partidas simultâneas");
+        System.out.print(standings);
+        saveStandings(standings);
+
+        int remaining = 0;
+        for (Entrant entrant : field) {
+            if (!entrant.withdrawn) {
+                remaining++;
+            }
+        }
+        if (round < totalRounds && remaining >= 2 && !draining) {
+            startRound();
+        } else {
+            finishEvent();
+        }
+    }
+
+    /**
+     * Encerra o torneio: envia o término aos jogadores que continuam nele e fecha as suas conexões.
+     */
+    private void finishEvent() {
+        System.out.println("Torneio " + eventNumber + " encerrado");
+        for (Entrant entrant : field) {
+            if (!entrant.withdrawn) {
+                entrants.remove(entrant.connection);
+                entrant.connection.sendEnd();
+                ServerMetrics.recordSent(BinaryProtocol.END);
+                entrant.connection.flush();
+                entrant.connection.close();
+            }
+        }
+        field = new ArrayList<>();
+    }
+
+    /**
+     * Ordena os participantes pela classificação: pontos, soma dos pontos dos oponentes (Buchholz), vitórias e,
+     * por fim, a nota informada e a ordem de inscrição.
+     * @param ranked Os participantes, reordenados no lugar.
+     */
+    private static void rank(List<Entrant> ranked) {
+        for (Entrant entrant : ranked) {
+            int buchholz = 0;
+            for (Entrant opponent : entrant.opponents) {
+                buchholz += opponent.points;
+            }
+            entrant.buchholz = buchholz;
+        }
+        ranked.sort(Comparator.comparingInt((Entrant entrant) -> entrant.points)
+                .thenComparingInt(entrant -> entrant.buchholz)
+                .thenComparingInt(entrant -> entrant.wins)
+                .thenComparingInt(entrant -> entrant.rating)
+                .reversed()
+                .thenComparingInt(entrant -> entrant.number));
+    }
+
+    /**
+     * Monta a classificação do torneio em andamento, uma linha por participante.
+     * @return O texto da classificação.
+     */
+    private String standings() {
+        List<Entrant> ranked = new ArrayList<>(field);
+        rank(ranked);
+        var text = new StringBuilder(64 * (ranked.size() + 1));
+        text.append("Classificação do torneio ").append(eventNumber).append(" depois da rodada ").append(round)
+                .append(" de ").append(totalRounds).append('\n');
+        for (int i = 0; i < ranked.size(); i++) {
+            Entrant entrant = ranked.get(i);
+            text.append(String.format("%3d. Jogador %d (nota %d): %.1f pontos, %d V, %d E, %d D, Buchholz %.1f%s%n",
+                    i + 1, entrant.number, entrant.rating, entrant.points / 2.0, entrant.wins, entrant.draws,
+                    entrant.losses, entrant.buchholz / 2.0, entrant.withdrawn ? " (saiu)" : ""));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Grava a classificação no arquivo do torneio em andamento ("torneio-<início>-<número>.txt"), substituindo a
+     * da rodada anterior de uma só vez, como o diretório de salas, para que quem lê sempre encontre um arquivo inteiro.
+     * @param standings O texto da classificação.
+     */
+    private void saveStandings(String standings) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            String fileName = "torneio-" + eventStartMillis + "-" + eventNumber + ".txt";
+            Path temp = directory.resolve(fileName + ".tmp");
+            Files.writeString(temp, standings, StandardCharsets.UTF_8);
+            Files.move(temp, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Retorna o número de rodadas concluídas em todos os torneios.
+     * @return O número de rodadas.
+     */
+    public static long getCompletedRounds() {
+        return completedRounds.sum();
+    }
+
+    /**
+     * Retorna o número de partidas de torneio concluídas.
+     * @return O número de partidas.
+     */
+    public static long getCompletedMatches() {
+        return completedMatches.sum();
+    }
+
+    /**
+     * Define a classe Entrant, um participante do torneio e a sua pontuação (usada apenas pela thread do torneio).
+     */
+    private static final class Entrant {
+
+        /** Número de inscrição, que identifica o participante na classificação.*/
+        final int number;
+
+        /** Instante, em nanossegundos, a partir do qual o participante pode entrar em um torneio.*/
+        final long readyAt;
+
+        /** Oponentes já enfrentados no torneio.*/
+        final List<Entrant> opponents = new ArrayList<>();
+
+        /** Conexão atual do participante, trocada quando ele se reconecta durante uma partida.*/
+        PlayerConnection connection;
+
+        /** Conexão que caiu enquanto o participante estava em uma partida, ou nulo.*/
+        PlayerConnection droppedConnection;
+
+        /** Nota informada pelo jogador, lida no início do torneio.*/
+        int rating;
+
+        /** Pontos, em meios pontos.*/
+        int points;
+
+        /** Soma dos pontos dos oponentes, em meios pontos, calculada ao ordenar a classificação.*/
+        int buchholz;
+
+        /** Número de vitórias, inclusive as rodadas sem oponente.*/
+        int wins;
+
+        /** Número de empates.*/
+        int draws;
+
+        /** Número de derrotas.*/
+        int losses;
+
+        /** Número de partidas jogadas com o xis.*/
+        int crossGames;
+
+        /** Número de rodadas sem oponente.*/
+        int byes;
+
+        /** Indica se o participante está em uma partida.*/
+        boolean inMatch;
+
+        /** Indica se o participante deixou o torneio.*/
+        boolean withdrawn;
+
+        /**
+         * Cria um participante.
+         * @param number Número de inscrição.
+         * @param connection Conexão do jogador.
+         * @param readyAt Instante, em nanossegundos, a partir do qual ele pode entrar em um torneio.
+         */
+        Entrant(int number, PlayerConnection connection, long readyAt) {
+            this.number = number;
+            this.connection = connection;
+            this.readyAt = readyAt;
+        }
+    }
+}
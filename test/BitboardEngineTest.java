@@ -0,0 +1,30 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testa a recusa das posições fora do tabuleiro 3x3 pelas máscaras de bits.
+ */
+public class BitboardEngineTest {
+
+    /**
+     * Posições negativas ou maiores que o tabuleiro são recusadas, em vez de ocuparem outra posição pelo
+     * deslocamento dos bits; a posição 32, por exemplo, não ocupa a posição 0.
+     */
+    @Test
+    public void rejectsPositionsOutsideTheBoard() {
+        var engine = new BitboardEngine();
+        for (int position : new int[] {-1, 9, 32, Integer.MIN_VALUE}) {
+            assertFalse(engine.isValidMove(position));
+            assertThrows(IndexOutOfBoundsException.class, () -> engine.makeMove(position, GameFrame.CROSS));
+            assertThrows(IndexOutOfBoundsException.class, () -> engine.undoMove(position));
+            assertThrows(IndexOutOfBoundsException.class, () -> engine.getPosition(position));
+        }
+        assertEquals('\0', engine.getPosition(0));
+
+        engine.makeMove(8, GameFrame.CIRCLE);
+        assertEquals(GameFrame.CIRCLE, engine.getPosition(8));
+    }
+}
@@ -0,0 +1,93 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testa a conta das mensagens que o cliente reenvia na retomada, a partir do número de mensagens que o servidor
+ * confirmou ter recebido, com o limite de mensagens guardadas igual ao do lugar do jogador no servidor.
+ */
+public class ClientSessionTest {
+
+    /** Números das mensagens reenviadas, na ordem do reenvio.*/
+    private final List<Long> resent = new ArrayList<>();
+
+    /** Escritor da nova conexão, que as mensagens de teste não usam.*/
+    private final ProtocolWriter writer = new ProtocolWriter(new ByteArrayOutputStream());
+
+    /**
+     * Se o servidor recebeu tudo, nada é reenviado; se recebeu só parte, o restante é reenviado em ordem.
+     */
+    @Test
+    public void resendsMessagesAfterAcknowledged() throws IOException {
+        ClientSession session = sessionWithSent(10);
+
+        session.resend(writer, 10);
+        assertEquals(List.of(), resent);
+
+        session.resend(writer, 7);
+        assertEquals(List.of(8L, 9L, 10L), resent);
+    }
+
+    /**
+     * Com mais mensagens enviadas que o limite, só as últimas são guardadas, e qualquer confirmação a partir da
+     * anterior à primeira guardada pode ser atendida.
+     */
+    @Test
+    public void resendsWithinTheKeptWindow() throws IOException {
+        ClientSession session = sessionWithSent(100);
+        long firstKept = 100 - PlayerSeat.BACKLOG_SIZE + 1;
+
+        session.resend(writer, firstKept - 1);
+        assertEquals(LongStream.rangeClosed(firstKept, 100).boxed().toList(), resent);
+
+        resent.clear();
+        session.resend(writer, 90);
+        assertEquals(LongStream.rangeClosed(91, 100).boxed().toList(), resent);
+    }
+
+    /**
+     * Exatamente o limite de mensagens ainda pode ser reenviado por inteiro; uma a mais já não pode.
+     */
+    @Test
+    public void keepsExactlyTheServerBacklog() throws IOException {
+        sessionWithSent(PlayerSeat.BACKLOG_SIZE).resend(writer, 0);
+        assertEquals(PlayerSeat.BACKLOG_SIZE, resent.size());
+
+        ClientSession overflowed = sessionWithSent(PlayerSeat.BACKLOG_SIZE + 1);
+        assertThrows(IOException.class, () -> overflowed.resend(writer, 0));
+    }
+
+    /**
+     * Uma confirmação anterior às mensagens guardadas, ou maior que o número de mensagens enviadas, é recusada sem
+     * reenviar nada.
+     */
+    @Test
+    public void rejectsAcknowledgedOutsideTheWindow() {
+        ClientSession session = sessionWithSent(100);
+        long firstKept = 100 - PlayerSeat.BACKLOG_SIZE + 1;
+
+        assertThrows(IOException.class, () -> session.resend(writer, firstKept - 2));
+        assertThrows(IOException.class, () -> session.resend(writer, 101));
+        assertEquals(List.of(), resent);
+    }
+
+    /**
+     * Cria uma sessão que já enviou mensagens numeradas a partir de um; reenviar cada uma anota o seu número.
+     * @param count Número de mensagens enviadas.
+     * @return A sessão.
+     */
+    private ClientSession sessionWithSent(int count) {
+        var session = new ClientSession("127.0.0.1", ServerConfig.DEFAULT_PORT, "ficha");
+        for (long sequence = 1; sequence <= count; sequence++) {
+            long number = sequence;
+            session.recordSent(ignored -> resent.add(number));
+        }
+        return session;
+    }
+}
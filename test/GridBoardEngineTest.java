@@ -0,0 +1,116 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testa a verificação incremental da vitória e do empate do tabuleiro NxN, nas bordas do tabuleiro e com sequências
+ * menores que o lado, e a reversão das jogadas.
+ */
+public class GridBoardEngineTest {
+
+    /**
+     * No 5x5 com cinco em linha, a última linha, a última coluna e as duas diagonais vencem, com a jogada decisiva
+     * na ponta ou no meio da sequência.
+     */
+    @Test
+    public void winsOnEveryDirectionAtTheEdges() {
+        assertWins(5, 5, 20, 21, 23, 24, 22);
+        assertWins(5, 5, 4, 9, 14, 19, 24);
+        assertWins(5, 5, 0, 6, 18, 24, 12);
+        assertWins(5, 5, 20, 16, 12, 8, 4);
+    }
+
+    /**
+     * Com quatro em linha no 7x7, quatro símbolos encostados na borda vencem e três não; a linha não continua na
+     * linha seguinte.
+     */
+    @Test
+    public void winsWithSequenceShorterThanBoard() {
+        assertWins(7, 4, 45, 46, 47, 48);
+        assertWins(7, 4, 6, 12, 18, 24);
+
+        var engine = new GridBoardEngine(7, 4);
+        play(engine, GameFrame.CROSS, 46, 47, 48, 40);
+        assertFalse(engine.checkWinner(GameFrame.CROSS));
+
+        // A sequência que passa do fim de uma linha para o começo da próxima não é uma linha.
+        engine.reset();
+        play(engine, GameFrame.CROSS, 5, 6, 7, 8);
+        assertFalse(engine.checkWinner(GameFrame.CROSS));
+    }
+
+    /**
+     * Desfazer a jogada decisiva desfaz a vitória, esvazia a posição e devolve a contagem usada pelo empate.
+     */
+    @Test
+    public void undoMoveRevertsWinAndOccupiedCells() {
+        var engine = new GridBoardEngine(3, 3);
+        play(engine, GameFrame.CROSS, 0, 1);
+        play(engine, GameFrame.CIRCLE, 3, 4);
+        engine.makeMove(2, GameFrame.CROSS);
+        assertTrue(engine.checkWinner(GameFrame.CROSS));
+
+        engine.undoMove(2);
+        assertFalse(engine.checkWinner(GameFrame.CROSS));
+        assertTrue(engine.isValidMove(2));
+        assertEquals('\0', engine.getPosition(2));
+
+        // Sem a vitória, o tabuleiro só fica cheio depois das nove jogadas: X X O / O O X / X O X.
+        play(engine, GameFrame.CIRCLE, 2, 7);
+        play(engine, GameFrame.CROSS, 5, 6);
+        assertFalse(engine.checkDraw());
+        engine.makeMove(8, GameFrame.CROSS);
+        assertTrue(engine.checkDraw());
+        assertFalse(engine.checkWinner(GameFrame.CROSS));
+        assertFalse(engine.checkWinner(GameFrame.CIRCLE));
+    }
+
+    /**
+     * O tabuleiro reiniciado fica vazio e sem vencedor, e aceita uma nova partida.
+     */
+    @Test
+    public void resetClearsBoard() {
+        var engine = new GridBoardEngine(4, 3);
+        play(engine, GameFrame.CIRCLE, 0, 5, 10);
+        assertTrue(engine.checkWinner(GameFrame.CIRCLE));
+
+        engine.reset();
+        assertFalse(engine.checkWinner(GameFrame.CIRCLE));
+        assertFalse(engine.checkDraw());
+        for (int position = 0; position < 16; position++) {
+            assertTrue(engine.isValidMove(position));
+        }
+        play(engine, GameFrame.CROSS, 3, 6, 9);
+        assertTrue(engine.checkWinner(GameFrame.CROSS));
+    }
+
+    /**
+     * Joga as posições com o xis em um tabuleiro novo e confere que só a última jogada completa a sequência.
+     * @param size Número de linhas e de colunas do tabuleiro.
+     * @param winLength Número de símbolos em sequência necessários para vencer.
+     * @param positions As posições jogadas, a decisiva por último.
+     */
+    private static void assertWins(int size, int winLength, int... positions) {
+        var engine = new GridBoardEngine(size, winLength);
+        for (int i = 0; i < positions.length; i++) {
+            assertFalse(engine.checkWinner(GameFrame.CROSS), "vitória antes da jogada " + positions[i]);
+            engine.makeMove(positions[i], GameFrame.CROSS);
+        }
+        assertTrue(engine.checkWinner(GameFrame.CROSS), "sem vitória depois da jogada " + positions[positions.length - 1]);
+        assertFalse(engine.checkWinner(GameFrame.CIRCLE));
+    }
+
+    /**
+     * Realiza as jogadas de um jogador.
+     * @param engine O tabuleiro.
+     * @param playerId Símbolo do jogador.
+     * @param positions As posições jogadas.
+     */
+    private static void play(GridBoardEngine engine, char playerId, int... positions) {
+        for (int position : positions) {
+            engine.makeMove(position, playerId);
+        }
+    }
+}
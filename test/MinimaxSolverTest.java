@@ -0,0 +1,64 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testa a busca do jogador automático nos tabuleiros que não são resolvidos pela tabela de jogadas.
+ */
+public class MinimaxSolverTest {
+
+    /**
+     * No gomoku, depois do xis no centro, a busca do servidor responde dentro do prazo e perto do centro, e não na
+     * primeira casa vazia.
+     */
+    @Test
+    public void answersNearTheStonesWithinTheDeadline() throws InterruptedException {
+        var gameStatus = new GameStatus(15, 5);
+        int center = 7 * 15 + 7;
+        gameStatus.makeMove(center, GameFrame.CROSS);
+
+        long startTime = System.nanoTime();
+        int position = searchMove(gameStatus, GameFrame.CIRCLE);
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1000, "busca levou " + elapsedMillis + " ms");
+        assertTrue(Math.abs(position / 15 - 7) <= 2 && Math.abs(position % 15 - 7) <= 2, "jogada " + position);
+    }
+
+    /**
+     * Com três xis em linha no 7x7 com quatro em linha e uma única casa que completa a sequência (a outra ponta já
+     * está ocupada pelo círculo), o círculo bloqueia essa casa, tanto pela busca do servidor quanto pela sem prazo.
+     */
+    @Test
+    public void blocksThreatOfCompletingTheLine() throws InterruptedException {
+        var gameStatus = new GameStatus(7, 4);
+        int row = 3 * 7;
+        gameStatus.makeMove(row + 2, GameFrame.CROSS);
+        gameStatus.makeMove(row + 1, GameFrame.CIRCLE);
+        gameStatus.makeMove(row + 3, GameFrame.CROSS);
+        gameStatus.makeMove(48, GameFrame.CIRCLE);
+        gameStatus.makeMove(row + 4, GameFrame.CROSS);
+
+        assertEquals(row + 5, searchMove(gameStatus, GameFrame.CIRCLE));
+        assertEquals(row + 5, MinimaxSolver.forBoard(7, 4).chooseMove(gameStatus, GameFrame.CIRCLE));
+    }
+
+    /**
+     * Pede a jogada às threads de busca do servidor e aguarda a resposta.
+     * @param gameStatus O estado do jogo, que não é alterado.
+     * @param player Símbolo do jogador que vai jogar.
+     * @return A posição escolhida.
+     * @throws InterruptedException Se a thread for interrompida enquanto aguarda.
+     */
+    private static int searchMove(GameStatus gameStatus, char player) throws InterruptedException {
+        BlockingQueue<Integer> answer = new ArrayBlockingQueue<>(1);
+        MinimaxSolver.searchMove(gameStatus.copy(), player, answer::add);
+        Integer position = answer.poll(5, TimeUnit.SECONDS);
+        assertTrue(position != null, "a busca não respondeu");
+        return position;
+    }
+}
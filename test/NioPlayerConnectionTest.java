@@ -0,0 +1,124 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testa a leitura e o despacho das mensagens de uma conexão NIO que ainda não está em uma sala, como a de um jogador
+ * que aguarda o par no saguão ou, nos torneios, a próxima partida.
+ */
+public class NioPlayerConnectionTest {
+
+    /** Seletor em que o canal do servidor é registrado.*/
+    private Selector selector;
+
+    /** Socket de boas-vindas do servidor de teste.*/
+    private ServerSocketChannel listener;
+
+    /** Socket do cliente que envia as mensagens.*/
+    private Socket client;
+
+    /** Conexão do jogador, do lado do servidor, sem sala.*/
+    private NioPlayerConnection connection;
+
+    /**
+     * Conecta um cliente a um socket de boas-vindas local e registra o canal aceito em um seletor, como faz o
+     * servidor NIO.
+     * @throws IOException Exceção de E/S que pode ocorrer ao abrir os sockets.
+     */
+    @BeforeEach
+    public void connect() throws IOException {
+        selector = Selector.open();
+        listener = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = new Socket(InetAddress.getLoopbackAddress(), listener.socket().getLocalPort());
+        client.setSoTimeout(2000);
+        SocketChannel channel = listener.accept();
+        channel.configureBlocking(false);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        connection = new NioPlayerConnection(channel, key);
+    }
+
+    /**
+     * Fecha a conexão, o cliente, o socket de boas-vindas e o seletor.
+     * @throws IOException Exceção de E/S que pode ocorrer ao fechar os sockets.
+     */
+    @AfterEach
+    public void disconnect() throws IOException {
+        connection.close();
+        client.close();
+        listener.close();
+        selector.close();
+    }
+
+    /**
+     * Uma jogada e um chat em binário recebidos antes da formação da sala são descartados, sem encerrar a conexão.
+     */
+    @Test
+    public void discardsFramesBeforePairing() throws IOException {
+        send(BinaryProtocol.encodeMove(4), BinaryProtocol.encodeChat("oi"), BinaryProtocol.encodeMove(300));
+
+        assertTrue(readAll());
+        assertNull(connection.getRoom());
+
+        // A conexão continua ativa: a confirmação da negociação chega ao cliente.
+        connection.flush();
+        var reader = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.ISO_8859_1));
+        assertEquals(BinaryProtocol.NEGOTIATION_LINE, reader.readLine());
+    }
+
+    /**
+     * O término em binário recebido antes da formação da sala encerra a conexão, como no protocolo de texto.
+     */
+    @Test
+    public void endFrameBeforePairingClosesConnection() throws IOException {
+        send(BinaryProtocol.encodeMove(4), BinaryProtocol.encodeEnd());
+
+        assertFalse(readAll());
+    }
+
+    /**
+     * Envia a negociação do protocolo binário seguida dos quadros, em uma única escrita.
+     * @param frames Os quadros enviados depois da negociação.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a escrita.
+     */
+    private void send(byte[]... frames) throws IOException {
+        OutputStream out = client.getOutputStream();
+        out.write((BinaryProtocol.NEGOTIATION_LINE + "\n").getBytes(StandardCharsets.ISO_8859_1));
+        for (byte[] frame : frames) {
+            out.write(frame);
+        }
+        out.flush();
+    }
+
+    /**
+     * Lê, como o seletor, tudo o que o cliente enviou, até que a leitura encerre a conexão ou não haja mais dados.
+     * @return O resultado da última leitura: falso se a conexão deve ser encerrada.
+     * @throws IOException Exceção de E/S que pode ocorrer durante a leitura.
+     */
+    private boolean readAll() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        boolean open = true;
+        while (open && selector.select(500) > 0) {
+            selector.selectedKeys().clear();
+            open = connection.read(buffer);
+        }
+        return open;
+    }
+}
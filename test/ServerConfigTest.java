@@ -0,0 +1,76 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testa a leitura das dimensões do tabuleiro pela configuração do servidor.
+ */
+public class ServerConfigTest {
+
+    /**
+     * Os argumentos depois do modo têm precedência sobre as chaves, que substituem os valores padrão.
+     */
+    @Test
+    public void readsBoardFromArgumentsOrKeys() throws IOException {
+        ServerConfig fromArguments = ServerConfig.load(new String[] {"nio", "15", "5", "--board.size=9"});
+        assertEquals(15, fromArguments.getBoardSize());
+        assertEquals(5, fromArguments.getWinLength(15));
+
+        ServerConfig fromKeys = ServerConfig.load(new String[] {"nio", "--board.size=9", "--board.winLength=4"});
+        assertEquals(9, fromKeys.getBoardSize());
+        assertEquals(4, fromKeys.getWinLength(9));
+
+        ServerConfig defaults = ServerConfig.load(new String[] {"nio"});
+        assertEquals(GameStatus.DEFAULT_SIZE, defaults.getBoardSize());
+        assertEquals(GameStatus.DEFAULT_WIN_LENGTH, defaults.getWinLength(GameStatus.DEFAULT_SIZE));
+    }
+
+    /**
+     * Dimensões que não são números são recusadas com a chave na mensagem.
+     */
+    @Test
+    public void rejectsNonNumericBoard() throws IOException {
+        ServerConfig config = ServerConfig.load(new String[] {"nio", "x", "y"});
+        var ex = assertThrows(IllegalArgumentException.class, config::getBoardSize);
+        assertEquals("Valor inválido para board.size: x", ex.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> config.getWinLength(3));
+    }
+
+    /**
+     * O adversário é reconhecido em qualquer posição depois do modo, sem ser lido como dimensão do tabuleiro, e sem
+     * ele vale a chave.
+     */
+    @Test
+    public void readsOpponentInAnyPosition() throws IOException {
+        ServerConfig alone = ServerConfig.load(new String[] {"nio", "ai"});
+        assertEquals(ServerConfig.OPPONENT_AI, alone.getOpponent());
+        assertEquals(GameStatus.DEFAULT_SIZE, alone.getBoardSize());
+
+        ServerConfig between = ServerConfig.load(new String[] {"nio", "7", "tournament", "4"});
+        assertEquals(ServerConfig.OPPONENT_TOURNAMENT, between.getOpponent());
+        assertEquals(7, between.getBoardSize());
+        assertEquals(4, between.getWinLength(7));
+
+        assertEquals(ServerConfig.OPPONENT_AI,
+                ServerConfig.load(new String[] {"nio", "--server.opponent=ai"}).getOpponent());
+        assertEquals(ServerConfig.OPPONENT_PLAYERS, ServerConfig.load(new String[] {"nio", "3", "3"}).getOpponent());
+        ServerConfig unknown = ServerConfig.load(new String[] {"nio", "--server.opponent=robot"});
+        assertThrows(IllegalArgumentException.class, unknown::getOpponent);
+    }
+
+    /**
+     * Tabuleiros cujas posições não cabem na jogada larga do protocolo binário são recusados.
+     */
+    @Test
+    public void rejectsBoardsLargerThanWireFormat() {
+        GameStatus.checkDimensions(GameStatus.MAX_SIZE, 5);
+        assertThrows(IllegalArgumentException.class, () -> GameStatus.checkDimensions(GameStatus.MAX_SIZE + 1, 5));
+
+        // A última posição do maior tabuleiro aceito ainda volta intacta do quadro da jogada.
+        int lastPosition = GameStatus.MAX_SIZE * GameStatus.MAX_SIZE - 1;
+        assertEquals(lastPosition, BinaryProtocol.decodeMove(ByteBuffer.wrap(BinaryProtocol.encodeMove(lastPosition))));
+    }
+}